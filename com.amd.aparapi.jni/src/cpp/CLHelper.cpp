@@ -40,6 +40,7 @@
 #include "CLHelper.h"
 #include "List.h"
 #include <map>
+#include <string>
 
 void setMap(std::map<cl_int, const char*>& errorMap) {
    errorMap[CL_SUCCESS]                         = "success";
@@ -141,6 +142,54 @@ cl_program CLHelper::compile(JNIEnv *jenv, cl_context context, size_t deviceCoun
    return(program);
 }
 
+/**
+ * Create and build a program from a binary previously returned by getBinary() for the same device.
+ *
+ * The driver may reject the binary (CL_INVALID_BINARY) for example after a driver update, in which case we return NULL and the 
+ * caller should build from source.
+ */
+cl_program CLHelper::createProgramWithBinary(JNIEnv *jenv, cl_context context, cl_device_id deviceId, jbyteArray binary, cl_int *status){
+   size_t binarySize = jenv->GetArrayLength(binary);
+   unsigned char *binaryBytes = new unsigned char[binarySize];
+   jenv->GetByteArrayRegion(binary, 0, binarySize, (jbyte*)binaryBytes);
+   const unsigned char *binaries[] = { binaryBytes };
+   cl_int binaryStatus = CL_SUCCESS;
+   cl_program program = clCreateProgramWithBinary(context, 1, &deviceId, &binarySize, binaries, &binaryStatus, status);
+   delete []binaryBytes;
+   if (*status == CL_SUCCESS && binaryStatus != CL_SUCCESS){
+      *status = binaryStatus;
+   }
+   if (*status == CL_SUCCESS){
+      // Binaries still have to be 'built', but this skips the compiler
+      *status = clBuildProgram(program, 1, &deviceId, NULL, NULL, NULL);
+   }
+   if (*status != CL_SUCCESS && program != NULL){
+      clReleaseProgram(program);
+      program = NULL;
+   }
+   return(program);
+}
+
+/**
+ * Return the binary (from clGetProgramInfo(CL_PROGRAM_BINARIES)) of a program built for a single device.
+ */
+jbyteArray CLHelper::getBinary(JNIEnv *jenv, cl_program program, cl_int *status){
+   jbyteArray jbinary = NULL;
+   size_t binarySize = 0;
+   *status = clGetProgramInfo(program, CL_PROGRAM_BINARY_SIZES, sizeof(binarySize), &binarySize, NULL);
+   if (*status == CL_SUCCESS && binarySize > 0){
+      unsigned char *binaryBytes = new unsigned char[binarySize];
+      unsigned char *binaries[] = { binaryBytes };
+      *status = clGetProgramInfo(program, CL_PROGRAM_BINARIES, sizeof(binaries), binaries, NULL);
+      if (*status == CL_SUCCESS){
+         jbinary = jenv->NewByteArray(binarySize);
+         jenv->SetByteArrayRegion(jbinary, 0, binarySize, (jbyte*)binaryBytes);
+      }
+      delete []binaryBytes;
+   }
+   return jbinary;
+}
+
 jstring CLHelper::getExtensions(JNIEnv *jenv, cl_device_id deviceId, cl_int *status){
    jstring jextensions = NULL;
    size_t retvalsize = 0;
@@ -156,4 +205,37 @@ jstring CLHelper::getExtensions(JNIEnv *jenv, cl_device_id deviceId, cl_int *sta
    return jextensions;
 }
 
+static void appendInfo(std::string &identity, cl_int *status, char *info, size_t size){
+   if (*status == CL_SUCCESS){
+      identity.append(info, strnlen(info, size));
+   }
+   identity.append("|");
+}
+
+/**
+ * Describe the platform, device and driver well enough that a program binary built for one identity can be reused by 
+ * any device with the same identity.
+ */
+jstring CLHelper::getDeviceIdentity(JNIEnv *jenv, cl_device_id deviceId, cl_int *status){
+   std::string identity;
+   char info[1024];
+   cl_platform_id platformId = NULL;
+   *status = clGetDeviceInfo(deviceId, CL_DEVICE_PLATFORM, sizeof(platformId), &platformId, NULL);
+   if (*status == CL_SUCCESS){
+      *status = clGetPlatformInfo(platformId, CL_PLATFORM_VENDOR, sizeof(info), info, NULL);
+      appendInfo(identity, status, info, sizeof(info));
+      *status = clGetPlatformInfo(platformId, CL_PLATFORM_VERSION, sizeof(info), info, NULL);
+      appendInfo(identity, status, info, sizeof(info));
+   }
+   *status = clGetDeviceInfo(deviceId, CL_DEVICE_VENDOR, sizeof(info), info, NULL);
+   appendInfo(identity, status, info, sizeof(info));
+   *status = clGetDeviceInfo(deviceId, CL_DEVICE_NAME, sizeof(info), info, NULL);
+   appendInfo(identity, status, info, sizeof(info));
+   *status = clGetDeviceInfo(deviceId, CL_DEVICE_VERSION, sizeof(info), info, NULL);
+   appendInfo(identity, status, info, sizeof(info));
+   *status = clGetDeviceInfo(deviceId, CL_DRIVER_VERSION, sizeof(info), info, NULL);
+   appendInfo(identity, status, info, sizeof(info));
+   return jenv->NewStringUTF(identity.c_str());
+}
+
 
@@ -583,7 +583,22 @@ void updateWriteEvents(JNIEnv* jenv, JNIContext* jniContext, KernelArg* arg, int
       jniContext->writeEventArgs[writeEventCount] = argIdx;
    }
 
-   if(arg->isArray()) {
+   jintArray dirtyRanges = (arg->isArray() && arg->isExplicit() && arg->isExplicitWrite()) ? arg->getDirtyRanges(jenv) : NULL;
+   if(dirtyRanges != NULL) {
+      // only the parts put since the last execution, the queue is in order so only the last write needs an event
+      jsize count = jenv->GetArrayLength(dirtyRanges);
+      jint* ranges = jenv->GetIntArrayElements(dirtyRanges, NULL);
+      for (jsize i = 0; (i < count) && (status == CL_SUCCESS); i += 2) {
+         if (config->isVerbose()){
+            fprintf(stderr, "explicitly writing %d bytes at %d of %s\n", ranges[i + 1], ranges[i], arg->name);
+         }
+         status = clEnqueueWriteBuffer(jniContext->commandQueue, arg->arrayBuffer->mem, CL_FALSE, ranges[i], 
+            ranges[i + 1], ((char*)arg->arrayBuffer->addr) + ranges[i], 0, NULL, 
+            ((i + 2) < count) ? NULL : &(jniContext->writeEvents[writeEventCount]));
+      }
+      jenv->ReleaseIntArrayElements(dirtyRanges, ranges, JNI_ABORT);
+      jenv->DeleteLocalRef(dirtyRanges);
+   } else if(arg->isArray()) {
       status = clEnqueueWriteBuffer(jniContext->commandQueue, arg->arrayBuffer->mem, CL_FALSE, 0, 
          arg->arrayBuffer->lengthInBytes, arg->arrayBuffer->addr, 0, NULL, &(jniContext->writeEvents[writeEventCount]));
    } else if(arg->isAparapiBuffer()) {
@@ -747,6 +762,121 @@ int processArgs(JNIEnv* jenv, JNIContext* jniContext, int& argPos, int& writeEve
    return status;
 }
 
+/**
+ * enqueues a single execution of the current kernel
+ *
+ * @param jniContext the context with the arguements
+ * @param range the range that the kernel is running over
+ * @param passid the value given to the 'secret' passid arg
+ * @param launch the number of executions enqueued since the arguements were written, only the first waits for the writes
+ *        and each later one must have released the event of the one before it (see releaseExecuteEvent)
+ * @param argPos the number of arguments we passed to the kernel
+ * @param writeEventCount the number of arguement that will be updated
+ *
+ * @throws CLException
+ */
+void enqueuePass(JNIContext* jniContext, Range& range, int passid, int launch, int argPos, int writeEventCount){
+   cl_int status = CL_SUCCESS;
+
+   //size_t offset = 1; // (size_t)((range.globalDims[0]/jniContext->deviceIdc)*dev);
+   status = clSetKernelArg(jniContext->kernel, argPos, sizeof(passid), &(passid));
+   if (status != CL_SUCCESS) throw CLException(status, "clSetKernelArg() (passid)");
+
+   // wait for this event count
+   int writeCount = 0;
+   // list of events to wait for
+   cl_event* writeEvents = NULL;
+
+
+
+   // -----------
+   // fix for Mac OSX CPU driver (and possibly others) 
+   // which fail to give correct maximum work group info
+   // while using clGetDeviceInfo
+   // see: http://www.openwall.com/lists/john-dev/2012/04/10/4
+   cl_uint max_group_size[3];
+   status = clGetKernelWorkGroupInfo(jniContext->kernel,
+                                     (cl_device_id)jniContext->deviceId,
+                                     CL_KERNEL_WORK_GROUP_SIZE,
+                                     sizeof(max_group_size),
+                                     &max_group_size, NULL);
+   
+   if (status != CL_SUCCESS) {
+      CLException(status, "clGetKernelWorkGroupInfo()").printError();
+   } else {
+      range.localDims[0] = std::min((cl_uint)range.localDims[0], max_group_size[0]);
+   }
+   // ------ end fix
+
+     
+   // only the first launch depends on write enqueues
+   // we don't block and we populate the executeEvents
+   if (launch == 0) {
+      writeCount = writeEventCount;
+      if(writeEventCount > 0) {
+         writeEvents = jniContext->writeEvents;
+      }
+   }
+
+   status = clEnqueueNDRangeKernel(
+         jniContext->commandQueue,
+         jniContext->kernel,
+         range.dims,
+         range.offsets,
+         range.globalDims,
+         range.localDims,
+         writeCount,
+         writeEvents,
+         &jniContext->executeEvents[0]);
+
+   if (status != CL_SUCCESS) {
+
+      for(int i = 0; i<range.dims;i++) {
+         fprintf(stderr, "after clEnqueueNDRangeKernel, globalSize[%d] = %d, localSize[%d] = %d\n",
+               i, (int)range.globalDims[i], i, (int)range.localDims[i]);
+      }
+      throw CLException(status, "clEnqueueNDRangeKernel()");
+   }
+
+   if(config->isTrackingOpenCLResources()){
+      executeEventList.add(jniContext->executeEvents[0],__LINE__, __FILE__);
+   }
+}
+
+/**
+ * releases the event of the last execution enqueued, before the next one is enqueued
+ *
+ * The command queue is in order, so the next execution does not need to wait for this one. We only block if asked to or
+ * if we need this execution's profile info.
+ *
+ * @param jniContext the context with the arguements
+ * @param wait true to wait for the last execution to complete
+ * @param profileInfo where to capture the last execution's profile info if profiling is enabled, or NULL
+ *
+ * @throws CLException
+ */
+void releaseExecuteEvent(JNIContext* jniContext, bool wait, ProfileInfo* profileInfo){
+   cl_int status = CL_SUCCESS;
+   bool profiling = (profileInfo != NULL) && config->isProfilingEnabled();
+
+   if (wait || profiling) {
+      status = clWaitForEvents(1, &jniContext->executeEvents[0]);
+      if (status != CL_SUCCESS) throw CLException(status, "clWaitForEvents() execute event");
+   }
+
+   if (profiling) {
+      status = profile(profileInfo, &jniContext->executeEvents[0], 1, NULL, jniContext->profileBaseTime);
+      if (status != CL_SUCCESS) throw CLException(status,"");
+   }
+
+   if (config->isTrackingOpenCLResources()) {
+      executeEventList.remove(jniContext->executeEvents[0],__LINE__, __FILE__);
+   }
+
+   status = clReleaseEvent(jniContext->executeEvents[0]);
+   if (status != CL_SUCCESS) throw CLException(status, "clReleaseEvent() execute event");
+}
+
 /**
  * enqueus the current kernel to run on opencl
  *
@@ -777,102 +907,46 @@ void enqueueKernel(JNIContext* jniContext, Range& range, int passes, int argPos,
    jniContext->passes = passes;
    jniContext->exec = new ProfileInfo[passes];
 
-   cl_int status = CL_SUCCESS;
    for (int passid=0; passid < passes; passid++) {
-
-      //size_t offset = 1; // (size_t)((range.globalDims[0]/jniContext->deviceIdc)*dev);
-      status = clSetKernelArg(jniContext->kernel, argPos, sizeof(passid), &(passid));
-      if (status != CL_SUCCESS) throw CLException(status, "clSetKernelArg() (passid)");
-
-      // wait for this event count
-      int writeCount = 0;
-      // list of events to wait for
-      cl_event* writeEvents = NULL;
-
-
-
-      // -----------
-      // fix for Mac OSX CPU driver (and possibly others) 
-      // which fail to give correct maximum work group info
-      // while using clGetDeviceInfo
-      // see: http://www.openwall.com/lists/john-dev/2012/04/10/4
-      cl_uint max_group_size[3];
-      status = clGetKernelWorkGroupInfo(jniContext->kernel,
-                                        (cl_device_id)jniContext->deviceId,
-                                        CL_KERNEL_WORK_GROUP_SIZE,
-                                        sizeof(max_group_size),
-                                        &max_group_size, NULL);
-      
-      if (status != CL_SUCCESS) {
-         CLException(status, "clGetKernelWorkGroupInfo()").printError();
-      } else {
-         range.localDims[0] = std::min((cl_uint)range.localDims[0], max_group_size[0]);
-      }
-      // ------ end fix
-
-        
-      // two options here due to passid
-      // there may be 1 or more passes
-      // enqueue depends on write enqueues 
-      // we don't block but and we populate the executeEvents
-      if (passid == 0) {
-
-         writeCount = writeEventCount;
-         if(writeEventCount > 0) {
-            writeEvents = jniContext->writeEvents;
-         }
-
-      // we are in some passid > 0 pass 
-      // maybe middle or last!
-      // we don't depend on write enqueues
-      // we block and do supply executeEvents 
-      } else {
-         //fprintf(stderr, "setting passid to %d of %d not first not last\n", passid, passes);
-         
-         status = clWaitForEvents(1, &jniContext->executeEvents[0]);
-         if (status != CL_SUCCESS) throw CLException(status, "clWaitForEvents() execute event");
-
-         if (config->isTrackingOpenCLResources()) {
-            executeEventList.remove(jniContext->executeEvents[0],__LINE__, __FILE__);
-         }
-
-         status = clReleaseEvent(jniContext->executeEvents[0]);
-         if (status != CL_SUCCESS) throw CLException(status, "clReleaseEvent() read event");
-
-         // We must capture any profile info for passid-1  so we must wait for the last execution to complete
-         if (passid == 1 && config->isProfilingEnabled()) {
-
-            // Now we can profile info for passid-1 
-            status = profile(&jniContext->exec[passid-1], &jniContext->executeEvents[0], 1, NULL, jniContext->profileBaseTime);
-            if (status != CL_SUCCESS) throw CLException(status,"");
-         }
-
+      if (passid > 0) {
+         // each pass completes before the next is enqueued, we capture the profile info of the first
+         releaseExecuteEvent(jniContext, true, (passid == 1) ? &jniContext->exec[0] : NULL);
       }
+      enqueuePass(jniContext, range, passid, passid, argPos, writeEventCount);
+   }
+}
 
-      status = clEnqueueNDRangeKernel(
-            jniContext->commandQueue,
-            jniContext->kernel,
-            range.dims,
-            range.offsets,
-            range.globalDims,
-            range.localDims,
-            writeCount,
-            writeEvents,
-            &jniContext->executeEvents[0]);
-
-      if (status != CL_SUCCESS) {
-
-         for(int i = 0; i<range.dims;i++) {
-            fprintf(stderr, "after clEnqueueNDRangeKernel, globalSize[%d] = %d, localSize[%d] = %d\n",
-                  i, (int)range.globalDims[i], i, (int)range.localDims[i]);
-         }
-         throw CLException(status, "clEnqueueNDRangeKernel()");
-      }
+/**
+ * enqueues one execution of the current kernel for each of a batch of ranges, back to back
+ *
+ * Execution i is given a passid of firstPassId+i, so the kernel can select its arguements for each range with getPassId()
+ *
+ * We don't wait for one execution before enqueueing the next (unless we are profiling), the in order queue runs them in
+ * turn and waitForReadEvents() waits once for the last.
+ *
+ * @param jniContext the context with the arguements
+ * @param ranges the ranges to execute the kernel over
+ * @param count the number of ranges
+ * @param firstPassId the passid of the first execution
+ * @param argPos the number of arguments we passed to the kernel
+ * @param writeEventCount the number of arguement that will be updated
+ *
+ * @throws CLException
+ */
+void enqueueBatch(JNIContext* jniContext, Range** ranges, int count, int firstPassId, int argPos, int writeEventCount){
+   // delete the last set
+   if (jniContext->exec) {
+      delete jniContext->exec;
+      jniContext->exec = NULL;
+   } 
+   jniContext->passes = count;
+   jniContext->exec = new ProfileInfo[count];
 
-      if(config->isTrackingOpenCLResources()){
-         executeEventList.add(jniContext->executeEvents[0],__LINE__, __FILE__);
+   for (int launch=0; launch < count; launch++) {
+      if (launch > 0) {
+         releaseExecuteEvent(jniContext, false, &jniContext->exec[launch-1]);
       }
-    
+      enqueuePass(jniContext, *ranges[launch], firstPassId + launch, launch, argPos, writeEventCount);
    }
 }
 
@@ -1049,14 +1123,25 @@ void checkEvents(JNIEnv* jenv, JNIContext* jniContext, int writeEventCount) {
    jniContext->firstRun = false;
 }
 
-JNI_JAVA(jint, KernelRunnerJNI, runKernelJNI)
-   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jobject _range, jboolean needSync, jint passes) {
-      if (config == NULL){
-         config = new Config(jenv);
-      }
-
-      Range range(jenv, _range);
-
+/**
+ * write the arguements, execute the kernel and read back the results
+ *
+ * Either a single range is executed for the given number of passes, or (passes == 1) each of a batch of ranges is
+ * executed once, execution i being given a passid of firstPassId+i. Either way the arguements are written once and
+ * read back once.
+ *
+ * @param jenv the java environment
+ * @param jobj the KernelRunner
+ * @param jniContextHandle the context we got from Java
+ * @param ranges the ranges to execute, with offsets if only part of a range is being executed
+ * @param count the number of ranges, 1 unless passes == 1
+ * @param needSync true if the array refs have changed
+ * @param passes the number of passes
+ * @param firstPassId the passid of the first execution of a batch
+ *
+ * @return CL_SUCCESS or the status of the first OpenCL call which failed
+ */
+jint runKernel(JNIEnv *jenv, jobject jobj, jlong jniContextHandle, Range** ranges, jint count, jboolean needSync, jint passes, jint firstPassId) {
       cl_int status = CL_SUCCESS;
       JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
 
@@ -1088,9 +1173,13 @@ JNI_JAVA(jint, KernelRunnerJNI, runKernelJNI)
       try {
          int writeEventCount = 0;
          processArgs(jenv, jniContext, argPos, writeEventCount);
-         enqueueKernel(jniContext, range, passes, argPos, writeEventCount);
+         if (passes > 1) {
+            enqueueKernel(jniContext, *ranges[0], passes, argPos, writeEventCount);
+         } else {
+            enqueueBatch(jniContext, ranges, count, firstPassId, argPos, writeEventCount);
+         }
          int readEventCount = getReadEvents(jenv, jniContext);
-         waitForReadEvents(jniContext, readEventCount, passes);
+         waitForReadEvents(jniContext, readEventCount, jniContext->passes);
          checkEvents(jenv, jniContext, writeEventCount);
       }
       catch(CLException& cle) {
@@ -1106,6 +1195,56 @@ JNI_JAVA(jint, KernelRunnerJNI, runKernelJNI)
       return(status);
    }
 
+JNI_JAVA(jint, KernelRunnerJNI, runKernelJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jobject _range, jboolean needSync, jint passes) {
+      if (config == NULL){
+         config = new Config(jenv);
+      }
+
+      Range range(jenv, _range);
+      Range* ranges[] = {&range};
+
+      return(runKernel(jenv, jobj, jniContextHandle, ranges, 1, needSync, passes, 0));
+   }
+
+JNI_JAVA(jint, KernelRunnerJNI, runKernelPartitionJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jobject _range, jboolean needSync, jint globalOffset) {
+      if (config == NULL){
+         config = new Config(jenv);
+      }
+
+      // get_global_id(0) is offset so the work items see the ids they would have in the whole range
+      Range range(jenv, _range);
+      range.offsets[0] = globalOffset;
+      Range* ranges[] = {&range};
+
+      return(runKernel(jenv, jobj, jniContextHandle, ranges, 1, needSync, 1, 0));
+   }
+
+JNI_JAVA(jint, KernelRunnerJNI, runKernelBatchJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jobjectArray _ranges, jboolean needSync, jint firstPassId) {
+      if (config == NULL){
+         config = new Config(jenv);
+      }
+
+      int count = jenv->GetArrayLength(_ranges);
+      Range** ranges = new Range*[count];
+      for (int i = 0; i < count; i++) {
+         jobject rangeObject = jenv->GetObjectArrayElement(_ranges, i);
+         ranges[i] = new Range(jenv, rangeObject);
+         jenv->DeleteLocalRef(rangeObject);
+      }
+
+      // The arguements are written once, the executions are enqueued back to back and we read back once
+      jint status = runKernel(jenv, jobj, jniContextHandle, ranges, count, needSync, 1, firstPassId);
+
+      for (int i = 0; i < count; i++) {
+         delete ranges[i];
+      }
+      delete[] ranges;
+      return(status);
+   }
+
 
 // we return the JNIContext from here 
 JNI_JAVA(jlong, KernelRunnerJNI, initJNI)
@@ -1168,6 +1307,32 @@ void writeProfile(JNIEnv* jenv, JNIContext* jniContext) {
    delete []fnameStr;
 }
 
+/**
+ * Once jniContext->program has been built, create the kernel and command queue
+ */
+void createKernelAndQueue(JNIEnv *jenv, JNIContext* jniContext) {
+   cl_int status = CL_SUCCESS;
+
+   jniContext->kernel = clCreateKernel(jniContext->program, "run", &status);
+   if(status != CL_SUCCESS) throw CLException(status,"clCreateKernel()");
+
+   cl_command_queue_properties queue_props = 0;
+   if (config->isProfilingEnabled()) {
+      queue_props |= CL_QUEUE_PROFILING_ENABLE;
+   }
+
+   jniContext->commandQueue = clCreateCommandQueue(jniContext->context, (cl_device_id)jniContext->deviceId,
+         queue_props,
+         &status);
+   if(status != CL_SUCCESS) throw CLException(status,"clCreateCommandQueue()");
+
+   commandQueueList.add(jniContext->commandQueue, __LINE__, __FILE__);
+
+   if (config->isProfilingCSVEnabled()) {
+      writeProfile(jenv, jniContext);
+   }
+}
+
 JNI_JAVA(jlong, KernelRunnerJNI, buildProgramJNI)
    (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jstring source) {
       JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
@@ -1182,33 +1347,67 @@ JNI_JAVA(jlong, KernelRunnerJNI, buildProgramJNI)
 
          if(status == CL_BUILD_PROGRAM_FAILURE) throw CLException(status, "");
 
-         jniContext->kernel = clCreateKernel(jniContext->program, "run", &status);
-         if(status != CL_SUCCESS) throw CLException(status,"clCreateKernel()");
+         createKernelAndQueue(jenv, jniContext);
+      } catch(CLException& cle) {
+         cle.printError();
+         return 0;
+      }
+      
 
-         cl_command_queue_properties queue_props = 0;
-         if (config->isProfilingEnabled()) {
-            queue_props |= CL_QUEUE_PROFILING_ENABLE;
-         }
+      return((jlong)jniContext);
+   }
 
-         jniContext->commandQueue = clCreateCommandQueue(jniContext->context, (cl_device_id)jniContext->deviceId,
-               queue_props,
-               &status);
-         if(status != CL_SUCCESS) throw CLException(status,"clCreateCommandQueue()");
+JNI_JAVA(jlong, KernelRunnerJNI, buildProgramFromBinaryJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jbyteArray binary) {
+      JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
+      if (jniContext == NULL){
+         return 0;
+      }
 
-         commandQueueList.add(jniContext->commandQueue, __LINE__, __FILE__);
+      try {
+         cl_int status = CL_SUCCESS;
+
+         jniContext->program = CLHelper::createProgramWithBinary(jenv, jniContext->context, jniContext->deviceId, binary, &status);
 
-         if (config->isProfilingCSVEnabled()) {
-            writeProfile(jenv, jniContext);
+         // Not an error as such, the caller will build from source instead
+         if(status != CL_SUCCESS){
+            if (config->isVerbose()){
+               fprintf(stderr, "cached program binary rejected: %s\n", CLHelper::errString(status));
+            }
+            return 0;
          }
+
+         createKernelAndQueue(jenv, jniContext);
       } catch(CLException& cle) {
          cle.printError();
          return 0;
       }
-      
 
       return((jlong)jniContext);
    }
 
+JNI_JAVA(jbyteArray, KernelRunnerJNI, getProgramBinaryJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle) {
+      jbyteArray jbinary = NULL;
+      JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
+      if (jniContext != NULL && jniContext->program != NULL){
+         cl_int status = CL_SUCCESS;
+         jbinary = CLHelper::getBinary(jenv, jniContext->program, &status);
+      }
+      return jbinary;
+   }
+
+JNI_JAVA(jstring, KernelRunnerJNI, getDeviceIdentityJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle) {
+      jstring jidentity = NULL;
+      JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
+      if (jniContext != NULL){
+         cl_int status = CL_SUCCESS;
+         jidentity = CLHelper::getDeviceIdentity(jenv, jniContext->deviceId, &status);
+      }
+      return jidentity;
+   }
+
 
 // this is called once when the arg list is first determined for this kernel
 JNI_JAVA(jint, KernelRunnerJNI, setArgsJNI)
@@ -1431,6 +1630,66 @@ JNI_JAVA(jint, KernelRunnerJNI, getJNI)
       return 0;
    }
 
+JNI_JAVA(jint, KernelRunnerJNI, getRangeJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle, jobject buffer, jint offsetInBytes, jint lengthInBytes) {
+      if (config == NULL){
+         config = new Config(jenv);
+      }
+      cl_int status = CL_SUCCESS;
+      JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
+      if (jniContext != NULL){
+         KernelArg *arg = getArgForBuffer(jenv, jniContext, buffer);
+         if (arg != NULL && arg->isArray()){
+            if (config->isVerbose()){
+               fprintf(stderr, "explicitly reading %d bytes at %d of buffer %s\n", lengthInBytes, offsetInBytes, arg->name);
+            }
+            arg->pin(jenv);
+
+            try {
+               status = clEnqueueReadBuffer(jniContext->commandQueue, arg->arrayBuffer->mem, 
+                                            CL_FALSE, offsetInBytes, lengthInBytes,
+                                            ((char*)arg->arrayBuffer->addr) + offsetInBytes, 0, NULL, 
+                                            &jniContext->readEvents[0]);
+               if (status != CL_SUCCESS) throw CLException(status, "clEnqueueReadBuffer()");
+
+               status = clWaitForEvents(1, jniContext->readEvents);
+               if (status != CL_SUCCESS) throw CLException(status, "clWaitForEvents");
+
+               if (config->isProfilingEnabled()) {
+                  status = profile(&arg->arrayBuffer->read, &jniContext->readEvents[0], 0,
+                                   arg->name, jniContext->profileBaseTime);
+                  if (status != CL_SUCCESS) throw CLException(status, "profile ");
+               }
+
+               status = clReleaseEvent(jniContext->readEvents[0]);
+               if (status != CL_SUCCESS) throw CLException(status, "clReleaseEvent() read event");
+
+               // the elements read have changed so we commit
+               arg->unpin(jenv);
+
+            //something went wrong print the error and exit
+            } catch(CLException& cle) {
+               cle.printError();
+               return status;
+            }
+         } else {
+            if (config->isVerbose()){
+               fprintf(stderr, "attempt to request to get part of a buffer that is not an array referenced from kernel\n");
+            }
+         }
+      }
+      return 0;
+   }
+
+JNI_JAVA(jlong, KernelRunnerJNI, getProfileBaseTimeJNI)
+   (JNIEnv *jenv, jobject jobj, jlong jniContextHandle) {
+      JNIContext* jniContext = JNIContext::getJNIContext(jniContextHandle);
+      if (jniContext == NULL){
+         return 0;
+      }
+      return (jlong)jniContext->profileBaseTime;
+   }
+
 JNI_JAVA(jobject, KernelRunnerJNI, getProfileInfoJNI)
    (JNIEnv *jenv, jobject jobj, jlong jniContextHandle) {
       if (config == NULL){
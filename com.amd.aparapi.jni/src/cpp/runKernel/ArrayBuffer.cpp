@@ -50,11 +50,15 @@ ArrayBuffer::ArrayBuffer():
    }
 
 void ArrayBuffer::unpinAbort(JNIEnv *jenv){
-   jenv->ReleasePrimitiveArrayCritical((jarray)javaArray, addr,JNI_ABORT);
+   if (isPinned){
+      jenv->ReleasePrimitiveArrayCritical((jarray)javaArray, addr,JNI_ABORT);
+   }
    isPinned = JNI_FALSE;
 }
 void ArrayBuffer::unpinCommit(JNIEnv *jenv){
-   jenv->ReleasePrimitiveArrayCritical((jarray)javaArray, addr, 0);
+   if (isPinned){
+      jenv->ReleasePrimitiveArrayCritical((jarray)javaArray, addr, 0);
+   }
    isPinned = JNI_FALSE;
 }
 void ArrayBuffer::pin(JNIEnv *jenv){
@@ -62,3 +66,9 @@ void ArrayBuffer::pin(JNIEnv *jenv){
    addr = jenv->GetPrimitiveArrayCritical((jarray)javaArray,&isCopy);
    isPinned = JNI_TRUE;
 }
+// a direct buffer's memory is outside the java heap and never moves, so there is nothing to pin or release
+void ArrayBuffer::pinDirect(JNIEnv *jenv){
+   addr = jenv->GetDirectBufferAddress(javaArray);
+   isCopy = JNI_FALSE;
+   isPinned = JNI_FALSE;
+}
@@ -59,6 +59,7 @@ class ArrayBuffer{
       void unpinAbort(JNIEnv *jenv);
       void unpinCommit(JNIEnv *jenv);
       void pin(JNIEnv *jenv);
+      void pinDirect(JNIEnv *jenv);
 };
 
 #endif // ARRAYBUFFER_H
@@ -13,6 +13,7 @@ jfieldID KernelArg::typeFieldID=0;
 jfieldID KernelArg::javaArrayFieldID=0; 
 jfieldID KernelArg::sizeInBytesFieldID=0;
 jfieldID KernelArg::numElementsFieldID=0; 
+jfieldID KernelArg::dirtyRangesFieldID=0; 
 
 KernelArg::KernelArg(JNIEnv *jenv, JNIContext *jniContext, jobject argObj):
    jniContext(jniContext),
@@ -25,6 +26,7 @@ KernelArg::KernelArg(JNIEnv *jenv, JNIContext *jniContext, jobject argObj):
          javaArrayFieldID = JNIHelper::GetFieldID(jenv, c, "javaArray", "Ljava/lang/Object;");
          sizeInBytesFieldID = JNIHelper::GetFieldID(jenv, c, "sizeInBytes", "I");
          numElementsFieldID = JNIHelper::GetFieldID(jenv, c, "numElements", "I");
+         dirtyRangesFieldID = JNIHelper::GetFieldID(jenv, c, "dirtyRanges", "[I");
          argClazz  = c;
       }
       type = jenv->GetIntField(argObj, typeFieldID);
@@ -23,6 +23,7 @@ class KernelArg{
       static jfieldID typeFieldID; 
       static jfieldID sizeInBytesFieldID;
       static jfieldID numElementsFieldID;
+      static jfieldID dirtyRangesFieldID;
 
       const char* getTypeName();
 
@@ -99,12 +100,19 @@ class KernelArg{
          }
       }
       void pin(JNIEnv *jenv){
-         arrayBuffer->pin(jenv);
+         if (isDirectBuffer()){
+            arrayBuffer->pinDirect(jenv);
+         }else{
+            arrayBuffer->pin(jenv);
+         }
       }
 
       int isArray(){
          return(type&com_amd_aparapi_internal_jni_KernelRunnerJNI_ARG_ARRAY);
       }
+      int isDirectBuffer(){
+         return(type&com_amd_aparapi_internal_jni_KernelRunnerJNI_ARG_DIRECT_BUFFER);
+      }
       int isReadByKernel(){
          return(type&com_amd_aparapi_internal_jni_KernelRunnerJNI_ARG_READ);
       }
@@ -180,6 +188,10 @@ class KernelArg{
       void syncJavaArrayLength(JNIEnv* jenv){
          arrayBuffer->length = jenv->GetIntField(javaArg, numElementsFieldID);
       }
+      // the offset and length in bytes of each part of the array an explicit write transfers, or NULL for all of it
+      jintArray getDirtyRanges(JNIEnv* jenv){
+         return((jintArray)jenv->GetObjectField(javaArg, dirtyRangesFieldID));
+      }
       void clearExplicitBufferBit(JNIEnv* jenv){
          type &= ~com_amd_aparapi_internal_jni_KernelRunnerJNI_ARG_EXPLICIT_WRITE;
          jenv->SetIntField(javaArg, typeFieldID,type );
@@ -100,6 +100,164 @@ public class Config extends ConfigJNI{
     */
    public static final boolean enableShowGeneratedOpenCL = Boolean.getBoolean(propPkgName + ".enableShowGeneratedOpenCL");
 
+   /**
+    * Allows the user to disable the chunked JTP dispatch used for kernels which never call <code>localBarrier()</code>.
+    *
+    * When disabled every JTP kernel is executed using one thread per work item of a group, as kernels which use barriers are.
+    *
+    *  Usage -Dcom.amd.aparapi.disableJTPChunking={true|false}
+    *
+    */
+   public static final boolean disableJTPChunking = Boolean.getBoolean(propPkgName + ".disableJTPChunking");
+
+   /**
+    * Allows the user to disable the per kernel class copies of the JTP work item loop, all kernels then share one loop.
+    *
+    *  Usage -Dcom.amd.aparapi.disableJTPLoopSpecialization={true|false}
+    *
+    *  @see com.amd.aparapi.internal.kernel.KernelLoop
+    */
+   public static final boolean disableJTPLoopSpecialization = Boolean.getBoolean(propPkgName + ".disableJTPLoopSpecialization");
+
+   /**
+    * Allows the user to disable the fusion of consecutive element-wise JTP stages of a <code>KernelSequence</code>.
+    *
+    * When disabled each stage is executed over the whole range before the next stage starts.
+    *
+    *  Usage -Dcom.amd.aparapi.disableJTPFusion={true|false}
+    *
+    *  @see com.amd.aparapi.KernelSequence#getFusionGroups()
+    */
+   public static final boolean disableJTPFusion = Boolean.getBoolean(propPkgName + ".disableJTPFusion");
+
+   /**
+    * Allows the user to disable tiling, a kernel executing in OpenCL whose arrays don't fit on its device then reverts to JTP.
+    *
+    *  Usage -Dcom.amd.aparapi.disableTiling={true|false}
+    *
+    *  @see com.amd.aparapi.TiledKernel
+    */
+   public static final boolean disableTiling = Boolean.getBoolean(propPkgName + ".disableTiling");
+
+   /**
+    * Allows the user to request that JTP kernels which never call <code>localBarrier()</code> are executed as fork/join tasks
+    * with work stealing, rather than as one fixed chunk of groups per thread.
+    *
+    * Useful for kernels whose work items have very uneven cost (for example Mandelbrot), kernels which use
+    * <code>localBarrier()</code> are unaffected.
+    *
+    *  Usage -Dcom.amd.aparapi.enableJTPWorkStealing={true|false}
+    *
+    */
+   public static final boolean enableJTPWorkStealing = Boolean.getBoolean(propPkgName + ".enableJTPWorkStealing");
+
+   /**
+    * Allows the user to request that the work items of JTP kernels which call <code>localBarrier()</code> are executed by
+    * virtual threads (when the JVM provides them) so that several work groups can be in flight at once.
+    *
+    *  Usage -Dcom.amd.aparapi.enableJTPVirtualThreads={true|false}
+    *
+    *  @see com.amd.aparapi.Config#jtpGroupsInFlight
+    */
+   public static final boolean enableJTPVirtualThreads = Boolean.getBoolean(propPkgName + ".enableJTPVirtualThreads");
+
+   /**
+    * Allows the user to set how many work groups of a JTP kernel which calls <code>localBarrier()</code> may execute at once
+    * when <code>enableJTPVirtualThreads</code> is set. Each group in flight needs one thread per work item.
+    *
+    * Defaults to <code>jtpParallelism</code> if virtual threads are available and to 1 (one group at a time) otherwise.
+    *
+    *  Usage -Dcom.amd.aparapi.jtpGroupsInFlight=<number of groups>
+    *
+    */
+   public static final int jtpGroupsInFlight = Integer.getInteger(propPkgName + ".jtpGroupsInFlight", 0);
+
+   /**
+    * Allows the user to set the number of threads shared by all kernels executing in JTP mode, defaults to the number of cores.
+    *
+    * Kernels which use <code>localBarrier()</code> need one thread per work item of a group and are not limited by this value.
+    *
+    *  Usage -Dcom.amd.aparapi.jtpParallelism=<number of threads>
+    *
+    *  @see com.amd.aparapi.internal.kernel.JTPScheduler
+    */
+   public static final int jtpParallelism = Integer.getInteger(propPkgName + ".jtpParallelism", Runtime.getRuntime()
+         .availableProcessors());
+
+   /**
+    * Allows the user to turn off the process wide cache of parsed kernel classes and entrypoints, so that every kernel
+    * instance parses and analyzes its class again.
+    *
+    *  Usage -Dcom.amd.aparapi.disableModelCache={true|false}
+    *
+    *  @see com.amd.aparapi.internal.model.ModelCache
+    */
+   public static final boolean disableModelCache = Boolean.getBoolean(propPkgName + ".disableModelCache");
+
+   /**
+    * Allows the user to name a directory in which the generated OpenCL and the compiled program binaries of each kernel are
+    * kept between runs, so later runs on the same device and driver can skip code generation and the OpenCL compiler.
+    * 
+    * Entries are keyed by the kernel's class files and the device/driver, so a changed kernel or driver simply misses. The
+    * directory may be shared by concurrent processes and may be deleted at any time.
+    *
+    *  Usage -Dcom.amd.aparapi.programCacheDir=<directory>
+    *
+    *  @see com.amd.aparapi.internal.kernel.ProgramCache
+    */
+   public static final String programCacheDir = System.getProperty(propPkgName + ".programCacheDir");
+
+   /**
+    * Allows the user to request that every kernel which has more than one execution mode (see
+    * <code>Kernel.addExecutionModes()</code>) times each of its modes on its first executions and then executes in the
+    * fastest mode for the size of each range. Individual kernels can opt in with
+    * <code>Kernel.setAdaptiveExecutionMode(true)</code>.
+    *
+    *  Usage -Dcom.amd.aparapi.enableAdaptiveExecutionMode={true|false}
+    *
+    *  @see com.amd.aparapi.internal.kernel.AdaptiveModeSelector
+    */
+   public static final boolean enableAdaptiveExecutionMode = Boolean.getBoolean(propPkgName + ".enableAdaptiveExecutionMode");
+
+   /**
+    * Allows the user to set how many executions in its fastest mode an adaptive kernel makes before timing one of its other
+    * modes again (in case the fastest mode has changed, for example because the GPU is now busy). 0 disables re-probing.
+    *
+    *  Usage -Dcom.amd.aparapi.adaptiveProbeInterval=<number of executions>
+    *
+    */
+   public static final int adaptiveProbeInterval = Integer.getInteger(propPkgName + ".adaptiveProbeInterval", 100);
+
+   /**
+    * Allows the user to name a file in which the execution mode chosen for each kernel and range size is kept between runs,
+    * so adaptive kernels start in their fastest mode rather than timing each mode again.
+    *
+    *  Usage -Dcom.amd.aparapi.adaptiveModeFile=<file>
+    *
+    *  @see com.amd.aparapi.internal.kernel.AdaptiveModeSelector
+    */
+   public static final String adaptiveModeFile = System.getProperty(propPkgName + ".adaptiveModeFile");
+
+   /**
+    * Allows the user to request that kernels in an OpenCL mode start executing in JTP while their OpenCL program is prepared
+    * in the background, switching to OpenCL once it is ready. Individual kernels can opt in with
+    * <code>Kernel.setTieredExecution(true)</code>.
+    *
+    *  Usage -Dcom.amd.aparapi.enableTieredExecution={true|false}
+    *
+    */
+   public static final boolean enableTieredExecution = Boolean.getBoolean(propPkgName + ".enableTieredExecution");
+
+   /**
+    * Allows the user to request that OpenCL contexts are created one at a time, as they were before contexts on different
+    * devices were allowed to be created concurrently (see issue #68).
+    *
+    *  Usage -Dcom.amd.aparapi.enableSerialOpenCLInitialization={true|false}
+    *
+    */
+   public static final boolean enableSerialOpenCLInitialization = Boolean.getBoolean(propPkgName
+         + ".enableSerialOpenCLInitialization");
+
    // Pragma/OpenCL codegen related flags
    public static final boolean enableAtomic32 = Boolean.getBoolean(propPkgName + ".enableAtomic32");
 
@@ -197,6 +355,21 @@ public class Config extends ConfigJNI{
                + enableVerboseJNIOpenCLResourceTracking);
          System.out.println(propPkgName + ".enableShowGeneratedOpenCL{true|false}=" + enableShowGeneratedOpenCL);
          System.out.println(propPkgName + ".enableExecutionModeReporting{true|false}=" + enableExecutionModeReporting);
+         System.out.println(propPkgName + ".disableJTPChunking{true|false}=" + disableJTPChunking);
+         System.out.println(propPkgName + ".disableJTPLoopSpecialization{true|false}=" + disableJTPLoopSpecialization);
+         System.out.println(propPkgName + ".disableJTPFusion{true|false}=" + disableJTPFusion);
+         System.out.println(propPkgName + ".disableTiling{true|false}=" + disableTiling);
+         System.out.println(propPkgName + ".jtpParallelism{<number of threads>}=" + jtpParallelism);
+         System.out.println(propPkgName + ".enableJTPWorkStealing{true|false}=" + enableJTPWorkStealing);
+         System.out.println(propPkgName + ".enableJTPVirtualThreads{true|false}=" + enableJTPVirtualThreads);
+         System.out.println(propPkgName + ".disableModelCache{true|false}=" + disableModelCache);
+         System.out.println(propPkgName + ".programCacheDir{<directory>}=" + programCacheDir);
+         System.out.println(propPkgName + ".jtpGroupsInFlight{<number of groups>}=" + jtpGroupsInFlight);
+         System.out.println(propPkgName + ".enableAdaptiveExecutionMode{true|false}=" + enableAdaptiveExecutionMode);
+         System.out.println(propPkgName + ".adaptiveProbeInterval{<number of executions>}=" + adaptiveProbeInterval);
+         System.out.println(propPkgName + ".adaptiveModeFile{<file>}=" + adaptiveModeFile);
+         System.out.println(propPkgName + ".enableTieredExecution{true|false}=" + enableTieredExecution);
+         System.out.println(propPkgName + ".enableSerialOpenCLInitialization{true|false}=" + enableSerialOpenCLInitialization);
          System.out.println(propPkgName + ".enableInstructionDecodeViewer{true|false}=" + enableInstructionDecodeViewer);
          System.out.println(propPkgName
                + ".instructionListenerClassName{<class name which extends com.amd.aparapi.Config.InstructionListener>}="
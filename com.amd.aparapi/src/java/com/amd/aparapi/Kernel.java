@@ -38,6 +38,7 @@ under those regulations, please refer to the U.S. Bureau of Industry and Securit
 package com.amd.aparapi;
 
 import com.amd.aparapi.annotation.*;
+import com.amd.aparapi.device.*;
 import com.amd.aparapi.exception.*;
 import com.amd.aparapi.internal.kernel.*;
 import com.amd.aparapi.internal.model.ClassModel.ConstantPool.*;
@@ -458,6 +459,11 @@ public abstract class Kernel implements Cloneable {
 
    private KernelState kernelState = new KernelState();
 
+   /**
+    * Runs the executions requested by <code>executeAsync()</code>, one at a time and in order.
+    */
+   private JTPScheduler.Serial asyncExecutor = new JTPScheduler.Serial();
+
    /**
     * This class is for internal Kernel state management<p>
     * NOT INTENDED FOR USE BY USERS
@@ -1919,6 +1925,34 @@ public abstract class Kernel implements Cloneable {
       return (kernelRunner.getConversionTime());
    }
 
+   /**
+    * Determine how many executions of a tiered kernel ran in JTP while its OpenCL program was being prepared.
+    * @return The number of executions which ran in JTP rather than the requested OpenCL mode
+    * 
+    * @see #setTieredExecution(boolean)
+    */
+   public synchronized int getTieredJavaExecutions() {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      return (kernelRunner.getTieredJavaExecutions());
+   }
+
+   /**
+    * Wait until the OpenCL program of a tiered kernel has been prepared, so that the next execution uses OpenCL (or, if
+    * OpenCL could not be used, until the kernel has settled in JTP). Returns immediately if nothing is being prepared.
+    * 
+    * @return The Kernel instance (this) so we can chain calls
+    * @see #setTieredExecution(boolean)
+    */
+   public synchronized Kernel awaitTiered() {
+      if (kernelRunner != null) {
+         kernelRunner.awaitTiered();
+      }
+      return (this);
+   }
+
    /**
     * Start execution of <code>_range</code> kernels.
     * <p>
@@ -2025,9 +2059,174 @@ public abstract class Kernel implements Cloneable {
 
       }
 
+      if (adaptiveExecutionMode && (executionModes.size() > 1)) {
+         return (kernelRunner.executeAdaptive(_entrypoint, _range, _passes, executionModes));
+      }
       return (kernelRunner.execute(_entrypoint, _range, _passes));
    }
 
+   /**
+    * Execute the kernel once for each of <code>_ranges</code>, in order, with a single call.
+    * <p>
+    * This has the same effect as calling <code>execute(range)</code> for each range in turn, except that the execution for
+    * <code>_ranges.get(i)</code> sees <code>getPassId() == i</code>. A kernel which would otherwise be executed in a loop with a
+    * different offset each time can read its offset from an array indexed by <code>getPassId()</code> instead.
+    * <p>
+    * In OpenCL the arrays are transferred once and the executions are enqueued back to back, in JTP the executions are given to
+    * the thread pool as one job, so the per call overhead is paid once per batch rather than once per range.
+    * 
+    * @param _ranges the ranges to execute, in order
+    * @return The Kernel instance (this) so we can chain calls to put(arr).executeBatch(ranges).get(arr)
+    */
+   public Kernel executeBatch(List<Range> _ranges) {
+      return (executeBatch("run", _ranges));
+   }
+
+   /**
+    * Execute the given entrypoint once for each of <code>_ranges</code>, in order, with a single call.
+    * 
+    * @param _entrypoint is the name of the method we wish to use as the entrypoint to the kernel
+    * @param _ranges the ranges to execute, in order
+    * @return The Kernel instance (this) so we can chain calls to put(arr).executeBatch(ranges).get(arr)
+    * @see #executeBatch(List)
+    */
+   public synchronized Kernel executeBatch(String _entrypoint, List<Range> _ranges) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      return (kernelRunner.executeBatch(_entrypoint, _ranges));
+   }
+
+   /**
+    * Start execution of <code>_range</code> kernels without waiting for them to complete.
+    * <p>
+    * Equivalent to <code>executeAsync("run", _range, 1)</code>.
+    * 
+    * @param _range The number of Kernels that we would like to initiate.
+    * @return A future which completes (with this Kernel) once the results are available.
+    * 
+    * @see #executeAsync(String, Range, int)
+    */
+   public Future<Kernel> executeAsync(Range _range) {
+      return (executeAsync("run", _range, 1));
+   }
+
+   /**
+    * Start execution of <code>_passes</code> iterations of <code>_range</code> kernels without waiting for them to complete.
+    * <p>
+    * Equivalent to <code>executeAsync("run", _range, _passes)</code>.
+    * 
+    * @param _range The number of Kernels that we would like to initiate.
+    * @param _passes The number of passes to make
+    * @return A future which completes (with this Kernel) once the results are available.
+    * 
+    * @see #executeAsync(String, Range, int)
+    */
+   public Future<Kernel> executeAsync(Range _range, int _passes) {
+      return (executeAsync("run", _range, _passes));
+   }
+
+   /**
+    * Start execution of <code>_passes</code> iterations of <code>_range</code> kernels for the given entrypoint without waiting for 
+    * them to complete.
+    * <p>
+    * The execution is dispatched by Aparapi's scheduler rather than the calling thread (in JTP mode the work items are then run 
+    * by the scheduler as usual), so the caller can prepare the next batch of work, or start other kernels, whilst this one runs.
+    * Asynchronous executions of the same Kernel run one at a time in the order they were requested, executions of different 
+    * Kernels may be in flight at the same time.
+    * <p>
+    * The caller must not modify this Kernel's fields (or read or write its arrays) until the returned future completes. 
+    * Calling <code>dispose()</code> before then gives undefined results.
+    * 
+    * @param _entrypoint is the name of the method we wish to use as the entrypoint to the kernel
+    * @param _range The number of Kernels that we would like to initiate.
+    * @param _passes The number of passes to make
+    * @return A future which completes (with this Kernel) once the results are available. If execution throws, 
+    *  <code>get()</code> throws an <code>ExecutionException</code> wrapping the cause.
+    */
+   public Future<Kernel> executeAsync(final String _entrypoint, final Range _range, final int _passes) {
+      final FutureTask<Kernel> future = new FutureTask<Kernel>(new Callable<Kernel>(){
+         @Override public Kernel call() {
+            return (execute(_entrypoint, _range, _passes));
+         }
+      });
+      asyncExecutor.execute(future);
+      return (future);
+   }
+
+   /**
+    * Prepare this kernel for execution without executing it.
+    * <p>
+    * Equivalent to <code>compile("run", null)</code>.
+    * 
+    * @return The Kernel instance (this) so we can chain calls
+    * 
+    * @see #compile(String, Device)
+    */
+   public Kernel compile() {
+      return (compile("run", null));
+   }
+
+   /**
+    * Prepare this kernel for execution on <code>_device</code> without executing it.
+    * <p>
+    * Equivalent to <code>compile("run", _device)</code>.
+    * 
+    * @param _device The OpenCL device the kernel will execute on, or null for the best device for the execution mode
+    * @return The Kernel instance (this) so we can chain calls
+    * 
+    * @see #compile(String, Device)
+    */
+   public Kernel compile(Device _device) {
+      return (compile("run", _device));
+   }
+
+   /**
+    * Prepare this kernel for execution without executing it.
+    * <p>
+    * The first <code>execute()</code> of a kernel normally analyzes the kernel's class and, in an OpenCL mode, generates the
+    * OpenCL, creates the OpenCL context and builds the program. <code>compile()</code> does that work ahead of time, so that the 
+    * first execution is as fast as the later ones.
+    * <p>
+    * If the kernel can't be executed in its OpenCL mode it falls back as the first execution would have done, 
+    * <code>getExecutionMode()</code> then returns the mode the kernel will execute in. The OpenCL context is created for 
+    * <code>_device</code>, later executions should use ranges created for the same device (or with no device).
+    * 
+    * @param _entrypoint is the name of the method we wish to use as the entrypoint to the kernel
+    * @param _device The OpenCL device the kernel will execute on, or null for the best device for the execution mode
+    * @return The Kernel instance (this) so we can chain calls
+    */
+   public synchronized Kernel compile(String _entrypoint, Device _device) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.compile(_entrypoint, _device);
+      return (this);
+   }
+
+   /**
+    * Prepare this kernel for execution on <code>_device</code> without waiting.
+    * <p>
+    * The work is done by Aparapi's scheduler, in order with any <code>executeAsync()</code> requests of this kernel, so an 
+    * application can compile its kernels while it is starting up.
+    * 
+    * @param _device The OpenCL device the kernel will execute on, or null for the best device for the execution mode
+    * @return A future which completes (with this Kernel) once the kernel is ready to execute.
+    * 
+    * @see #compile(String, Device)
+    */
+   public Future<Kernel> compileAsync(final Device _device) {
+      final FutureTask<Kernel> future = new FutureTask<Kernel>(new Callable<Kernel>(){
+         @Override public Kernel call() {
+            return (compile("run", _device));
+         }
+      });
+      asyncExecutor.execute(future);
+      return (future);
+   }
+
    /**
     * Release any resources associated with this Kernel.
     * <p>
@@ -2521,6 +2720,125 @@ public abstract class Kernel implements Cloneable {
       return (this);
    }
 
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(long[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(double[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(float[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(int[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(byte[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(char[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that only they are explicitly
+    * enqueued before the kernel is executed. Ranges tagged between executions are merged.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel put(boolean[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array, from, to);
+      return (this);
+   }
+
    /**
     * Enqueue a request to return this buffer from the GPU. This method blocks until the array is available. 
     * @param array
@@ -2815,6 +3133,218 @@ public abstract class Kernel implements Cloneable {
       return (this);
    }
 
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(long[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(double[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(float[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(int[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(byte[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(char[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this buffer from the
+    * GPU. This method blocks until they are available.
+    * @param array
+    * @param from
+    * @param to
+    * @return This kernel so that we can use the 'fluent' style API
+    */
+   public Kernel get(boolean[] array, int from, int to) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array, from, to);
+      return (this);
+   }
+
+   private synchronized KernelRunner getKernelRunner() {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      return (kernelRunner);
+   }
+
+   /**
+    * Execute one pass of each of <code>_kernels</code> over <code>_range</code> as a single fused JTP loop, for
+    * <code>KernelSequence</code>. The kernels must be element-wise.
+    * 
+    * @see com.amd.aparapi.internal.kernel.KernelRunner#executeJavaFused(List, Range)
+    */
+   static void executeFused(List<Kernel> _kernels, Range _range) {
+      final List<KernelRunner> runners = new ArrayList<KernelRunner>(_kernels.size());
+      for (final Kernel kernel : _kernels) {
+         runners.add(kernel.getKernelRunner());
+      }
+      KernelRunner.executeJavaFused(runners, _range);
+   }
+
+   /**
+    * A copy of this kernel with its own <code>KernelRunner</code> (and so its own OpenCL context) which executes on
+    * <code>_device</code>, for <code>MultiDeviceKernel</code>. The copy initially shares this kernel's field values.
+    * <p>
+    * The copy has its own execution modes and <code>executeAsync()</code> queue, so copies executing at the same time never
+    * move each other's (or this kernel's) mode. A copy for an OpenCL device falls back to JTP and nothing else.
+    */
+   Kernel cloneForDevice(Device _device) {
+      final Kernel copy = clone();
+      copy.kernelRunner = null;
+      copy.asyncExecutor = new JTPScheduler.Serial();
+      copy.adaptiveExecutionMode = false;
+      copy.executionModes = new LinkedHashSet<EXECUTION_MODE>();
+      if (_device instanceof OpenCLDevice) {
+         copy.executionModes.add(_device.getType() == Device.TYPE.CPU ? EXECUTION_MODE.CPU : EXECUTION_MODE.GPU);
+      }
+      copy.executionModes.add(EXECUTION_MODE.JTP);
+      copy.currentMode = copy.executionModes.iterator();
+      copy.executionMode = copy.currentMode.next();
+      return (copy);
+   }
+
+   /**
+    * A copy of this kernel for <code>KernelPool</code>, with its own <code>KernelRunner</code>, execution modes and 
+    * <code>executeAsync()</code> queue. The copy initially shares this kernel's field values.
+    */
+   Kernel cloneForPool() {
+      final Kernel copy = clone();
+      copy.kernelRunner = null;
+      copy.asyncExecutor = new JTPScheduler.Serial();
+      copy.executionModes = new LinkedHashSet<EXECUTION_MODE>(executionModes);
+      // Resume from this kernel's current mode, so a mode this kernel has already fallen back from is not tried again
+      copy.resetExecutionMode(executionMode);
+      return (copy);
+   }
+
+   /**
+    * Execute one pass of this kernel's <code>run()</code> over the groups <code>_firstGroupId..(_lastGroupId-1)</code> of
+    * <code>_range</code>, for <code>MultiDeviceKernel</code>.
+    * 
+    * @see com.amd.aparapi.internal.kernel.KernelRunner#executePartition(String, Range, Device, int, int)
+    */
+   Kernel executePartition(Range _range, Device _device, int _firstGroupId, int _lastGroupId) {
+      return (getKernelRunner().executePartition("run", _range, (_device instanceof OpenCLDevice) ? _device : null,
+            _firstGroupId, _lastGroupId));
+   }
+
+   /**
+    * Untyped <code>put()</code> for <code>TiledKernel</code>, which only knows its arrays as field values.
+    */
+   Kernel putArray(Object array) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.put(array);
+      return (this);
+   }
+
+   /**
+    * Untyped <code>get()</code> for <code>TiledKernel</code>, which only knows its arrays as field values.
+    */
+   Kernel getArray(Object array) {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      kernelRunner.get(array);
+      return (this);
+   }
+
    /**
     * Get the profiling information from the last successful call to Kernel.execute().
     * @return A list of ProfileInfo records
@@ -2827,12 +3357,73 @@ public abstract class Kernel implements Cloneable {
       return (kernelRunner.getProfileInfo());
    }
 
-   private final LinkedHashSet<EXECUTION_MODE> executionModes = EXECUTION_MODE.getDefaultExecutionModes();
+   /**
+    * The device time which the times of <code>getProfileInfo()</code> are relative to, for <code>TiledKernel</code> which merges
+    * the <code>ProfileInfo</code> of kernels with different OpenCL contexts.
+    */
+   long getProfileBaseTime() {
+      if (kernelRunner == null) {
+         kernelRunner = new KernelRunner(this);
+      }
+
+      return (kernelRunner.getProfileBaseTime());
+   }
+
+   private LinkedHashSet<EXECUTION_MODE> executionModes = EXECUTION_MODE.getDefaultExecutionModes();
 
    private Iterator<EXECUTION_MODE> currentMode = executionModes.iterator();
 
    private EXECUTION_MODE executionMode = currentMode.next();
 
+   private boolean adaptiveExecutionMode = Config.enableAdaptiveExecutionMode;
+
+   private boolean tieredExecution = Config.enableTieredExecution;
+
+   /**
+    * Request that the first execution of this kernel in an OpenCL mode does not wait for the kernel to be converted and its
+    * OpenCL program to be built. Executions run in JTP (and <code>getExecutionMode()</code> returns JTP) while the program is
+    * prepared on another thread, the first execution after it is ready switches back to the OpenCL mode.
+    * <p>
+    * Tiered execution must be requested before the kernel first executes.
+    * 
+    * @param _tiered
+    * @see #getTieredJavaExecutions()
+    */
+   public void setTieredExecution(boolean _tiered) {
+      tieredExecution = _tiered;
+   }
+
+   /**
+    * @return true if this kernel executes in JTP while its OpenCL program is prepared
+    * @see #setTieredExecution(boolean)
+    */
+   public boolean isTieredExecution() {
+      return (tieredExecution);
+   }
+
+   /**
+    * Request that each execution of this kernel uses whichever of its execution modes (see
+    * <code>addExecutionModes()</code>) has been fastest for ranges of the same size, rather than the first mode which works.
+    * <p>
+    * The first executions for each size try each mode in turn, after that one of the other modes is timed again every
+    * <code>com.amd.aparapi.adaptiveProbeInterval</code> executions. Explicit buffer management is not compatible with
+    * switching modes, so explicit kernels always use the current mode.
+    * 
+    * @param _adaptive
+    * @see com.amd.aparapi.internal.kernel.AdaptiveModeSelector
+    */
+   public void setAdaptiveExecutionMode(boolean _adaptive) {
+      adaptiveExecutionMode = _adaptive;
+   }
+
+   /**
+    * @return true if this kernel chooses its fastest execution mode for each execution
+    * @see #setAdaptiveExecutionMode(boolean)
+    */
+   public boolean isAdaptiveExecutionMode() {
+      return (adaptiveExecutionMode);
+   }
+
    /**
     * set possible fallback path for execution modes.
     * for example setExecutionFallbackPath(GPU,CPU,JTP) will try to use the GPU
@@ -2844,6 +3435,23 @@ public abstract class Kernel implements Cloneable {
       executionMode = currentMode.next();
    }
 
+   /**
+    * Set the execution mode and restart the fallback path (see <code>addExecutionModes()</code>) just after it, so if
+    * <code>_executionMode</code> fails the kernel falls back to the modes which follow it in the path, rather than from
+    * wherever an earlier fall back left off.
+    * 
+    * @param _executionMode the execution mode to use, if it is not in the fallback path a failure falls back to JTP
+    */
+   public void resetExecutionMode(EXECUTION_MODE _executionMode) {
+      currentMode = executionModes.iterator();
+      while (currentMode.hasNext()) {
+         if (currentMode.next() == _executionMode) {
+            break;
+         }
+      }
+      executionMode = _executionMode;
+   }
+
    /**
     * @return is there another execution path we can try
     */
@@ -0,0 +1,246 @@
+package com.amd.aparapi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of copies of a kernel, so that several threads can execute the same kernel class at once.<br/>
+ *
+ * <code>Kernel.execute()</code> is synchronized and a kernel's arguments are its fields, so a single kernel instance can only
+ * serve one request at a time. A server handling concurrent requests borrows a copy for each request, sets its fields and
+ * executes it, then returns it for the next request:
+ * <blockquote><pre>
+ *  KernelPool&lt;SquareKernel&gt; pool = new KernelPool&lt;SquareKernel&gt;(new SquareKernel(), 8);
+ *  ...
+ *  SquareKernel kernel = pool.borrow();
+ *  try {
+ *     kernel.in = request.values;
+ *     kernel.out = new float[request.values.length];
+ *     kernel.execute(request.values.length);
+ *     return (kernel.out);
+ *  } finally {
+ *     pool.release(kernel);
+ *  }
+ * </pre></blockquote>
+ *
+ * Copies are created (with <code>clone()</code>) as they are needed, up to the pool's maximum size, after that
+ * <code>borrow()</code> waits for a copy to be returned. Each copy initially shares the field values of the prototype kernel
+ * and has its own OpenCL context and argument buffers. The copies share the prototype's class analysis, generated OpenCL and
+ * (for each device) compiled program binary, so only the first copy to execute on a device pays for compiling the kernel.
+ * The most recently returned copy is handed out first, so a lightly loaded pool keeps reusing the same (warm) copies.
+ *
+ * The time each <code>borrow()</code> waits for a copy is recorded, see <code>getTotalWaitNanos()</code> and
+ * <code>getMaxWaitNanos()</code>.
+ *
+ * @param <K>
+ *          the kernel class
+ */
+public class KernelPool<K extends Kernel>{
+
+   private final K prototype;
+
+   private final int maxSize;
+
+   /**
+    * Copies which are not borrowed, most recently returned first.
+    */
+   private final LinkedBlockingDeque<K> idle = new LinkedBlockingDeque<K>();
+
+   /**
+    * Every copy this pool has created, mapped to true while it is borrowed.
+    */
+   private final ConcurrentMap<K, Boolean> copies = new ConcurrentHashMap<K, Boolean>();
+
+   private final AtomicInteger size = new AtomicInteger();
+
+   private final AtomicLong borrows = new AtomicLong();
+
+   private final AtomicLong timeouts = new AtomicLong();
+
+   private final AtomicLong totalWaitNanos = new AtomicLong();
+
+   private final AtomicLong maxWaitNanos = new AtomicLong();
+
+   /**
+    * @param _prototype
+    *          the kernel to copy, its execution mode and field values are the starting point of each copy. The prototype
+    *          itself is not handed out.
+    * @param _maxSize
+    *          the most copies the pool creates
+    */
+   public KernelPool(K _prototype, int _maxSize) {
+      if (_maxSize < 1) {
+         throw new IllegalArgumentException("maxSize must be at least 1");
+      }
+      prototype = _prototype;
+      maxSize = _maxSize;
+   }
+
+   /**
+    * Borrow a copy of the kernel, waiting as long as it takes for one to be returned if the pool is at its maximum size.
+    *
+    * @return a copy which only the caller will use until it is returned with <code>release()</code>
+    * @throws InterruptedException
+    */
+   public K borrow() throws InterruptedException {
+      final long start = System.nanoTime();
+      K kernel = idle.pollFirst();
+      if (kernel == null) {
+         kernel = create();
+         if (kernel == null) {
+            kernel = idle.takeFirst();
+         }
+      }
+      copies.put(kernel, Boolean.TRUE);
+      recordWait(System.nanoTime() - start);
+      return (kernel);
+   }
+
+   /**
+    * Borrow a copy of the kernel, waiting at most <code>_timeout</code> for one to be returned if the pool is at its maximum
+    * size.
+    *
+    * @param _timeout
+    * @param _unit
+    * @return a copy which only the caller will use until it is returned with <code>release()</code>, or null if none was
+    *         returned in time
+    * @throws InterruptedException
+    */
+   public K borrow(long _timeout, TimeUnit _unit) throws InterruptedException {
+      final long start = System.nanoTime();
+      K kernel = idle.pollFirst();
+      if (kernel == null) {
+         kernel = create();
+         if (kernel == null) {
+            kernel = idle.pollFirst(_timeout, _unit);
+            if (kernel == null) {
+               timeouts.incrementAndGet();
+               return (null);
+            }
+         }
+      }
+      copies.put(kernel, Boolean.TRUE);
+      recordWait(System.nanoTime() - start);
+      return (kernel);
+   }
+
+   /**
+    * Return a borrowed copy to the pool. The copy's field values are left as they are, the next borrower sets the fields it
+    * uses.
+    *
+    * @param _kernel
+    *          a copy borrowed from this pool
+    */
+   public void release(K _kernel) {
+      if (!copies.replace(_kernel, Boolean.TRUE, Boolean.FALSE)) {
+         throw new IllegalArgumentException("kernel is not borrowed from this pool");
+      }
+      idle.offerFirst(_kernel);
+   }
+
+   /**
+    * @return a new copy, or null if the pool is already at its maximum size
+    */
+   @SuppressWarnings("unchecked") private K create() {
+      for (int current = size.get(); current < maxSize; current = size.get()) {
+         if (size.compareAndSet(current, current + 1)) {
+            final K copy = (K) prototype.cloneForPool();
+            copies.put(copy, Boolean.FALSE);
+            return (copy);
+         }
+      }
+      return (null);
+   }
+
+   private void recordWait(long _nanos) {
+      borrows.incrementAndGet();
+      totalWaitNanos.addAndGet(_nanos);
+      for (long max = maxWaitNanos.get(); _nanos > max; max = maxWaitNanos.get()) {
+         if (maxWaitNanos.compareAndSet(max, _nanos)) {
+            break;
+         }
+      }
+   }
+
+   public K getPrototype() {
+      return (prototype);
+   }
+
+   public int getMaxSize() {
+      return (maxSize);
+   }
+
+   /**
+    * @return the number of copies created so far
+    */
+   public int getSize() {
+      return (size.get());
+   }
+
+   /**
+    * @return the number of copies which are not borrowed
+    */
+   public int getIdleCount() {
+      return (idle.size());
+   }
+
+   /**
+    * @return the number of successful <code>borrow()</code> calls
+    */
+   public long getBorrowCount() {
+      return (borrows.get());
+   }
+
+   /**
+    * @return the number of <code>borrow(timeout, unit)</code> calls which gave up waiting
+    */
+   public long getTimeoutCount() {
+      return (timeouts.get());
+   }
+
+   /**
+    * @return the total time successful <code>borrow()</code> calls waited for a copy (including creating new copies)
+    */
+   public long getTotalWaitNanos() {
+      return (totalWaitNanos.get());
+   }
+
+   /**
+    * @return the longest time a successful <code>borrow()</code> call waited for a copy
+    */
+   public long getMaxWaitNanos() {
+      return (maxWaitNanos.get());
+   }
+
+   /**
+    * @return the mean time successful <code>borrow()</code> calls waited for a copy
+    */
+   public double getAverageWaitNanos() {
+      final long count = borrows.get();
+      return ((count > 0) ? ((double) totalWaitNanos.get() / count) : 0.0);
+   }
+
+   /**
+    * @return the number of borrows, the time they waited and the copies in use, for logging
+    */
+   @Override public String toString() {
+      return (prototype.getClass().getName() + " pool size=" + getSize() + "/" + maxSize + " idle=" + getIdleCount()
+            + " borrows=" + getBorrowCount() + " timeouts=" + getTimeoutCount() + " avgWaitUs="
+            + (long) (getAverageWaitNanos() / 1000) + " maxWaitUs=" + (getMaxWaitNanos() / 1000));
+   }
+
+   /**
+    * Release the resources of every copy the pool created. Copies must not be borrowed after this. The prototype is not
+    * disposed.
+    */
+   public void dispose() {
+      for (final K copy : copies.keySet()) {
+         copy.dispose();
+      }
+      idle.clear();
+   }
+}
@@ -0,0 +1,334 @@
+package com.amd.aparapi;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.internal.kernel.JTPScheduler;
+import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.ModelCache;
+
+/**
+ * A sequence of kernels (stages) executed in turn over the arrays they share.<br/>
+ *
+ * For example a convolution kernel which writes <code>blurred</code>, followed by a threshold kernel which reads
+ * <code>blurred</code> and writes <code>mask</code>, followed by a histogram kernel which reads <code>mask</code>
+ * <blockquote><pre>
+ *  KernelSequence sequence = new KernelSequence()
+ *        .add(convolution, Range.create(size))
+ *        .add(threshold, Range.create(size))
+ *        .add(histogram, Range.create(size));
+ *  sequence.execute();
+ * </pre></blockquote>
+ *
+ * Each stage executes just as <code>kernel.execute(range, passes)</code> would, so its arrays are transferred to and from
+ * its device as usual. Each stage's kernel has its own OpenCL context, so an array which one OpenCL stage writes and the
+ * next reads goes back to the host in between. The sequence does not keep arrays on a device between stages.
+ *
+ * The sequence determines which arrays each stage reads and writes from the stage's class, see <code>getProducers()</code>
+ * and <code>getConsumers()</code>, and <code>executeAsync()</code> runs all of the stages back to back from one dispatch on
+ * the JTP scheduler.
+ *
+ * Consecutive JTP stages which are element-wise (work item <code>i</code> only touches element <code>i</code> of each array,
+ * see <code>Entrypoint.isElementWise()</code>) and which execute one pass over the same 1D range are fused. Each JTP
+ * worker then runs a group of the first stage, the same group of the second stage and so on, so intermediate arrays are
+ * consumed while they are still in cache. Fusion can be disabled per sequence with <code>setFusion(false)</code> or for all
+ * sequences with <code>-Dcom.amd.aparapi.disableJTPFusion=true</code>.
+ *
+ * Fusion only applies to stages executing in JTP. No combined OpenCL kernel is generated, so stages executing in GPU or CPU
+ * mode are always executed one kernel at a time, whatever <code>setFusion()</code> says.
+ */
+public class KernelSequence{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * A kernel with the range and number of passes it is executed with.
+    */
+   public static class Stage{
+      private final Kernel kernel;
+
+      private final Range range;
+
+      private final int passes;
+
+      private final List<Field> readFields = new ArrayList<Field>();
+
+      private final List<Field> writtenFields = new ArrayList<Field>();
+
+      private boolean elementWise = false;
+
+      private Stage(Kernel _kernel, Range _range, int _passes) {
+         kernel = _kernel;
+         range = _range;
+         passes = _passes;
+
+         try {
+            final Entrypoint entrypoint = ModelCache.getEntrypoint(_kernel.getClass(), "run");
+            for (final Field field : entrypoint.getReferencedFields()) {
+               if (field.getType().isArray()) {
+                  field.setAccessible(true);
+                  // Like KernelRunner we treat arrays which are written as read-write, the kernel may only write some elements
+                  if (entrypoint.getArrayFieldAssignments().contains(field.getName())) {
+                     writtenFields.add(field);
+                     readFields.add(field);
+                  } else if (entrypoint.getArrayFieldAccesses().contains(field.getName())) {
+                     readFields.add(field);
+                  }
+               }
+            }
+            elementWise = entrypoint.isElementWise();
+         } catch (final Exception exception) {
+            // The kernel will execute in JTP, so assume it reads and writes every array it has
+            if (logger.isLoggable(Level.FINE)) {
+               logger.fine("Assuming " + _kernel.getClass() + " reads and writes all of its arrays, " + exception);
+            }
+            for (Class<?> clazz = _kernel.getClass(); clazz != Kernel.class; clazz = clazz.getSuperclass()) {
+               for (final Field field : clazz.getDeclaredFields()) {
+                  if (field.getType().isArray() && !Modifier.isStatic(field.getModifiers())) {
+                     field.setAccessible(true);
+                     writtenFields.add(field);
+                     readFields.add(field);
+                  }
+               }
+            }
+         }
+      }
+
+      public Kernel getKernel() {
+         return (kernel);
+      }
+
+      public Range getRange() {
+         return (range);
+      }
+
+      public int getPasses() {
+         return (passes);
+      }
+
+      /**
+       * @return true if each work item of this stage's kernel only reads and writes its own element of each array
+       */
+      public boolean isElementWise() {
+         return (elementWise);
+      }
+
+      /**
+       * @return true if this stage could be fused with a neighbouring stage over the same range
+       */
+      private boolean isFusible() {
+         return (elementWise && (passes == 1) && (range.getDims() == 1)
+               && kernel.getExecutionMode().equals(Kernel.EXECUTION_MODE.JTP));
+      }
+
+      private boolean hasSameRange(Stage _other) {
+         return ((range.getGlobalSize(0) == _other.range.getGlobalSize(0))
+               && (range.getLocalSize(0) == _other.range.getLocalSize(0)));
+      }
+
+      private Set<Object> arrays(List<Field> _fields) {
+         final Set<Object> arrays = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+         for (final Field field : _fields) {
+            try {
+               final Object array = field.get(kernel);
+               if (array != null) {
+                  arrays.add(array);
+               }
+            } catch (final IllegalAccessException e) {
+               throw new IllegalStateException(e);
+            }
+         }
+         return (arrays);
+      }
+
+      /**
+       * @return the arrays (current values of the kernel's array fields) this stage reads
+       */
+      public Set<Object> getReadArrays() {
+         return (arrays(readFields));
+      }
+
+      /**
+       * @return the arrays (current values of the kernel's array fields) this stage writes
+       */
+      public Set<Object> getWrittenArrays() {
+         return (arrays(writtenFields));
+      }
+   }
+
+   private final List<Stage> stages = new ArrayList<Stage>();
+
+   private final JTPScheduler.Serial asyncExecutor = new JTPScheduler.Serial();
+
+   private boolean fusion = true;
+
+   /**
+    * Append a stage which executes one pass of <code>_kernel</code> over <code>_range</code>.
+    *
+    * @param _kernel
+    * @param _range
+    * @return this sequence so that we can use the 'fluent' style API
+    */
+   public KernelSequence add(Kernel _kernel, Range _range) {
+      return (add(_kernel, _range, 1));
+   }
+
+   /**
+    * Append a stage which executes <code>_passes</code> passes of <code>_kernel</code> over <code>_range</code>.
+    *
+    * @param _kernel
+    * @param _range
+    * @param _passes
+    * @return this sequence so that we can use the 'fluent' style API
+    */
+   public synchronized KernelSequence add(Kernel _kernel, Range _range, int _passes) {
+      stages.add(new Stage(_kernel, _range, _passes));
+      return (this);
+   }
+
+   /**
+    * @return the stages of this sequence in execution order
+    */
+   public synchronized List<Stage> getStages() {
+      return (Collections.unmodifiableList(new ArrayList<Stage>(stages)));
+   }
+
+   /**
+    * @param _array
+    * @return the stages which write <code>_array</code>, in execution order
+    */
+   public synchronized List<Stage> getProducers(Object _array) {
+      final List<Stage> producers = new ArrayList<Stage>();
+      for (final Stage stage : stages) {
+         if (stage.getWrittenArrays().contains(_array)) {
+            producers.add(stage);
+         }
+      }
+      return (producers);
+   }
+
+   /**
+    * @param _array
+    * @return the stages which read <code>_array</code>, in execution order
+    */
+   public synchronized List<Stage> getConsumers(Object _array) {
+      final List<Stage> consumers = new ArrayList<Stage>();
+      for (final Stage stage : stages) {
+         if (stage.getReadArrays().contains(_array)) {
+            consumers.add(stage);
+         }
+      }
+      return (consumers);
+   }
+
+   /**
+    * Allow or prevent the fusion of consecutive element-wise stages. Fusion is allowed by default unless
+    * <code>-Dcom.amd.aparapi.disableJTPFusion=true</code> is set. Only stages executing in JTP are ever fused.
+    *
+    * @param _fusion
+    * @return this sequence so that we can use the 'fluent' style API
+    */
+   public synchronized KernelSequence setFusion(boolean _fusion) {
+      fusion = _fusion;
+      return (this);
+   }
+
+   /**
+    * @return true if consecutive element-wise stages may be fused
+    */
+   public synchronized boolean isFusion() {
+      return (fusion && !Config.disableJTPFusion);
+   }
+
+   /**
+    * Split the stages into the groups which <code>execute()</code> will dispatch together. A group of more than one stage is
+    * executed as a single fused JTP loop, every other stage forms a group of its own.
+    *
+    * The grouping depends on the current execution mode of each stage's kernel.
+    *
+    * @return the stages of this sequence, in execution order, grouped by dispatch
+    */
+   public synchronized List<List<Stage>> getFusionGroups() {
+      final boolean fuse = isFusion();
+      final List<List<Stage>> groups = new ArrayList<List<Stage>>();
+      List<Stage> group = null;
+      for (final Stage stage : stages) {
+         if (fuse && (group != null) && stage.isFusible() && group.get(0).isFusible() && stage.hasSameRange(group.get(0))) {
+            group.add(stage);
+         } else {
+            group = new ArrayList<Stage>();
+            group.add(stage);
+            groups.add(group);
+         }
+      }
+      return (groups);
+   }
+
+   /**
+    * Execute each stage in turn.
+    *
+    * @return this sequence so that we can use the 'fluent' style API
+    */
+   public synchronized KernelSequence execute() {
+      for (final List<Stage> group : getFusionGroups()) {
+         if (group.size() > 1) {
+            executeFused(group);
+         } else {
+            final Stage stage = group.get(0);
+            stage.kernel.execute(stage.range, stage.passes);
+         }
+      }
+      return (this);
+   }
+
+   /**
+    * Execute a group of fusible stages in JTP as one loop.
+    */
+   private void executeFused(List<Stage> _group) {
+      final List<Kernel> kernels = new ArrayList<Kernel>(_group.size());
+      for (final Stage stage : _group) {
+         kernels.add(stage.kernel);
+      }
+
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("Fusing " + kernels.size() + " stages over " + _group.get(0).range);
+      }
+      Kernel.executeFused(kernels, _group.get(0).range);
+   }
+
+   /**
+    * Execute the sequence without waiting for it to complete. The stages are dispatched, one after another, by the JTP
+    * scheduler rather than the calling thread.
+    *
+    * @return A future which completes (with this sequence) once every stage has executed
+    * @see Kernel#executeAsync(String, Range, int)
+    */
+   public Future<KernelSequence> executeAsync() {
+      final FutureTask<KernelSequence> future = new FutureTask<KernelSequence>(new Callable<KernelSequence>(){
+         @Override public KernelSequence call() {
+            return (execute());
+         }
+      });
+      asyncExecutor.execute(future);
+      return (future);
+   }
+
+   /**
+    * Dispose of every stage's kernel.
+    */
+   public synchronized void dispose() {
+      for (final Stage stage : stages) {
+         stage.kernel.dispose();
+      }
+   }
+}
@@ -0,0 +1,268 @@
+package com.amd.aparapi;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.internal.util.NioBufferUtil;
+
+/**
+ * Executes a kernel over data which is too large for the heap, such as a file of several GB, one window at a time.<br/>
+ *
+ * The kernel reads its input from a buffer field (such as a <code>FloatBuffer</code>) with <code>get(index)</code> and
+ * (optionally) writes its output to another buffer field with <code>put(index, value)</code>. For each window the stream
+ * points these fields at a view of that window of the input and output and executes the kernel with one work item per
+ * input element of the window. The kernel's <code>getGlobalId()</code> is relative to the window, the stream sets an
+ * (optional) <code>int</code> or <code>long</code> field of the kernel to the index of the window's first element.
+ * <blockquote><pre>
+ *  class Threshold extends Kernel{
+ *     FloatBuffer in;
+ *     ByteBuffer out;
+ *     long offset;
+ *     &#64;Override public void run() {
+ *        int gid = getGlobalId();
+ *        out.put(gid, (byte) (in.get(gid) &gt; 0.5f ? 1 : 0));
+ *     }
+ *  }
+ *
+ *  FileChannel input = new RandomAccessFile("samples.bin", "r").getChannel();
+ *  FileChannel output = new RandomAccessFile("mask.bin", "rw").getChannel();
+ *  new KernelStream(new Threshold(), "in", "out").setOffsetField("offset").execute(input, output);
+ * </pre></blockquote>
+ *
+ * Files are mapped (with <code>FileChannel.map()</code>) a window at a time, so no file data is copied to the heap and the
+ * memory used is bounded by the window size. Each output element is written at the same element index in the output file
+ * as its input element, the output file grows as needed.
+ *
+ * A kernel which reads neighbouring elements (a filter or a correlation) can ask for an overlap, each window of the input
+ * then includes that many elements following the window (fewer at the end of the input, so the kernel should check
+ * <code>capacity()</code> of its input). Only the window's own elements get work items.
+ *
+ * The data is viewed in native byte order unless <code>setByteOrder()</code> says otherwise. OpenCL can only use buffers in
+ * native byte order directly, other orders execute in JTP, as does any kernel executed in JTP mode.
+ */
+public class KernelStream{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * The default number of elements in a window.
+    */
+   public static final int DEFAULT_WINDOW_ELEMENTS = 1 << 22;
+
+   private final Kernel kernel;
+
+   private final Field inputField;
+
+   private final Field outputField;
+
+   private final int inputElementSize;
+
+   private final int outputElementSize;
+
+   private Field offsetField;
+
+   private int windowElements = DEFAULT_WINDOW_ELEMENTS;
+
+   private int overlapElements;
+
+   private ByteOrder byteOrder = ByteOrder.nativeOrder();
+
+   /**
+    * @param _kernel
+    * @param _inputField
+    *          the name of the kernel's buffer field which is given each window of the input
+    * @param _outputField
+    *          the name of the kernel's buffer field which is given each window of the output, or null if the kernel has no
+    *          streamed output
+    * @throws IllegalArgumentException
+    *           if the kernel has no such buffer fields
+    */
+   public KernelStream(Kernel _kernel, String _inputField, String _outputField) {
+      kernel = _kernel;
+      inputField = getField(_kernel, _inputField);
+      if (!NioBufferUtil.isBufferType(inputField.getType())) {
+         throw new IllegalArgumentException(_inputField + " is not a buffer field");
+      }
+      inputElementSize = NioBufferUtil.getElementSize(inputField.getType());
+      if (_outputField != null) {
+         outputField = getField(_kernel, _outputField);
+         if (!NioBufferUtil.isBufferType(outputField.getType())) {
+            throw new IllegalArgumentException(_outputField + " is not a buffer field");
+         }
+         outputElementSize = NioBufferUtil.getElementSize(outputField.getType());
+      } else {
+         outputField = null;
+         outputElementSize = 0;
+      }
+   }
+
+   /**
+    * @param _offsetField
+    *          the name of an <code>int</code> or <code>long</code> field of the kernel which is set to the index of the first
+    *          element of each window
+    * @return this stream
+    */
+   public KernelStream setOffsetField(String _offsetField) {
+      final Field field = getField(kernel, _offsetField);
+      if ((field.getType() != int.class) && (field.getType() != long.class)) {
+         throw new IllegalArgumentException(_offsetField + " is not an int or long field");
+      }
+      offsetField = field;
+      return (this);
+   }
+
+   /**
+    * @param _windowElements
+    *          the number of input elements (and work items) in each window
+    * @return this stream
+    */
+   public KernelStream setWindowElements(int _windowElements) {
+      if (_windowElements < 1) {
+         throw new IllegalArgumentException("a window must have at least one element");
+      }
+      windowElements = _windowElements;
+      return (this);
+   }
+
+   /**
+    * @param _overlapElements
+    *          the number of elements following each window which the kernel may also read
+    * @return this stream
+    */
+   public KernelStream setOverlapElements(int _overlapElements) {
+      if (_overlapElements < 0) {
+         throw new IllegalArgumentException("overlap must not be negative");
+      }
+      overlapElements = _overlapElements;
+      return (this);
+   }
+
+   /**
+    * @param _byteOrder
+    *          the byte order of the data
+    * @return this stream
+    */
+   public KernelStream setByteOrder(ByteOrder _byteOrder) {
+      byteOrder = _byteOrder;
+      return (this);
+   }
+
+   public Kernel getKernel() {
+      return (kernel);
+   }
+
+   /**
+    * Execute the kernel over every element of a file.
+    *
+    * @param _input
+    *          a channel open for reading, the whole file is the input
+    * @param _output
+    *          a channel open for reading and writing, or null if the stream has no output field
+    * @return the number of elements processed
+    * @throws IOException
+    *           if a window can't be mapped
+    */
+   public long execute(FileChannel _input, FileChannel _output) throws IOException {
+      checkOutput(_output);
+      final long elements = _input.size() / inputElementSize;
+      for (long first = 0; first < elements; first += windowElements) {
+         final int count = (int) Math.min(windowElements, elements - first);
+         final long mapped = Math.min(count + (long) overlapElements, elements - first);
+         final ByteBuffer in = _input.map(FileChannel.MapMode.READ_ONLY, first * inputElementSize, mapped * inputElementSize);
+         final ByteBuffer out = (_output != null) ? _output.map(FileChannel.MapMode.READ_WRITE, first * outputElementSize,
+               (long) count * outputElementSize) : null;
+         executeWindow(in, out, first, count);
+      }
+      return (elements);
+   }
+
+   /**
+    * Execute the kernel over every element between the position and limit of a buffer, typically a
+    * <code>MappedByteBuffer</code> which the application has already mapped.
+    *
+    * @param _input
+    * @param _output
+    *          a buffer with room for the output of every input element (from its position), or null if the stream has no
+    *          output field
+    * @return the number of elements processed
+    */
+   public long execute(ByteBuffer _input, ByteBuffer _output) {
+      checkOutput(_output);
+      final long elements = _input.remaining() / inputElementSize;
+      if ((_output != null) && ((_output.remaining() / outputElementSize) < elements)) {
+         throw new IllegalArgumentException("output has room for " + (_output.remaining() / outputElementSize)
+               + " elements, the input has " + elements);
+      }
+      for (long first = 0; first < elements; first += windowElements) {
+         final int count = (int) Math.min(windowElements, elements - first);
+         final long mapped = Math.min(count + (long) overlapElements, elements - first);
+         final ByteBuffer in = window(_input, first * inputElementSize, (int) (mapped * inputElementSize));
+         final ByteBuffer out = (_output != null) ? window(_output, first * outputElementSize, count * outputElementSize) : null;
+         executeWindow(in, out, first, count);
+      }
+      return (elements);
+   }
+
+   private void executeWindow(ByteBuffer _in, ByteBuffer _out, long _first, int _count) {
+      try {
+         inputField.set(kernel, NioBufferUtil.asBuffer(_in.order(byteOrder), inputField.getType()));
+         if (_out != null) {
+            outputField.set(kernel, NioBufferUtil.asBuffer(_out.order(byteOrder), outputField.getType()));
+         }
+         if (offsetField != null) {
+            if (offsetField.getType() == int.class) {
+               if (_first > Integer.MAX_VALUE) {
+                  throw new IllegalStateException("offset " + _first + " does not fit in int field " + offsetField.getName());
+               }
+               offsetField.setInt(kernel, (int) _first);
+            } else {
+               offsetField.setLong(kernel, _first);
+            }
+         }
+      } catch (final IllegalAccessException e) {
+         throw new IllegalStateException("Unable to set the fields of " + kernel.getClass().getName(), e);
+      }
+
+      final long start = System.nanoTime();
+      kernel.execute(_count);
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine(kernel.getClass().getName() + " window at " + _first + " of " + _count + " elements in "
+               + ((System.nanoTime() - start) / 1000) + "us (" + kernel.getExecutionMode() + ")");
+      }
+   }
+
+   private void checkOutput(Object _output) {
+      if ((_output == null) != (outputField == null)) {
+         throw new IllegalArgumentException((outputField == null) ? "stream has no output field"
+               : "an output is required for field " + outputField.getName());
+      }
+   }
+
+   /**
+    * @return the <code>_length</code> bytes starting <code>_offset</code> bytes after the position of <code>_buffer</code>
+    */
+   private static ByteBuffer window(ByteBuffer _buffer, long _offset, int _length) {
+      final ByteBuffer window = _buffer.duplicate();
+      window.position(_buffer.position() + (int) _offset);
+      window.limit(window.position() + _length);
+      return (window.slice());
+   }
+
+   private static Field getField(Kernel _kernel, String _name) {
+      for (Class<?> c = _kernel.getClass(); (c != null) && (c != Kernel.class); c = c.getSuperclass()) {
+         try {
+            final Field field = c.getDeclaredField(_name);
+            field.setAccessible(true);
+            return (field);
+         } catch (final NoSuchFieldException e) {
+            // try the superclass
+         }
+      }
+      throw new IllegalArgumentException(_kernel.getClass().getName() + " has no field " + _name);
+   }
+}
@@ -0,0 +1,163 @@
+package com.amd.aparapi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.device.Device;
+import com.amd.aparapi.internal.exception.CodeGenException;
+import com.amd.aparapi.internal.kernel.JTPScheduler;
+import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.ModelCache;
+import com.amd.aparapi.internal.writer.KernelWriter;
+
+/**
+ * Prepares kernels in parallel when an application starts, so that the first request which uses each kernel does not pay
+ * for analyzing its class, generating its OpenCL and building its program.<br/>
+ *
+ * <code>precompile()</code> works on kernel classes: the class is analyzed and its OpenCL is generated once, and the results
+ * are kept in the process wide <code>ModelCache</code> for every instance created later. Building an OpenCL program needs
+ * a kernel instance (each instance has its own OpenCL context), <code>compile()</code> does that for existing instances.
+ * Together with <code>-Dcom.amd.aparapi.programCacheDir</code> the built programs also survive to the next run.
+ * <blockquote><pre>
+ *  KernelWarmUp.precompileAsync(Arrays.&lt;Class&lt;? extends Kernel&gt;&gt; asList(Blur.class, Threshold.class));
+ * </pre></blockquote>
+ *
+ * The work is shared between the threads of the JTP scheduler.
+ *
+ * @see com.amd.aparapi.Kernel#compile(String, Device)
+ * @see com.amd.aparapi.internal.model.ModelCache
+ */
+public class KernelWarmUp{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   private KernelWarmUp() {
+   }
+
+   /**
+    * Analyze each kernel class and generate its OpenCL, in parallel, waiting until all of the classes are done.
+    *
+    * @param _kernelClasses
+    * @return the reason each class which can't be converted to OpenCL failed, these classes will execute in JTP
+    */
+   public static Map<Class<? extends Kernel>, String> precompile(Collection<Class<? extends Kernel>> _kernelClasses) {
+      final JTPScheduler.Queue queue = new JTPScheduler.Queue();
+      final List<FutureTask<String>> futures = new ArrayList<FutureTask<String>>();
+      for (final Class<? extends Kernel> kernelClass : _kernelClasses) {
+         final FutureTask<String> future = new FutureTask<String>(new Callable<String>(){
+            @Override public String call() {
+               return (precompile(kernelClass));
+            }
+         });
+         futures.add(future);
+         JTPScheduler.getScheduler().execute(queue, future);
+      }
+
+      final Map<Class<? extends Kernel>, String> failures = new LinkedHashMap<Class<? extends Kernel>, String>();
+      int i = 0;
+      for (final Class<? extends Kernel> kernelClass : _kernelClasses) {
+         final String failure = await(futures.get(i++));
+         if (failure != null) {
+            failures.put(kernelClass, failure);
+         }
+      }
+      return (failures);
+   }
+
+   /**
+    * Start <code>precompile(_kernelClasses)</code> without waiting for it.
+    *
+    * @param _kernelClasses
+    * @return a future which completes (with the failures) once every class is done
+    */
+   public static Future<Map<Class<? extends Kernel>, String>> precompileAsync(
+         final Collection<Class<? extends Kernel>> _kernelClasses) {
+      final FutureTask<Map<Class<? extends Kernel>, String>> future = new FutureTask<Map<Class<? extends Kernel>, String>>(
+            new Callable<Map<Class<? extends Kernel>, String>>(){
+               @Override public Map<Class<? extends Kernel>, String> call() {
+                  return (precompile(_kernelClasses));
+               }
+            });
+      JTPScheduler.getScheduler().executeConcurrently(future);
+      return (future);
+   }
+
+   /**
+    * <code>compile()</code> each of the kernels on <code>_device</code>, in parallel, waiting until all of the kernels are
+    * done. A kernel which can't execute in OpenCL falls back as it would on its first execution.
+    *
+    * @param _kernels
+    * @param _device
+    *          the OpenCL device the kernels will execute on, or null for the best device for each kernel's execution mode
+    * @see com.amd.aparapi.Kernel#compile(Device)
+    */
+   public static void compile(Collection<? extends Kernel> _kernels, final Device _device) {
+      final JTPScheduler.Queue queue = new JTPScheduler.Queue();
+      final List<FutureTask<String>> futures = new ArrayList<FutureTask<String>>();
+      for (final Kernel kernel : _kernels) {
+         final FutureTask<String> future = new FutureTask<String>(new Callable<String>(){
+            @Override public String call() {
+               kernel.compile(_device);
+               return (null);
+            }
+         });
+         futures.add(future);
+         JTPScheduler.getScheduler().execute(queue, future);
+      }
+      for (final FutureTask<String> future : futures) {
+         await(future);
+      }
+   }
+
+   private static String precompile(Class<? extends Kernel> _kernelClass) {
+      final long start = System.nanoTime();
+      try {
+         final Entrypoint entrypoint = ModelCache.getEntrypoint(_kernelClass, "run");
+         if (entrypoint.getOpenCL() == null) {
+            entrypoint.setOpenCL(KernelWriter.writeToString(entrypoint));
+         }
+      } catch (final CodeGenException exception) {
+         ModelCache.setConversionFailure(_kernelClass, "run", exception);
+         return (exception.toString());
+      } catch (final Exception exception) {
+         // ModelCache has recorded the failure
+         return (exception.toString());
+      }
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("Precompiled " + _kernelClass.getName() + " in " + ((System.nanoTime() - start) / 1000) + "us");
+      }
+      return (null);
+   }
+
+   /**
+    * Wait for a warm up task, a task which throws is reported as a failure rather than thrown.
+    */
+   private static String await(FutureTask<String> _future) {
+      boolean interrupted = false;
+      try {
+         while (true) {
+            try {
+               return (_future.get());
+            } catch (final InterruptedException e) {
+               interrupted = true;
+            } catch (final ExecutionException e) {
+               logger.log(Level.WARNING, "Kernel warm up failed", e.getCause());
+               return (e.getCause().toString());
+            }
+         }
+      } finally {
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+}
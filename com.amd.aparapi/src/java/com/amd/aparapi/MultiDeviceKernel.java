@@ -0,0 +1,325 @@
+package com.amd.aparapi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.device.Device;
+import com.amd.aparapi.device.OpenCLDevice;
+import com.amd.aparapi.internal.exception.AparapiException;
+import com.amd.aparapi.internal.kernel.JTPScheduler;
+import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.ModelCache;
+
+/**
+ * Executes a kernel over a 1D range on several devices at once, each device executing a contiguous share of the range's
+ * groups.<br/>
+ *
+ * For example to use the first GPU and the JTP threads of the host together
+ * <blockquote><pre>
+ *  MultiDeviceKernel multi = new MultiDeviceKernel(kernel, Arrays.asList(Device.firstGPU(), new JavaDevice()));
+ *  for (int frame = 0; frame &lt; frames; frame++) {
+ *     multi.execute(Range.create(size, 64));
+ *  }
+ *  multi.dispose();
+ * </pre></blockquote>
+ *
+ * The first execution gives each device the same number of groups. Each device's throughput (work items per second,
+ * including transfers) is measured on every execution and later executions split the groups in proportion to a moving
+ * average of the throughputs, so a faster device gets a larger share.
+ *
+ * Splitting is only correct if each work item writes only its own element of each array, so that the devices' writes are
+ * disjoint. The constructor refuses (with an <code>IllegalArgumentException</code>) any kernel for which we can't prove that
+ * from its bytecode, see <code>Entrypoint.isPartitionable()</code>. Such a kernel must use a single device.
+ *
+ * Each device executes its own copy of the kernel. Before each execution the field values of the kernel are copied to each
+ * copy, so the host sets up the kernel as usual. OpenCL devices write to private copies of the arrays the kernel writes and
+ * only their share of each array is copied back, JTP devices write the kernel's arrays directly.
+ *
+ * @see com.amd.aparapi.internal.model.Entrypoint#isPartitionable()
+ */
+public class MultiDeviceKernel{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * How much of the last measured throughput of a device goes into its moving average.
+    */
+   private static final double SMOOTHING = 0.5;
+
+   private final Kernel kernel;
+
+   private final List<Device> devices;
+
+   private final List<Kernel> copies = new ArrayList<Kernel>();
+
+   /**
+    * The non static fields of the kernel's class (and its superclasses up to <code>Kernel</code>).
+    */
+   private final List<Field> fields = new ArrayList<Field>();
+
+   /**
+    * For each field, true if it is a global array which the kernel writes.
+    */
+   private final List<Boolean> written = new ArrayList<Boolean>();
+
+   /**
+    * For each field, true if it is a <code>@Local</code> array.
+    */
+   private final List<Boolean> local = new ArrayList<Boolean>();
+
+   /**
+    * The arrays each copy uses in place of the kernel's, indexed by device then field. Null where the copy shares the
+    * kernel's value.
+    */
+   private final Object[][] privateArrays;
+
+   /**
+    * Moving average of the work items per nanosecond of each device, 0 until a device has executed.
+    */
+   private final double[] throughput;
+
+   /**
+    * @param _kernel
+    *          the kernel to execute, its <code>run()</code> method is executed
+    * @param _devices
+    *          the devices to split the range between, a device which is not an <code>OpenCLDevice</code> executes in JTP
+    * @throws IllegalArgumentException
+    *           if the kernel can't be proven to write only the elements of its own work items
+    */
+   public MultiDeviceKernel(Kernel _kernel, List<Device> _devices) {
+      if (_devices.isEmpty()) {
+         throw new IllegalArgumentException("at least one device is required");
+      }
+
+      final Entrypoint entrypoint;
+      try {
+         entrypoint = ModelCache.getEntrypoint(_kernel.getClass(), "run");
+      } catch (final AparapiException exception) {
+         throw new IllegalArgumentException(_kernel.getClass().getName() + " can't be analyzed, " + exception, exception);
+      }
+      if (!entrypoint.isPartitionable()) {
+         throw new IllegalArgumentException(_kernel.getClass().getName()
+               + " may write elements other than those of its own work item, it can't be split between devices");
+      }
+
+      kernel = _kernel;
+      devices = new ArrayList<Device>(_devices);
+
+      for (Class<?> clazz = _kernel.getClass(); clazz != Kernel.class; clazz = clazz.getSuperclass()) {
+         for (final Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+               field.setAccessible(true);
+               final boolean isArray = field.getType().isArray();
+               final boolean isLocal = isArray
+                     && (field.getName().endsWith(Kernel.LOCAL_SUFFIX) || (field.getAnnotation(Kernel.Local.class) != null));
+               fields.add(field);
+               local.add(isLocal);
+               written.add(isArray && !isLocal && entrypoint.getArrayFieldAssignments().contains(field.getName()));
+            }
+         }
+      }
+
+      for (final Device device : devices) {
+         copies.add(_kernel.cloneForDevice(device));
+      }
+      privateArrays = new Object[devices.size()][fields.size()];
+      throughput = new double[devices.size()];
+   }
+
+   public Kernel getKernel() {
+      return (kernel);
+   }
+
+   public List<Device> getDevices() {
+      return (Collections.unmodifiableList(devices));
+   }
+
+   /**
+    * @return the fraction of the groups which the next execution will give each device (in the order the devices were
+    *         given)
+    */
+   public synchronized double[] getWeights() {
+      double known = 0;
+      int count = 0;
+      for (final double t : throughput) {
+         if (t > 0) {
+            known += t;
+            count++;
+         }
+      }
+      // A device which has not executed yet is assumed to be average
+      final double unknown = (count > 0) ? (known / count) : 1.0;
+
+      final double[] weights = new double[throughput.length];
+      double total = 0;
+      for (int device = 0; device < weights.length; device++) {
+         weights[device] = (throughput[device] > 0) ? throughput[device] : unknown;
+         total += weights[device];
+      }
+      for (int device = 0; device < weights.length; device++) {
+         weights[device] /= total;
+      }
+      return (weights);
+   }
+
+   /**
+    * Execute one pass of the kernel over <code>_range</code>, split between the devices. Returns once every device has
+    * executed its share.
+    *
+    * @param _range
+    *          a 1D range
+    * @return this
+    */
+   public synchronized MultiDeviceKernel execute(final Range _range) {
+      if (_range.getDims() != 1) {
+         throw new IllegalArgumentException("only 1D ranges can be split between devices");
+      }
+
+      final int groups = _range.getNumGroups(0);
+      final int localSize = _range.getLocalSize(0);
+      final int[] firstGroupIds = share(getWeights(), groups);
+
+      if (logger.isLoggable(Level.FINE)) {
+         final StringBuilder shares = new StringBuilder();
+         for (int device = 0; device < devices.size(); device++) {
+            shares.append(" ").append(firstGroupIds[device + 1] - firstGroupIds[device]);
+         }
+         logger.fine("Splitting " + groups + " groups of " + kernel.getClass().getName() + " as" + shares);
+      }
+
+      final long[] nanos = new long[devices.size()];
+      final Throwable[] failures = new Throwable[devices.size()];
+      final List<Integer> parts = new ArrayList<Integer>();
+      for (int device = 0; device < devices.size(); device++) {
+         if (firstGroupIds[device + 1] > firstGroupIds[device]) {
+            parts.add(device);
+         }
+      }
+
+      final Phaser join = new Phaser(parts.size());
+      for (int part = parts.size() - 1; part >= 0; part--) {
+         final int device = parts.get(part);
+         final Runnable task = new Runnable(){
+            @Override public void run() {
+               try {
+                  final long start = System.nanoTime();
+                  executeShare(device, _range, firstGroupIds[device], firstGroupIds[device + 1]);
+                  nanos[device] = System.nanoTime() - start;
+               } catch (final Throwable throwable) {
+                  failures[device] = throwable;
+               } finally {
+                  join.arrive();
+               }
+            }
+         };
+         if (part == 0) {
+            // The calling thread executes the first share rather than just waiting
+            task.run();
+         } else {
+            JTPScheduler.getScheduler().executeConcurrently(task);
+         }
+      }
+      join.awaitAdvance(0);
+
+      for (final Throwable failure : failures) {
+         if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+         } else if (failure instanceof Error) {
+            throw (Error) failure;
+         }
+      }
+
+      for (final int device : parts) {
+         final double measured = ((double) (firstGroupIds[device + 1] - firstGroupIds[device]) * localSize)
+               / Math.max(1, nanos[device]);
+         throughput[device] = (throughput[device] > 0) ? ((SMOOTHING * measured) + ((1 - SMOOTHING) * throughput[device]))
+               : measured;
+      }
+      return (this);
+   }
+
+   /**
+    * Split <code>_groups</code> groups in proportion to <code>_weights</code>, giving each device at least one group while
+    * there are enough to go round.
+    *
+    * @return the first group of each device followed by <code>_groups</code>
+    */
+   private static int[] share(double[] _weights, int _groups) {
+      final int devices = _weights.length;
+      final int[] firstGroupIds = new int[devices + 1];
+      double cumulative = 0;
+      for (int device = 0; device < devices; device++) {
+         cumulative += _weights[device];
+         final int first = firstGroupIds[device];
+         int last = (device == (devices - 1)) ? _groups : (int) Math.round(_groups * cumulative);
+         last = Math.max(last, Math.min(first + 1, _groups));
+         last = Math.min(last, Math.max(first, _groups - (devices - 1 - device)));
+         firstGroupIds[device + 1] = last;
+      }
+      return (firstGroupIds);
+   }
+
+   private void executeShare(int _device, Range _range, int _firstGroupId, int _lastGroupId) {
+      final Kernel copy = copies.get(_device);
+      final boolean isOpenCL = devices.get(_device) instanceof OpenCLDevice;
+      final Object[] arrays = privateArrays[_device];
+
+      try {
+         for (int i = 0; i < fields.size(); i++) {
+            final Field field = fields.get(i);
+            final Object value = field.get(kernel);
+            if ((value != null) && (local.get(i) || (isOpenCL && written.get(i)))) {
+               // Local arrays are per group, so concurrently executing JTP devices can't share them
+               final int length = Array.getLength(value);
+               if ((arrays[i] == null) || (arrays[i].getClass() != value.getClass()) || (Array.getLength(arrays[i]) != length)) {
+                  arrays[i] = Array.newInstance(value.getClass().getComponentType(), length);
+               }
+               if (!local.get(i)) {
+                  System.arraycopy(value, 0, arrays[i], 0, length);
+               }
+               field.set(copy, arrays[i]);
+            } else {
+               field.set(copy, value);
+            }
+         }
+      } catch (final IllegalAccessException exception) {
+         throw new IllegalStateException("can't copy the fields of " + kernel.getClass().getName(), exception);
+      }
+
+      copy.executePartition(_range, devices.get(_device), _firstGroupId, _lastGroupId);
+
+      if (isOpenCL) {
+         final int firstGlobalId = _firstGroupId * _range.getLocalSize(0);
+         final int lastGlobalId = Math.min(_lastGroupId * _range.getLocalSize(0), _range.getGlobalSize(0));
+         try {
+            for (int i = 0; i < fields.size(); i++) {
+               if (written.get(i) && (arrays[i] != null)) {
+                  final Object value = fields.get(i).get(kernel);
+                  final int last = Math.min(lastGlobalId, Array.getLength(value));
+                  if (last > firstGlobalId) {
+                     System.arraycopy(arrays[i], firstGlobalId, value, firstGlobalId, last - firstGlobalId);
+                  }
+               }
+            }
+         } catch (final IllegalAccessException exception) {
+            throw new IllegalStateException("can't copy the results of " + kernel.getClass().getName(), exception);
+         }
+      }
+   }
+
+   /**
+    * Release the OpenCL resources of each device's copy of the kernel. The kernel itself is not disposed.
+    */
+   public synchronized void dispose() {
+      for (final Kernel copy : copies) {
+         copy.dispose();
+      }
+   }
+}
@@ -39,7 +39,7 @@ package com.amd.aparapi;
 
 public class ProfileInfo{
 
-   private enum TYPE {
+   public enum TYPE {
       R,
       X,
       W
@@ -0,0 +1,556 @@
+package com.amd.aparapi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Phaser;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.device.Device;
+import com.amd.aparapi.device.OpenCLDevice;
+import com.amd.aparapi.internal.exception.AparapiException;
+import com.amd.aparapi.internal.kernel.JTPScheduler;
+import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.Entrypoint.AffineIndex;
+import com.amd.aparapi.internal.model.ModelCache;
+
+/**
+ * Executes a kernel over a 1D range as a sequence of smaller ranges (tiles), so that a kernel whose arrays are larger than
+ * the memory of an OpenCL device can still execute on the device.<br/>
+ *
+ * Each tile is given only the part of each array its work items access. That is only possible for kernels which access their
+ * arrays at <code>scale * getGlobalId() + offset</code>, see <code>Entrypoint.getTiledArrays()</code>. Before each tile
+ * executes, its part of each such array is copied into an array of its own (of the tile's size) and written to the device,
+ * after the tile executes its part of each array the kernel writes is read back and copied into the kernel's array. Arrays
+ * which the kernel reads at other indices are written to the device once per execution, so they must fit.
+ *
+ * The tile size is chosen so that each tile's arrays fit within <code>getMaxMemAllocSize()</code> of the device and all of
+ * them within a fraction of <code>getGlobalMemSize()</code>. Tiles are whole groups of the range.
+ *
+ * Tiles are pipelined. Each of <code>getPipelineDepth()</code> copies of the kernel has its own OpenCL context and command
+ * queue and executes every <code>getPipelineDepth()</code>th tile, so while one tile executes on the device the next is being
+ * written to it and the previous one read back. Tiles whose written parts of an array would overlap are executed one at a
+ * time. With <code>-Dcom.amd.aparapi.enableProfiling=true</code> the <code>ProfileInfo</code> of every tile is kept (in the
+ * device's own time, as each copy's times are relative to its own context) and <code>getOverlapNanos()</code> reports how
+ * long transfers overlapped executions.
+ *
+ * <code>Kernel.execute()</code> uses a <code>TiledKernel</code> itself when a kernel executing in OpenCL has arrays which
+ * don't fit on its device, unless <code>-Dcom.amd.aparapi.disableTiling=true</code>.
+ *
+ * @see com.amd.aparapi.internal.model.Entrypoint#getTiledArrays()
+ */
+public class TiledKernel{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * The fraction of the global memory of the device the arrays of a tile may use.
+    */
+   private static final double MEMORY_FRACTION = 0.75;
+
+   /**
+    * The default number of tiles in flight at once, enough for one to transfer while another executes.
+    */
+   public static final int DEFAULT_PIPELINE_DEPTH = 2;
+
+   private final Kernel kernel;
+
+   private final Device device;
+
+   /**
+    * The copies of the kernel which execute the tiles, one per stage of the pipeline.
+    */
+   private final List<Kernel> copies = new ArrayList<Kernel>();
+
+   /**
+    * The non static fields of the kernel's class (and its superclasses up to <code>Kernel</code>).
+    */
+   private final List<Field> fields = new ArrayList<Field>();
+
+   /**
+    * For each field, how it is indexed if it is split into tiles, otherwise null.
+    */
+   private final List<AffineIndex> indices = new ArrayList<AffineIndex>();
+
+   /**
+    * For each field, true if it is a global array which the kernel writes.
+    */
+   private final List<Boolean> written = new ArrayList<Boolean>();
+
+   /**
+    * For each field, true if it is a global array which is given whole to each tile.
+    */
+   private final List<Boolean> whole = new ArrayList<Boolean>();
+
+   /**
+    * For each copy, the arrays it uses for each tile, indexed by field. Null where the copy shares the kernel's value.
+    */
+   private final List<Object[]> tiles = new ArrayList<Object[]>();
+
+   /**
+    * True if the parts of the arrays written by neighbouring tiles overlap, so tiles must execute one at a time.
+    */
+   private final boolean overlappingWrites;
+
+   private int maxTileSize = Integer.MAX_VALUE;
+
+   private int pipelineDepth = DEFAULT_PIPELINE_DEPTH;
+
+   /**
+    * The <code>ProfileInfo</code> of each tile of the last execution.
+    */
+   private final List<ProfileInfo> profileInfo = new ArrayList<ProfileInfo>();
+
+   private long elapsedNanos;
+
+   /**
+    * @param _kernel
+    *          the kernel to execute, its <code>run()</code> method is executed
+    * @param _device
+    *          the device to execute the tiles on, a device which is not an <code>OpenCLDevice</code> executes in JTP
+    * @throws IllegalArgumentException
+    *           if the kernel can't be split into tiles
+    */
+   public TiledKernel(Kernel _kernel, Device _device) {
+      final Entrypoint entrypoint;
+      try {
+         entrypoint = ModelCache.getEntrypoint(_kernel.getClass(), "run");
+      } catch (final AparapiException exception) {
+         throw new IllegalArgumentException(_kernel.getClass().getName() + " can't be analyzed, " + exception, exception);
+      }
+      final Map<String, AffineIndex> tiledArrays = entrypoint.getTiledArrays();
+      if (tiledArrays == null) {
+         throw new IllegalArgumentException(_kernel.getClass().getName()
+               + " does not access its arrays at scale * getGlobalId() + offset, it can't be split into tiles");
+      }
+
+      kernel = _kernel;
+      device = _device;
+
+      boolean overlapping = false;
+      for (Class<?> clazz = _kernel.getClass(); clazz != Kernel.class; clazz = clazz.getSuperclass()) {
+         for (final Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+               field.setAccessible(true);
+               final boolean isGlobalArray = field.getType().isArray() && !field.getName().endsWith(Kernel.LOCAL_SUFFIX)
+                     && (field.getAnnotation(Kernel.Local.class) == null);
+               final AffineIndex index = tiledArrays.get(field.getName());
+               final boolean isWritten = isGlobalArray && entrypoint.getArrayFieldAssignments().contains(field.getName());
+               fields.add(field);
+               indices.add(index);
+               written.add(isWritten);
+               whole.add(isGlobalArray && (index == null) && entrypoint.getReferencedFieldNames().contains(field.getName()));
+               overlapping |= isWritten && (index != null) && (index.getMaxOffset() >= index.getScale());
+            }
+         }
+      }
+      overlappingWrites = overlapping;
+
+      addCopy();
+   }
+
+   /**
+    * Add a copy of the kernel, with its own OpenCL context, to execute tiles.
+    */
+   private void addCopy() {
+      final Kernel copy = kernel.cloneForDevice(device);
+      // Only the parts of the arrays which change are transferred for each tile
+      copy.setExplicit(true);
+      copies.add(copy);
+      tiles.add(new Object[fields.size()]);
+   }
+
+   public Kernel getKernel() {
+      return (kernel);
+   }
+
+   public Device getDevice() {
+      return (device);
+   }
+
+   /**
+    * Limit the number of work items in a tile, below the limit imposed by the device's memory.
+    *
+    * @param _maxTileSize
+    * @return this
+    */
+   public synchronized TiledKernel setMaxTileSize(int _maxTileSize) {
+      if (_maxTileSize < 1) {
+         throw new IllegalArgumentException("a tile must have at least one work item");
+      }
+      maxTileSize = _maxTileSize;
+      return (this);
+   }
+
+   /**
+    * Set the number of tiles in flight at once. Each needs a copy of the kernel with its own OpenCL context, and its own share
+    * of the device's memory, so deeper pipelines have smaller tiles. A depth of 1 executes the tiles one at a time.
+    *
+    * @param _pipelineDepth
+    * @return this
+    */
+   public synchronized TiledKernel setPipelineDepth(int _pipelineDepth) {
+      if (_pipelineDepth < 1) {
+         throw new IllegalArgumentException("a pipeline must have at least one stage");
+      }
+      pipelineDepth = _pipelineDepth;
+      return (this);
+   }
+
+   /**
+    * @return the number of tiles in flight at once, 1 if the parts of the arrays written by neighbouring tiles overlap
+    */
+   public synchronized int getPipelineDepth() {
+      return (overlappingWrites ? 1 : pipelineDepth);
+   }
+
+   /**
+    * @param _range
+    *          a 1D range
+    * @return the number of work items in each tile (but the last) of an execution over <code>_range</code>
+    * @throws IllegalStateException
+    *           if the kernel's arrays don't fit on the device even for a single group
+    */
+   public synchronized int getTileSize(Range _range) {
+      final int localSize = _range.getLocalSize(0);
+      long tileSize = Math.min(maxTileSize, _range.getGlobalSize(0));
+
+      if (device instanceof OpenCLDevice) {
+         final long maxAlloc = ((OpenCLDevice) device).getMaxMemAllocSize();
+         // Every stage of the pipeline holds a tile (and the whole arrays) on the device at once
+         final long budget = (long) ((((OpenCLDevice) device).getGlobalMemSize() * MEMORY_FRACTION) / getPipelineDepth());
+         long wholeBytes = 0;
+         long bytesPerWorkItem = 0;
+         long bytesPerTile = 0;
+         try {
+            for (int i = 0; i < fields.size(); i++) {
+               final Object value = fields.get(i).get(kernel);
+               if ((value == null) || !value.getClass().isArray()) {
+                  continue;
+               }
+               final int elementSize = getElementSize(value.getClass().getComponentType());
+               final AffineIndex index = indices.get(i);
+               if (index != null) {
+                  bytesPerWorkItem += (long) index.getScale() * elementSize;
+                  bytesPerTile += (long) (index.getMaxOffset() + 1) * elementSize;
+                  if (maxAlloc > 0) {
+                     tileSize = Math.min(tileSize, (((maxAlloc / elementSize) - index.getMaxOffset() - 1) / index.getScale()) + 1);
+                  }
+               } else if (whole.get(i)) {
+                  wholeBytes += (long) Array.getLength(value) * elementSize;
+               }
+            }
+         } catch (final IllegalAccessException exception) {
+            throw new IllegalStateException("can't read the fields of " + kernel.getClass().getName(), exception);
+         }
+         if ((budget > 0) && (bytesPerWorkItem > 0)) {
+            tileSize = Math.min(tileSize, (budget - wholeBytes - bytesPerTile) / bytesPerWorkItem);
+         }
+      }
+
+      tileSize = (tileSize / localSize) * localSize;
+      if (tileSize < localSize) {
+         throw new IllegalStateException("the arrays of " + kernel.getClass().getName()
+               + " don't fit on the device even for a single group");
+      }
+      return ((int) tileSize);
+   }
+
+   /**
+    * Execute one pass of the kernel over <code>_range</code>, a tile at a time. Returns once every tile has executed and its
+    * results have been copied into the kernel's arrays.
+    *
+    * @param _range
+    *          a 1D range
+    * @return this
+    */
+   public synchronized TiledKernel execute(Range _range) {
+      if (_range.getDims() != 1) {
+         throw new IllegalArgumentException("only 1D ranges can be split into tiles");
+      }
+      final int globalSize = _range.getGlobalSize(0);
+      final int localSize = _range.getLocalSize(0);
+      final int tileSize = getTileSize(_range);
+      final int stages = (int) Math.min(getPipelineDepth(), (((long) globalSize + tileSize) - 1) / tileSize);
+
+      final long start = System.nanoTime();
+      profileInfo.clear();
+      while (copies.size() < stages) {
+         addCopy();
+      }
+      try {
+         for (int stage = 0; stage < stages; stage++) {
+            prepareCopy(stage, tileSize);
+         }
+      } catch (final IllegalAccessException exception) {
+         throw new IllegalStateException("can't copy the fields of " + kernel.getClass().getName(), exception);
+      }
+
+      final Throwable[] failures = new Throwable[stages];
+      final Phaser join = new Phaser(stages);
+      for (int stage = stages - 1; stage >= 0; stage--) {
+         final int thisStage = stage;
+         final Runnable task = new Runnable(){
+            @Override public void run() {
+               try {
+                  executeStage(thisStage, stages, globalSize, localSize, tileSize);
+               } catch (final Throwable throwable) {
+                  failures[thisStage] = throwable;
+               } finally {
+                  join.arrive();
+               }
+            }
+         };
+         if (stage == 0) {
+            // The calling thread executes the first stage rather than just waiting
+            task.run();
+         } else {
+            JTPScheduler.getScheduler().executeConcurrently(task);
+         }
+      }
+      join.awaitAdvance(0);
+      elapsedNanos = System.nanoTime() - start;
+
+      for (final Throwable failure : failures) {
+         if (failure instanceof IllegalAccessException) {
+            throw new IllegalStateException("can't copy the fields of " + kernel.getClass().getName(), failure);
+         } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+         } else if (failure instanceof Error) {
+            throw (Error) failure;
+         }
+      }
+
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine(kernel.getClass().getName() + " " + globalSize + " work items in tiles of " + tileSize + ", " + stages
+               + " at once, in " + (elapsedNanos / 1000) + "us, transfers overlapped executions for "
+               + (getOverlapNanos(profileInfo) / 1000) + "us");
+      }
+      return (this);
+   }
+
+   /**
+    * Execute every <code>_stages</code>th tile, starting with tile <code>_stage</code>, on copy <code>_stage</code>.
+    */
+   private void executeStage(int _stage, int _stages, int _globalSize, int _localSize, int _tileSize) throws IllegalAccessException {
+      final Kernel copy = copies.get(_stage);
+      final Object[] stageTiles = tiles.get(_stage);
+      boolean firstTile = true;
+      for (long first = (long) _stage * _tileSize; first < _globalSize; first += (long) _stages * _tileSize) {
+         final int count = (int) Math.min(_tileSize, _globalSize - first);
+         final long start = System.nanoTime();
+         copyIn(copy, stageTiles, (int) first, count, firstTile);
+         firstTile = false;
+         copy.execute(Range.create((device instanceof OpenCLDevice) ? device : null, count, _localSize));
+         copyOut(copy, stageTiles, (int) first, count);
+
+         final List<ProfileInfo> tileProfileInfo = copy.getProfileInfo();
+         if (tileProfileInfo != null) {
+            synchronized (profileInfo) {
+               profileInfo.addAll(toDeviceTime(tileProfileInfo, copy.getProfileBaseTime()));
+            }
+         }
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine(kernel.getClass().getName() + " tile at " + first + " of " + count + " work items in "
+                  + ((System.nanoTime() - start) / 1000) + "us (" + copy.getExecutionMode() + ", stage " + _stage + ")");
+         }
+      }
+   }
+
+   /**
+    * Give a copy of the kernel the kernel's field values, and tile arrays for the arrays which are split into tiles.
+    */
+   private void prepareCopy(int _stage, int _tileSize) throws IllegalAccessException {
+      final Kernel copy = copies.get(_stage);
+      final Object[] stageTiles = tiles.get(_stage);
+      for (int i = 0; i < fields.size(); i++) {
+         final Field field = fields.get(i);
+         final Object value = field.get(kernel);
+         final AffineIndex index = indices.get(i);
+         if ((index != null) && (value != null)) {
+            final int length = (int) Math.min(index.getLength(_tileSize), Array.getLength(value));
+            if ((stageTiles[i] == null) || (stageTiles[i].getClass() != value.getClass())
+                  || (Array.getLength(stageTiles[i]) != length)) {
+               stageTiles[i] = Array.newInstance(value.getClass().getComponentType(), length);
+            }
+            field.set(copy, stageTiles[i]);
+         } else {
+            stageTiles[i] = null;
+            field.set(copy, value);
+         }
+      }
+   }
+
+   /**
+    * Copy the part of each array accessed by the tile's work items into the tile's arrays and mark them for transfer.
+    */
+   private void copyIn(Kernel _copy, Object[] _tiles, int _first, int _count, boolean _firstTile) throws IllegalAccessException {
+      for (int i = 0; i < fields.size(); i++) {
+         if (_tiles[i] != null) {
+            final Object value = fields.get(i).get(kernel);
+            final long start = (long) _first * indices.get(i).getScale();
+            final int length = getTileLength(i, _tiles[i], start, _count, value);
+            if (length > 0) {
+               // Written arrays are read too, the tile must not write back elements its work items don't assign
+               System.arraycopy(value, (int) start, _tiles[i], 0, length);
+            }
+            _copy.putArray(_tiles[i]);
+         } else if (_firstTile && whole.get(i)) {
+            final Object value = fields.get(i).get(kernel);
+            if (value != null) {
+               _copy.putArray(value);
+            }
+         }
+      }
+   }
+
+   /**
+    * Read back the tile's arrays which the kernel writes and copy them into the kernel's arrays.
+    */
+   private void copyOut(Kernel _copy, Object[] _tiles, int _first, int _count) throws IllegalAccessException {
+      for (int i = 0; i < fields.size(); i++) {
+         if ((_tiles[i] != null) && written.get(i)) {
+            final Object value = fields.get(i).get(kernel);
+            final long start = (long) _first * indices.get(i).getScale();
+            final int length = getTileLength(i, _tiles[i], start, _count, value);
+            _copy.getArray(_tiles[i]);
+            if (length > 0) {
+               System.arraycopy(_tiles[i], 0, value, (int) start, length);
+            }
+         }
+      }
+   }
+
+   /**
+    * @return the number of elements of field <code>_field</code> from <code>_start</code> accessed by <code>_count</code>
+    *         work items, within the kernel's array
+    */
+   private int getTileLength(int _field, Object _tile, long _start, int _count, Object _value) {
+      return ((int) Math.min(Math.min(indices.get(_field).getLength(_count), Array.getLength(_value) - _start),
+            Array.getLength(_tile)));
+   }
+
+   private static int getElementSize(Class<?> _type) {
+      if ((_type == long.class) || (_type == double.class)) {
+         return (8);
+      } else if ((_type == int.class) || (_type == float.class)) {
+         return (4);
+      } else if ((_type == short.class) || (_type == char.class)) {
+         return (2);
+      }
+      return (1);
+   }
+
+   /**
+    * @return the time the last execution took, from staging its first tile to copying back the results of its last
+    */
+   public synchronized long getElapsedNanos() {
+      return (elapsedNanos);
+   }
+
+   /**
+    * @return the <code>ProfileInfo</code> of every tile of the last execution, with times in ns of the device's clock, empty
+    *         unless the tiles executed in OpenCL with <code>-Dcom.amd.aparapi.enableProfiling=true</code>
+    */
+   public synchronized List<ProfileInfo> getProfileInfo() {
+      return (new ArrayList<ProfileInfo>(profileInfo));
+   }
+
+   /**
+    * @return the time during the last execution in which the device was transferring the arrays of one tile while executing
+    *         another, see <code>getOverlapNanos(List)</code>
+    */
+   public synchronized long getOverlapNanos() {
+      return (getOverlapNanos(profileInfo));
+   }
+
+   /**
+    * @return the time during the last execution in which the device was transferring arrays of a tile
+    */
+   public synchronized long getTransferNanos() {
+      return (getCoveredNanos(profileInfo, false));
+   }
+
+   /**
+    * @return the time during the last execution in which the device was executing a tile
+    */
+   public synchronized long getExecuteNanos() {
+      return (getCoveredNanos(profileInfo, true));
+   }
+
+   /**
+    * Convert <code>ProfileInfo</code> from <code>Kernel.getProfileInfo()</code>, whose times are relative to the first profiled
+    * command of the kernel's own OpenCL context, to the device's clock, so that it can be merged with that of other contexts
+    * on the same device.
+    *
+    * @param _profileInfo
+    * @param _baseTime
+    *          the device time the times of <code>_profileInfo</code> are relative to
+    * @return <code>_profileInfo</code> with <code>_baseTime</code> added to each time
+    */
+   public static List<ProfileInfo> toDeviceTime(List<ProfileInfo> _profileInfo, long _baseTime) {
+      final List<ProfileInfo> converted = new ArrayList<ProfileInfo>(_profileInfo.size());
+      for (final ProfileInfo info : _profileInfo) {
+         converted.add(new ProfileInfo(info.getLabel(), info.getType().ordinal(), info.getStart() + _baseTime, info.getEnd()
+               + _baseTime, info.getSubmit() + _baseTime, info.getQueued() + _baseTime));
+      }
+      return (converted);
+   }
+
+   /**
+    * The time during which transfers overlapped executions. The times must share a time base, such as the device's clock
+    * (see <code>toDeviceTime()</code>), so only <code>ProfileInfo</code> from the same device is comparable.
+    *
+    * @param _profileInfo
+    * @return the time covered both by a transfer (a read or a write) and by an execution
+    */
+   public static long getOverlapNanos(List<ProfileInfo> _profileInfo) {
+      final List<ProfileInfo> all = new ArrayList<ProfileInfo>(_profileInfo);
+      return ((getCoveredNanos(all, true) + getCoveredNanos(all, false)) - getCoveredNanos(all, null));
+   }
+
+   /**
+    * @param _execute
+    *          true for executions only, false for transfers only, null for both
+    * @return the time covered by at least one of the selected intervals of <code>_profileInfo</code>
+    */
+   private static long getCoveredNanos(List<ProfileInfo> _profileInfo, Boolean _execute) {
+      final List<ProfileInfo> selected = new ArrayList<ProfileInfo>();
+      for (final ProfileInfo info : _profileInfo) {
+         if ((info.getEnd() > info.getStart())
+               && ((_execute == null) || (_execute.booleanValue() == (info.getType() == ProfileInfo.TYPE.X)))) {
+            selected.add(info);
+         }
+      }
+      Collections.sort(selected, new Comparator<ProfileInfo>(){
+         @Override public int compare(ProfileInfo _lhs, ProfileInfo _rhs) {
+            return (Long.compare(_lhs.getStart(), _rhs.getStart()));
+         }
+      });
+
+      long covered = 0;
+      long coveredTo = Long.MIN_VALUE;
+      for (final ProfileInfo info : selected) {
+         if (info.getEnd() > coveredTo) {
+            covered += info.getEnd() - Math.max(info.getStart(), coveredTo);
+            coveredTo = info.getEnd();
+         }
+      }
+      return (covered);
+   }
+
+   /**
+    * Release the OpenCL resources of the copies of the kernel which execute the tiles. The kernel itself is not disposed.
+    */
+   public synchronized void dispose() {
+      for (final Kernel copy : copies) {
+         copy.dispose();
+      }
+   }
+}
@@ -84,6 +84,7 @@ import com.amd.aparapi.internal.instruction.Instruction;
       MULTIDIMENSIONARRAYASSIGN("Can't assign to two dimension array"), //
       MULTIDIMENSIONARRAYACCESS("Can't access through a two dimensional array"), //
       MISSINGLOCALVARIABLETABLE("Method does not contain a local variable table (recompile with -g?)"), //
+      BUFFERMETHOD("Only absolute get(index), put(index, value) and capacity() can be called on a buffer field"), //
       IMPROPERPRIVATENAMEMANGLING("Could not parse private array size from field name");
 
       private String description;
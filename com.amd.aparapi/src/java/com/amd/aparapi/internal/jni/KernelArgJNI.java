@@ -74,6 +74,12 @@ public abstract class KernelArgJNI{
     */
    @UsedByJNICode protected int[] dims;
 
+   /**
+    * If an explicit write of this array only needs to transfer some parts of it then the offset and length (in bytes) of
+    * each part are stored here in pairs, otherwise null
+    */
+   @UsedByJNICode protected int[] dirtyRanges;
+
    /**
     * If this is an array buffer then the number of elements is stored here.
     * 
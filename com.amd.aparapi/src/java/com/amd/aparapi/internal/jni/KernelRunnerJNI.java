@@ -207,6 +207,14 @@ public abstract class KernelRunnerJNI{
     */
    @UsedByJNICode protected static final int ARG_OBJ_ARRAY_STRUCT = 1 << 18;
 
+   /**
+    * This 'bit' indicates that a particular <code>KernelArg</code> represents a direct <code>java.nio</code> buffer, which is
+    * used in place rather than pinned and copied like an array.
+    * 
+    * @see com.amd.aparapi.internal.annotation.UsedByJNICode
+    */
+   @UsedByJNICode protected static final int ARG_DIRECT_BUFFER = 1 << 19;
+
 
    /**
     * This 'bit' indicates that a particular <code>KernelArg</code> represents a <code>char</code> type (array or primitive).
@@ -294,15 +302,83 @@ public abstract class KernelRunnerJNI{
 
    protected native int getJNI(long _jniContextHandle, Object _array);
 
+   /**
+    * Read part of an explicit array back from the device.
+    * 
+    * @param _jniContextHandle
+    * @param _array
+    * @param _offsetInBytes
+    *          the offset of the first byte to read
+    * @param _lengthInBytes
+    *          the number of bytes to read
+    * @return the OpenCL status
+    */
+   protected native int getRangeJNI(long _jniContextHandle, Object _array, int _offsetInBytes, int _lengthInBytes);
+
    protected native long buildProgramJNI(long _jniContextHandle, String _source);
 
+   /**
+    * Create the program from a binary previously returned by <code>getProgramBinaryJNI()</code> for the same device.
+    * 
+    * @param _jniContextHandle
+    * @param _binary
+    * @return the context handle, or 0 if the binary was rejected (the caller should then build from source)
+    */
+   protected native long buildProgramFromBinaryJNI(long _jniContextHandle, byte[] _binary);
+
+   /**
+    * @param _jniContextHandle
+    * @return the binary of the program built by <code>buildProgramJNI()</code> for this context's device, or null
+    */
+   protected native byte[] getProgramBinaryJNI(long _jniContextHandle);
+
+   /**
+    * @param _jniContextHandle
+    * @return a description of this context's device and driver (vendor, name, device version and driver version)
+    */
+   protected native String getDeviceIdentityJNI(long _jniContextHandle);
+
    protected native int setArgsJNI(long _jniContextHandle, KernelArgJNI[] _args, int argc);
 
    protected native int runKernelJNI(long _jniContextHandle, Range _range, boolean _needSync, int _passes);
 
+   /**
+    * Execute one pass of the kernel over a share of a larger range. <code>get_global_id(0)</code> is offset by
+    * <code>_globalOffset</code>, so each work item sees the id it has in the whole range.
+    * 
+    * @param _jniContextHandle
+    * @param _range
+    *          the share of the range, as a range starting at 0
+    * @param _needSync
+    * @param _globalOffset
+    *          the global id of the first work item of the share
+    * @return 0 on success
+    */
+   protected native int runKernelPartitionJNI(long _jniContextHandle, Range _range, boolean _needSync, int _globalOffset);
+
+   /**
+    * Execute the kernel once for each range. The arguments are written once, the executions are enqueued back to back and the
+    * results are read back once all of them have completed.
+    * 
+    * @param _jniContextHandle
+    * @param _ranges
+    * @param _needSync
+    * @param _firstPassId
+    *          the passId of the first execution, execution <code>i</code> sees <code>_firstPassId + i</code>
+    * @return 0 on success
+    */
+   protected native int runKernelBatchJNI(long _jniContextHandle, Range[] _ranges, boolean _needSync, int _firstPassId);
+
    protected native int disposeJNI(long _jniContextHandle);
 
    protected native String getExtensionsJNI(long _jniContextHandle);
 
    protected native synchronized List<ProfileInfo> getProfileInfoJNI(long _jniContextHandle);
+
+   /**
+    * @param _jniContextHandle
+    * @return the device time (in ns) which the times of this context's <code>ProfileInfo</code> are relative to, or 0 if it
+    *         has not yet profiled an execution
+    */
+   protected native long getProfileBaseTimeJNI(long _jniContextHandle);
 }
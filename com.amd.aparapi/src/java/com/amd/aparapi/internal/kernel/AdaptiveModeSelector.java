@@ -0,0 +1,363 @@
+package com.amd.aparapi.internal.kernel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.Range;
+
+/**
+ * Learns which execution mode is fastest for each kernel class, entrypoint and range size.<br/>
+ *
+ * A kernel's list of execution modes (see <code>Kernel.addExecutionModes()</code>) only moves on to the next mode when a
+ * mode fails, but the first mode which works is not necessarily the fastest. For a small range the cost of launching an
+ * OpenCL kernel and transferring its arrays is often more than the cost of executing the whole range in JTP, for a large
+ * range the reverse.
+ *
+ * So for each kernel class, entrypoint and range size (the number of work items, rounded down to a power of two) we first
+ * execute in each of the kernel's modes in turn. The first execution in each mode is not timed (it includes converting and
+ * compiling the kernel), the next <code>SAMPLES</code> are. We then execute in the mode with the lowest average time per
+ * pass. Every <code>Config.adaptiveProbeInterval</code> executions one of the other modes is timed again, so a choice which
+ * is no longer right (for example because another application is now using the GPU) is corrected. A mode which fails (the
+ * kernel falls back to another mode) is not tried again for that kernel and size.
+ *
+ * When <code>Config.adaptiveModeFile</code> is set the chosen modes are read from that file when the selector is created and
+ * the file is rewritten (on a JTP scheduler thread, not by the executing thread) whenever a choice changes, so a later run
+ * starts in the chosen mode for each size.
+ *
+ * @see com.amd.aparapi.Config#enableAdaptiveExecutionMode
+ */
+public class AdaptiveModeSelector{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * Executions in each mode which are not timed.
+    */
+   private static final int WARMUP = 1;
+
+   /**
+    * Timed executions in each mode before we choose.
+    */
+   private static final int SAMPLES = 3;
+
+   private static final AdaptiveModeSelector selector = new AdaptiveModeSelector((Config.adaptiveModeFile != null) ? Paths
+         .get(Config.adaptiveModeFile) : null, Config.adaptiveProbeInterval);
+
+   /**
+    * @return the process wide selector
+    */
+   public static AdaptiveModeSelector getSelector() {
+      return (selector);
+   }
+
+   /**
+    * What we know about one kernel class, entrypoint and range size.
+    */
+   private static final class Decision{
+      private final Map<EXECUTION_MODE, Integer> executions = new EnumMap<EXECUTION_MODE, Integer>(EXECUTION_MODE.class);
+
+      private final Map<EXECUTION_MODE, Double> nanosPerPass = new EnumMap<EXECUTION_MODE, Double>(EXECUTION_MODE.class);
+
+      private final Set<EXECUTION_MODE> failed = EnumSet.noneOf(EXECUTION_MODE.class);
+
+      private EXECUTION_MODE chosen = null;
+
+      private int sinceProbe = 0;
+
+      private int nextProbe = 0;
+
+      private int getExecutions(EXECUTION_MODE _mode) {
+         final Integer count = executions.get(_mode);
+         return ((count != null) ? count : 0);
+      }
+   }
+
+   private final Path file;
+
+   private final int probeInterval;
+
+   private final Map<String, Decision> decisions = new HashMap<String, Decision>();
+
+   /**
+    * Writes the file off the execute path, one write at a time.
+    */
+   private final JTPScheduler.Serial writer = new JTPScheduler.Serial();
+
+   /**
+    * True while a write of the file is queued but has not yet taken its copy of the choices.
+    */
+   private boolean savePending = false;
+
+   /**
+    * @param _file
+    *          the file to read and write the chosen modes, or null
+    * @param _probeInterval
+    *          executions in the chosen mode between timing another mode, 0 to never re-probe
+    */
+   public AdaptiveModeSelector(Path _file, int _probeInterval) {
+      file = _file;
+      probeInterval = _probeInterval;
+      if (file != null) {
+         load();
+      }
+   }
+
+   /**
+    * @param _kernelClass
+    * @param _entrypointName
+    * @param _range
+    * @return the key under which executions of <code>_kernelClass</code> over ranges the size of <code>_range</code> are
+    *         timed
+    */
+   public static String getKey(Class<?> _kernelClass, String _entrypointName, Range _range) {
+      final long size = (long) _range.getGlobalSize(0) * _range.getGlobalSize(1) * _range.getGlobalSize(2);
+      return (_kernelClass.getName() + "." + _entrypointName + "/" + (63 - Long.numberOfLeadingZeros(Math.max(1, size))));
+   }
+
+   private Decision getDecision(String _key) {
+      Decision decision = decisions.get(_key);
+      if (decision == null) {
+         decision = new Decision();
+         decisions.put(_key, decision);
+      }
+      return (decision);
+   }
+
+   /**
+    * Choose the mode for the next execution.
+    *
+    * @param _key
+    * @param _candidates
+    *          the kernel's execution modes, in order of preference
+    * @return the mode to execute in
+    */
+   public synchronized EXECUTION_MODE select(String _key, Collection<EXECUTION_MODE> _candidates) {
+      final Decision decision = getDecision(_key);
+      final List<EXECUTION_MODE> candidates = new ArrayList<EXECUTION_MODE>();
+      for (final EXECUTION_MODE candidate : _candidates) {
+         if (!decision.failed.contains(candidate)) {
+            candidates.add(candidate);
+         }
+      }
+      if (candidates.isEmpty()) {
+         // Every mode has failed, leave it to the kernel's usual fallback
+         return (_candidates.iterator().next());
+      }
+
+      if ((decision.chosen == null) || !candidates.contains(decision.chosen)) {
+         for (final EXECUTION_MODE candidate : candidates) {
+            if (decision.getExecutions(candidate) < (WARMUP + SAMPLES)) {
+               return (candidate);
+            }
+         }
+         choose(_key, decision, candidates);
+      }
+
+      if ((probeInterval > 0) && (candidates.size() > 1) && (++decision.sinceProbe > probeInterval)) {
+         decision.sinceProbe = 0;
+         for (int i = 0; i < candidates.size(); i++) {
+            final EXECUTION_MODE candidate = candidates.get(decision.nextProbe++ % candidates.size());
+            if (candidate != decision.chosen) {
+               return (candidate);
+            }
+         }
+      }
+      return (decision.chosen);
+   }
+
+   /**
+    * Record the time taken by an execution in <code>_mode</code>.
+    *
+    * @param _key
+    * @param _mode
+    * @param _nanos
+    *          the time the execution took
+    * @param _passes
+    *          the number of passes the execution made
+    */
+   public synchronized void record(String _key, EXECUTION_MODE _mode, long _nanos, int _passes) {
+      final Decision decision = getDecision(_key);
+      final int executions = decision.getExecutions(_mode) + 1;
+      decision.executions.put(_mode, executions);
+      if (executions <= WARMUP) {
+         return;
+      }
+
+      // The mean of the first SAMPLES timings, then a moving average
+      final double sample = (double) _nanos / Math.max(1, _passes);
+      final Double average = decision.nanosPerPass.get(_mode);
+      decision.nanosPerPass.put(_mode,
+            (average == null) ? sample : average + ((sample - average) / Math.min(executions - WARMUP, SAMPLES)));
+
+      if ((decision.chosen != null) && decision.nanosPerPass.containsKey(decision.chosen)) {
+         choose(_key, decision, decision.nanosPerPass.keySet());
+      }
+   }
+
+   /**
+    * Record that an execution in <code>_mode</code> fell back to another mode.
+    *
+    * @param _key
+    * @param _mode
+    */
+   public synchronized void fail(String _key, EXECUTION_MODE _mode) {
+      final Decision decision = getDecision(_key);
+      decision.failed.add(_mode);
+      decision.nanosPerPass.remove(_mode);
+      if (decision.chosen == _mode) {
+         decision.chosen = null;
+      }
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("Not selecting " + _mode + " for " + _key + " again, it failed");
+      }
+   }
+
+   /**
+    * @param _key
+    * @return the mode currently chosen for <code>_key</code>, or null if we are still timing the modes
+    */
+   public synchronized EXECUTION_MODE getChosen(String _key) {
+      final Decision decision = decisions.get(_key);
+      return ((decision != null) ? decision.chosen : null);
+   }
+
+   /**
+    * Choose the fastest of <code>_candidates</code> which has been timed, saving the choice if it changed.
+    */
+   private void choose(String _key, Decision _decision, Collection<EXECUTION_MODE> _candidates) {
+      EXECUTION_MODE fastest = null;
+      for (final EXECUTION_MODE candidate : _candidates) {
+         final Double nanos = _decision.nanosPerPass.get(candidate);
+         if ((nanos != null) && !_decision.failed.contains(candidate)
+               && ((fastest == null) || (nanos < _decision.nanosPerPass.get(fastest)))) {
+            fastest = candidate;
+         }
+      }
+      if ((fastest != null) && (fastest != _decision.chosen)) {
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Selected " + fastest + " for " + _key + ", ns per pass " + _decision.nanosPerPass);
+         }
+         _decision.chosen = fastest;
+         _decision.sinceProbe = 0;
+         if ((file != null) && !savePending) {
+            savePending = true;
+            writer.execute(new Runnable(){
+               @Override public void run() {
+                  save();
+               }
+            });
+         }
+      }
+   }
+
+   private void load() {
+      final Properties properties = new Properties();
+      try {
+         final InputStream stream = Files.newInputStream(file);
+         try {
+            properties.load(stream);
+         } finally {
+            stream.close();
+         }
+      } catch (final NoSuchFileException e) {
+         return;
+      } catch (final IOException e) {
+         logger.warning("Could not read " + file + ", " + e);
+         return;
+      }
+      for (final String key : properties.stringPropertyNames()) {
+         try {
+            getDecision(key).chosen = EXECUTION_MODE.valueOf(properties.getProperty(key).trim());
+         } catch (final IllegalArgumentException e) {
+            logger.warning("Ignoring " + key + " in " + file + ", " + e);
+         }
+      }
+   }
+
+   /**
+    * Wait for the writes of the file queued so far to finish.
+    */
+   public void flush() {
+      final FutureTask<Void> written = new FutureTask<Void>(new Runnable(){
+         @Override public void run() {
+         }
+      }, null);
+      writer.execute(written);
+      boolean interrupted = false;
+      for (;;) {
+         try {
+            written.get();
+            break;
+         } catch (final InterruptedException e) {
+            interrupted = true;
+         } catch (final ExecutionException e) {
+            break;
+         }
+      }
+      if (interrupted) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Atomically replace the file with the current choices. Failures are logged, the file is only an optimization.<br/>
+    *
+    * Runs on the writer, the lock is only held while copying the choices. Choices made while an earlier write is in
+    * progress queue one more write.
+    */
+   private void save() {
+      final Properties properties = new Properties();
+      synchronized (this) {
+         savePending = false;
+         for (final Map.Entry<String, Decision> entry : decisions.entrySet()) {
+            if (entry.getValue().chosen != null) {
+               properties.setProperty(entry.getKey(), entry.getValue().chosen.name());
+            }
+         }
+      }
+      try {
+         final Path directory = file.toAbsolutePath().getParent();
+         Files.createDirectories(directory);
+         final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+         try {
+            final OutputStream stream = Files.newOutputStream(temp);
+            try {
+               properties.store(stream, "Aparapi execution mode for each kernel.entrypoint/log2(global size)");
+            } finally {
+               stream.close();
+            }
+            try {
+               Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+               Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+         } finally {
+            Files.deleteIfExists(temp);
+         }
+      } catch (final IOException e) {
+         logger.warning("Could not write " + file + ", " + e);
+      }
+   }
+}
@@ -0,0 +1,43 @@
+package com.amd.aparapi.internal.kernel;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.KernelState;
+import com.amd.aparapi.Range;
+
+/**
+ * The work item loop used in JTP mode.<br/>
+ * 
+ * Each kernel class executes its own copy of this class (see <code>KernelLoop</code>), which may be defined by a different
+ * <code>ClassLoader</code> to Aparapi itself. So this class must only use public API.
+ * 
+ * 1D ranges (by far the most common) are handled inline, the group and global ids are then simply the loop variables.
+ * 
+ * @see KernelLoop
+ */
+public final class DefaultKernelLoop extends KernelLoop{
+
+   @Override public void run(Kernel _kernel, Range _range, int _firstGroupId, int _lastGroupId, int _groupStride,
+         int _firstThreadId, int _lastThreadId) {
+      final KernelState kernelState = _kernel.getKernelState();
+      final int threads = _range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2);
+
+      if (_range.getDims() == 1) {
+         for (int globalGroupId = _firstGroupId; globalGroupId < _lastGroupId; globalGroupId += _groupStride) {
+            final int firstGlobalId = globalGroupId * threads;
+            kernelState.setGroupId(0, globalGroupId);
+            for (int threadId = _firstThreadId; threadId < _lastThreadId; threadId++) {
+               kernelState.setLocalId(0, threadId);
+               kernelState.setGlobalId(0, firstGlobalId + threadId);
+               _kernel.run();
+            }
+         }
+      } else {
+         for (int globalGroupId = _firstGroupId; globalGroupId < _lastGroupId; globalGroupId += _groupStride) {
+            for (int threadId = _firstThreadId; threadId < _lastThreadId; threadId++) {
+               KernelRunner.setWorkItemIds(kernelState, _range, globalGroupId, threadId, threads);
+               _kernel.run();
+            }
+         }
+      }
+   }
+}
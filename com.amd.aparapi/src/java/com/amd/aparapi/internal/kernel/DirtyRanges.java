@@ -0,0 +1,96 @@
+package com.amd.aparapi.internal.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of an array which have changed since it was last written to the device, as a sorted list of disjoint ranges of
+ * elements.<br/>
+ *
+ * Ranges which overlap or touch are merged as they are added, so a run of <code>Kernel.put(array, from, to)</code> calls
+ * over neighbouring elements is written to the device as a single transfer.
+ *
+ * @see com.amd.aparapi.Kernel#put(float[], int, int)
+ */
+public class DirtyRanges{
+
+   /**
+    * Alternating first (inclusive) and last (exclusive) element of each range, in ascending order.
+    */
+   private final List<Integer> bounds = new ArrayList<Integer>();
+
+   /**
+    * Mark elements <code>_from</code> (inclusive) to <code>_to</code> (exclusive) as changed.
+    *
+    * @param _from
+    * @param _to
+    */
+   public void add(int _from, int _to) {
+      if (_from > _to) {
+         throw new IllegalArgumentException("from(" + _from + ") > to(" + _to + ")");
+      }
+      if (_from == _to) {
+         return;
+      }
+
+      // Find the first range which ends at or after _from, every range from there which starts at or before _to is merged
+      int first = 0;
+      while ((first < bounds.size()) && (bounds.get(first + 1) < _from)) {
+         first += 2;
+      }
+      int last = first;
+      while ((last < bounds.size()) && (bounds.get(last) <= _to)) {
+         last += 2;
+      }
+      if (last > first) {
+         _from = Math.min(_from, bounds.get(first));
+         _to = Math.max(_to, bounds.get(last - 1));
+         bounds.subList(first, last).clear();
+      }
+      bounds.add(first, _to);
+      bounds.add(first, _from);
+   }
+
+   /**
+    * @return the number of disjoint ranges
+    */
+   public int size() {
+      return (bounds.size() / 2);
+   }
+
+   /**
+    * @return the total number of elements in the ranges
+    */
+   public long getElementCount() {
+      long count = 0;
+      for (int i = 0; i < bounds.size(); i += 2) {
+         count += bounds.get(i + 1) - bounds.get(i);
+      }
+      return (count);
+   }
+
+   /**
+    * @param _elementSize
+    *          the size in bytes of an element of the array
+    * @return the offset and length in bytes of each range, in pairs
+    */
+   public int[] toByteRanges(int _elementSize) {
+      final int[] byteRanges = new int[bounds.size()];
+      for (int i = 0; i < bounds.size(); i += 2) {
+         byteRanges[i] = bounds.get(i) * _elementSize;
+         byteRanges[i + 1] = (bounds.get(i + 1) - bounds.get(i)) * _elementSize;
+      }
+      return (byteRanges);
+   }
+
+   @Override public String toString() {
+      final StringBuilder sb = new StringBuilder("DirtyRanges[");
+      for (int i = 0; i < bounds.size(); i += 2) {
+         if (i > 0) {
+            sb.append(", ");
+         }
+         sb.append(bounds.get(i)).append("..").append(bounds.get(i + 1));
+      }
+      return (sb.append("]").toString());
+   }
+}
@@ -0,0 +1,351 @@
+package com.amd.aparapi.internal.kernel;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.Config;
+
+/**
+ * The process wide scheduler used by all <code>KernelRunner</code>s to execute kernels in JTP mode.<br/>
+ *
+ * Kernels which never call <code>localBarrier()</code> are executed as independent chunks of work. These chunks are run by a
+ * fixed set of <code>Config.jtpParallelism</code> threads (by default one per core), so however many kernels execute at the
+ * same time we never oversubscribe the machine.
+ *
+ * Each <code>KernelRunner</code> submits its chunks to its own <code>JTPScheduler.Queue</code>. The scheduler threads take
+ * work from the queues in round robin order, so a kernel which submits many chunks can't starve a kernel which submits few.
+ *
+ * Kernels which do use <code>localBarrier()</code> need every work item of a group to be running at the same time (otherwise
+ * the barrier would deadlock) so these can't be run by a bounded set of threads. Such work is run by a single shared, cached,
+ * pool via <code>executeConcurrently()</code>.
+ *
+ * When <code>Config.enableJTPWorkStealing</code> is set, barrier free kernels are instead executed as fork/join tasks by
+ * a <code>ForkJoinPool</code> of the same parallelism via <code>invoke()</code>.
+ *
+ * Work which mostly waits (for example dispatching a kernel for <code>Kernel.executeAsync()</code>) is run on the same
+ * cached pool, one task at a time per owner, via a <code>JTPScheduler.Serial</code> executor.
+ *
+ * When <code>Config.enableJTPVirtualThreads</code> is set, the work items of barrier kernels are run by lightweight (virtual)
+ * threads via <code>executeLightweight()</code>, if the JVM provides them.
+ *
+ * @see com.amd.aparapi.Config#jtpParallelism
+ */
+public class JTPScheduler{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   private static final JTPScheduler scheduler = new JTPScheduler(Config.jtpParallelism);
+
+   /**
+    * @return the process wide scheduler
+    */
+   public static JTPScheduler getScheduler() {
+      return (scheduler);
+   }
+
+   /**
+    * The work submitted by a single owner (usually a <code>KernelRunner</code>).
+    *
+    * A queue is either idle (empty) or it is waiting in the scheduler's ring of ready queues.
+    */
+   public static class Queue{
+      private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+   }
+
+   /**
+    * Runs the tasks given to it one at a time, in the order they were given, using the scheduler's shared cached pool.
+    *
+    * No thread is held while the executor is idle, so it is cheap to have one per owner.
+    */
+   public static class Serial implements Executor{
+      private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+      private boolean running = false;
+
+      @Override public void execute(Runnable _task) {
+         synchronized (tasks) {
+            tasks.addLast(_task);
+            if (running) {
+               return;
+            }
+            running = true;
+         }
+         scheduler.executeConcurrently(new Runnable(){
+            @Override public void run() {
+               drain();
+            }
+         });
+      }
+
+      private void drain() {
+         for (;;) {
+            final Runnable task;
+            synchronized (tasks) {
+               task = tasks.pollFirst();
+               if (task == null) {
+                  running = false;
+                  return;
+               }
+            }
+            try {
+               task.run();
+            } catch (final Throwable t) {
+               logger.log(Level.WARNING, "JTP task failed", t);
+            }
+         }
+      }
+   }
+
+   private final int parallelism;
+
+   private final Object lock = new Object();
+
+   /**
+    * Queues which have at least one pending task, in the order in which they will next be served.
+    */
+   private final ArrayDeque<Queue> ready = new ArrayDeque<Queue>();
+
+   private int queueDepth = 0;
+
+   private final AtomicInteger activeCount = new AtomicInteger(0);
+
+   private final AtomicLong busyNanos = new AtomicLong(0);
+
+   private final AtomicLong completedTaskCount = new AtomicLong(0);
+
+   private final long startNanos = System.nanoTime();
+
+   private final ExecutorService concurrentPool;
+
+   private ForkJoinPool forkJoinPool = null;
+
+   /**
+    * Creates virtual threads, or null if this JVM does not support them.
+    */
+   private final ThreadFactory virtualThreadFactory = createVirtualThreadFactory();
+
+   private JTPScheduler(int _parallelism) {
+      parallelism = Math.max(1, _parallelism);
+
+      for (int i = 0; i < parallelism; i++) {
+         final Thread thread = new Thread(new Runnable(){
+            @Override public void run() {
+               serve();
+            }
+         }, "aparapi-jtp-" + i);
+         thread.setDaemon(true);
+         thread.start();
+      }
+
+      concurrentPool = Executors.newCachedThreadPool(new ThreadFactory(){
+         private final AtomicInteger count = new AtomicInteger(0);
+
+         @Override public Thread newThread(Runnable _runnable) {
+            final Thread thread = new Thread(_runnable, "aparapi-jtp-barrier-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return (thread);
+         }
+      });
+
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("JTP scheduler started with " + parallelism + " threads");
+      }
+   }
+
+   /**
+    * Queue a task on behalf of the owner of <code>_queue</code>. The task will be run by one of the scheduler threads.
+    *
+    * @param _queue
+    *          The queue of the submitting owner
+    * @param _task
+    *          The task to run, the task is responsible for signalling its own completion
+    */
+   public void execute(Queue _queue, Runnable _task) {
+      synchronized (lock) {
+         if (_queue.tasks.isEmpty()) {
+            ready.addLast(_queue);
+         }
+         _queue.tasks.addLast(_task);
+         queueDepth++;
+         lock.notify();
+      }
+   }
+
+   /**
+    * Run a task which must execute at the same time as the other tasks submitted with it (for example the work items of a
+    * group which rendezvous at <code>localBarrier()</code>).
+    *
+    * @param _task
+    */
+   public void executeConcurrently(Runnable _task) {
+      concurrentPool.execute(_task);
+   }
+
+   /**
+    * Run a task which must execute at the same time as the other tasks submitted with it, on a virtual thread if the JVM
+    * supports them.
+    *
+    * A virtual thread waiting at a <code>CyclicBarrier</code> releases its carrier thread, so many more work items (and
+    * hence work groups) can be waiting at barriers at once than there are platform threads. If virtual threads are not
+    * available this is equivalent to <code>executeConcurrently()</code>.
+    *
+    * @param _task
+    */
+   public void executeLightweight(Runnable _task) {
+      if (virtualThreadFactory != null) {
+         virtualThreadFactory.newThread(_task).start();
+      } else {
+         concurrentPool.execute(_task);
+      }
+   }
+
+   /**
+    * @return true if <code>executeLightweight()</code> uses virtual threads
+    */
+   public boolean hasVirtualThreads() {
+      return (virtualThreadFactory != null);
+   }
+
+   /**
+    * Virtual threads arrived after the Java version we compile against, so we look up
+    * <code>Thread.ofVirtual().name(prefix, 0).factory()</code> reflectively.
+    *
+    * @return a factory for virtual threads or null if the JVM does not provide them
+    */
+   private static ThreadFactory createVirtualThreadFactory() {
+      try {
+         final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+         final Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+         final Method factoryMethod = builderClass.getMethod("factory");
+         Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+         builder = nameMethod.invoke(builder, "aparapi-jtp-virtual-", 0L);
+         return ((ThreadFactory) factoryMethod.invoke(builder));
+      } catch (final Exception e) {
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Virtual threads are not available (" + e + ")");
+         }
+         return (null);
+      }
+   }
+
+   /**
+    * Run a fork/join task (and any tasks it forks) using work stealing, returning when it is complete.
+    *
+    * The <code>ForkJoinPool</code> is created the first time it is needed.
+    *
+    * @param _task
+    */
+   public void invoke(ForkJoinTask<?> _task) {
+      getForkJoinPool().invoke(_task);
+   }
+
+   private synchronized ForkJoinPool getForkJoinPool() {
+      if (forkJoinPool == null) {
+         forkJoinPool = new ForkJoinPool(parallelism);
+      }
+      return (forkJoinPool);
+   }
+
+   private void serve() {
+      for (;;) {
+         Runnable task;
+         synchronized (lock) {
+            while (ready.isEmpty()) {
+               try {
+                  lock.wait();
+               } catch (final InterruptedException e) {
+                  // Scheduler threads live as long as the process, ignore
+               }
+            }
+
+            final Queue queue = ready.pollFirst();
+            task = queue.tasks.pollFirst();
+            if (!queue.tasks.isEmpty()) {
+               ready.addLast(queue); // Go to the back of the line so other owners get a turn
+            }
+            queueDepth--;
+         }
+
+         activeCount.incrementAndGet();
+         final long start = System.nanoTime();
+         try {
+            task.run();
+         } catch (final Throwable t) {
+            logger.log(Level.WARNING, "JTP task failed", t);
+         } finally {
+            busyNanos.addAndGet(System.nanoTime() - start);
+            completedTaskCount.incrementAndGet();
+            activeCount.decrementAndGet();
+         }
+      }
+   }
+
+   /**
+    * @return the number of threads used to run queued tasks
+    */
+   public int getParallelism() {
+      return (parallelism);
+   }
+
+   /**
+    * @return the number of tasks waiting for a scheduler thread
+    */
+   public int getQueueDepth() {
+      synchronized (lock) {
+         return (queueDepth);
+      }
+   }
+
+   /**
+    * @return the number of scheduler threads currently running a task
+    */
+   public int getActiveCount() {
+      return (activeCount.get());
+   }
+
+   /**
+    * @return the number of tasks run by the scheduler threads since the scheduler was started
+    */
+   public long getCompletedTaskCount() {
+      return (completedTaskCount.get());
+   }
+
+   /**
+    * @return the total time (in nanoseconds) the scheduler threads have spent running tasks
+    */
+   public long getBusyNanos() {
+      return (busyNanos.get());
+   }
+
+   /**
+    * @return the number of tasks stolen by one fork/join thread from another, a measure of how much rebalancing was needed
+    */
+   public long getStealCount() {
+      synchronized (this) {
+         return ((forkJoinPool != null) ? forkJoinPool.getStealCount() : 0L);
+      }
+   }
+
+   /**
+    * The fraction of the available scheduler thread time spent running tasks since the scheduler was started.
+    *
+    * @return a value in the range 0.0 to 1.0
+    */
+   public double getUtilization() {
+      final long elapsedNanos = System.nanoTime() - startNanos;
+      if (elapsedNanos <= 0) {
+         return (0.0);
+      }
+      return (Math.min(1.0, (double) busyNanos.get() / ((double) elapsedNanos * parallelism)));
+   }
+}
@@ -260,4 +260,18 @@ public class KernelArg extends KernelArgJNI{
    protected void setDims(int[] dims) {
       this.dims = dims;
    }
+
+   /**
+    * @return the offset and length in bytes of each part of the array an explicit write transfers, or null for all of it
+    */
+   protected int[] getDirtyRanges() {
+      return dirtyRanges;
+   }
+
+   /**
+    * @param dirtyRanges the offset and length in bytes of each part of the array an explicit write transfers, or null for all of it
+    */
+   protected void setDirtyRanges(int[] dirtyRanges) {
+      this.dirtyRanges = dirtyRanges;
+   }
 }
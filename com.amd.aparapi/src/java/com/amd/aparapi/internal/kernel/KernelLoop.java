@@ -0,0 +1,143 @@
+package com.amd.aparapi.internal.kernel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+/**
+ * Executes a block of work items of a kernel in JTP mode.<br/>
+ * 
+ * The loop which calls <code>Kernel.run()</code> for each work item is the hottest code in JTP mode. If a single loop class
+ * is shared by every kernel class the <code>run()</code> call site quickly becomes megamorphic, so HotSpot can't inline the
+ * kernel body into the loop and every work item pays for a virtual call.
+ * 
+ * To avoid this each kernel class gets its own copy of <code>DefaultKernelLoop</code>, defined from the very same class file
+ * bytes by a private <code>ClassLoader</code>. Each copy has its own profile, its <code>run()</code> call site only ever sees
+ * one kernel class and HotSpot is free to inline (and then unroll) the kernel body.
+ * 
+ * If the class file can't be loaded (or <code>Config.disableJTPLoopSpecialization</code> is set) all kernel classes share
+ * the <code>DefaultKernelLoop</code> loaded with Aparapi.
+ * 
+ * @see DefaultKernelLoop
+ */
+public abstract class KernelLoop{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   private static final KernelLoop sharedLoop = new DefaultKernelLoop();
+
+   private static final Map<Class<?>, KernelLoop> loops = new WeakHashMap<Class<?>, KernelLoop>();
+
+   private static byte[] loopClassBytes = null;
+
+   private static boolean loopClassBytesUnavailable = false;
+
+   /**
+    * Execute the localIds <code>_firstThreadId..(_lastThreadId-1)</code> of every <code>_groupStride</code>'th group in
+    * <code>_firstGroupId..(_lastGroupId-1)</code> on <code>_kernel</code>.
+    * 
+    * @param _kernel
+    *          The kernel (clone) to execute, its <code>KernelState</code> is updated for each work item
+    * @param _range
+    *          The range being executed
+    */
+   public abstract void run(Kernel _kernel, Range _range, int _firstGroupId, int _lastGroupId, int _groupStride,
+         int _firstThreadId, int _lastThreadId);
+
+   /**
+    * Get the loop to use for the given kernel class, defining a private copy of <code>DefaultKernelLoop</code> the first
+    * time a kernel class is seen.
+    * 
+    * @param _kernelClass
+    * @return the loop for <code>_kernelClass</code>
+    */
+   public static synchronized KernelLoop getKernelLoop(Class<? extends Kernel> _kernelClass) {
+      if (Config.disableJTPLoopSpecialization) {
+         return (sharedLoop);
+      }
+
+      KernelLoop loop = loops.get(_kernelClass);
+      if (loop == null) {
+         loop = sharedLoop;
+         final byte[] bytes = getLoopClassBytes();
+         if (bytes != null) {
+            try {
+               final Class<?> loopClass = new LoopClassLoader(KernelLoop.class.getClassLoader(), bytes).loadClass(DefaultKernelLoop.class
+                     .getName());
+               loop = (KernelLoop) loopClass.getDeclaredConstructor().newInstance();
+            } catch (final Exception e) {
+               logger.log(Level.WARNING, "Unable to define a kernel loop for " + _kernelClass.getName(), e);
+            } catch (final LinkageError e) {
+               logger.log(Level.WARNING, "Unable to define a kernel loop for " + _kernelClass.getName(), e);
+            }
+         }
+
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine(_kernelClass.getName() + (loop == sharedLoop ? " uses the shared" : " uses its own") + " kernel loop");
+         }
+         loops.put(_kernelClass, loop);
+      }
+      return (loop);
+   }
+
+   private static byte[] getLoopClassBytes() {
+      if ((loopClassBytes == null) && !loopClassBytesUnavailable) {
+         final String resourceName = DefaultKernelLoop.class.getName().replace('.', '/') + ".class";
+         final ClassLoader classLoader = KernelLoop.class.getClassLoader();
+         final InputStream stream = (classLoader != null) ? classLoader.getResourceAsStream(resourceName) : ClassLoader
+               .getSystemResourceAsStream(resourceName);
+         if (stream != null) {
+            try {
+               final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+               final byte[] buffer = new byte[4096];
+               for (int count = stream.read(buffer); count >= 0; count = stream.read(buffer)) {
+                  bytes.write(buffer, 0, count);
+               }
+               loopClassBytes = bytes.toByteArray();
+            } catch (final IOException e) {
+               logger.log(Level.WARNING, "Unable to read " + resourceName, e);
+            } finally {
+               try {
+                  stream.close();
+               } catch (final IOException e) {
+                  // Nothing more we can do
+               }
+            }
+         }
+         loopClassBytesUnavailable = (loopClassBytes == null);
+      }
+      return (loopClassBytes);
+   }
+
+   /**
+    * Defines its own copy of <code>DefaultKernelLoop</code> and delegates everything else to the loader which loaded Aparapi.
+    */
+   private static class LoopClassLoader extends ClassLoader{
+      private final byte[] bytes;
+
+      private Class<?> loopClass = null;
+
+      private LoopClassLoader(ClassLoader _parent, byte[] _bytes) {
+         super(_parent);
+         bytes = _bytes;
+      }
+
+      @Override protected synchronized Class<?> loadClass(String _name, boolean _resolve) throws ClassNotFoundException {
+         if (_name.equals(DefaultKernelLoop.class.getName())) {
+            if (loopClass == null) {
+               loopClass = defineClass(_name, bytes, 0, bytes.length);
+            }
+            return (loopClass);
+         }
+         return (super.loadClass(_name, _resolve));
+      }
+   }
+}
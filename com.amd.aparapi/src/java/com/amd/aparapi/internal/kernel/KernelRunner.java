@@ -40,16 +40,35 @@ package com.amd.aparapi.internal.kernel;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
-import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CyclicBarrier;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -61,6 +80,7 @@ import com.amd.aparapi.Kernel.KernelState;
 import com.amd.aparapi.Kernel.Local;
 import com.amd.aparapi.ProfileInfo;
 import com.amd.aparapi.Range;
+import com.amd.aparapi.TiledKernel;
 import com.amd.aparapi.device.Device;
 import com.amd.aparapi.device.OpenCLDevice;
 import com.amd.aparapi.internal.exception.AparapiException;
@@ -69,6 +89,8 @@ import com.amd.aparapi.internal.instruction.InstructionSet.TypeSpec;
 import com.amd.aparapi.internal.jni.KernelRunnerJNI;
 import com.amd.aparapi.internal.model.ClassModel;
 import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.ModelCache;
+import com.amd.aparapi.internal.util.NioBufferUtil;
 import com.amd.aparapi.internal.util.UnsafeWrapper;
 import com.amd.aparapi.internal.writer.KernelWriter;
 import com.amd.aparapi.opencl.OpenCL;
@@ -95,13 +117,32 @@ public class KernelRunner extends KernelRunnerJNI{
 
    private long jniContextHandle = 0;
 
+   /**
+    * The device our OpenCL context was created for, null until OpenCL is initialized.
+    */
+   private OpenCLDevice openCLDevice = null;
+
+   /**
+    * The execution mode (GPU or CPU) our OpenCL state was created for, null until OpenCL is initialized.
+    */
+   private EXECUTION_MODE openCLMode = null;
+
+   /**
+    * Executes the kernel a tile at a time once its arrays have outgrown the device, created on first use.
+    */
+   private TiledKernel tiledKernel = null;
+
    private final Kernel kernel;
 
    private Entrypoint entryPoint;
 
    private int argc;
    
-   private final ExecutorService threadPool = Executors.newCachedThreadPool();
+   /**
+    * Our queue on the shared JTP scheduler, kernels which don't use barriers are executed via this queue.
+    */
+   private final JTPScheduler.Queue jtpQueue = new JTPScheduler.Queue();
+
    /**
     * Create a KernelRunner for a specific Kernel instance.
     * 
@@ -117,10 +158,16 @@ public class KernelRunner extends KernelRunnerJNI{
     * @see KernelRunnerJNI#disposeJNI(long)
     */
    public void dispose() {
-      if (kernel.getExecutionMode().isOpenCL()) {
+      // A tiered kernel may still be creating its OpenCL context
+      awaitTiered();
+      if (tiledKernel != null) {
+         tiledKernel.dispose();
+      }
+      if (jniContextHandle != 0) {
+         // An adaptive kernel may have created its context in a mode other than its current one
          disposeJNI(jniContextHandle);
       }
-      threadPool.shutdownNow();
+      javaWorkers.clear();
    }
 
    private Set<String> capabilitiesSet;
@@ -220,15 +267,24 @@ public class KernelRunner extends KernelRunnerJNI{
     * 
     * @param _range
     *          The globalSize requested by the user (via <code>Kernel.execute(globalSize)</code>)
+    * @param _firstPassId
+    *          The passId of the first pass, non zero for the later ranges of a batch (see <code>executeBatch()</code>)
     * @param _passes
     *          The # of passes requested by the user (via <code>Kernel.execute(globalSize, passes)</code>). Note this is usually defaulted to 1 via <code>Kernel.execute(globalSize)</code>.
     * @return
     */
-   private long executeJava(final Range _range, final int _passes) {
+   private long executeJava(final Range _range, final int _firstPassId, final int _passes) {
       if (logger.isLoggable(Level.FINE)) {
          logger.fine("executeJava: range = " + _range);
       }
 
+      getDeviceWrittenArrays();
+
+      if (partitionRange != null) {
+         executeJavaPartition(partitionRange, partitionFirstGroupId, partitionLastGroupId);
+         return 0;
+      }
+
       if (kernel.getExecutionMode().equals(EXECUTION_MODE.SEQ)) {
          /**
           * SEQ mode is useful for testing trivial logic, but kernels which use SEQ mode cannot be used if the
@@ -242,9 +298,13 @@ public class KernelRunner extends KernelRunnerJNI{
             throw new IllegalStateException("Can't run range with group size >1 sequentially. Barriers would deadlock!");
          }
 
-         final Kernel kernelClone = kernel.clone();
+         refreshJavaWorkers();
+
+         final Kernel kernelClone = getJavaWorker(0).kernelClone;
          final KernelState kernelState = kernelClone.getKernelState();
 
+         javaLocalBarrier = reuse(javaLocalBarrier, 1);
+
          kernelState.setRange(_range);
          kernelState.setGroupId(0, 0);
          kernelState.setGroupId(1, 0);
@@ -252,9 +312,9 @@ public class KernelRunner extends KernelRunnerJNI{
          kernelState.setLocalId(0, 0);
          kernelState.setLocalId(1, 0);
          kernelState.setLocalId(2, 0);
-         kernelState.setLocalBarrier(new CyclicBarrier(1));
+         kernelState.setLocalBarrier(javaLocalBarrier);
 
-         for (int passId = 0; passId < _passes; passId++) {
+         for (int passId = _firstPassId; passId < (_firstPassId + _passes); passId++) {
             kernelState.setPassId(passId);
 
             if (_range.getDims() == 1) {
@@ -288,14 +348,22 @@ public class KernelRunner extends KernelRunnerJNI{
                }
             }
          }
+      } else if (!Config.disableJTPChunking && isLocalBarrierFree()) {
+         if (Config.enableJTPWorkStealing) {
+            executeJavaForkJoin(_range, _firstPassId, _passes);
+         } else {
+            executeJavaChunked(_range, _firstPassId, _passes);
+         }
+      } else if (Config.enableJTPVirtualThreads) {
+         executeJavaGroupsInFlight(_range, _firstPassId, _passes);
       } else {
          final int threads = _range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2);
          final int globalGroups = _range.getNumGroups(0) * _range.getNumGroups(1) * _range.getNumGroups(2);
          /**
-          * This joinBarrier is the barrier that we provide for the kernel threads to rendezvous with the current dispatch thread.
-          * So this barrier is threadCount+1 wide (the +1 is for the dispatch thread)
+          * This join is what we provide for the kernel threads to rendezvous with the current dispatch thread.
+          * So it has threadCount+1 parties (the +1 is for the dispatch thread)
           */
-         final CyclicBarrier joinBarrier = new CyclicBarrier(threads + 1);
+         final Phaser join = javaJoin = reuse(javaJoin, threads + 1);
 
          /**
           * This localBarrier is only ever used by the kernels.  If the kernel does not use the barrier the threads 
@@ -308,9 +376,11 @@ public class KernelRunner extends KernelRunnerJNI{
           * 
           * This barrier is threadCount wide.  We never hit the barrier from the dispatch thread.
           */
-         final CyclicBarrier localBarrier = new CyclicBarrier(threads);
+         final CyclicBarrier localBarrier = javaLocalBarrier = reuse(javaLocalBarrier, threads);
+
+         refreshJavaWorkers();
 
-         for (int passId = 0; passId < _passes; passId++) {
+         for (int passId = _firstPassId; passId < (_firstPassId + _passes); passId++) {
             /**
               * Note that we emulate OpenCL by creating one thread per localId (across the group).
               * 
@@ -340,338 +410,1113 @@ public class KernelRunner extends KernelRunnerJNI{
               * So even JTP mode use of local buffers will need to use barriers. Not for the same reason as OpenCL but to keep groups in lockstep.
               * 
               **/
-            for (int id = 0; id < threads; id++) {
-               final int threadId = id;
-
+            for (int threadId = 0; threadId < threads; threadId++) {
                /**
-                *  We clone one kernel for each thread.
-                *  
+                *  We use one kernel clone for each thread.
+                *
                 *  They will all share references to the same range, localBarrier and global/local buffers because the clone is shallow.
-                *  We need clones so that each thread can assign 'state' (localId/globalId/groupId) without worrying 
-                *  about other threads.   
+                *  We need clones so that each thread can assign 'state' (localId/globalId/groupId) without worrying
+                *  about other threads.
                 */
-               final Kernel kernelClone = kernel.clone();
-               final KernelState kernelState = kernelClone.getKernelState();
-
-               kernelState.setRange(_range);
-               kernelState.setLocalBarrier(localBarrier);
-               kernelState.setPassId(passId);
-
-               threadPool.submit(new Runnable(){
-                  @Override public void run() {
-                     for (int globalGroupId = 0; globalGroupId < globalGroups; globalGroupId++) {
-
-                        if (_range.getDims() == 1) {
-                           kernelState.setLocalId(0, (threadId % _range.getLocalSize(0)));
-                           kernelState.setGlobalId(0, (threadId + (globalGroupId * threads)));
-                           kernelState.setGroupId(0, globalGroupId);
-                        } else if (_range.getDims() == 2) {
-
-                           /**
-                            * Consider a 12x4 grid of 4*2 local groups
-                            * <pre>
-                            *                                             threads = 4*2 = 8
-                            *                                             localWidth=4
-                            *                                             localHeight=2
-                            *                                             globalWidth=12
-                            *                                             globalHeight=4
-                            * 
-                            *    00 01 02 03 | 04 05 06 07 | 08 09 10 11  
-                            *    12 13 14 15 | 16 17 18 19 | 20 21 22 23
-                            *    ------------+-------------+------------
-                            *    24 25 26 27 | 28 29 30 31 | 32 33 34 35
-                            *    36 37 38 39 | 40 41 42 43 | 44 45 46 47  
-                            *    
-                            *    00 01 02 03 | 00 01 02 03 | 00 01 02 03  threadIds : [0..7]*6
-                            *    04 05 06 07 | 04 05 06 07 | 04 05 06 07
-                            *    ------------+-------------+------------
-                            *    00 01 02 03 | 00 01 02 03 | 00 01 02 03
-                            *    04 05 06 07 | 04 05 06 07 | 04 05 06 07  
-                            *    
-                            *    00 00 00 00 | 01 01 01 01 | 02 02 02 02  groupId[0] : 0..6 
-                            *    00 00 00 00 | 01 01 01 01 | 02 02 02 02   
-                            *    ------------+-------------+------------
-                            *    00 00 00 00 | 01 01 01 01 | 02 02 02 02  
-                            *    00 00 00 00 | 01 01 01 01 | 02 02 02 02
-                            *    
-                            *    00 00 00 00 | 00 00 00 00 | 00 00 00 00  groupId[1] : 0..6 
-                            *    00 00 00 00 | 00 00 00 00 | 00 00 00 00   
-                            *    ------------+-------------+------------
-                            *    01 01 01 01 | 01 01 01 01 | 01 01 01 01 
-                            *    01 01 01 01 | 01 01 01 01 | 01 01 01 01
-                            *         
-                            *    00 01 02 03 | 08 09 10 11 | 16 17 18 19  globalThreadIds == threadId + groupId * threads;
-                            *    04 05 06 07 | 12 13 14 15 | 20 21 22 23
-                            *    ------------+-------------+------------
-                            *    24 25 26 27 | 32[33]34 35 | 40 41 42 43
-                            *    28 29 30 31 | 36 37 38 39 | 44 45 46 47   
-                            *          
-                            *    00 01 02 03 | 00 01 02 03 | 00 01 02 03  localX = threadId % localWidth; (for globalThreadId 33 = threadId = 01 : 01%4 =1)
-                            *    00 01 02 03 | 00 01 02 03 | 00 01 02 03   
-                            *    ------------+-------------+------------
-                            *    00 01 02 03 | 00[01]02 03 | 00 01 02 03 
-                            *    00 01 02 03 | 00 01 02 03 | 00 01 02 03
-                            *     
-                            *    00 00 00 00 | 00 00 00 00 | 00 00 00 00  localY = threadId /localWidth  (for globalThreadId 33 = threadId = 01 : 01/4 =0)
-                            *    01 01 01 01 | 01 01 01 01 | 01 01 01 01   
-                            *    ------------+-------------+------------
-                            *    00 00 00 00 | 00[00]00 00 | 00 00 00 00 
-                            *    01 01 01 01 | 01 01 01 01 | 01 01 01 01
-                            *     
-                            *    00 01 02 03 | 04 05 06 07 | 08 09 10 11  globalX=
-                            *    00 01 02 03 | 04 05 06 07 | 08 09 10 11     groupsPerLineWidth=globalWidth/localWidth (=12/4 =3)
-                            *    ------------+-------------+------------     groupInset =groupId%groupsPerLineWidth (=4%3 = 1)
-                            *    00 01 02 03 | 04[05]06 07 | 08 09 10 11 
-                            *    00 01 02 03 | 04 05 06 07 | 08 09 10 11     globalX = groupInset*localWidth+localX (= 1*4+1 = 5)
-                            *     
-                            *    00 00 00 00 | 00 00 00 00 | 00 00 00 00  globalY
-                            *    01 01 01 01 | 01 01 01 01 | 01 01 01 01      
-                            *    ------------+-------------+------------
-                            *    02 02 02 02 | 02[02]02 02 | 02 02 02 02 
-                            *    03 03 03 03 | 03 03 03 03 | 03 03 03 03
-                            *    
-                            * </pre>
-                            * Assume we are trying to locate the id's for #33 
-                            *
-                            */
-
-                           kernelState.setLocalId(0, (threadId % _range.getLocalSize(0))); // threadId % localWidth =  (for 33 = 1 % 4 = 1)
-                           kernelState.setLocalId(1, (threadId / _range.getLocalSize(0))); // threadId / localWidth = (for 33 = 1 / 4 == 0)
-
-                           final int groupInset = globalGroupId % _range.getNumGroups(0); // 4%3 = 1
-                           kernelState.setGlobalId(0, ((groupInset * _range.getLocalSize(0)) + kernelState.getLocalIds()[0])); // 1*4+1=5
-
-                           final int completeLines = (globalGroupId / _range.getNumGroups(0)) * _range.getLocalSize(1);// (4/3) * 2
-                           kernelState.setGlobalId(1, (completeLines + kernelState.getLocalIds()[1])); // 2+0 = 2
-                           kernelState.setGroupId(0, (globalGroupId % _range.getNumGroups(0)));
-                           kernelState.setGroupId(1, (globalGroupId / _range.getNumGroups(0)));
-                        } else if (_range.getDims() == 3) {
-
-                           //Same as 2D actually turns out that localId[0] is identical for all three dims so could be hoisted out of conditional code
-
-                           kernelState.setLocalId(0, (threadId % _range.getLocalSize(0)));
-
-                           kernelState.setLocalId(1, ((threadId / _range.getLocalSize(0)) % _range.getLocalSize(1)));
-
-                           // the thread id's span WxHxD so threadId/(WxH) should yield the local depth  
-                           kernelState.setLocalId(2, (threadId / (_range.getLocalSize(0) * _range.getLocalSize(1))));
-
-                           kernelState.setGlobalId(
-                                 0,
-                                 (((globalGroupId % _range.getNumGroups(0)) * _range.getLocalSize(0)) + kernelState.getLocalIds()[0]));
-
-                           kernelState.setGlobalId(
-                                 1,
-                                 ((((globalGroupId / _range.getNumGroups(0)) * _range.getLocalSize(1)) % _range.getGlobalSize(1)) + kernelState
-                                       .getLocalIds()[1]));
-
-                           kernelState.setGlobalId(
-                                 2,
-                                 (((globalGroupId / (_range.getNumGroups(0) * _range.getNumGroups(1))) * _range.getLocalSize(2)) + kernelState
-                                       .getLocalIds()[2]));
-
-                           kernelState.setGroupId(0, (globalGroupId % _range.getNumGroups(0)));
-                           kernelState.setGroupId(1, ((globalGroupId / _range.getNumGroups(0)) % _range.getNumGroups(1)));
-                           kernelState.setGroupId(2, (globalGroupId / (_range.getNumGroups(0) * _range.getNumGroups(1))));
-                        }
-
-                        kernelClone.run();
-                     }
-
-                     await(joinBarrier); // This thread will rendezvous with dispatch thread here. This is effectively a join.                  
-                  }
-               });
+               final JavaWorker worker = getJavaWorker(threadId);
+               worker.prepare(_range, localBarrier, join, passId, 0, globalGroups, 1, threadId, threadId + 1);
+               JTPScheduler.getScheduler().executeConcurrently(worker);
             }
 
-            await(joinBarrier); // This dispatch thread waits for all worker threads here. 
+            join.arriveAndAwaitAdvance(); // This dispatch thread waits for all worker threads here. 
          }
       } // execution mode == JTP
 
       return 0;
    }
 
-   private static void await(CyclicBarrier _barrier) {
-      try {
-         _barrier.await();
-      } catch (final InterruptedException e) {
-         // TODO Auto-generated catch block
-         e.printStackTrace();
-      } catch (final BrokenBarrierException e) {
-         // TODO Auto-generated catch block
-         e.printStackTrace();
+   /**
+    * Execute a kernel which never calls <code>localBarrier()</code> using the threads of the shared <code>JTPScheduler</code>.<br/>
+    *
+    * Because no work item ever needs to rendezvous with the other work items of its group, we do not need one thread per
+    * localId. Instead the groups are split into one contiguous chunk per scheduler thread and each worker walks
+    * its chunk (group by group, work item by work item) on a single kernel clone.
+    *
+    *    For a 1D range of 12 groups of 4 with a scheduler of 3 threads we queue 3 chunks.
+    *
+    *    Chunk-0 handles groups 0..3 (global 0..15)
+    *    Chunk-1 handles groups 4..7 (global 16..31)
+    *    Chunk-2 handles groups 8..11 (global 32..47)
+    *
+    * The localIds, globalIds and groupIds seen by the kernel are identical to those seen when one thread per localId is used.
+    *
+    * @param _range
+    *          The range requested by the user
+    * @param _firstPassId
+    *          The passId of the first pass, non zero for the later ranges of a batch
+    * @param _passes
+    *          The # of passes requested by the user
+    */
+   private void executeJavaChunked(final Range _range, final int _firstPassId, final int _passes) {
+      final int threads = _range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2);
+      final int globalGroups = _range.getNumGroups(0) * _range.getNumGroups(1) * _range.getNumGroups(2);
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      final int workers = Math.min(scheduler.getParallelism(), globalGroups);
+
+      /**
+       * As with the one thread per localId approach the join is used to rendezvous the workers with the dispatch thread,
+       * so it has workers+1 parties.
+       *
+       * Note that the workers only arrive at the join, they never wait there. The scheduler threads are shared with other
+       * kernels so a worker which waited for its siblings could deadlock with the workers of another kernel.
+       */
+      final Phaser join = javaJoin = reuse(javaJoin, workers + 1);
+
+      /**
+       * No kernel ever waits on this barrier, but we still provide one which is a single work item wide so that a kernel
+       * which (unexpectedly) does call localBarrier() will not deadlock.
+       */
+      final CyclicBarrier localBarrier = javaLocalBarrier = reuse(javaLocalBarrier, 1);
+
+      refreshJavaWorkers();
+
+      for (int passId = _firstPassId; passId < (_firstPassId + _passes); passId++) {
+         for (int worker = 0; worker < workers; worker++) {
+            final int firstGroupId = (int) (((long) worker * globalGroups) / workers);
+            final int lastGroupId = (int) ((((long) worker + 1) * globalGroups) / workers);
+
+            final JavaWorker javaWorker = getJavaWorker(worker);
+            javaWorker.prepare(_range, localBarrier, join, passId, firstGroupId, lastGroupId, 1, 0, threads);
+            scheduler.execute(jtpQueue, javaWorker);
+         }
+
+         join.arriveAndAwaitAdvance(); // This dispatch thread waits for all worker threads here.
       }
    }
 
-   private KernelArg[] args = null;
+   /**
+    * Execute one pass of each of several element-wise kernels over the same range as a single JTP loop.<br/>
+    *
+    * The groups are split into one contiguous chunk per scheduler thread as in <code>executeJavaChunked()</code>, but each
+    * chunk executes group <code>g</code> of every kernel (in order) before moving on to group <code>g+1</code>. So an element
+    * written by one kernel is read by the next while it is still in cache, rather than after the whole range has been
+    * written.
+    *
+    * The caller must check that every kernel is element-wise, otherwise a work item of a later kernel could read an element
+    * which an earlier kernel has not yet written.
+    *
+    * @param _runners
+    *          The runners of the kernels, in execution order
+    * @param _range
+    *          The range of every kernel
+    * @see com.amd.aparapi.internal.model.Entrypoint#isElementWise()
+    */
+   public static void executeJavaFused(List<KernelRunner> _runners, final Range _range) {
+      // Each runner is locked, as execute() would lock it, in a fixed order so that fused executions never deadlock
+      final List<KernelRunner> ordered = new ArrayList<KernelRunner>();
+      boolean tie = false;
+      for (final KernelRunner runner : _runners) {
+         if (!ordered.contains(runner)) {
+            ordered.add(runner);
+         }
+      }
+      Collections.sort(ordered, new Comparator<KernelRunner>(){
+         @Override public int compare(KernelRunner _lhs, KernelRunner _rhs) {
+            return (Integer.compare(System.identityHashCode(_lhs), System.identityHashCode(_rhs)));
+         }
+      });
+      for (int i = 1; i < ordered.size(); i++) {
+         tie |= System.identityHashCode(ordered.get(i - 1)) == System.identityHashCode(ordered.get(i));
+      }
+      if (tie) {
+         // Runners with the same identity hash have no fixed order, so only one such execution may lock at a time
+         synchronized (fusedTieLock) {
+            executeJavaFused(ordered, 0, _runners, _range);
+         }
+      } else {
+         executeJavaFused(ordered, 0, _runners, _range);
+      }
+   }
 
-   private boolean usesOopConversion = false;
+   private static final Object fusedTieLock = new Object();
 
    /**
-    * 
-    * @param arg
-    * @return
-    * @throws AparapiException
+    * Lock <code>_ordered</code> from <code>_locked</code> onwards, then execute.
     */
-   private boolean prepareOopConversionBuffer(KernelArg arg) throws AparapiException {
-      usesOopConversion = true;
-      final Class<?> arrayClass = arg.getField().getType();
-      ClassModel c = null;
-      boolean didReallocate = false;
+   private static void executeJavaFused(List<KernelRunner> _ordered, int _locked, List<KernelRunner> _runners, Range _range) {
+      if (_locked < _ordered.size()) {
+         synchronized (_ordered.get(_locked)) {
+            executeJavaFused(_ordered, _locked + 1, _runners, _range);
+         }
+         return;
+      }
 
-      if (arg.getObjArrayElementModel() == null) {
-         final String tmp = arrayClass.getName().substring(2).replace("/", ".");
-         final String arrayClassInDotForm = tmp.substring(0, tmp.length() - 1);
+      final long executeStartTime = System.currentTimeMillis();
+      executeJavaFusedLocked(_runners, _range);
+      final long executionTime = System.currentTimeMillis() - executeStartTime;
+      for (final KernelRunner runner : _ordered) {
+         runner.executionTime = executionTime;
+         runner.accumulatedExecutionTime += executionTime;
+      }
+   }
 
-         if (logger.isLoggable(Level.FINE)) {
-            logger.fine("looking for type = " + arrayClassInDotForm);
-         }
+   private static void executeJavaFusedLocked(List<KernelRunner> _runners, final Range _range) {
+      final int threads = _range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2);
+      final int globalGroups = _range.getNumGroups(0) * _range.getNumGroups(1) * _range.getNumGroups(2);
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      final int workers = Math.min(scheduler.getParallelism(), globalGroups);
 
-         // get ClassModel of obj array from entrypt.objectArrayFieldsClasses
-         c = entryPoint.getObjectArrayFieldsClasses().get(arrayClassInDotForm);
-         arg.setObjArrayElementModel(c);
-      } else {
-         c = arg.getObjArrayElementModel();
+      // As in executeJavaChunked() the workers only arrive at the join
+      final Phaser join = new Phaser(workers + 1);
+
+      for (final KernelRunner runner : _runners) {
+         runner.javaLocalBarrier = reuse(runner.javaLocalBarrier, 1);
+         runner.refreshJavaWorkers();
       }
-      assert c != null : "should find class for elements " + arrayClass.getName();
 
-      final int arrayBaseOffset = UnsafeWrapper.arrayBaseOffset(arrayClass);
-      final int arrayScale = UnsafeWrapper.arrayIndexScale(arrayClass);
+      for (int worker = 0; worker < workers; worker++) {
+         final int firstGroupId = (int) (((long) worker * globalGroups) / workers);
+         final int lastGroupId = (int) ((((long) worker + 1) * globalGroups) / workers);
 
-      if (logger.isLoggable(Level.FINEST)) {
-         logger.finest("Syncing obj array type = " + arrayClass + " cvtd= " + c.getClassWeAreModelling().getName()
-               + "arrayBaseOffset=" + arrayBaseOffset + " arrayScale=" + arrayScale);
+         final JavaWorker[] chain = new JavaWorker[_runners.size()];
+         for (int i = 0; i < chain.length; i++) {
+            final KernelRunner runner = _runners.get(i);
+            chain[i] = runner.getJavaWorker(worker);
+            chain[i].prepare(_range, runner.javaLocalBarrier, join, 0, firstGroupId, lastGroupId, 1, 0, threads);
+         }
+
+         scheduler.execute(_runners.get(0).jtpQueue, new Runnable(){
+            @Override public void run() {
+               try {
+                  for (int groupId = firstGroupId; groupId < lastGroupId; groupId++) {
+                     for (final JavaWorker javaWorker : chain) {
+                        javaWorker.runGroups(groupId, groupId + 1);
+                     }
+                  }
+               } finally {
+                  join.arrive();
+               }
+            }
+         });
       }
 
-      int objArraySize = 0;
-      Object newRef = null;
-      try {
-         newRef = arg.getField().get(kernel);
-         objArraySize = Array.getLength(newRef);
-      } catch (final IllegalAccessException e) {
-         throw new AparapiException(e);
+      join.arriveAndAwaitAdvance(); // This dispatch thread waits for all worker threads here.
+   }
+
+   /**
+    * Execute one pass of the kernel over the groups <code>_firstGroupId..(_lastGroupId-1)</code> of <code>_range</code>.
+    *
+    * A kernel which never calls <code>localBarrier()</code> has the groups split into one chunk per scheduler thread, as in
+    * <code>executeJavaChunked()</code>, otherwise one thread per localId walks the groups.
+    */
+   private void executeJavaPartition(final Range _range, final int _firstGroupId, final int _lastGroupId) {
+      final int threads = _range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2);
+      final int groups = _lastGroupId - _firstGroupId;
+      if (groups <= 0) {
+         return;
       }
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
 
-      assert (newRef != null) && (objArraySize != 0) : "no data";
+      if (!Config.disableJTPChunking && isLocalBarrierFree()) {
+         final int workers = Math.min(scheduler.getParallelism(), groups);
+         final Phaser join = javaJoin = reuse(javaJoin, workers + 1);
+         final CyclicBarrier localBarrier = javaLocalBarrier = reuse(javaLocalBarrier, 1);
 
-      final int totalStructSize = c.getTotalStructSize();
-      final int totalBufferSize = objArraySize * totalStructSize;
+         refreshJavaWorkers();
 
-      // allocate ByteBuffer if first time or array changed
-      if ((arg.getObjArrayBuffer() == null) || (newRef != arg.getArray())) {
-         final ByteBuffer structBuffer = ByteBuffer.allocate(totalBufferSize);
-         arg.setObjArrayByteBuffer(structBuffer.order(ByteOrder.LITTLE_ENDIAN));
-         arg.setObjArrayBuffer(arg.getObjArrayByteBuffer().array());
-         didReallocate = true;
-         if (logger.isLoggable(Level.FINEST)) {
-            logger.finest("objArraySize = " + objArraySize + " totalStructSize= " + totalStructSize + " totalBufferSize="
-                  + totalBufferSize);
+         for (int worker = 0; worker < workers; worker++) {
+            final int firstGroupId = _firstGroupId + (int) (((long) worker * groups) / workers);
+            final int lastGroupId = _firstGroupId + (int) ((((long) worker + 1) * groups) / workers);
+
+            final JavaWorker javaWorker = getJavaWorker(worker);
+            javaWorker.prepare(_range, localBarrier, join, 0, firstGroupId, lastGroupId, 1, 0, threads);
+            scheduler.execute(jtpQueue, javaWorker);
          }
+
+         join.arriveAndAwaitAdvance();
       } else {
-         arg.getObjArrayByteBuffer().clear();
+         final Phaser join = javaJoin = reuse(javaJoin, threads + 1);
+         final CyclicBarrier localBarrier = javaLocalBarrier = reuse(javaLocalBarrier, threads);
+
+         refreshJavaWorkers();
+
+         for (int threadId = 0; threadId < threads; threadId++) {
+            final JavaWorker worker = getJavaWorker(threadId);
+            worker.prepare(_range, localBarrier, join, 0, _firstGroupId, _lastGroupId, 1, threadId, threadId + 1);
+            scheduler.executeConcurrently(worker);
+         }
+
+         join.arriveAndAwaitAdvance();
       }
+   }
 
-      // copy the fields that the JNI uses
-      arg.setJavaArray(arg.getObjArrayBuffer());
-      arg.setNumElements(objArraySize);
-      arg.setSizeInBytes(totalBufferSize);
+   /**
+    * Execute one pass of the kernel over each of <code>_ranges</code>, in order, with passIds starting at
+    * <code>_firstPassId</code>.<br/>
+    *
+    * For a kernel which never calls <code>localBarrier()</code> the whole batch is one job. Each worker executes its chunk of
+    * the groups of a range, waits at a phaser for the other workers to finish that range and moves on to the next range. Only
+    * the end of the batch is signalled to the dispatch thread. Because the workers wait for each other they run on the
+    * scheduler's concurrent threads rather than the shared queue.
+    *
+    * Other kernels execute each range in turn as <code>execute()</code> would.
+    *
+    * @param _ranges
+    * @param _firstPassId
+    */
+   private void executeJavaBatch(final List<Range> _ranges, final int _firstPassId) {
+      getDeviceWrittenArrays();
+      if (kernel.getExecutionMode().equals(EXECUTION_MODE.SEQ) || Config.disableJTPChunking || Config.enableJTPWorkStealing
+            || !isLocalBarrierFree()) {
+         for (int i = 0; i < _ranges.size(); i++) {
+            executeJava(_ranges.get(i), _firstPassId + i, 1);
+         }
+         return;
+      }
 
-      for (int j = 0; j < objArraySize; j++) {
-         int sizeWritten = 0;
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      int maxGroups = 0;
+      for (final Range range : _ranges) {
+         maxGroups = Math.max(maxGroups, range.getNumGroups(0) * range.getNumGroups(1) * range.getNumGroups(2));
+      }
+      final int workers = Math.min(scheduler.getParallelism(), maxGroups);
 
-         final Object object = UnsafeWrapper.getObject(newRef, arrayBaseOffset + (arrayScale * j));
-         for (int i = 0; i < c.getStructMemberTypes().size(); i++) {
-            final TypeSpec t = c.getStructMemberTypes().get(i);
-            final long offset = c.getStructMemberOffsets().get(i);
+      final Phaser join = javaJoin = reuse(javaJoin, workers + 1);
+      final Phaser step = new Phaser(workers);
+      final CyclicBarrier localBarrier = javaLocalBarrier = reuse(javaLocalBarrier, 1);
 
-            if (logger.isLoggable(Level.FINEST)) {
-               logger.finest("name = " + c.getStructMembers().get(i).getNameAndTypeEntry().getNameUTF8Entry().getUTF8() + " t= "
-                     + t);
-            }
+      refreshJavaWorkers();
 
-            switch (t) {
-               case I: {
-                  final int x = UnsafeWrapper.getInt(object, offset);
-                  arg.getObjArrayByteBuffer().putInt(x);
-                  sizeWritten += t.getSize();
-                  break;
-               }
-               case F: {
-                  final float x = UnsafeWrapper.getFloat(object, offset);
-                  arg.getObjArrayByteBuffer().putFloat(x);
-                  sizeWritten += t.getSize();
-                  break;
-               }
-               case J: {
-                  final long x = UnsafeWrapper.getLong(object, offset);
-                  arg.getObjArrayByteBuffer().putLong(x);
-                  sizeWritten += t.getSize();
-                  break;
-               }
-               case Z: {
-                  final boolean x = UnsafeWrapper.getBoolean(object, offset);
-                  arg.getObjArrayByteBuffer().put(x == true ? (byte) 1 : (byte) 0);
-                  // Booleans converted to 1 byte C chars for opencl
-                  sizeWritten += TypeSpec.B.getSize();
-                  break;
-               }
-               case B: {
-                  final byte x = UnsafeWrapper.getByte(object, offset);
-                  arg.getObjArrayByteBuffer().put(x);
-                  sizeWritten += t.getSize();
-                  break;
-               }
-               case D: {
-                  throw new AparapiException("Double not implemented yet");
+      for (int worker = 0; worker < workers; worker++) {
+         final int workerId = worker;
+         final JavaWorker javaWorker = getJavaWorker(worker);
+         scheduler.executeConcurrently(new Runnable(){
+            @Override public void run() {
+               try {
+                  for (int i = 0; i < _ranges.size(); i++) {
+                     final Range range = _ranges.get(i);
+                     final int threads = range.getLocalSize(0) * range.getLocalSize(1) * range.getLocalSize(2);
+                     final int globalGroups = range.getNumGroups(0) * range.getNumGroups(1) * range.getNumGroups(2);
+                     final int firstGroupId = (int) (((long) workerId * globalGroups) / workers);
+                     final int lastGroupId = (int) ((((long) workerId + 1) * globalGroups) / workers);
+
+                     javaWorker.prepare(range, localBarrier, join, _firstPassId + i, firstGroupId, lastGroupId, 1, 0, threads);
+                     javaWorker.runGroups(firstGroupId, lastGroupId);
+                     step.arriveAndAwaitAdvance(); // The next range may read what this range wrote
+                  }
+               } catch (final RuntimeException e) {
+                  step.arriveAndDeregister(); // Don't leave the other workers waiting for us
+                  throw e;
+               } catch (final Error e) {
+                  step.arriveAndDeregister();
+                  throw e;
+               } finally {
+                  join.arrive();
                }
-               default:
-                  assert true == false : "typespec did not match anything";
-                  throw new AparapiException("Unhandled type in buffer conversion");
             }
+         });
+      }
+
+      join.arriveAndAwaitAdvance(); // This dispatch thread waits for all worker threads here.
+   }
+
+   /**
+    * Execute a kernel which never calls <code>localBarrier()</code> as a tree of fork/join tasks.<br/>
+    *
+    * The static split used by <code>executeJavaChunked()</code> leaves threads idle when some groups are much more
+    * expensive than others (think of the groups of a Mandelbrot image which lie inside the set). Here the groups of each
+    * pass are recursively halved down to a small grain and idle fork/join threads steal the outstanding halves, so
+    * the expensive groups end up spread across all of the threads.
+    *
+    * Each leaf task borrows a worker (and so a kernel clone) for as long as it runs, so no two threads ever share a clone.
+    *
+    * @param _range
+    *          The range requested by the user
+    * @param _firstPassId
+    *          The passId of the first pass, non zero for the later ranges of a batch
+    * @param _passes
+    *          The # of passes requested by the user
+    */
+   private void executeJavaForkJoin(final Range _range, final int _firstPassId, final int _passes) {
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      final int globalGroups = _range.getNumGroups(0) * _range.getNumGroups(1) * _range.getNumGroups(2);
+
+      /**
+       * Aim for around 8 leaves per thread, enough for stealing to even out the load without drowning in tiny tasks.
+       */
+      final int grain = Math.max(1, globalGroups / (scheduler.getParallelism() * 8));
+
+      javaLocalBarrier = reuse(javaLocalBarrier, 1);
+
+      refreshJavaWorkers();
+
+      if (idleForkJoinWorkers == null) {
+         idleForkJoinWorkers = new ArrayBlockingQueue<JavaWorker>(scheduler.getParallelism());
+      }
+
+      for (int passId = _firstPassId; passId < (_firstPassId + _passes); passId++) {
+         idleForkJoinWorkers.clear();
+         for (int i = 0; i < scheduler.getParallelism(); i++) {
+            idleForkJoinWorkers.offer(getJavaWorker(i));
          }
+         scheduler.invoke(new GroupsTask(_range, passId, 0, globalGroups, grain));
+      }
+   }
 
-         // add padding here if needed
-         if (logger.isLoggable(Level.FINEST)) {
-            logger.finest("sizeWritten = " + sizeWritten + " totalStructSize= " + totalStructSize);
+   private ArrayBlockingQueue<JavaWorker> idleForkJoinWorkers = null;
+
+   /**
+    * Execute a kernel which calls <code>localBarrier()</code> with several groups in flight at once.<br/>
+    *
+    * As in the default JTP mode each work item of a group gets its own thread (and kernel clone), but here each
+    * thread is started via <code>JTPScheduler.executeLightweight()</code> so that on a JVM with virtual threads a thread
+    * which is waiting at the barrier does not tie up a platform thread. We then run <code>groupsInFlight</code> slots
+    * side by side, slot <code>n</code> handling groups <code>n, n+groupsInFlight, n+2*groupsInFlight...</code>, each with its
+    * own local barrier.
+    *
+    *    For a 1D range of 12 groups of 4 with 3 groups in flight we start 12 threads.
+    *
+    *    Slot-0 (threads 0..3) handles groups 0,3,6,9
+    *    Slot-1 (threads 4..7) handles groups 1,4,7,10
+    *    Slot-2 (threads 8..11) handles groups 2,5,8,11
+    *
+    * Groups in different slots run concurrently, so unlike the default JTP mode they must not share <code>@Local</code>
+    * buffers. Slot 0 uses the kernel's own local buffers and every other slot gets its own copy, which means (just as in
+    * OpenCL) the contents of local buffers are not visible outside of the group and are not copied back to the kernel.
+    *
+    * @param _range
+    *          The range requested by the user
+    * @param _firstPassId
+    *          The passId of the first pass, non zero for the later ranges of a batch
+    * @param _passes
+    *          The # of passes requested by the user
+    */
+   private void executeJavaGroupsInFlight(final Range _range, final int _firstPassId, final int _passes) {
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      final int threads = _range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2);
+      final int globalGroups = _range.getNumGroups(0) * _range.getNumGroups(1) * _range.getNumGroups(2);
+
+      int groupsInFlight = Config.jtpGroupsInFlight;
+      if (groupsInFlight <= 0) {
+         groupsInFlight = scheduler.hasVirtualThreads() ? scheduler.getParallelism() : 1;
+      }
+      final Field[] localFields = getLocalFields();
+      if (localFields == null) {
+         groupsInFlight = 1;
+      }
+      final int slots = Math.min(groupsInFlight, globalGroups);
+
+      /**
+       * As before the join has one party per thread plus one for the dispatch thread.
+       */
+      final Phaser join = javaJoin = reuse(javaJoin, (slots * threads) + 1);
+
+      if ((slotBarriers == null) || (slotBarriers.length < slots)) {
+         final CyclicBarrier[] barriers = new CyclicBarrier[slots];
+         if (slotBarriers != null) {
+            System.arraycopy(slotBarriers, 0, barriers, 0, slotBarriers.length);
          }
+         slotBarriers = barriers;
+      }
+      for (int slot = 0; slot < slots; slot++) {
+         slotBarriers[slot] = reuse(slotBarriers[slot], threads);
+      }
 
-         assert sizeWritten <= totalStructSize : "wrote too much into buffer";
+      refreshJavaWorkers();
 
-         while (sizeWritten < totalStructSize) {
-            if (logger.isLoggable(Level.FINEST)) {
-               logger.finest(arg.getName() + " struct pad byte = " + sizeWritten + " totalStructSize= " + totalStructSize);
+      for (int passId = _firstPassId; passId < (_firstPassId + _passes); passId++) {
+         for (int slot = 0; slot < slots; slot++) {
+            for (int threadId = 0; threadId < threads; threadId++) {
+               final JavaWorker worker = getJavaWorker((slot * threads) + threadId);
+               if (slot > 0) {
+                  setSlotLocalBuffers(worker.kernelClone, slot, localFields);
+               }
+               worker.prepare(_range, slotBarriers[slot], join, passId, slot, globalGroups, slots, threadId, threadId + 1);
+               scheduler.executeLightweight(worker);
             }
-            arg.getObjArrayByteBuffer().put((byte) -1);
-            sizeWritten++;
          }
+
+         join.arriveAndAwaitAdvance(); // This dispatch thread waits for all worker threads here.
       }
+   }
 
-      assert arg.getObjArrayByteBuffer().arrayOffset() == 0 : "should be zero";
+   private CyclicBarrier[] slotBarriers = null;
 
-      return didReallocate;
-   }
+   private Object[][] slotLocalBuffers = null;
 
-   private void extractOopConversionBuffer(KernelArg arg) throws AparapiException {
-      final Class<?> arrayClass = arg.getField().getType();
-      final ClassModel c = arg.getObjArrayElementModel();
-      assert c != null : "should find class for elements: " + arrayClass.getName();
-      assert arg.getArray() != null : "array is null";
+   private Field[] localFields = null;
 
-      final int arrayBaseOffset = UnsafeWrapper.arrayBaseOffset(arrayClass);
-      final int arrayScale = UnsafeWrapper.arrayIndexScale(arrayClass);
-      if (logger.isLoggable(Level.FINEST)) {
-         logger.finest("Syncing field:" + arg.getName() + ", bb=" + arg.getObjArrayByteBuffer() + ", type = " + arrayClass);
+   private boolean localFieldsUnavailable = false;
+
+   /**
+    * Find (once) the <code>@Local</code> (or <code>_$local$</code> suffixed) array fields of the kernel.
+    *
+    * @return the local buffer fields or null if they could not be made accessible
+    */
+   private Field[] getLocalFields() {
+      if ((localFields == null) && !localFieldsUnavailable) {
+         try {
+            final List<Field> fields = new ArrayList<Field>();
+            for (Class<?> clazz = kernel.getClass(); !clazz.equals(Kernel.class); clazz = clazz.getSuperclass()) {
+               for (final Field field : clazz.getDeclaredFields()) {
+                  if (!Modifier.isStatic(field.getModifiers()) && field.getType().isArray()
+                        && ((field.getAnnotation(Local.class) != null) || field.getName().endsWith(Kernel.LOCAL_SUFFIX))) {
+                     field.setAccessible(true);
+                     fields.add(field);
+                  }
+               }
+            }
+            localFields = fields.toArray(new Field[fields.size()]);
+         } catch (final SecurityException e) {
+            logger.log(Level.WARNING, "Unable to access local buffers, running one group at a time", e);
+            localFieldsUnavailable = true;
+         }
+      }
+      return (localFields);
+   }
+
+   /**
+    * Point the local buffer fields of a kernel clone at the buffers owned by the given slot, allocating the buffers if the
+    * kernel's own buffers have changed size or type since they were last allocated.
+    */
+   private void setSlotLocalBuffers(Kernel _clone, int _slot, Field[] _localFields) {
+      if ((slotLocalBuffers == null) || (slotLocalBuffers.length <= _slot)) {
+         final Object[][] buffers = new Object[_slot + 1][];
+         if (slotLocalBuffers != null) {
+            System.arraycopy(slotLocalBuffers, 0, buffers, 0, slotLocalBuffers.length);
+         }
+         slotLocalBuffers = buffers;
+      }
+      if (slotLocalBuffers[_slot] == null) {
+         slotLocalBuffers[_slot] = new Object[_localFields.length];
       }
 
-      int objArraySize = 0;
       try {
-         objArraySize = Array.getLength(arg.getField().get(kernel));
+         for (int i = 0; i < _localFields.length; i++) {
+            final Object kernelBuffer = _localFields[i].get(kernel);
+            if (kernelBuffer != null) {
+               Object slotBuffer = slotLocalBuffers[_slot][i];
+               if ((slotBuffer == null) || !slotBuffer.getClass().equals(kernelBuffer.getClass())
+                     || (Array.getLength(slotBuffer) != Array.getLength(kernelBuffer))) {
+                  slotBuffer = Array.newInstance(kernelBuffer.getClass().getComponentType(), Array.getLength(kernelBuffer));
+                  slotLocalBuffers[_slot][i] = slotBuffer;
+               }
+               if (_localFields[i].get(_clone) != slotBuffer) {
+                  _localFields[i].set(_clone, slotBuffer);
+               }
+            }
+         }
       } catch (final IllegalAccessException e) {
-         throw new AparapiException(e);
+         throw new IllegalStateException("Unable to assign local buffers of " + kernel.getClass().getName(), e);
       }
+   }
 
-      assert objArraySize > 0 : "should be > 0";
+   /**
+    * A fork/join task covering the groups <code>firstGroupId..(lastGroupId-1)</code> of one pass.
+    */
+   @SuppressWarnings("serial") private class GroupsTask extends RecursiveAction{
+      private final Range range;
 
-      final int totalStructSize = c.getTotalStructSize();
+      private final int passId;
+
+      private final int firstGroupId;
+
+      private final int lastGroupId;
+
+      private final int grain;
+
+      private GroupsTask(Range _range, int _passId, int _firstGroupId, int _lastGroupId, int _grain) {
+         range = _range;
+         passId = _passId;
+         firstGroupId = _firstGroupId;
+         lastGroupId = _lastGroupId;
+         grain = _grain;
+      }
+
+      @Override protected void compute() {
+         if ((lastGroupId - firstGroupId) > grain) {
+            final int middleGroupId = (firstGroupId + lastGroupId) >>> 1;
+            invokeAll(new GroupsTask(range, passId, firstGroupId, middleGroupId, grain), new GroupsTask(range, passId,
+                  middleGroupId, lastGroupId, grain));
+         } else {
+            JavaWorker worker = idleForkJoinWorkers.poll();
+            if (worker == null) {
+               // More leaves running than we have pooled workers (the pool may add threads), use a temporary clone
+               worker = new JavaWorker(kernel.clone());
+            }
+            worker.prepare(range, javaLocalBarrier, null, passId, firstGroupId, lastGroupId, 1, 0, range.getLocalSize(0)
+                  * range.getLocalSize(1) * range.getLocalSize(2));
+            try {
+               worker.runGroups(firstGroupId, lastGroupId);
+            } finally {
+               idleForkJoinWorkers.offer(worker);
+            }
+         }
+      }
+   }
+
+   /**
+    * Executes a block of work items (a range of groups by a range of localIds within each group) on its own kernel clone.<br/>
+    *
+    * Workers are retained by the <code>KernelRunner</code> and reused across passes and executions, so that once the pool
+    * has grown large enough for the requested range a JTP dispatch no longer clones the kernel or allocates a
+    * <code>KernelState</code>.
+    *
+    * @see KernelRunner#getJavaWorker(int)
+    * @see KernelRunner#refreshJavaWorkers()
+    */
+   private static class JavaWorker implements Runnable{
+      private final Kernel kernelClone;
+
+      private final KernelState kernelState;
+
+      private final KernelLoop kernelLoop;
+
+      private Range range;
+
+      private Phaser join;
+
+      private int firstGroupId;
+
+      private int lastGroupId;
+
+      private int groupStride;
+
+      private int firstThreadId;
+
+      private int lastThreadId;
+
+      private JavaWorker(Kernel _kernelClone) {
+         kernelClone = _kernelClone;
+         kernelState = kernelClone.getKernelState();
+         kernelLoop = KernelLoop.getKernelLoop(kernelClone.getClass());
+      }
+
+      /**
+       * Describe the work to be performed by the next call to <code>run()</code>.
+       *
+       * The dispatch thread calls this before handing the worker to the thread pool, the pool provides the happens-before
+       * edge so the fields need not be volatile.
+       */
+      private void prepare(Range _range, CyclicBarrier _localBarrier, Phaser _join, int _passId, int _firstGroupId,
+            int _lastGroupId, int _groupStride, int _firstThreadId, int _lastThreadId) {
+         range = _range;
+         join = _join;
+         firstGroupId = _firstGroupId;
+         lastGroupId = _lastGroupId;
+         groupStride = _groupStride;
+         firstThreadId = _firstThreadId;
+         lastThreadId = _lastThreadId;
+
+         kernelState.setRange(_range);
+         kernelState.setLocalBarrier(_localBarrier);
+         kernelState.setPassId(_passId);
+      }
+
+      /**
+       * Execute the prepared range of localIds for every <code>groupStride</code>'th group in
+       * <code>_firstGroupId..(_lastGroupId-1)</code>.
+       */
+      private void runGroups(int _firstGroupId, int _lastGroupId) {
+         kernelLoop.run(kernelClone, range, _firstGroupId, _lastGroupId, groupStride, firstThreadId, lastThreadId);
+      }
+
+      @Override public void run() {
+         try {
+            runGroups(firstGroupId, lastGroupId);
+         } finally {
+            join.arrive(); // Let the dispatch thread know we are done (even if the kernel throws), without waiting for the others
+         }
+      }
+   }
+
+   private final List<JavaWorker> javaWorkers = new ArrayList<JavaWorker>();
+
+   private CyclicBarrier javaLocalBarrier = null;
+
+   private Phaser javaJoin = null;
+
+   private Boolean cloneReusable = null;
+
+   private Field[] kernelFields = null;
+
+   /**
+    * Get the worker used for the given thread (or chunk) index, cloning the kernel only if the pool is not yet large enough.
+    *
+    * If the kernel overrides <code>clone()</code> we can't know what per thread state it sets up, so in this case we fall
+    * back to cloning on every request.
+    *
+    * @param _index
+    * @return the worker for <code>_index</code>
+    */
+   private JavaWorker getJavaWorker(int _index) {
+      if (!isCloneReusable()) {
+         return (new JavaWorker(kernel.clone()));
+      }
+      while (javaWorkers.size() <= _index) {
+         javaWorkers.add(new JavaWorker(kernel.clone()));
+      }
+      return (javaWorkers.get(_index));
+   }
+
+   /**
+    * Determine (once) whether the clones held by our workers can be reused.
+    *
+    * @return true if the kernel uses the default <code>Kernel.clone()</code> implementation
+    */
+   private boolean isCloneReusable() {
+      if (cloneReusable == null) {
+         try {
+            cloneReusable = kernel.getClass().getMethod("clone").getDeclaringClass().equals(Kernel.class);
+         } catch (final NoSuchMethodException e) {
+            cloneReusable = false;
+         }
+
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine(kernel.getClass().getName() + (cloneReusable ? " will reuse" : " will not reuse") + " JTP kernel clones");
+         }
+      }
+      return (cloneReusable);
+   }
+
+   /**
+    * Bring the fields of each pooled kernel clone up to date with the kernel.<br/>
+    *
+    * The clones were created by <code>Kernel.clone()</code>, which is a shallow copy, so all we need to do is to copy any
+    * non final field whose value (or reference) has changed since the clone was made. <code>Kernel</code>'s own fields are
+    * not copied, the clones have their own <code>KernelState</code>.
+    *
+    * If the fields can't be accessed we discard the pool and let <code>getJavaWorker()</code> create fresh clones.
+    */
+   private void refreshJavaWorkers() {
+      if (javaWorkers.isEmpty()) {
+         return;
+      }
+      try {
+         if (kernelFields == null) {
+            final List<Field> fields = new ArrayList<Field>();
+            for (Class<?> clazz = kernel.getClass(); !clazz.equals(Kernel.class); clazz = clazz.getSuperclass()) {
+               for (final Field field : clazz.getDeclaredFields()) {
+                  final int modifiers = field.getModifiers();
+                  if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                     field.setAccessible(true);
+                     fields.add(field);
+                  }
+               }
+            }
+            kernelFields = fields.toArray(new Field[fields.size()]);
+         }
+
+         for (final JavaWorker worker : javaWorkers) {
+            for (final Field field : kernelFields) {
+               refreshField(field, worker.kernelClone);
+            }
+         }
+      } catch (final Exception e) {
+         logger.log(Level.WARNING, "Unable to refresh JTP kernel clones, creating new clones", e);
+         javaWorkers.clear();
+      }
+   }
+
+   /**
+    * Copy a single field from the kernel to a clone if it has changed. We use the typed accessors so that primitive fields are
+    * not boxed.
+    */
+   private void refreshField(Field _field, Kernel _clone) throws IllegalAccessException {
+      final Class<?> type = _field.getType();
+      if (type.equals(int.class)) {
+         final int value = _field.getInt(kernel);
+         if (_field.getInt(_clone) != value) {
+            _field.setInt(_clone, value);
+         }
+      } else if (type.equals(float.class)) {
+         final float value = _field.getFloat(kernel);
+         if (Float.floatToRawIntBits(_field.getFloat(_clone)) != Float.floatToRawIntBits(value)) {
+            _field.setFloat(_clone, value);
+         }
+      } else if (type.equals(long.class)) {
+         final long value = _field.getLong(kernel);
+         if (_field.getLong(_clone) != value) {
+            _field.setLong(_clone, value);
+         }
+      } else if (type.equals(double.class)) {
+         final double value = _field.getDouble(kernel);
+         if (Double.doubleToRawLongBits(_field.getDouble(_clone)) != Double.doubleToRawLongBits(value)) {
+            _field.setDouble(_clone, value);
+         }
+      } else if (type.equals(boolean.class)) {
+         final boolean value = _field.getBoolean(kernel);
+         if (_field.getBoolean(_clone) != value) {
+            _field.setBoolean(_clone, value);
+         }
+      } else if (type.equals(byte.class)) {
+         final byte value = _field.getByte(kernel);
+         if (_field.getByte(_clone) != value) {
+            _field.setByte(_clone, value);
+         }
+      } else if (type.equals(short.class)) {
+         final short value = _field.getShort(kernel);
+         if (_field.getShort(_clone) != value) {
+            _field.setShort(_clone, value);
+         }
+      } else if (type.equals(char.class)) {
+         final char value = _field.getChar(kernel);
+         if (_field.getChar(_clone) != value) {
+            _field.setChar(_clone, value);
+         }
+      } else {
+         final Object value = _field.get(kernel);
+         if (_field.get(_clone) != value) {
+            _field.set(_clone, value);
+         }
+      }
+   }
+
+   /**
+    * Reuse a barrier from a previous dispatch if it has the required number of parties and has not been broken.
+    */
+   private static CyclicBarrier reuse(CyclicBarrier _barrier, int _parties) {
+      if ((_barrier != null) && (_barrier.getParties() == _parties) && !_barrier.isBroken()) {
+         return (_barrier);
+      }
+      return (new CyclicBarrier(_parties));
+   }
+
+   /**
+    * Reuse a join from a previous dispatch if it has the required number of parties.
+    */
+   private static Phaser reuse(Phaser _join, int _parties) {
+      if ((_join != null) && (_join.getRegisteredParties() == _parties) && !_join.isTerminated()) {
+         return (_join);
+      }
+      return (new Phaser(_parties));
+   }
+
+   private Boolean localBarrierFree = null;
+
+   /**
+    * Determine (once) whether this kernel can be executed without emulating <code>localBarrier()</code>.
+    *
+    * We only need to inspect the constant pools of the kernel class hierarchy, so this works for kernels which we could not
+    * convert to OpenCL. If the class file can't be parsed we assume that barriers are used.
+    *
+    * @return true if no class in the kernel's class hierarchy references <code>localBarrier()</code>
+    */
+   private boolean isLocalBarrierFree() {
+      if (localBarrierFree == null) {
+         try {
+            final ClassModel classModel = (entryPoint != null) ? entryPoint.getClassModel() : ModelCache.getClassModel(kernel
+                  .getClass());
+            localBarrierFree = !classModel.referencesMethod("localBarrier", "()V");
+         } catch (final Exception exception) {
+            localBarrierFree = false;
+         }
+
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine(kernel.getClass().getName() + (localBarrierFree ? " does not use" : " uses") + " localBarrier()");
+         }
+      }
+      return (localBarrierFree);
+   }
+
+   /**
+    * Assign the localId, globalId and groupId of a single work item to the given <code>KernelState</code>.<br/>
+    * 
+    * A work item is identified by the (flattened) id of the group it belongs to and by its (flattened) index within that group.
+    * 
+    * @param kernelState
+    *          The state of the kernel clone which is about to execute the work item
+    * @param _range
+    *          The range being executed
+    * @param globalGroupId
+    *          The flattened group id in the range <code>0..(numGroups(0)*numGroups(1)*numGroups(2))</code>
+    * @param threadId
+    *          The flattened index of the work item within its group in the range <code>0..threads</code>
+    * @param threads
+    *          The number of work items in each group (<code>localSize(0)*localSize(1)*localSize(2)</code>)
+    */
+   public static void setWorkItemIds(final KernelState kernelState, final Range _range, final int globalGroupId, final int threadId,
+         final int threads) {
+      if (_range.getDims() == 1) {
+         kernelState.setLocalId(0, (threadId % _range.getLocalSize(0)));
+         kernelState.setGlobalId(0, (threadId + (globalGroupId * threads)));
+         kernelState.setGroupId(0, globalGroupId);
+      } else if (_range.getDims() == 2) {
+
+         /**
+          * Consider a 12x4 grid of 4*2 local groups
+          * <pre>
+          *                                             threads = 4*2 = 8
+          *                                             localWidth=4
+          *                                             localHeight=2
+          *                                             globalWidth=12
+          *                                             globalHeight=4
+          * 
+          *    00 01 02 03 | 04 05 06 07 | 08 09 10 11  
+          *    12 13 14 15 | 16 17 18 19 | 20 21 22 23
+          *    ------------+-------------+------------
+          *    24 25 26 27 | 28 29 30 31 | 32 33 34 35
+          *    36 37 38 39 | 40 41 42 43 | 44 45 46 47  
+          *    
+          *    00 01 02 03 | 00 01 02 03 | 00 01 02 03  threadIds : [0..7]*6
+          *    04 05 06 07 | 04 05 06 07 | 04 05 06 07
+          *    ------------+-------------+------------
+          *    00 01 02 03 | 00 01 02 03 | 00 01 02 03
+          *    04 05 06 07 | 04 05 06 07 | 04 05 06 07  
+          *    
+          *    00 00 00 00 | 01 01 01 01 | 02 02 02 02  groupId[0] : 0..6 
+          *    00 00 00 00 | 01 01 01 01 | 02 02 02 02   
+          *    ------------+-------------+------------
+          *    00 00 00 00 | 01 01 01 01 | 02 02 02 02  
+          *    00 00 00 00 | 01 01 01 01 | 02 02 02 02
+          *    
+          *    00 00 00 00 | 00 00 00 00 | 00 00 00 00  groupId[1] : 0..6 
+          *    00 00 00 00 | 00 00 00 00 | 00 00 00 00   
+          *    ------------+-------------+------------
+          *    01 01 01 01 | 01 01 01 01 | 01 01 01 01 
+          *    01 01 01 01 | 01 01 01 01 | 01 01 01 01
+          *         
+          *    00 01 02 03 | 08 09 10 11 | 16 17 18 19  globalThreadIds == threadId + groupId * threads;
+          *    04 05 06 07 | 12 13 14 15 | 20 21 22 23
+          *    ------------+-------------+------------
+          *    24 25 26 27 | 32[33]34 35 | 40 41 42 43
+          *    28 29 30 31 | 36 37 38 39 | 44 45 46 47   
+          *          
+          *    00 01 02 03 | 00 01 02 03 | 00 01 02 03  localX = threadId % localWidth; (for globalThreadId 33 = threadId = 01 : 01%4 =1)
+          *    00 01 02 03 | 00 01 02 03 | 00 01 02 03   
+          *    ------------+-------------+------------
+          *    00 01 02 03 | 00[01]02 03 | 00 01 02 03 
+          *    00 01 02 03 | 00 01 02 03 | 00 01 02 03
+          *     
+          *    00 00 00 00 | 00 00 00 00 | 00 00 00 00  localY = threadId /localWidth  (for globalThreadId 33 = threadId = 01 : 01/4 =0)
+          *    01 01 01 01 | 01 01 01 01 | 01 01 01 01   
+          *    ------------+-------------+------------
+          *    00 00 00 00 | 00[00]00 00 | 00 00 00 00 
+          *    01 01 01 01 | 01 01 01 01 | 01 01 01 01
+          *     
+          *    00 01 02 03 | 04 05 06 07 | 08 09 10 11  globalX=
+          *    00 01 02 03 | 04 05 06 07 | 08 09 10 11     groupsPerLineWidth=globalWidth/localWidth (=12/4 =3)
+          *    ------------+-------------+------------     groupInset =groupId%groupsPerLineWidth (=4%3 = 1)
+          *    00 01 02 03 | 04[05]06 07 | 08 09 10 11 
+          *    00 01 02 03 | 04 05 06 07 | 08 09 10 11     globalX = groupInset*localWidth+localX (= 1*4+1 = 5)
+          *     
+          *    00 00 00 00 | 00 00 00 00 | 00 00 00 00  globalY
+          *    01 01 01 01 | 01 01 01 01 | 01 01 01 01      
+          *    ------------+-------------+------------
+          *    02 02 02 02 | 02[02]02 02 | 02 02 02 02 
+          *    03 03 03 03 | 03 03 03 03 | 03 03 03 03
+          *    
+          * </pre>
+          * Assume we are trying to locate the id's for #33 
+          *
+          */
+
+         kernelState.setLocalId(0, (threadId % _range.getLocalSize(0))); // threadId % localWidth =  (for 33 = 1 % 4 = 1)
+         kernelState.setLocalId(1, (threadId / _range.getLocalSize(0))); // threadId / localWidth = (for 33 = 1 / 4 == 0)
+
+         final int groupInset = globalGroupId % _range.getNumGroups(0); // 4%3 = 1
+         kernelState.setGlobalId(0, ((groupInset * _range.getLocalSize(0)) + kernelState.getLocalIds()[0])); // 1*4+1=5
+
+         final int completeLines = (globalGroupId / _range.getNumGroups(0)) * _range.getLocalSize(1);// (4/3) * 2
+         kernelState.setGlobalId(1, (completeLines + kernelState.getLocalIds()[1])); // 2+0 = 2
+         kernelState.setGroupId(0, (globalGroupId % _range.getNumGroups(0)));
+         kernelState.setGroupId(1, (globalGroupId / _range.getNumGroups(0)));
+      } else if (_range.getDims() == 3) {
+
+         //Same as 2D actually turns out that localId[0] is identical for all three dims so could be hoisted out of conditional code
+
+         kernelState.setLocalId(0, (threadId % _range.getLocalSize(0)));
+
+         kernelState.setLocalId(1, ((threadId / _range.getLocalSize(0)) % _range.getLocalSize(1)));
+
+         // the thread id's span WxHxD so threadId/(WxH) should yield the local depth  
+         kernelState.setLocalId(2, (threadId / (_range.getLocalSize(0) * _range.getLocalSize(1))));
+
+         kernelState.setGlobalId(
+               0,
+               (((globalGroupId % _range.getNumGroups(0)) * _range.getLocalSize(0)) + kernelState.getLocalIds()[0]));
+
+         kernelState.setGlobalId(
+               1,
+               ((((globalGroupId / _range.getNumGroups(0)) * _range.getLocalSize(1)) % _range.getGlobalSize(1)) + kernelState
+                     .getLocalIds()[1]));
+
+         kernelState.setGlobalId(
+               2,
+               (((globalGroupId / (_range.getNumGroups(0) * _range.getNumGroups(1))) * _range.getLocalSize(2)) + kernelState
+                     .getLocalIds()[2]));
+
+         kernelState.setGroupId(0, (globalGroupId % _range.getNumGroups(0)));
+         kernelState.setGroupId(1, ((globalGroupId / _range.getNumGroups(0)) % _range.getNumGroups(1)));
+         kernelState.setGroupId(2, (globalGroupId / (_range.getNumGroups(0) * _range.getNumGroups(1))));
+      }
+   }
+
+   private KernelArg[] args = null;
+
+   private boolean usesOopConversion = false;
+
+   /**
+    * 
+    * @param arg
+    * @return
+    * @throws AparapiException
+    */
+   private boolean prepareOopConversionBuffer(KernelArg arg) throws AparapiException {
+      usesOopConversion = true;
+      final Class<?> arrayClass = arg.getField().getType();
+      ClassModel c = null;
+      boolean didReallocate = false;
+
+      if (arg.getObjArrayElementModel() == null) {
+         final String tmp = arrayClass.getName().substring(2).replace("/", ".");
+         final String arrayClassInDotForm = tmp.substring(0, tmp.length() - 1);
+
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("looking for type = " + arrayClassInDotForm);
+         }
+
+         // get ClassModel of obj array from entrypt.objectArrayFieldsClasses
+         c = entryPoint.getObjectArrayFieldsClasses().get(arrayClassInDotForm);
+         arg.setObjArrayElementModel(c);
+      } else {
+         c = arg.getObjArrayElementModel();
+      }
+      assert c != null : "should find class for elements " + arrayClass.getName();
+
+      final int arrayBaseOffset = UnsafeWrapper.arrayBaseOffset(arrayClass);
+      final int arrayScale = UnsafeWrapper.arrayIndexScale(arrayClass);
+
+      if (logger.isLoggable(Level.FINEST)) {
+         logger.finest("Syncing obj array type = " + arrayClass + " cvtd= " + c.getClassWeAreModelling().getName()
+               + "arrayBaseOffset=" + arrayBaseOffset + " arrayScale=" + arrayScale);
+      }
+
+      int objArraySize = 0;
+      Object newRef = null;
+      try {
+         newRef = arg.getField().get(kernel);
+         objArraySize = Array.getLength(newRef);
+      } catch (final IllegalAccessException e) {
+         throw new AparapiException(e);
+      }
+
+      assert (newRef != null) && (objArraySize != 0) : "no data";
+
+      final int totalStructSize = c.getTotalStructSize();
+      final int totalBufferSize = objArraySize * totalStructSize;
+
+      // allocate ByteBuffer if first time or array changed
+      if ((arg.getObjArrayBuffer() == null) || (newRef != arg.getArray())) {
+         final ByteBuffer structBuffer = ByteBuffer.allocate(totalBufferSize);
+         arg.setObjArrayByteBuffer(structBuffer.order(ByteOrder.LITTLE_ENDIAN));
+         arg.setObjArrayBuffer(arg.getObjArrayByteBuffer().array());
+         didReallocate = true;
+         if (logger.isLoggable(Level.FINEST)) {
+            logger.finest("objArraySize = " + objArraySize + " totalStructSize= " + totalStructSize + " totalBufferSize="
+                  + totalBufferSize);
+         }
+      } else {
+         arg.getObjArrayByteBuffer().clear();
+      }
+
+      // copy the fields that the JNI uses
+      arg.setJavaArray(arg.getObjArrayBuffer());
+      arg.setNumElements(objArraySize);
+      arg.setSizeInBytes(totalBufferSize);
+
+      for (int j = 0; j < objArraySize; j++) {
+         int sizeWritten = 0;
+
+         final Object object = UnsafeWrapper.getObject(newRef, arrayBaseOffset + (arrayScale * j));
+         for (int i = 0; i < c.getStructMemberTypes().size(); i++) {
+            final TypeSpec t = c.getStructMemberTypes().get(i);
+            final long offset = c.getStructMemberOffsets().get(i);
+
+            if (logger.isLoggable(Level.FINEST)) {
+               logger.finest("name = " + c.getStructMembers().get(i).getNameAndTypeEntry().getNameUTF8Entry().getUTF8() + " t= "
+                     + t);
+            }
+
+            switch (t) {
+               case I: {
+                  final int x = UnsafeWrapper.getInt(object, offset);
+                  arg.getObjArrayByteBuffer().putInt(x);
+                  sizeWritten += t.getSize();
+                  break;
+               }
+               case F: {
+                  final float x = UnsafeWrapper.getFloat(object, offset);
+                  arg.getObjArrayByteBuffer().putFloat(x);
+                  sizeWritten += t.getSize();
+                  break;
+               }
+               case J: {
+                  final long x = UnsafeWrapper.getLong(object, offset);
+                  arg.getObjArrayByteBuffer().putLong(x);
+                  sizeWritten += t.getSize();
+                  break;
+               }
+               case Z: {
+                  final boolean x = UnsafeWrapper.getBoolean(object, offset);
+                  arg.getObjArrayByteBuffer().put(x == true ? (byte) 1 : (byte) 0);
+                  // Booleans converted to 1 byte C chars for opencl
+                  sizeWritten += TypeSpec.B.getSize();
+                  break;
+               }
+               case B: {
+                  final byte x = UnsafeWrapper.getByte(object, offset);
+                  arg.getObjArrayByteBuffer().put(x);
+                  sizeWritten += t.getSize();
+                  break;
+               }
+               case D: {
+                  throw new AparapiException("Double not implemented yet");
+               }
+               default:
+                  assert true == false : "typespec did not match anything";
+                  throw new AparapiException("Unhandled type in buffer conversion");
+            }
+         }
+
+         // add padding here if needed
+         if (logger.isLoggable(Level.FINEST)) {
+            logger.finest("sizeWritten = " + sizeWritten + " totalStructSize= " + totalStructSize);
+         }
+
+         assert sizeWritten <= totalStructSize : "wrote too much into buffer";
+
+         while (sizeWritten < totalStructSize) {
+            if (logger.isLoggable(Level.FINEST)) {
+               logger.finest(arg.getName() + " struct pad byte = " + sizeWritten + " totalStructSize= " + totalStructSize);
+            }
+            arg.getObjArrayByteBuffer().put((byte) -1);
+            sizeWritten++;
+         }
+      }
+
+      assert arg.getObjArrayByteBuffer().arrayOffset() == 0 : "should be zero";
+
+      return didReallocate;
+   }
+
+   private void extractOopConversionBuffer(KernelArg arg) throws AparapiException {
+      final Class<?> arrayClass = arg.getField().getType();
+      final ClassModel c = arg.getObjArrayElementModel();
+      assert c != null : "should find class for elements: " + arrayClass.getName();
+      assert arg.getArray() != null : "array is null";
+
+      final int arrayBaseOffset = UnsafeWrapper.arrayBaseOffset(arrayClass);
+      final int arrayScale = UnsafeWrapper.arrayIndexScale(arrayClass);
+      if (logger.isLoggable(Level.FINEST)) {
+         logger.finest("Syncing field:" + arg.getName() + ", bb=" + arg.getObjArrayByteBuffer() + ", type = " + arrayClass);
+      }
+
+      int objArraySize = 0;
+      try {
+         objArraySize = Array.getLength(arg.getField().get(kernel));
+      } catch (final IllegalAccessException e) {
+         throw new AparapiException(e);
+      }
+
+      assert objArraySize > 0 : "should be > 0";
+
+      final int totalStructSize = c.getTotalStructSize();
       // int totalBufferSize = objArraySize * totalStructSize;
       // assert arg.objArrayBuffer.length == totalBufferSize : "size should match";
 
@@ -778,6 +1623,24 @@ public class KernelRunner extends KernelRunnerJNI{
                   throw new IllegalStateException("Cannot send null refs to kernel, reverting to java");
                }
 
+               if ((arg.getType() & ARG_DIRECT_BUFFER) != 0) {
+                  // OpenCL uses the buffer's own memory, there is nothing to copy
+                  final Buffer buffer = (Buffer) newArrayRef;
+                  final String excuse = NioBufferUtil.checkBuffer(buffer, (arg.getType() & ARG_WRITE) != 0);
+                  if (excuse != null) {
+                     throw new AparapiException("Cannot send buffer " + arg.getName() + " to kernel, " + excuse
+                           + ", reverting to java");
+                  }
+                  arg.setJavaArray(buffer);
+                  arg.setNumElements(buffer.capacity());
+                  arg.setSizeInBytes(arg.getNumElements() * arg.getPrimitiveSize());
+                  if (newArrayRef != arg.getArray()) {
+                     needsSync = true;
+                  }
+                  arg.setArray(newArrayRef);
+                  continue;
+               }
+
                String fieldName = arg.getField().getName();
                int arrayLength = Array.getLength(newArrayRef);
                Integer privateMemorySize = ClassModel.getPrivateMemorySizeFromField(arg.getField());
@@ -798,9 +1661,13 @@ public class KernelRunner extends KernelRunnerJNI{
                   arg.setNumElements(arrayLength);
                   arg.setSizeInBytes(arg.getNumElements() * arg.getPrimitiveSize());
 
-                  if (((args[i].getType() & ARG_EXPLICIT) != 0) && puts.contains(newArrayRef)) {
+                  if (((args[i].getType() & ARG_EXPLICIT) != 0) && (puts.contains(newArrayRef) || putRanges.containsKey(newArrayRef))) {
                      args[i].setType(args[i].getType() | ARG_EXPLICIT_WRITE);
                      // System.out.println("detected an explicit write " + args[i].name);
+                     // A new array gets a new buffer on the device, which has to be written whole
+                     final DirtyRanges ranges = putRanges.remove(newArrayRef);
+                     args[i].setDirtyRanges(((ranges != null) && (newArrayRef == arg.getArray())) ? ranges
+                           .toByteRanges(arg.getPrimitiveSize()) : null);
                      puts.remove(newArrayRef);
                   }
                }
@@ -870,6 +1737,10 @@ public class KernelRunner extends KernelRunnerJNI{
          }
       }
       */
+      if (!Config.disableTiling && (partitionRange == null) && !isExplicit() && exceedsDeviceMemory()) {
+         return executeTiled(_entrypointName, _range, _passes);
+      }
+
       // Read the array refs after kernel may have changed them
       // We need to do this as input to computing the localSize
       assert args != null : "args should not be null";
@@ -879,11 +1750,14 @@ public class KernelRunner extends KernelRunnerJNI{
       }
 
       // native side will reallocate array buffers if necessary
-      if (runKernelJNI(jniContextHandle, _range, needSync, _passes) != 0) {
+      final int status = (partitionRange != null) ? runKernelPartitionJNI(jniContextHandle, _range, needSync,
+            partitionFirstGroupId * partitionRange.getLocalSize(0)) : runKernelJNI(jniContextHandle, _range, needSync, _passes);
+      if (status != 0) {
          logger.warning("### CL exec seems to have failed. Trying to revert to Java ###");
          kernel.setFallbackExecutionMode();
          return execute(_entrypointName, _range, _passes);
       }
+      addDeviceWrittenArrays();
 
       if (usesOopConversion == true) {
          restoreObjects();
@@ -896,6 +1770,61 @@ public class KernelRunner extends KernelRunnerJNI{
       return kernel;
    }
 
+   /**
+    * @return true if one of the kernel's global arrays is larger than the device can allocate, or together they are larger
+    *         than the device's memory
+    */
+   private boolean exceedsDeviceMemory() {
+      if (openCLDevice == null) {
+         return (false);
+      }
+      final long maxMemAllocSize = openCLDevice.getMaxMemAllocSize();
+      final long globalMemSize = openCLDevice.getGlobalMemSize();
+      long totalBytes = 0;
+      try {
+         for (int i = 0; i < argc; i++) {
+            final KernelArg arg = args[i];
+            if (((arg.getType() & ARG_ARRAY) != 0) && ((arg.getType() & ARG_LOCAL) == 0)) {
+               final Object value = arg.getField().get(kernel);
+               if ((value != null) && value.getClass().isArray()) {
+                  final long bytes = (long) Array.getLength(value) * arg.getPrimitiveSize();
+                  if ((maxMemAllocSize > 0) && (bytes > maxMemAllocSize)) {
+                     return (true);
+                  }
+                  totalBytes += bytes;
+               }
+            }
+         }
+      } catch (final IllegalAccessException e) {
+         return (false);
+      }
+      return ((globalMemSize > 0) && (totalBytes > globalMemSize));
+   }
+
+   /**
+    * Execute the kernel a tile at a time on our device, because its arrays don't fit.
+    * 
+    * @see com.amd.aparapi.TiledKernel
+    */
+   private Kernel executeTiled(String _entrypointName, Range _range, int _passes) throws AparapiException {
+      if (!_entrypointName.equals("run") || (_range.getDims() != 1) || (_passes != 1) || (entryPoint.getTiledArrays() == null)) {
+         throw new AparapiException("arrays of " + kernel.getClass().getName() + " don't fit on the device and it can't be tiled");
+      }
+      try {
+         if (tiledKernel == null) {
+            tiledKernel = new TiledKernel(kernel, openCLDevice);
+         }
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Executing " + kernel.getClass().getName() + " in tiles of " + tiledKernel.getTileSize(_range)
+                  + " work items");
+         }
+         tiledKernel.execute(_range);
+      } catch (final IllegalStateException e) {
+         throw new AparapiException(e.getMessage());
+      }
+      return kernel;
+   }
+
    public synchronized Kernel execute(Kernel.Entry entry, final Range _range, final int _passes) {
       System.out.println("execute(Kernel.Entry, size) not implemented");
       return (kernel);
@@ -908,268 +1837,687 @@ public class KernelRunner extends KernelRunnerJNI{
          kernel.setFallbackExecutionMode();
       }
 
-      return execute(_entrypointName, _range, _passes);
-   }
+      return execute(_entrypointName, _range, _passes);
+   }
+
+   synchronized private Kernel warnFallBackAndExecute(String _entrypointName, final Range _range, final int _passes,
+         Exception _exception) {
+      if (logger.isLoggable(Level.WARNING)) {
+         logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + _exception.getMessage());
+         _exception.printStackTrace();
+      }
+      return fallBackAndExecute(_entrypointName, _range, _passes);
+   }
+
+   synchronized private Kernel warnFallBackAndExecute(String _entrypointName, final Range _range, final int _passes, String _excuse) {
+      logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + _excuse);
+      return fallBackAndExecute(_entrypointName, _range, _passes);
+   }
+
+   /**
+    * While the OpenCL program of a tiered kernel is prepared in the background, the OpenCL mode to switch to once it is ready.
+    */
+   private EXECUTION_MODE tieredExecutionMode = null;
+
+   /**
+    * Prepares the OpenCL program of a tiered kernel, yields null on success otherwise the reason OpenCL can't be used.
+    */
+   private FutureTask<String> tieredPreparation = null;
+
+   private int tieredJavaExecutions = 0;
+
+   /**
+    * Start converting the kernel and building its OpenCL program on another thread. The kernel executes in JTP (and
+    * <code>getExecutionMode()</code> reports JTP) until the program is ready, the first execution after that switches the
+    * kernel back to its OpenCL mode.<br/>
+    *
+    * The preparation only touches the OpenCL state of this runner, which JTP executions don't use, so it does not need
+    * the runner's lock. An execution which finds the kernel switched to OpenCL while the preparation is under way waits for
+    * it (see <code>waitForTiered()</code>) rather than using the half built state.
+    */
+   private void startTiered(final String _entrypointName, final Device _device) {
+      final long startTime = System.currentTimeMillis();
+      final EXECUTION_MODE executionMode = tieredExecutionMode = kernel.getExecutionMode();
+      tieredPreparation = new FutureTask<String>(new Callable<String>(){
+         @Override public String call() {
+            final String excuse = prepareOpenCL(_entrypointName, _device, executionMode);
+            conversionTime = System.currentTimeMillis() - startTime;
+            return (excuse);
+         }
+      }){
+         @Override protected void done() {
+            synchronized (KernelRunner.this) {
+               KernelRunner.this.notifyAll();
+            }
+         }
+      };
+      kernel.setExecutionMode(EXECUTION_MODE.JTP);
+      JTPScheduler.getScheduler().executeConcurrently(tieredPreparation);
+
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("Executing " + kernel.getClass() + " in JTP while preparing " + tieredExecutionMode);
+      }
+   }
+
+   /**
+    * If the background preparation started by <code>startTiered()</code> has finished switch the kernel to OpenCL or, if
+    * OpenCL can't be used, move on to the kernel's next execution mode just as a failed <code>execute()</code> would.
+    */
+   private void finishTiered() {
+      if ((tieredPreparation == null) || !tieredPreparation.isDone()) {
+         return;
+      }
+
+      String excuse = null;
+      try {
+         excuse = tieredPreparation.get();
+      } catch (final InterruptedException e) {
+         // Can't happen, the preparation is done
+         Thread.currentThread().interrupt();
+      } catch (final ExecutionException e) {
+         excuse = e.getCause().toString();
+      }
+
+      if (excuse == null) {
+         kernel.setExecutionMode(tieredExecutionMode);
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Switching " + kernel.getClass() + " to " + tieredExecutionMode + " after " + tieredJavaExecutions
+                  + " JTP executions");
+         }
+      } else {
+         logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + excuse);
+
+         // The next mode (say CPU after GPU) is prepared from scratch, not refused because this preparation failed
+         discardOpenCL();
+         if (kernel.hasNextExecutionMode()) {
+            kernel.tryNextExecutionMode();
+         } else {
+            kernel.setFallbackExecutionMode();
+         }
+      }
+      tieredPreparation = null;
+      tieredExecutionMode = null;
+   }
+
+   /**
+    * Forget the OpenCL state (context, entrypoint and arguments) created for <code>openCLMode</code>, so the next OpenCL
+    * execution initializes OpenCL afresh for its own mode rather than reusing, or being refused because of, another mode's.
+    */
+   private void discardOpenCL() {
+      // An explicit kernel's results may only be on the device we are about to forget
+      getDeviceWrittenArrays();
+      if (jniContextHandle != 0) {
+         disposeJNI(jniContextHandle);
+         jniContextHandle = 0;
+      }
+      entryPoint = null;
+      args = null;
+      openCLMode = null;
+   }
+
+   /**
+    * Wait for the background preparation started by <code>startTiered()</code> to finish. Called with our lock held,
+    * <code>wait()</code> releases it while waiting as the preparation needs it for <code>initJNI()</code>.
+    */
+   private void waitForTiered() {
+      boolean interrupted = false;
+      while ((tieredPreparation != null) && !tieredPreparation.isDone()) {
+         try {
+            wait();
+         } catch (final InterruptedException e) {
+            interrupted = true;
+         }
+      }
+      if (interrupted) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Locks which serialize creating OpenCL contexts on the same device, keyed by device id. Contexts for different devices
+    * are created concurrently.
+    */
+   private static final ConcurrentMap<Long, Object> deviceInitLocks = new ConcurrentHashMap<Long, Object>();
+
+   /**
+    * Set once the first OpenCL context of the process has been created.
+    */
+   private static volatile boolean nativeInitialized = false;
+
+   /**
+    * Create the OpenCL context of this kernel on <code>_device</code>.<br/>
+    *
+    * All of the contexts used to be created under one <code>Kernel.class</code> lock, to avoid a race uncovered with issue #68
+    * http://code.google.com/p/aparapi/issues/detail?id=68, so kernels could only initialize one at a time. The process wide
+    * state of the native library (its config) is created lazily by the first <code>initJNI</code>, so the first context is
+    * still created under <code>Kernel.class</code>. After that only contexts on the same device are serialized.
+    *
+    * @return the handle of the new context, 0 if it could not be created
+    * @see com.amd.aparapi.Config#enableSerialOpenCLInitialization
+    */
+   private long createContext(OpenCLDevice _device, int _jniFlags) {
+      if (!nativeInitialized || Config.enableSerialOpenCLInitialization) {
+         synchronized (Kernel.class) {
+            if (!nativeInitialized || Config.enableSerialOpenCLInitialization) {
+               final long handle = initJNI(kernel, _device, _jniFlags);
+               nativeInitialized = true;
+               return (handle);
+            }
+         }
+      }
+
+      final Long deviceId = _device.getDeviceId();
+      Object lock = deviceInitLocks.get(deviceId);
+      if (lock == null) {
+         final Object created = new Object();
+         lock = deviceInitLocks.putIfAbsent(deviceId, created);
+         if (lock == null) {
+            lock = created;
+         }
+      }
+      synchronized (lock) {
+         return (initJNI(kernel, _device, _jniFlags));
+      }
+   }
+
+   /**
+    * Analyze the entrypoint and, if that succeeds, create the OpenCL context and program for it.
+    *
+    * @return null if the kernel can now be executed in OpenCL, otherwise the reason it can't
+    * @see #initOpenCL(String, Device, EXECUTION_MODE)
+    */
+   private String prepareOpenCL(String _entrypointName, Device _device, EXECUTION_MODE _executionMode) {
+      String excuse = ModelCache.getConversionFailure(kernel.getClass(), _entrypointName);
+      if (excuse == null) {
+         try {
+            entryPoint = ModelCache.getEntrypoint(kernel.getClass(), _entrypointName);
+            excuse = entryPoint.shouldFallback() ? "failed to locate entrypoint" : initOpenCL(_entrypointName, _device,
+                  _executionMode);
+         } catch (final Exception exception) {
+            excuse = exception.toString();
+         }
+      }
+      return (excuse);
+   }
+
+   /**
+    * Do the work which the first execution of the kernel would do (analyzing the entrypoint and, in an OpenCL mode,
+    * generating the OpenCL, creating the context and building the program) without executing it.<br/>
+    *
+    * If the kernel can't be executed in its OpenCL mode it falls back just as <code>execute()</code> would, so
+    * <code>kernel.getExecutionMode()</code> shows the mode the kernel will execute in. A kernel which has already been
+    * compiled (or has already executed) is left as it is.
+    *
+    * @param _entrypointName
+    * @param _device
+    *          the OpenCL device later executions will use (the context is created for this device), or null for the best
+    *          device for the execution mode
+    * @return true if the kernel is ready to execute in OpenCL
+    */
+   public boolean compile(String _entrypointName, Device _device) {
+      // A tiered preparation already under way is doing the same work
+      awaitTiered();
+
+      synchronized (this) {
+         if (!kernel.getExecutionMode().isOpenCL() || ((_device != null) && !(_device instanceof OpenCLDevice))) {
+            try {
+               ModelCache.getEntrypoint(kernel.getClass(), _entrypointName);
+            } catch (final AparapiException exception) {
+               // JTP does not need the entrypoint
+               if (logger.isLoggable(Level.FINE)) {
+                  logger.fine("Could not analyze " + kernel.getClass() + ", " + exception);
+               }
+            }
+            return (false);
+         }
+         if ((openCLMode != null) && (openCLMode != kernel.getExecutionMode())) {
+            discardOpenCL();
+         }
+         if (args != null) {
+            return (true);
+         }
+         if (entryPoint != null) {
+            // An earlier initialization failed
+            return (false);
+         }
+
+         final long startTime = System.currentTimeMillis();
+         final String excuse = prepareOpenCL(_entrypointName, _device, kernel.getExecutionMode());
+         conversionTime = System.currentTimeMillis() - startTime;
+         if (excuse != null) {
+            logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + excuse);
+            if (kernel.hasNextExecutionMode()) {
+               kernel.tryNextExecutionMode();
+            } else {
+               kernel.setFallbackExecutionMode();
+            }
+            return (false);
+         }
+         return (true);
+      }
+   }
+
+   /**
+    * @return the number of executions which ran in JTP while the OpenCL program of a tiered kernel was being prepared
+    * @see com.amd.aparapi.Kernel#setTieredExecution(boolean)
+    */
+   public synchronized int getTieredJavaExecutions() {
+      return (tieredJavaExecutions);
+   }
+
+   /**
+    * Wait for a tiered kernel's OpenCL program to be prepared (if it is being prepared) and switch the kernel to OpenCL if it
+    * was prepared successfully.
+    */
+   public void awaitTiered() {
+      final FutureTask<String> preparation;
+      synchronized (this) {
+         preparation = tieredPreparation;
+      }
+
+      // Wait without holding our lock, initJNI() needs it
+      if (preparation != null) {
+         boolean interrupted = false;
+         while (!preparation.isDone()) {
+            try {
+               preparation.get();
+            } catch (final InterruptedException e) {
+               interrupted = true;
+            } catch (final ExecutionException e) {
+               break;
+            }
+         }
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      synchronized (this) {
+         finishTiered();
+      }
+   }
+
+   /**
+    * Create the OpenCL context for <code>entryPoint</code> on <code>_device</code> (or the best device for the execution
+    * mode), build the OpenCL program and describe the kernel arguments to the JNI layer.
+    *
+    * @param _entrypointName
+    * @param _device
+    *          the range's device, may be null
+    * @param _executionMode
+    *          GPU or CPU
+    * @return null if the kernel can now be executed in OpenCL, otherwise the reason it can't
+    */
+   private String initOpenCL(String _entrypointName, Device _device, EXECUTION_MODE _executionMode) {
+      if (_device != null && !(_device instanceof OpenCLDevice)) {
+         throw new IllegalStateException("range's device is not suitable for OpenCL ");
+      }
+
+      OpenCLDevice openCLDevice = (OpenCLDevice) _device; // still might be null! 
+      openCLMode = _executionMode;
+
+      int jniFlags = 0;
+      if (openCLDevice == null) {
+         if (_executionMode.equals(EXECUTION_MODE.GPU)) {
+            // We used to treat as before by getting first GPU device
+            // now we get the best GPU
+            openCLDevice = (OpenCLDevice) OpenCLDevice.best();
+            jniFlags |= JNI_FLAG_USE_GPU; // this flag might be redundant now. 
+         } else {
+            // We fetch the first CPU device 
+            openCLDevice = (OpenCLDevice) OpenCLDevice.firstCPU();
+            if (openCLDevice == null) {
+               return ("CPU request can't be honored not CPU device");
+            }
+         }
+      } else {
+         if (openCLDevice.getType() == Device.TYPE.GPU) {
+            jniFlags |= JNI_FLAG_USE_GPU; // this flag might be redundant now. 
+         }
+      }
+
+      //  jniFlags |= (Config.enableProfiling ? JNI_FLAG_ENABLE_PROFILING : 0);
+      //  jniFlags |= (Config.enableProfilingCSV ? JNI_FLAG_ENABLE_PROFILING_CSV | JNI_FLAG_ENABLE_PROFILING : 0);
+      //  jniFlags |= (Config.enableVerboseJNI ? JNI_FLAG_ENABLE_VERBOSE_JNI : 0);
+      // jniFlags |= (Config.enableVerboseJNIOpenCLResourceTracking ? JNI_FLAG_ENABLE_VERBOSE_JNI_OPENCL_RESOURCE_TRACKING :0);
+      // jniFlags |= (kernel.getExecutionMode().equals(EXECUTION_MODE.GPU) ? JNI_FLAG_USE_GPU : 0);
+      // Init the device to check capabilities before emitting the
+      // code that requires the capabilities.
+      jniContextHandle = createContext(openCLDevice, jniFlags); // openCLDevice will not be null here
+      this.openCLDevice = openCLDevice;
+
+      if (jniContextHandle == 0) {
+         return ("initJNI failed to return a valid handle");
+      }
+
+      final String extensions = getExtensionsJNI(jniContextHandle);
+      capabilitiesSet = new HashSet<String>();
+
+      final StringTokenizer strTok = new StringTokenizer(extensions);
+      while (strTok.hasMoreTokens()) {
+         capabilitiesSet.add(strTok.nextToken());
+      }
+
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("Capabilities initialized to :" + capabilitiesSet.toString());
+      }
+
+      if (entryPoint.requiresDoublePragma() && !hasFP64Support()) {
+         return ("FP64 required but not supported");
+      }
 
-   synchronized private Kernel warnFallBackAndExecute(String _entrypointName, final Range _range, final int _passes,
-         Exception _exception) {
-      if (logger.isLoggable(Level.WARNING)) {
-         logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + _exception.getMessage());
-         _exception.printStackTrace();
+      if (entryPoint.requiresByteAddressableStorePragma() && !hasByteAddressableStoreSupport()) {
+         return ("Byte addressable stores required but not supported");
       }
-      return fallBackAndExecute(_entrypointName, _range, _passes);
-   }
 
-   synchronized private Kernel warnFallBackAndExecute(String _entrypointName, final Range _range, final int _passes, String _excuse) {
-      logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + _excuse);
-      return fallBackAndExecute(_entrypointName, _range, _passes);
-   }
+      final boolean all32AtomicsAvailable = hasGlobalInt32BaseAtomicsSupport()
+            && hasGlobalInt32ExtendedAtomicsSupport() && hasLocalInt32BaseAtomicsSupport()
+            && hasLocalInt32ExtendedAtomicsSupport();
 
-   public synchronized Kernel execute(String _entrypointName, final Range _range, final int _passes) {
+      if (entryPoint.requiresAtomic32Pragma() && !all32AtomicsAvailable) {
 
-      long executeStartTime = System.currentTimeMillis();
+         return ("32 bit Atomics required but not supported");
+      }
 
-      if (_range == null) {
-         throw new IllegalStateException("range can't be null");
+      // See if an earlier run left us the source and binary for this kernel on this device
+      final ProgramCache programCache = ProgramCache.getProgramCache();
+      final String deviceIdentity = getDeviceIdentityJNI(jniContextHandle);
+      String programKey = null;
+      byte[] programBinary = null;
+      String openCL = entryPoint.getOpenCL();
+      if (programCache != null) {
+         programKey = programCache.getKey(kernel.getClass(), _entrypointName, entryPoint.getObjectArrayFieldsClasses()
+               .values(), deviceIdentity);
+         if (programKey != null) {
+            if (openCL == null) {
+               openCL = programCache.getSource(kernel.getClass(), programKey);
+               entryPoint.setOpenCL(openCL);
+            }
+            if (openCL != null) {
+               programBinary = programCache.getBinary(kernel.getClass(), programKey);
+            }
+         }
       }
 
-      /* for backward compatibility reasons we still honor execution mode */
-      if (kernel.getExecutionMode().isOpenCL()) {
-         // System.out.println("OpenCL");
+      if (openCL == null) {
+         try {
+            openCL = KernelWriter.writeToString(entryPoint);
+         } catch (final CodeGenException codeGenException) {
+            ModelCache.setConversionFailure(kernel.getClass(), _entrypointName, codeGenException);
+            if (logger.isLoggable(Level.WARNING)) {
+               codeGenException.printStackTrace();
+            }
+            return (codeGenException.getMessage());
+         }
+         entryPoint.setOpenCL(openCL);
+      }
 
-         // See if user supplied a Device
-         Device device = _range.getDevice();
+      if (Config.enableShowGeneratedOpenCL) {
+         System.out.println(openCL);
+      }
 
-         if ((device == null) || (device instanceof OpenCLDevice)) {
-            if (entryPoint == null) {
-               try {
-                  final ClassModel classModel = new ClassModel(kernel.getClass());
-                  entryPoint = classModel.getEntrypoint(_entrypointName, kernel);
-               } catch (final Exception exception) {
-                  return warnFallBackAndExecute(_entrypointName, _range, _passes, exception);
-               }
+      if (logger.isLoggable(Level.INFO)) {
+         logger.info(openCL);
+      }
 
-               if ((entryPoint != null) && !entryPoint.shouldFallback()) {
-                  synchronized (Kernel.class) { // This seems to be needed because of a race condition uncovered with issue #68 http://code.google.com/p/aparapi/issues/detail?id=68
-                     if (device != null && !(device instanceof OpenCLDevice)) {
-                        throw new IllegalStateException("range's device is not suitable for OpenCL ");
-                     }
+      // Another instance of this kernel class (sharing the cached entrypoint) may already have built it for this device
+      final boolean sharedBinary = (programBinary == null) && (deviceIdentity != null);
+      if (sharedBinary) {
+         programBinary = entryPoint.getProgramBinary(deviceIdentity);
+      }
 
-                     OpenCLDevice openCLDevice = (OpenCLDevice) device; // still might be null! 
-
-                     int jniFlags = 0;
-                     if (openCLDevice == null) {
-                        if (kernel.getExecutionMode().equals(EXECUTION_MODE.GPU)) {
-                           // We used to treat as before by getting first GPU device
-                           // now we get the best GPU
-                           openCLDevice = (OpenCLDevice) OpenCLDevice.best();
-                           jniFlags |= JNI_FLAG_USE_GPU; // this flag might be redundant now. 
-                        } else {
-                           // We fetch the first CPU device 
-                           openCLDevice = (OpenCLDevice) OpenCLDevice.firstCPU();
-                           if (openCLDevice == null) {
-                              return warnFallBackAndExecute(_entrypointName, _range, _passes,
-                                    "CPU request can't be honored not CPU device");
-                           }
-                        }
-                     } else {
-                        if (openCLDevice.getType() == Device.TYPE.GPU) {
-                           jniFlags |= JNI_FLAG_USE_GPU; // this flag might be redundant now. 
-                        }
-                     }
+      boolean built = false;
+      if (programBinary != null) {
+         built = (buildProgramFromBinaryJNI(jniContextHandle, programBinary) != 0);
+         if (!built) {
+            // Probably a driver update the device identity did not reveal, rebuild from source below
+            logger.warning("Cached program binary for " + kernel.getClass() + " was rejected, rebuilding");
+            if (sharedBinary) {
+               entryPoint.setProgramBinary(deviceIdentity, null);
+            } else {
+               programCache.remove(kernel.getClass(), programKey);
+            }
+         } else {
+            if (!sharedBinary && (deviceIdentity != null)) {
+               entryPoint.setProgramBinary(deviceIdentity, programBinary);
+            }
+            if (logger.isLoggable(Level.FINE)) {
+               logger.fine("Loaded " + (sharedBinary ? "shared" : "cached") + " program binary for " + kernel.getClass());
+            }
+         }
+      }
 
-                     //  jniFlags |= (Config.enableProfiling ? JNI_FLAG_ENABLE_PROFILING : 0);
-                     //  jniFlags |= (Config.enableProfilingCSV ? JNI_FLAG_ENABLE_PROFILING_CSV | JNI_FLAG_ENABLE_PROFILING : 0);
-                     //  jniFlags |= (Config.enableVerboseJNI ? JNI_FLAG_ENABLE_VERBOSE_JNI : 0);
-                     // jniFlags |= (Config.enableVerboseJNIOpenCLResourceTracking ? JNI_FLAG_ENABLE_VERBOSE_JNI_OPENCL_RESOURCE_TRACKING :0);
-                     // jniFlags |= (kernel.getExecutionMode().equals(EXECUTION_MODE.GPU) ? JNI_FLAG_USE_GPU : 0);
-                     // Init the device to check capabilities before emitting the
-                     // code that requires the capabilities.
+      if (!built) {
+         // Send the string to OpenCL to compile it
+         if (buildProgramJNI(jniContextHandle, openCL) == 0) {
+            return ("OpenCL compile failed");
+         }
+         if ((programKey != null) || (deviceIdentity != null)) {
+            final byte[] binary = getProgramBinaryJNI(jniContextHandle);
+            if (programKey != null) {
+               programCache.put(kernel.getClass(), programKey, openCL, binary);
+            }
+            if ((deviceIdentity != null) && (binary != null)) {
+               entryPoint.setProgramBinary(deviceIdentity, binary);
+            }
+         }
+      }
 
-                     // synchronized(Kernel.class){
-                     jniContextHandle = initJNI(kernel, openCLDevice, jniFlags); // openCLDevice will not be null here
-                  } // end of synchronized! issue 68
+      args = new KernelArg[entryPoint.getReferencedFields().size()];
+      int i = 0;
 
-                  if (jniContextHandle == 0) {
-                     return warnFallBackAndExecute(_entrypointName, _range, _passes, "initJNI failed to return a valid handle");
-                  }
+      for (final Field field : entryPoint.getReferencedFields()) {
+         try {
+            field.setAccessible(true);
+            args[i] = new KernelArg();
+            args[i].setName(field.getName());
+            args[i].setField(field);
+            if ((field.getModifiers() & Modifier.STATIC) == Modifier.STATIC) {
+               args[i].setType(args[i].getType() | ARG_STATIC);
+            }
 
-                  final String extensions = getExtensionsJNI(jniContextHandle);
-                  capabilitiesSet = new HashSet<String>();
+            final Class<?> type = field.getType();
+            if (type.isArray()) {
 
-                  final StringTokenizer strTok = new StringTokenizer(extensions);
-                  while (strTok.hasMoreTokens()) {
-                     capabilitiesSet.add(strTok.nextToken());
-                  }
+               if (field.getAnnotation(Local.class) != null || args[i].getName().endsWith(Kernel.LOCAL_SUFFIX)) {
+                  args[i].setType(args[i].getType() | ARG_LOCAL);
+               } else if ((field.getAnnotation(Constant.class) != null)
+                     || args[i].getName().endsWith(Kernel.CONSTANT_SUFFIX)) {
+                  args[i].setType(args[i].getType() | ARG_CONSTANT);
+               } else {
+                  args[i].setType(args[i].getType() | ARG_GLOBAL);
+               }
+               if (isExplicit()) {
+                  args[i].setType(args[i].getType() | ARG_EXPLICIT);
+               }
+               // for now, treat all write arrays as read-write, see bugzilla issue 4859
+               // we might come up with a better solution later
+               args[i].setType(args[i].getType()
+                     | (entryPoint.getArrayFieldAssignments().contains(field.getName()) ? (ARG_WRITE | ARG_READ) : 0));
+               args[i].setType(args[i].getType()
+                     | (entryPoint.getArrayFieldAccesses().contains(field.getName()) ? ARG_READ : 0));
+               // args[i].type |= ARG_GLOBAL;
+
+
+               if (type.getName().startsWith("[L")) {
+                  args[i].setType(args[i].getType()
+                        | (ARG_OBJ_ARRAY_STRUCT |
+                           ARG_WRITE |
+                           ARG_READ |
+                           ARG_APARAPI_BUFFER));
 
                   if (logger.isLoggable(Level.FINE)) {
-                     logger.fine("Capabilities initialized to :" + capabilitiesSet.toString());
+                     logger.fine("tagging " + args[i].getName() + " as (ARG_OBJ_ARRAY_STRUCT | ARG_WRITE | ARG_READ)");
                   }
+               } else if (type.getName().startsWith("[[")) {
 
-                  if (entryPoint.requiresDoublePragma() && !hasFP64Support()) {
-                     return warnFallBackAndExecute(_entrypointName, _range, _passes, "FP64 required but not supported");
+                  try {
+                     setMultiArrayType(args[i], type);
+                  } catch(AparapiException e) {
+                     return ("failed to set kernel arguement " + args[i].getName() + ".  Aparapi only supports 2D and 3D arrays.");
                   }
+               } else {
 
-                  if (entryPoint.requiresByteAddressableStorePragma() && !hasByteAddressableStoreSupport()) {
-                     return warnFallBackAndExecute(_entrypointName, _range, _passes,
-                           "Byte addressable stores required but not supported");
+                  args[i].setArray(null); // will get updated in updateKernelArrayRefs
+                  args[i].setType(args[i].getType() | ARG_ARRAY);
+
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(float[].class) ? ARG_FLOAT : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(int[].class) ? ARG_INT : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(boolean[].class) ? ARG_BOOLEAN : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(byte[].class) ? ARG_BYTE : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(char[].class) ? ARG_CHAR : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(double[].class) ? ARG_DOUBLE : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(long[].class) ? ARG_LONG : 0));
+                  args[i].setType(args[i].getType() | (type.isAssignableFrom(short[].class) ? ARG_SHORT : 0));
+
+                  // arrays whose length is used will have an int arg holding
+                  // the length as a kernel param
+                  if (entryPoint.getArrayFieldArrayLengthUsed().contains(args[i].getName())) {
+                     args[i].setType(args[i].getType() | ARG_ARRAYLENGTH);
                   }
 
-                  final boolean all32AtomicsAvailable = hasGlobalInt32BaseAtomicsSupport()
-                        && hasGlobalInt32ExtendedAtomicsSupport() && hasLocalInt32BaseAtomicsSupport()
-                        && hasLocalInt32ExtendedAtomicsSupport();
+                  if (type.getName().startsWith("[L")) {
+                     args[i].setType(args[i].getType() | (ARG_OBJ_ARRAY_STRUCT | ARG_WRITE | ARG_READ));
+                     if (logger.isLoggable(Level.FINE)) {
+                        logger.fine("tagging " + args[i].getName() + " as (ARG_OBJ_ARRAY_STRUCT | ARG_WRITE | ARG_READ)");
+                     }
+                  }
+               }
+            } else if (NioBufferUtil.isBufferType(type)) {
+               if (field.getAnnotation(Local.class) != null || args[i].getName().endsWith(Kernel.LOCAL_SUFFIX)) {
+                  args[i].setType(args[i].getType() | ARG_LOCAL);
+               } else if ((field.getAnnotation(Constant.class) != null)
+                     || args[i].getName().endsWith(Kernel.CONSTANT_SUFFIX)) {
+                  args[i].setType(args[i].getType() | ARG_CONSTANT);
+               } else {
+                  args[i].setType(args[i].getType() | ARG_GLOBAL);
+               }
+               // a buffer is shared with the host, so it is never explicit
+               args[i].setType(args[i].getType()
+                     | (entryPoint.getArrayFieldAssignments().contains(field.getName()) ? (ARG_WRITE | ARG_READ) : 0));
+               args[i].setType(args[i].getType()
+                     | (entryPoint.getArrayFieldAccesses().contains(field.getName()) ? ARG_READ : 0));
+
+               args[i].setArray(null); // will get updated in updateKernelArrayRefs
+               args[i].setType(args[i].getType() | ARG_ARRAY | ARG_DIRECT_BUFFER);
+
+               args[i].setType(args[i].getType() | (type == FloatBuffer.class ? ARG_FLOAT : 0));
+               args[i].setType(args[i].getType() | (type == IntBuffer.class ? ARG_INT : 0));
+               args[i].setType(args[i].getType() | (type == ByteBuffer.class ? ARG_BYTE : 0));
+               args[i].setType(args[i].getType() | (type == CharBuffer.class ? ARG_CHAR : 0));
+               args[i].setType(args[i].getType() | (type == DoubleBuffer.class ? ARG_DOUBLE : 0));
+               args[i].setType(args[i].getType() | (type == LongBuffer.class ? ARG_LONG : 0));
+               args[i].setType(args[i].getType() | (type == ShortBuffer.class ? ARG_SHORT : 0));
+
+               if (entryPoint.getArrayFieldArrayLengthUsed().contains(args[i].getName())) {
+                  args[i].setType(args[i].getType() | ARG_ARRAYLENGTH);
+               }
+            } else if (type.isAssignableFrom(float.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_FLOAT);
+            } else if (type.isAssignableFrom(int.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_INT);
+            } else if (type.isAssignableFrom(double.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_DOUBLE);
+            } else if (type.isAssignableFrom(long.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_LONG);
+            } else if (type.isAssignableFrom(boolean.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_BOOLEAN);
+            } else if (type.isAssignableFrom(byte.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_BYTE);
+            } else if (type.isAssignableFrom(char.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_CHAR);
+            } else if (type.isAssignableFrom(short.class)) {
+               args[i].setType(args[i].getType() | ARG_PRIMITIVE);
+               args[i].setType(args[i].getType() | ARG_SHORT);
+            }
+            // System.out.printf("in execute, arg %d %s %08x\n", i,args[i].name,args[i].type );
+         } catch (final IllegalArgumentException e) {
+            e.printStackTrace();
+         }
 
-                  if (entryPoint.requiresAtomic32Pragma() && !all32AtomicsAvailable) {
+         args[i].setPrimitiveSize(getPrimitiveSize(args[i].getType()));
 
-                     return warnFallBackAndExecute(_entrypointName, _range, _passes, "32 bit Atomics required but not supported");
-                  }
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("arg " + i + ", " + args[i].getName() + ", type=" + Integer.toHexString(args[i].getType())
+                  + ", primitiveSize=" + args[i].getPrimitiveSize());
+         }
 
-                  String openCL = null;
-                  try {
-                     openCL = KernelWriter.writeToString(entryPoint);
-                  } catch (final CodeGenException codeGenException) {
-                     return warnFallBackAndExecute(_entrypointName, _range, _passes, codeGenException);
-                  }
+         i++;
+      }
 
-                  if (Config.enableShowGeneratedOpenCL) {
-                     System.out.println(openCL);
-                  }
+      // at this point, i = the actual used number of arguments
+      // (private buffers do not get treated as arguments)
 
-                  if (logger.isLoggable(Level.INFO)) {
-                     logger.info(openCL);
-                  }
+      argc = i;
 
-                  // Send the string to OpenCL to compile it
-                  if (buildProgramJNI(jniContextHandle, openCL) == 0) {
-                     return warnFallBackAndExecute(_entrypointName, _range, _passes, "OpenCL compile failed");
-                  }
+      setArgsJNI(jniContextHandle, args, argc);
 
-                  args = new KernelArg[entryPoint.getReferencedFields().size()];
-                  int i = 0;
-
-                  for (final Field field : entryPoint.getReferencedFields()) {
-                     try {
-                        field.setAccessible(true);
-                        args[i] = new KernelArg();
-                        args[i].setName(field.getName());
-                        args[i].setField(field);
-                        if ((field.getModifiers() & Modifier.STATIC) == Modifier.STATIC) {
-                           args[i].setType(args[i].getType() | ARG_STATIC);
-                        }
-
-                        final Class<?> type = field.getType();
-                        if (type.isArray()) {
-
-                           if (field.getAnnotation(Local.class) != null || args[i].getName().endsWith(Kernel.LOCAL_SUFFIX)) {
-                              args[i].setType(args[i].getType() | ARG_LOCAL);
-                           } else if ((field.getAnnotation(Constant.class) != null)
-                                 || args[i].getName().endsWith(Kernel.CONSTANT_SUFFIX)) {
-                              args[i].setType(args[i].getType() | ARG_CONSTANT);
-                           } else {
-                              args[i].setType(args[i].getType() | ARG_GLOBAL);
-                           }
-                           if (isExplicit()) {
-                              args[i].setType(args[i].getType() | ARG_EXPLICIT);
-                           }
-                           // for now, treat all write arrays as read-write, see bugzilla issue 4859
-                           // we might come up with a better solution later
-                           args[i].setType(args[i].getType()
-                                 | (entryPoint.getArrayFieldAssignments().contains(field.getName()) ? (ARG_WRITE | ARG_READ) : 0));
-                           args[i].setType(args[i].getType()
-                                 | (entryPoint.getArrayFieldAccesses().contains(field.getName()) ? ARG_READ : 0));
-                           // args[i].type |= ARG_GLOBAL;
-
-
-                           if (type.getName().startsWith("[L")) {
-                              args[i].setType(args[i].getType()
-                                    | (ARG_OBJ_ARRAY_STRUCT |
-                                       ARG_WRITE |
-                                       ARG_READ |
-                                       ARG_APARAPI_BUFFER));
-
-                              if (logger.isLoggable(Level.FINE)) {
-                                 logger.fine("tagging " + args[i].getName() + " as (ARG_OBJ_ARRAY_STRUCT | ARG_WRITE | ARG_READ)");
-                              }
-                           } else if (type.getName().startsWith("[[")) {
-
-                              try {
-                                 setMultiArrayType(args[i], type);
-                              } catch(AparapiException e) {
-                                 return warnFallBackAndExecute(_entrypointName, _range, _passes, "failed to set kernel arguement " + args[i].getName() + ".  Aparapi only supports 2D and 3D arrays.");
-                              }
-                           } else {
-
-                              args[i].setArray(null); // will get updated in updateKernelArrayRefs
-                              args[i].setType(args[i].getType() | ARG_ARRAY);
-
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(float[].class) ? ARG_FLOAT : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(int[].class) ? ARG_INT : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(boolean[].class) ? ARG_BOOLEAN : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(byte[].class) ? ARG_BYTE : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(char[].class) ? ARG_CHAR : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(double[].class) ? ARG_DOUBLE : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(long[].class) ? ARG_LONG : 0));
-                              args[i].setType(args[i].getType() | (type.isAssignableFrom(short[].class) ? ARG_SHORT : 0));
-
-                              // arrays whose length is used will have an int arg holding
-                              // the length as a kernel param
-                              if (entryPoint.getArrayFieldArrayLengthUsed().contains(args[i].getName())) {
-                                 args[i].setType(args[i].getType() | ARG_ARRAYLENGTH);
-                              }
-
-                              if (type.getName().startsWith("[L")) {
-                                 args[i].setType(args[i].getType() | (ARG_OBJ_ARRAY_STRUCT | ARG_WRITE | ARG_READ));
-                                 if (logger.isLoggable(Level.FINE)) {
-                                    logger.fine("tagging " + args[i].getName() + " as (ARG_OBJ_ARRAY_STRUCT | ARG_WRITE | ARG_READ)");
-                                 }
-                              }
-                           }
-                        } else if (type.isAssignableFrom(float.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_FLOAT);
-                        } else if (type.isAssignableFrom(int.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_INT);
-                        } else if (type.isAssignableFrom(double.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_DOUBLE);
-                        } else if (type.isAssignableFrom(long.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_LONG);
-                        } else if (type.isAssignableFrom(boolean.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_BOOLEAN);
-                        } else if (type.isAssignableFrom(byte.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_BYTE);
-                        } else if (type.isAssignableFrom(char.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_CHAR);
-                        } else if (type.isAssignableFrom(short.class)) {
-                           args[i].setType(args[i].getType() | ARG_PRIMITIVE);
-                           args[i].setType(args[i].getType() | ARG_SHORT);
-                        }
-                        // System.out.printf("in execute, arg %d %s %08x\n", i,args[i].name,args[i].type );
-                     } catch (final IllegalArgumentException e) {
-                        e.printStackTrace();
-                     }
+      return (null);
+   }
 
-                     args[i].setPrimitiveSize(getPrimitiveSize(args[i].getType()));
+   public synchronized Kernel execute(String _entrypointName, final Range _range, final int _passes) {
 
-                     if (logger.isLoggable(Level.FINE)) {
-                        logger.fine("arg " + i + ", " + args[i].getName() + ", type=" + Integer.toHexString(args[i].getType())
-                              + ", primitiveSize=" + args[i].getPrimitiveSize());
-                     }
+      long executeStartTime = System.currentTimeMillis();
 
-                     i++;
-                  }
+      if (_range == null) {
+         throw new IllegalStateException("range can't be null");
+      }
 
-                  // at this point, i = the actual used number of arguments
-                  // (private buffers do not get treated as arguments)
+      if (tieredPreparation != null) {
+         if (kernel.getExecutionMode().isOpenCL()) {
+            // Switched to OpenCL (setExecutionMode()) while the program is still being prepared
+            waitForTiered();
+         }
+         finishTiered();
+      }
+      if ((tieredPreparation == null) && kernel.isTieredExecution() && kernel.getExecutionMode().isOpenCL() && (entryPoint == null)
+            && (partitionRange == null) && ((_range.getDevice() == null) || (_range.getDevice() instanceof OpenCLDevice))) {
+         startTiered(_entrypointName, _range.getDevice());
+      }
+      if (tieredPreparation != null) {
+         tieredJavaExecutions++;
+      }
+
+      /* for backward compatibility reasons we still honor execution mode */
+      if (kernel.getExecutionMode().isOpenCL()) {
+         // System.out.println("OpenCL");
 
-                  argc = i;
+         if ((openCLMode != null) && (openCLMode != kernel.getExecutionMode())) {
+            // Our OpenCL state belongs to another mode (say GPU, and we are now asked for CPU)
+            discardOpenCL();
+         }
+
+         // See if user supplied a Device
+         Device device = _range.getDevice();
+
+         if ((device == null) || (device instanceof OpenCLDevice)) {
+            if (entryPoint == null) {
+               final String conversionFailure = ModelCache.getConversionFailure(kernel.getClass(), _entrypointName);
+               if (conversionFailure != null) {
+                  // We already warned when this class first failed, don't parse it (or warn) again
+                  if (logger.isLoggable(Level.FINE)) {
+                     logger.fine("Not converting " + kernel.getClass() + " to OpenCL, it previously failed: " + conversionFailure);
+                  }
+                  return fallBackAndExecute(_entrypointName, _range, _passes);
+               }
+               try {
+                  entryPoint = ModelCache.getEntrypoint(kernel.getClass(), _entrypointName);
+               } catch (final Exception exception) {
+                  return warnFallBackAndExecute(_entrypointName, _range, _passes, exception);
+               }
 
-                  setArgsJNI(jniContextHandle, args, argc);
+               if ((entryPoint != null) && !entryPoint.shouldFallback()) {
+                  final String excuse = initOpenCL(_entrypointName, device, kernel.getExecutionMode());
+                  if (excuse != null) {
+                     return warnFallBackAndExecute(_entrypointName, _range, _passes, excuse);
+                  }
 
                   conversionTime = System.currentTimeMillis() - executeStartTime;
 
@@ -1181,6 +2529,9 @@ public class KernelRunner extends KernelRunnerJNI{
                } else {
                   warnFallBackAndExecute(_entrypointName, _range, _passes, "failed to locate entrypoint");
                }
+            } else if (args == null) {
+               // An earlier (possibly tiered) initialization failed
+               return warnFallBackAndExecute(_entrypointName, _range, _passes, "OpenCL initialization previously failed");
             } else {
                try {
                   executeOpenCL(_entrypointName, _range, _passes);
@@ -1193,7 +2544,128 @@ public class KernelRunner extends KernelRunnerJNI{
                   "OpenCL was requested but Device supplied was not an OpenCLDevice");
          }
       } else {
-         executeJava(_range, _passes);
+         executeJava(_range, 0, _passes);
+      }
+
+      if (Config.enableExecutionModeReporting) {
+         System.out.println(kernel.getClass().getCanonicalName() + ":" + kernel.getExecutionMode());
+      }
+
+      executionTime = System.currentTimeMillis() - executeStartTime;
+      accumulatedExecutionTime += executionTime;
+
+      return kernel;
+   }
+
+   /**
+    * Execute in whichever of <code>_executionModes</code> the <code>AdaptiveModeSelector</code> chooses for this kernel and
+    * the size of <code>_range</code>, and tell the selector how long the execution took (or that the mode fell back).<br/>
+    *
+    * The chosen mode is only used for this execution. If it fails the execution falls back to the modes which follow it in
+    * <code>_executionModes</code>, afterwards the kernel's own mode (and its fallback path) are restored.
+    *
+    * @param _entrypointName
+    * @param _range
+    * @param _passes
+    * @param _executionModes
+    *          the kernel's execution modes, in order of preference
+    * @return the kernel
+    */
+   public synchronized Kernel executeAdaptive(String _entrypointName, final Range _range, final int _passes,
+         Collection<EXECUTION_MODE> _executionModes) {
+      if (isExplicit() || (partitionRange != null) || (tieredPreparation != null)) {
+         // While a tiered kernel's program is prepared only JTP is available, don't select (and wait for) OpenCL
+         return execute(_entrypointName, _range, _passes);
+      }
+
+      // SEQ can only execute groups of one work item
+      final List<EXECUTION_MODE> executionModes = new ArrayList<EXECUTION_MODE>(_executionModes);
+      if ((_range.getLocalSize(0) * _range.getLocalSize(1) * _range.getLocalSize(2)) > 1) {
+         executionModes.remove(EXECUTION_MODE.SEQ);
+      }
+      if (executionModes.isEmpty()) {
+         return execute(_entrypointName, _range, _passes);
+      }
+
+      final AdaptiveModeSelector selector = AdaptiveModeSelector.getSelector();
+      final String key = AdaptiveModeSelector.getKey(kernel.getClass(), _entrypointName, _range);
+      final EXECUTION_MODE mode = selector.select(key, executionModes);
+
+      final EXECUTION_MODE kernelMode = kernel.getExecutionMode();
+      kernel.resetExecutionMode(mode);
+      try {
+         final long start = System.nanoTime();
+         execute(_entrypointName, _range, _passes);
+         final long nanos = System.nanoTime() - start;
+
+         if (kernel.getExecutionMode() == mode) {
+            selector.record(key, mode, nanos, _passes);
+         } else if (tieredPreparation == null) {
+            // A tiered kernel executes in JTP while its OpenCL program is prepared, only a fall back is a failure
+            selector.fail(key, mode);
+         }
+      } finally {
+         if (tieredPreparation == null) {
+            kernel.resetExecutionMode(kernelMode);
+         }
+         // otherwise the kernel stays in JTP until the preparation finishes and switches it to the prepared mode
+      }
+      return kernel;
+   }
+
+   /**
+    * Execute the kernel once for each range in <code>_ranges</code>, in order. The result is the same as calling
+    * <code>execute(_entrypointName, range, 1)</code> for each range in turn, except that the execution for
+    * <code>_ranges.get(i)</code> sees <code>getPassId() == i</code>, so the kernel can select per execution arguments (an
+    * offset, a partition of an array) with <code>getPassId()</code>.<br/>
+    *
+    * Much of the cost of executing a small range is per call rather than per work item, so in OpenCL the arguments are written
+    * once, the executions are enqueued back to back and the results are read back once. In JTP the executions are handed to the
+    * workers as one job, the workers move from one range to the next without returning to the dispatch thread.
+    *
+    * If this kernel has not yet been converted to OpenCL the first range is executed on its own (converting the kernel), the
+    * remaining ranges are then executed as a batch.
+    *
+    * @param _entrypointName
+    * @param _ranges
+    * @return the kernel
+    */
+   public synchronized Kernel executeBatch(String _entrypointName, List<Range> _ranges) {
+      final long executeStartTime = System.currentTimeMillis();
+
+      for (final Range range : _ranges) {
+         if (range == null) {
+            throw new IllegalStateException("range can't be null");
+         }
+      }
+      if (_ranges.isEmpty()) {
+         return kernel;
+      }
+
+      if ((tieredPreparation != null) && kernel.getExecutionMode().isOpenCL()) {
+         waitForTiered();
+         finishTiered();
+      }
+
+      int firstPassId = 0;
+      if (kernel.getExecutionMode().isOpenCL() && (args == null)) {
+         execute(_entrypointName, _ranges.get(0), 1);
+         firstPassId = 1;
+      }
+
+      final List<Range> ranges = _ranges.subList(firstPassId, _ranges.size());
+      if (!ranges.isEmpty()) {
+         if (kernel.getExecutionMode().isOpenCL() && (args != null)) {
+            try {
+               executeOpenCLBatch(ranges, firstPassId);
+            } catch (final AparapiException e) {
+               logger.warning("Reverting to Java Thread Pool (JTP) for " + kernel.getClass() + ": " + e.getMessage());
+               kernel.setFallbackExecutionMode();
+               executeJavaBatch(ranges, firstPassId);
+            }
+         } else {
+            executeJavaBatch(ranges, firstPassId);
+         }
       }
 
       if (Config.enableExecutionModeReporting) {
@@ -1206,6 +2678,77 @@ public class KernelRunner extends KernelRunnerJNI{
       return kernel;
    }
 
+   /**
+    * While <code>executePartition()</code> is executing, the whole range and the share of its groups being executed.
+    */
+   private Range partitionRange = null;
+
+   private int partitionFirstGroupId = 0;
+
+   private int partitionLastGroupId = 0;
+
+   /**
+    * Execute one pass of the kernel over the groups <code>_firstGroupId..(_lastGroupId-1)</code> of the 1D range
+    * <code>_range</code>, each work item sees the ids it would see if the whole range were executed.<br/>
+    *
+    * In OpenCL the share is executed as a range of its own with a global offset, in JTP only the share's groups are
+    * executed. The kernel should not use <code>getGlobalSize()</code>, <code>getNumGroups()</code> or
+    * <code>getGroupId()</code>, in OpenCL these describe the share.
+    *
+    * @param _entrypointName
+    * @param _range
+    *          the whole range
+    * @param _device
+    *          the OpenCL device to execute the share on, or null
+    * @param _firstGroupId
+    * @param _lastGroupId
+    * @return the kernel
+    * @see com.amd.aparapi.internal.model.Entrypoint#isPartitionable()
+    */
+   public synchronized Kernel executePartition(String _entrypointName, Range _range, Device _device, int _firstGroupId,
+         int _lastGroupId) {
+      if (_range.getDims() != 1) {
+         throw new IllegalStateException("only 1D ranges can be partitioned");
+      }
+      final int localSize = _range.getLocalSize(0);
+      final Range share = Range.create(_device, (_lastGroupId - _firstGroupId) * localSize, localSize);
+
+      partitionRange = _range;
+      partitionFirstGroupId = _firstGroupId;
+      partitionLastGroupId = _lastGroupId;
+      try {
+         return execute(_entrypointName, share, 1);
+      } finally {
+         partitionRange = null;
+      }
+   }
+
+   private void executeOpenCLBatch(List<Range> _ranges, int _firstPassId) throws AparapiException {
+      for (final Range range : _ranges) {
+         if ((range.getDevice() != null) && !(range.getDevice() instanceof OpenCLDevice)) {
+            throw new AparapiException("range's device is not suitable for OpenCL");
+         }
+      }
+
+      final boolean needSync = updateKernelArrayRefs();
+      if (needSync && logger.isLoggable(Level.FINE)) {
+         logger.fine("Need to resync arrays on " + kernel.getClass().getName());
+      }
+
+      if (runKernelBatchJNI(jniContextHandle, _ranges.toArray(new Range[_ranges.size()]), needSync, _firstPassId) != 0) {
+         throw new AparapiException("CL batch exec seems to have failed");
+      }
+      addDeviceWrittenArrays();
+
+      if (usesOopConversion == true) {
+         restoreObjects();
+      }
+
+      if (logger.isLoggable(Level.FINE)) {
+         logger.fine("executeOpenCLBatch completed. " + _ranges.size() + " ranges");
+      }
+   }
+
 
    private int getPrimitiveSize(int type) {
       if ((type & ARG_FLOAT) != 0) {
@@ -1289,6 +2832,49 @@ public class KernelRunner extends KernelRunnerJNI{
 
    private final Set<Object> puts = new HashSet<Object>();
 
+   /**
+    * Explicit arrays which an OpenCL execution has written and which have not been fetched (or put) since, so the copy on
+    * the device is newer than the host's.
+    */
+   private final Set<Object> deviceWrittenArrays = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+   /**
+    * After an explicit OpenCL execution, note which arrays it wrote on the device.
+    */
+   private void addDeviceWrittenArrays() {
+      if (explicit) {
+         for (int i = 0; i < argc; i++) {
+            if (((args[i].getType() & ARG_WRITE) != 0) && ((args[i].getType() & ARG_EXPLICIT) != 0)
+                  && (args[i].getArray() != null)) {
+               deviceWrittenArrays.add(args[i].getArray());
+            }
+         }
+      }
+   }
+
+   /**
+    * Before anything executes outside OpenCL (a fall back, or a change to a Java mode) fetch the arrays whose current copy is on
+    * the device, as an explicit kernel's host arrays are otherwise stale. Failures are logged, the OpenCL context may be the
+    * reason we are falling back.
+    */
+   private void getDeviceWrittenArrays() {
+      if (!deviceWrittenArrays.isEmpty() && (jniContextHandle != 0)) {
+         for (final Object array : deviceWrittenArrays) {
+            try {
+               getJNI(jniContextHandle, array);
+            } catch (final RuntimeException e) {
+               logger.warning("Could not get " + array + " from the device for " + kernel.getClass() + ": " + e);
+            }
+         }
+      }
+      deviceWrittenArrays.clear();
+   }
+
+   /**
+    * The parts of arrays which have been put since the last execution, for arrays which have not been put whole.
+    */
+   private final Map<Object, DirtyRanges> putRanges = new HashMap<Object, DirtyRanges>();
+
    /**
     * Enqueue a request to return this array from the GPU. This method blocks until the array is available.
     * <br/>
@@ -1311,6 +2897,37 @@ public class KernelRunner extends KernelRunnerJNI{
             && ((kernel.getExecutionMode() == Kernel.EXECUTION_MODE.GPU) || (kernel.getExecutionMode() == Kernel.EXECUTION_MODE.CPU))) {
          // Only makes sense when we are using OpenCL
          getJNI(jniContextHandle, array);
+         deviceWrittenArrays.remove(array);
+      } else if (deviceWrittenArrays.remove(array) && (jniContextHandle != 0)) {
+         // The kernel has left OpenCL since it wrote this array on the device
+         getJNI(jniContextHandle, array);
+      }
+   }
+
+   /**
+    * Enqueue a request to return elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array from the
+    * GPU. This method blocks until they are available.
+    * <br/>
+    * Note that <code>Kernel.get(type [], int, int)</code> calls will delegate to this call.
+    * 
+    * @param array
+    *          It is assumed that this parameter is indeed a one dimensional array (of int, float, short etc).
+    * @param from
+    * @param to
+    * 
+    * @see Kernel#get(float[] arr, int from, int to)
+    */
+   public void get(Object array, int from, int to) {
+      checkRange(array, from, to);
+      if (explicit
+            && ((kernel.getExecutionMode() == Kernel.EXECUTION_MODE.GPU) || (kernel.getExecutionMode() == Kernel.EXECUTION_MODE.CPU))) {
+         // Only makes sense when we are using OpenCL
+         final int elementSize = getElementSize(array);
+         getRangeJNI(jniContextHandle, array, from * elementSize, (to - from) * elementSize);
+      } else if (deviceWrittenArrays.remove(array) && (jniContextHandle != 0)) {
+         // The kernel has left OpenCL since it wrote this array on the device. Get all of it, as once the array is no
+         // longer marked as written on the device nothing would fetch the rest
+         getJNI(jniContextHandle, array);
       }
    }
 
@@ -1323,6 +2940,19 @@ public class KernelRunner extends KernelRunnerJNI{
       }
    }
 
+   /**
+    * @return the device time (in ns) which the times of <code>getProfileInfo()</code> are relative to, each OpenCL context has
+    *         its own
+    */
+   public long getProfileBaseTime() {
+      if ((jniContextHandle != 0)
+            && ((kernel.getExecutionMode() == Kernel.EXECUTION_MODE.GPU) || (kernel.getExecutionMode() == Kernel.EXECUTION_MODE.CPU))) {
+         return (getProfileBaseTimeJNI(jniContextHandle));
+      } else {
+         return (0);
+      }
+   }
+
    /**
     * Tag this array so that it is explicitly enqueued before the kernel is executed. <br/>
     * Note that <code>Kernel.put(type [])</code> calls will delegate to this call. <br/>
@@ -1343,7 +2973,58 @@ public class KernelRunner extends KernelRunnerJNI{
             && ((kernel.getExecutionMode() == Kernel.EXECUTION_MODE.GPU) || (kernel.getExecutionMode() == Kernel.EXECUTION_MODE.CPU))) {
          // Only makes sense when we are using OpenCL
          puts.add(array);
+         putRanges.remove(array);
+         deviceWrittenArrays.remove(array);
+      }
+   }
+
+   /**
+    * Tag elements <code>from</code> (inclusive) to <code>to</code> (exclusive) of this array so that they are explicitly
+    * enqueued before the kernel is executed. The ranges tagged between executions are merged and only they are transferred,
+    * unless the whole array is tagged too or the kernel has not used this array before. <br/>
+    * Note that <code>Kernel.put(type [], int, int)</code> calls will delegate to this call.
+    * 
+    * @param array
+    *          It is assumed that this parameter is indeed a one dimensional array (of int, float, short etc).
+    * @param from
+    * @param to
+    * 
+    * @see Kernel#put(float[] arr, int from, int to)
+    */
+   public void put(Object array, int from, int to) {
+      checkRange(array, from, to);
+      if (explicit && (from < to) && !puts.contains(array)
+            && ((kernel.getExecutionMode() == Kernel.EXECUTION_MODE.GPU) || (kernel.getExecutionMode() == Kernel.EXECUTION_MODE.CPU))) {
+         // Only makes sense when we are using OpenCL
+         DirtyRanges ranges = putRanges.get(array);
+         if (ranges == null) {
+            ranges = new DirtyRanges();
+            putRanges.put(array, ranges);
+         }
+         ranges.add(from, to);
+      }
+   }
+
+   private static void checkRange(Object array, int from, int to) {
+      if (from > to) {
+         throw new IllegalArgumentException("from(" + from + ") > to(" + to + ")");
+      }
+      if ((from < 0) || (to > Array.getLength(array))) {
+         throw new ArrayIndexOutOfBoundsException("range " + from + ".." + to + " is outside an array of length "
+               + Array.getLength(array));
+      }
+   }
+
+   private static int getElementSize(Object array) {
+      final Class<?> type = array.getClass().getComponentType();
+      if ((type == long.class) || (type == double.class)) {
+         return (8);
+      } else if ((type == int.class) || (type == float.class)) {
+         return (4);
+      } else if ((type == short.class) || (type == char.class)) {
+         return (2);
       }
+      return (1);
    }
 
    private boolean explicit = false;
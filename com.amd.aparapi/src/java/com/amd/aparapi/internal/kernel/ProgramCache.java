@@ -0,0 +1,243 @@
+package com.amd.aparapi.internal.kernel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.internal.model.ClassModel;
+import com.amd.aparapi.internal.writer.BlockWriter;
+import com.amd.aparapi.internal.writer.KernelWriter;
+
+/**
+ * A directory of generated OpenCL source and compiled program binaries which survives between runs.<br/>
+ *
+ * Each entry is keyed by a hash of
+ * <ul>
+ * <li>the class files of the kernel class and its superclasses (up to and including <code>Kernel</code>)</li>
+ * <li>the class files of any classes used by object array fields</li>
+ * <li>the class files of the code generator</li>
+ * <li>the entrypoint name and the code generation flags in <code>Config</code></li>
+ * <li>the platform, device and driver the program was built for</li>
+ * </ul>
+ * so any change to the kernel, to Aparapi or to the driver gives a new key and the stale entry is never read. An entry is two
+ * files, <code>&lt;kernel class&gt;-&lt;key&gt;.cl</code> holding the source and <code>&lt;kernel class&gt;-&lt;key&gt;.bin</code> holding
+ * the binary returned by <code>clGetProgramInfo(CL_PROGRAM_BINARIES)</code>.
+ *
+ * Files are written to a temporary file in the same directory which is then renamed into place, so readers (including other
+ * processes sharing the directory) only ever see complete files. If the driver rejects a cached binary the entry is deleted
+ * and rebuilt from source.
+ *
+ * @see com.amd.aparapi.Config#programCacheDir
+ */
+public class ProgramCache{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * Bump this if the layout of the cache files changes.
+    */
+   private static final String FORMAT = "aparapi-program-cache-1";
+
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private static final ProgramCache programCache = (Config.programCacheDir != null) ? new ProgramCache(
+         Paths.get(Config.programCacheDir)) : null;
+
+   /**
+    * @return the cache named by <code>Config.programCacheDir</code> or null if no cache directory was requested
+    */
+   public static ProgramCache getProgramCache() {
+      return (programCache);
+   }
+
+   private final Path directory;
+
+   public ProgramCache(Path _directory) {
+      directory = _directory;
+   }
+
+   public Path getDirectory() {
+      return (directory);
+   }
+
+   /**
+    * Compute the key of a kernel's program on a given device.
+    *
+    * @param _kernelClass
+    * @param _entrypointName
+    * @param _memberClasses
+    *          the classes used by the kernel's object array fields
+    * @param _deviceIdentity
+    *          a description of the platform, device and driver
+    * @return the key, or null if one of the class files can't be read (in which case the kernel is not cached)
+    */
+   public String getKey(Class<?> _kernelClass, String _entrypointName, Collection<ClassModel> _memberClasses,
+         String _deviceIdentity) {
+      try {
+         final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         update(digest, FORMAT);
+         update(digest, _entrypointName);
+         update(digest, _deviceIdentity);
+         update(digest, Config.enableAtomic32 + "," + Config.enableAtomic64 + "," + Config.enableByteWrites + ","
+               + Config.enableDoubles);
+
+         for (Class<?> clazz = _kernelClass; clazz != null; clazz = clazz.getSuperclass()) {
+            updateWithClassBytes(digest, clazz);
+            if (clazz == Kernel.class) {
+               break;
+            }
+         }
+         for (final ClassModel memberClass : _memberClasses) {
+            updateWithClassBytes(digest, memberClass.getClassWeAreModelling());
+         }
+         updateWithClassBytes(digest, KernelWriter.class);
+         updateWithClassBytes(digest, BlockWriter.class);
+
+         final StringBuilder key = new StringBuilder();
+         for (final byte b : digest.digest()) {
+            key.append(String.format("%02x", b & 0xff));
+         }
+         return (key.toString());
+      } catch (final NoSuchAlgorithmException e) {
+         logger.warning("Program cache disabled, " + e);
+      } catch (final IOException e) {
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Not caching " + _kernelClass.getName() + ", " + e);
+         }
+      }
+      return (null);
+   }
+
+   private static void update(MessageDigest _digest, String _string) {
+      final byte[] bytes = _string.getBytes(UTF8);
+      _digest.update((byte) (bytes.length >>> 24));
+      _digest.update((byte) (bytes.length >>> 16));
+      _digest.update((byte) (bytes.length >>> 8));
+      _digest.update((byte) bytes.length);
+      _digest.update(bytes);
+   }
+
+   private static void updateWithClassBytes(MessageDigest _digest, Class<?> _class) throws IOException {
+      final String resourceName = _class.getName().replace('.', '/') + ".class";
+      final ClassLoader classLoader = _class.getClassLoader();
+      final InputStream stream = (classLoader != null) ? classLoader.getResourceAsStream(resourceName) : ClassLoader
+            .getSystemResourceAsStream(resourceName);
+      if (stream == null) {
+         throw new IOException("class file for " + _class.getName() + " is not available");
+      }
+      update(_digest, _class.getName());
+      try {
+         final byte[] buffer = new byte[4096];
+         for (int count = stream.read(buffer); count >= 0; count = stream.read(buffer)) {
+            _digest.update(buffer, 0, count);
+         }
+      } finally {
+         stream.close();
+      }
+   }
+
+   private Path getPath(Class<?> _kernelClass, String _key, String _suffix) {
+      return (directory.resolve(_kernelClass.getName() + "-" + _key + _suffix));
+   }
+
+   private byte[] read(Path _path) {
+      try {
+         return (Files.readAllBytes(_path));
+      } catch (final NoSuchFileException e) {
+         // A miss
+      } catch (final IOException e) {
+         logger.warning("Could not read " + _path + ", " + e);
+      }
+      return (null);
+   }
+
+   /**
+    * @param _kernelClass
+    * @param _key
+    * @return the cached OpenCL source, or null if it is not cached
+    */
+   public String getSource(Class<?> _kernelClass, String _key) {
+      final byte[] bytes = read(getPath(_kernelClass, _key, ".cl"));
+      return ((bytes != null) ? new String(bytes, UTF8) : null);
+   }
+
+   /**
+    * @param _kernelClass
+    * @param _key
+    * @return the cached program binary, or null if it is not cached
+    */
+   public byte[] getBinary(Class<?> _kernelClass, String _key) {
+      return (read(getPath(_kernelClass, _key, ".bin")));
+   }
+
+   /**
+    * Atomically write (or replace) a file in the cache directory.
+    */
+   private void write(Path _path, byte[] _bytes) throws IOException {
+      Files.createDirectories(directory);
+      final Path temp = Files.createTempFile(directory, _path.getFileName().toString(), ".tmp");
+      try {
+         Files.write(temp, _bytes);
+         try {
+            Files.move(temp, _path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+         } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temp, _path, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   }
+
+   /**
+    * Store the source and (if available) binary for a kernel. Failures are logged, the cache is only an optimization.
+    *
+    * The binary is written last, so an entry with a binary always has its source.
+    *
+    * @param _kernelClass
+    * @param _key
+    * @param _source
+    * @param _binary
+    *          may be null if the driver did not return a binary
+    */
+   public void put(Class<?> _kernelClass, String _key, String _source, byte[] _binary) {
+      try {
+         write(getPath(_kernelClass, _key, ".cl"), _source.getBytes(UTF8));
+         if ((_binary != null) && (_binary.length > 0)) {
+            write(getPath(_kernelClass, _key, ".bin"), _binary);
+         }
+         if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Cached program for " + _kernelClass.getName() + " as " + _key);
+         }
+      } catch (final IOException e) {
+         logger.warning("Could not write to program cache " + directory + ", " + e);
+      }
+   }
+
+   /**
+    * Remove an entry, for example because the driver rejected its binary.
+    *
+    * @param _kernelClass
+    * @param _key
+    */
+   public void remove(Class<?> _kernelClass, String _key) {
+      try {
+         Files.deleteIfExists(getPath(_kernelClass, _key, ".bin"));
+         Files.deleteIfExists(getPath(_kernelClass, _key, ".cl"));
+      } catch (final IOException e) {
+         logger.warning("Could not remove " + _key + " from program cache " + directory + ", " + e);
+      }
+   }
+}
@@ -2638,6 +2638,30 @@ public class ClassModel{
       return (fields);
    }
 
+   /**
+    * Determine whether this class (or any super class we are modelling) references a given method.
+    *
+    * This only consults the constant pool so it is cheap and works even for classes whose methods we cannot convert.
+    * Note that the class of the method reference is ignored, so <code>localBarrier()V</code> will match calls made via any
+    * <code>Kernel</code> subclass.
+    *
+    * @param _name The method name we are looking for (say "localBarrier")
+    * @param _descriptor The method descriptor we are looking for (say "()V")
+    * @return true if the constant pool of this class or a super class contains a matching method reference
+    */
+   public boolean referencesMethod(String _name, String _descriptor) {
+      for (final ConstantPool.Entry entry : constantPool) {
+         if (entry instanceof MethodReferenceEntry) {
+            final NameAndTypeEntry nameAndTypeEntry = ((MethodReferenceEntry) entry).getNameAndTypeEntry();
+            if (nameAndTypeEntry.getNameUTF8Entry().getUTF8().equals(_name)
+                  && nameAndTypeEntry.getDescriptorUTF8Entry().getUTF8().equals(_descriptor)) {
+               return (true);
+            }
+         }
+      }
+      return superClazz != null ? superClazz.referencesMethod(_name, _descriptor) : (false);
+   }
+
    /**
     * Look up a ConstantPool MethodEntry and return the corresponding Method.  
     * 
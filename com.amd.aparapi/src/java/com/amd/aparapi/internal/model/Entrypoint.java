@@ -62,6 +62,17 @@ public class Entrypoint{
 
    private Object kernelInstance = null;
 
+   /**
+    * The OpenCL generated for this entrypoint, kept so that kernels sharing a cached entrypoint only generate it once.
+    */
+   private volatile String openCL = null;
+
+   /**
+    * Program binaries built from <code>openCL</code>, keyed by device identity, so that kernels sharing a cached entrypoint
+    * only compile it once for each device.
+    */
+   private final Map<String, byte[]> programBinaries = new java.util.concurrent.ConcurrentHashMap<String, byte[]>();
+
    private final boolean fallback = false;
 
    private final Set<String> referencedFieldNames = new LinkedHashSet<String>();
@@ -133,6 +144,35 @@ public class Entrypoint{
       kernelInstance = _k;
    }
 
+   public String getOpenCL() {
+      return openCL;
+   }
+
+   public void setOpenCL(String _openCL) {
+      openCL = _openCL;
+   }
+
+   /**
+    * @param _deviceIdentity
+    * @return the binary of the program built from <code>getOpenCL()</code> for the device, or null if none has been built
+    */
+   public byte[] getProgramBinary(String _deviceIdentity) {
+      return programBinaries.get(_deviceIdentity);
+   }
+
+   /**
+    * @param _deviceIdentity
+    * @param _binary
+    *          the binary of the program built from <code>getOpenCL()</code> for the device, or null to forget it
+    */
+   public void setProgramBinary(String _deviceIdentity, byte[] _binary) {
+      if (_binary != null) {
+         programBinaries.put(_deviceIdentity, _binary);
+      } else {
+         programBinaries.remove(_deviceIdentity);
+      }
+   }
+
    public Map<String, ClassModel> getObjectArrayFieldsClasses() {
       return objectArrayFieldsClasses;
    }
@@ -161,7 +201,7 @@ public class Entrypoint{
       try {
          field = _clazz.getDeclaredField(_name);
          final Class<?> type = field.getType();
-         if (type.isPrimitive() || type.isArray()) {
+         if (type.isPrimitive() || type.isArray() || NioBufferUtil.isBufferType(type)) {
             return field;
          }
          if (field.getAnnotation(Kernel.NoCL.class) != null) {
@@ -192,7 +232,7 @@ public class Entrypoint{
                if (logger.isLoggable(Level.FINE)) {
                   logger.fine("field type is " + type.getName());
                }
-               if (type.isPrimitive() || type.isArray()) {
+               if (type.isPrimitive() || type.isArray() || NioBufferUtil.isBufferType(type)) {
                   return field;
                }
                throw new ClassParseException(ClassParseException.TYPE.OBJECTFIELDREFERENCE);
@@ -386,6 +426,10 @@ public class Entrypoint{
     */
    ClassModelMethod resolveCalledMethod(MethodCall methodCall, ClassModel classModel) throws AparapiException {
       MethodEntry methodEntry = methodCall.getConstantPoolMethodEntry();
+      if (NioBufferUtil.isBufferMethod(methodEntry)) {
+         // get/put/capacity on a buffer field are written inline as pointer accesses
+         return null;
+      }
       int thisClassIndex = classModel.getThisClassConstantPoolIndex();//arf
       boolean isMapped = (thisClassIndex != methodEntry.getClassIndex()) && Kernel.isMappedMethod(methodEntry);
       if (logger.isLoggable(Level.FINE)) {
@@ -658,7 +702,27 @@ public class Entrypoint{
                   final I_INVOKEVIRTUAL invokeInstruction = (I_INVOKEVIRTUAL) instruction;
                   MethodModel invokedMethod = invokeInstruction.getMethod();
                   FieldEntry getterField = getSimpleGetterField(invokedMethod);
-                  if (getterField != null) {
+                  if (NioBufferUtil.isBufferMethod(invokeInstruction.getConstantPoolMethodEntry())) {
+                     // Buffer fields are treated as arrays of their element type
+                     final MethodEntry methodEntry = invokeInstruction.getConstantPoolMethodEntry();
+                     final Instruction bufferRef = invokeInstruction.getInstanceReference();
+                     if (!(bufferRef instanceof I_GETFIELD)) {
+                        throw new ClassParseException(invokeInstruction, ClassParseException.TYPE.BUFFERMETHOD);
+                     }
+                     final String bufferFieldName = ((I_GETFIELD) bufferRef).getConstantPoolFieldEntry().getNameAndTypeEntry()
+                           .getNameUTF8Entry().getUTF8();
+                     if (NioBufferUtil.isGet(methodEntry)) {
+                        arrayFieldAccesses.add(bufferFieldName);
+                     } else if (NioBufferUtil.isPut(methodEntry)) {
+                        arrayFieldAssignments.add(bufferFieldName);
+                     } else if (NioBufferUtil.isCapacity(methodEntry)) {
+                        arrayFieldArrayLengthUsed.add(bufferFieldName);
+                     } else {
+                        throw new ClassParseException(invokeInstruction, ClassParseException.TYPE.BUFFERMETHOD);
+                     }
+                     referencedFieldNames.add(bufferFieldName);
+                  }
+                  else if (getterField != null) {
                      referencedFieldNames.add(getterField.getNameAndTypeEntry().getNameUTF8Entry().getUTF8());
                   }
                   else {
@@ -843,6 +907,374 @@ public class Entrypoint{
       return (methodModel);
    }
 
+   private Boolean elementWise = null;
+
+   private static boolean isGlobalIdCall(Instruction _instruction) {
+      if (_instruction instanceof MethodCall) {
+         final NameAndTypeEntry nameAndTypeEntry = ((MethodCall) _instruction).getConstantPoolMethodEntry().getNameAndTypeEntry();
+         return (nameAndTypeEntry.getNameUTF8Entry().getUTF8().equals("getGlobalId") && nameAndTypeEntry
+               .getDescriptorUTF8Entry().getUTF8().equals("()I"));
+      }
+      return (false);
+   }
+
+   /**
+    * Determine whether this entrypoint is a pure element-wise map, that is whether work item <code>getGlobalId()</code> only
+    * reads and writes element <code>getGlobalId()</code> of the kernel's array fields.<br/>
+    * 
+    * That requires that
+    * <ul>
+    * <li>the entrypoint calls no methods other than the <code>Kernel</code> math intrinsics and id/size accessors, no barriers
+    * and no atomics</li>
+    * <li>every array accessed is an instance field of the kernel</li>
+    * <li>every array index is <code>getGlobalId()</code> or a local variable which is only ever assigned
+    * <code>getGlobalId()</code></li>
+    * </ul>
+    * 
+    * Two element-wise kernels executed over the same 1D range can be fused, work item <code>i</code> of the second kernel only
+    * depends on work item <code>i</code> of the first.
+    * 
+    * @return true if this entrypoint is element-wise
+    */
+   public synchronized boolean isElementWise() {
+      if (elementWise == null) {
+         elementWise = computeElementWise();
+      }
+      return (elementWise);
+   }
+
+   private boolean computeElementWise() {
+      if (!calledMethods.isEmpty()) {
+         return (false);
+      }
+
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof MethodCall) {
+            // Only the math intrinsics and id/size accessors, barriers and atomics (which take an array) are excluded
+            final MethodEntry methodEntry = ((MethodCall) i).getConstantPoolMethodEntry();
+            final String name = methodEntry.getNameAndTypeEntry().getNameUTF8Entry().getUTF8();
+            if (!(Kernel.isMappedMethod(methodEntry) || Kernel.isOpenCLDelegateMethod(methodEntry)) || name.endsWith("Barrier")
+                  || methodEntry.getNameAndTypeEntry().getDescriptorUTF8Entry().getUTF8().contains("[")) {
+               return (false);
+            }
+         }
+      }
+
+      final Set<Integer> globalIdLocals = getGlobalIdLocals();
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof ArrayAccess) {
+            // Compound assignments (a[i] += x) read via clones of the array and index instructions
+            final ArrayAccess arrayAccess = (ArrayAccess) i;
+            if (!(arrayAccess.getArrayRef().getReal() instanceof I_GETFIELD)
+                  || !isGlobalIdIndex(arrayAccess.getArrayIndex(), globalIdLocals)) {
+               return (false);
+            }
+         }
+      }
+      return (true);
+   }
+
+   /**
+    * @return the indices of the local variables of the entrypoint which are only ever assigned <code>getGlobalId()</code>
+    */
+   private Set<Integer> getGlobalIdLocals() {
+      final Set<Integer> globalIdLocals = new HashSet<Integer>();
+      final Set<Integer> otherLocals = new HashSet<Integer>();
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof AssignToLocalVariable) {
+            final int index = ((AssignToLocalVariable) i).getLocalVariableTableIndex();
+            if (isGlobalIdCall(i.getFirstChild())) {
+               globalIdLocals.add(index);
+            } else {
+               otherLocals.add(index);
+            }
+         } else if (i instanceof I_IINC) {
+            otherLocals.add(((I_IINC) i).getLocalVariableTableIndex());
+         }
+      }
+      globalIdLocals.removeAll(otherLocals);
+      return (globalIdLocals);
+   }
+
+   private static boolean isGlobalIdIndex(Instruction _index, Set<Integer> _globalIdLocals) {
+      final Instruction index = _index.getReal();
+      final boolean isGlobalIdLocal = (index instanceof AccessLocalVariable) && !(index instanceof AssignToLocalVariable)
+            && _globalIdLocals.contains(((AccessLocalVariable) index).getLocalVariableTableIndex());
+      return (isGlobalIdLocal || isGlobalIdCall(index));
+   }
+
+   private Boolean partitionable = null;
+
+   /**
+    * Determine whether the work items of a 1D range over this entrypoint can be split (at group boundaries) between several
+    * devices, each of which executes its share of the groups on its own copy of the arrays. That requires that we can prove
+    * that each work item writes only element <code>getGlobalId()</code> of the arrays it writes, so the writes of the shares
+    * are disjoint and each share's results can be copied back independently.<br/>
+    * 
+    * That requires that
+    * <ul>
+    * <li>the entrypoint calls no methods other than the <code>Kernel</code> intrinsics, so we see every store</li>
+    * <li>every global array written is an instance field of the kernel, indexed by <code>getGlobalId()</code> or a local
+    * variable which is only ever assigned <code>getGlobalId()</code> (<code>@Local</code> arrays are private to a group so may
+    * be indexed freely)</li>
+    * <li>no atomics are used and no fields (of the elements of object arrays) are assigned</li>
+    * <li><code>getGlobalSize()</code>, <code>getNumGroups()</code> and <code>getGroupId()</code> are not used, in OpenCL a share
+    * sees its own size and group ids</li>
+    * </ul>
+    * Reads are not restricted.
+    * 
+    * @return true if the work items of this entrypoint can be split between devices
+    */
+   public synchronized boolean isPartitionable() {
+      if (partitionable == null) {
+         partitionable = computePartitionable();
+      }
+      return (partitionable);
+   }
+
+   private boolean computePartitionable() {
+      if (!calledMethods.isEmpty()) {
+         return (false);
+      }
+
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof MethodCall) {
+            final MethodEntry methodEntry = ((MethodCall) i).getConstantPoolMethodEntry();
+            final String name = methodEntry.getNameAndTypeEntry().getNameUTF8Entry().getUTF8();
+            if (!(Kernel.isMappedMethod(methodEntry) || Kernel.isOpenCLDelegateMethod(methodEntry))
+                  || methodEntry.getNameAndTypeEntry().getDescriptorUTF8Entry().getUTF8().contains("[")
+                  || name.equals("getGlobalSize") || name.equals("getNumGroups") || name.equals("getGroupId")) {
+               return (false);
+            }
+         }
+      }
+
+      final Set<Integer> globalIdLocals = getGlobalIdLocals();
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof AssignToArrayElement) {
+            final AssignToArrayElement assignment = (AssignToArrayElement) i;
+            final Instruction arrayRef = assignment.getArrayRef().getReal();
+            if (!(arrayRef instanceof I_GETFIELD)) {
+               return (false);
+            }
+            final String fieldName = ((I_GETFIELD) arrayRef).getConstantPoolFieldEntry().getNameAndTypeEntry().getNameUTF8Entry()
+                  .getUTF8();
+            if (!isLocalArrayField(fieldName) && !isGlobalIdIndex(assignment.getArrayIndex(), globalIdLocals)) {
+               return (false);
+            }
+         } else if (i instanceof AssignToField) {
+            // A store to a field of an element of an object array, we can't tell which element
+            return (false);
+         }
+      }
+      return (true);
+   }
+
+   /**
+    * How a tileable entrypoint indexes one of its array fields, work item <code>getGlobalId()</code> accesses elements
+    * <code>scale * getGlobalId() + offset</code> for offsets from 0 to <code>maxOffset</code>.
+    */
+   public static class AffineIndex{
+      private final int scale;
+
+      private int maxOffset;
+
+      AffineIndex(int _scale, int _maxOffset) {
+         scale = _scale;
+         maxOffset = _maxOffset;
+      }
+
+      public int getScale() {
+         return (scale);
+      }
+
+      public int getMaxOffset() {
+         return (maxOffset);
+      }
+
+      /**
+       * @return the number of elements accessed by <code>_workItems</code> consecutive work items
+       */
+      public long getLength(int _workItems) {
+         return ((((long) _workItems - 1) * scale) + maxOffset + 1);
+      }
+   }
+
+   private Map<String, AffineIndex> tiledArrays = null;
+
+   private boolean tiledArraysComputed = false;
+
+   /**
+    * Determine whether a 1D range over this entrypoint can be executed as a sequence of smaller ranges (tiles), each of which
+    * is given only the part of each array its work items access, copied to an array of its own so that the tile's first
+    * work item accesses element 0 (or elements <code>0..offset</code>).<br/>
+    * 
+    * A tile's work items see their ids within the tile, so this requires that
+    * <ul>
+    * <li>the entrypoint calls no methods other than the <code>Kernel</code> intrinsics, and not <code>getGlobalSize()</code>,
+    * <code>getNumGroups()</code> or <code>getGroupId()</code></li>
+    * <li><code>getGlobalId()</code> (or a local variable which is only ever assigned <code>getGlobalId()</code>) is only used
+    * as an array index <code>scale * getGlobalId() + offset</code>, where <code>scale &gt; 0</code> and
+    * <code>offset &gt;= 0</code> are int constants</li>
+    * <li>each array indexed that way is a one dimensional primitive instance field of the kernel, whose length is not used,
+    * and is always indexed with the same scale</li>
+    * <li>the other global arrays are only read, each tile is given all of them</li>
+    * <li>no fields (of the elements of object arrays) are assigned</li>
+    * </ul>
+    * 
+    * @return the names of the arrays which are split into tiles mapped to how they are indexed, or null if this entrypoint
+    *         can't be tiled
+    */
+   public synchronized Map<String, AffineIndex> getTiledArrays() {
+      if (!tiledArraysComputed) {
+         tiledArrays = computeTiledArrays();
+         tiledArraysComputed = true;
+      }
+      return (tiledArrays);
+   }
+
+   private Map<String, AffineIndex> computeTiledArrays() {
+      if (!calledMethods.isEmpty()) {
+         return (null);
+      }
+
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof MethodCall) {
+            final MethodEntry methodEntry = ((MethodCall) i).getConstantPoolMethodEntry();
+            final String name = methodEntry.getNameAndTypeEntry().getNameUTF8Entry().getUTF8();
+            if (!(Kernel.isMappedMethod(methodEntry) || Kernel.isOpenCLDelegateMethod(methodEntry))
+                  || methodEntry.getNameAndTypeEntry().getDescriptorUTF8Entry().getUTF8().contains("[")
+                  || name.equals("getGlobalSize") || name.equals("getNumGroups") || name.equals("getGroupId")
+                  || (name.equals("getGlobalId") && !isGlobalIdCall(i))) {
+               return (null);
+            }
+         }
+      }
+
+      final Set<Integer> globalIdLocals = getGlobalIdLocals();
+      final Map<String, AffineIndex> tiled = new LinkedHashMap<String, AffineIndex>();
+      final Set<String> whole = new HashSet<String>();
+      final Set<Instruction> indexIds = new HashSet<Instruction>();
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (i instanceof AssignToField) {
+            return (null);
+         } else if (i instanceof ArrayAccess) {
+            final ArrayAccess access = (ArrayAccess) i;
+            final Instruction arrayRef = access.getArrayRef().getReal();
+            if (!(arrayRef instanceof I_GETFIELD)) {
+               return (null);
+            }
+            final FieldEntry field = ((I_GETFIELD) arrayRef).getConstantPoolFieldEntry();
+            final String fieldName = field.getNameAndTypeEntry().getNameUTF8Entry().getUTF8();
+            if (isLocalArrayField(fieldName)) {
+               continue;
+            }
+            final List<Instruction> ids = new ArrayList<Instruction>();
+            final int[] index = getAffineIndex(access.getArrayIndex(), globalIdLocals, ids);
+            if (index == null) {
+               if ((i instanceof AssignToArrayElement) || tiled.containsKey(fieldName)) {
+                  return (null);
+               }
+               whole.add(fieldName);
+            } else {
+               if (whole.contains(fieldName) || (field.getNameAndTypeEntry().getDescriptorUTF8Entry().getUTF8().length() != 2)
+                     || arrayFieldArrayLengthUsed.contains(fieldName)) {
+                  return (null);
+               }
+               final AffineIndex affineIndex = tiled.get(fieldName);
+               if (affineIndex == null) {
+                  tiled.put(fieldName, new AffineIndex(index[0], index[1]));
+               } else if (affineIndex.scale != index[0]) {
+                  return (null);
+               } else {
+                  affineIndex.maxOffset = Math.max(affineIndex.maxOffset, index[1]);
+               }
+               indexIds.addAll(ids);
+            }
+         }
+      }
+
+      // Any other use of the global id would see the id within the tile
+      for (Instruction i = methodModel.getPCHead(); i != null; i = i.getNextPC()) {
+         if (isGlobalIdCall(i)) {
+            final Instruction parent = i.getParentExpr();
+            final boolean definesLocal = (parent instanceof AssignToLocalVariable)
+                  && globalIdLocals.contains(((AssignToLocalVariable) parent).getLocalVariableTableIndex());
+            if (!definesLocal && !indexIds.contains(i)) {
+               return (null);
+            }
+         } else if ((i instanceof AccessLocalVariable) && !(i instanceof AssignToLocalVariable)
+               && globalIdLocals.contains(((AccessLocalVariable) i).getLocalVariableTableIndex()) && !indexIds.contains(i)) {
+            return (null);
+         }
+      }
+      return (tiled.isEmpty() ? null : tiled);
+   }
+
+   /**
+    * @return the scale and offset of an array index <code>scale * id + offset</code>, where id is the global id, or null if
+    *         <code>_index</code> is not of that form. The instructions supplying the id are added to <code>_ids</code>.
+    */
+   private static int[] getAffineIndex(Instruction _index, Set<Integer> _globalIdLocals, List<Instruction> _ids) {
+      final Instruction index = _index.getReal();
+      if (isGlobalIdIndex(index, _globalIdLocals)) {
+         _ids.add(index);
+         return (new int[] {
+               1,
+               0
+         });
+      } else if (index instanceof I_IMUL) {
+         final I_IMUL multiply = (I_IMUL) index;
+         final Integer lhs = getIntConstant(multiply.getLhs());
+         final Integer rhs = getIntConstant(multiply.getRhs());
+         final Integer scale = (lhs != null) ? lhs : rhs;
+         final Instruction id = ((lhs != null) ? multiply.getRhs() : multiply.getLhs()).getReal();
+         if ((scale != null) && (scale > 0) && isGlobalIdIndex(id, _globalIdLocals)) {
+            _ids.add(id);
+            return (new int[] {
+                  scale,
+                  0
+            });
+         }
+      } else if (index instanceof I_IADD) {
+         final I_IADD add = (I_IADD) index;
+         final Integer lhs = getIntConstant(add.getLhs());
+         final Integer rhs = getIntConstant(add.getRhs());
+         final Integer offset = (lhs != null) ? lhs : rhs;
+         if ((offset != null) && (offset >= 0)) {
+            final int[] scaled = getAffineIndex((lhs != null) ? add.getRhs() : add.getLhs(), _globalIdLocals, _ids);
+            if ((scaled != null) && (scaled[1] == 0)) {
+               scaled[1] = offset;
+               return (scaled);
+            }
+         }
+      }
+      return (null);
+   }
+
+   private static Integer getIntConstant(Instruction _instruction) {
+      final Instruction instruction = _instruction.getReal();
+      if (instruction instanceof Constant) {
+         final Object value = ((Constant<?>) instruction).getValue();
+         if (value instanceof Integer) {
+            return ((Integer) value);
+         }
+      }
+      return (null);
+   }
+
+   private boolean isLocalArrayField(String _fieldName) {
+      if (_fieldName.endsWith(Kernel.LOCAL_SUFFIX)) {
+         return (true);
+      }
+      try {
+         final Field field = getFieldFromClassHierarchy(classModel.getClassWeAreModelling(), _fieldName);
+         return ((field != null) && (field.getAnnotation(Kernel.Local.class) != null));
+      } catch (final AparapiException e) {
+         return (false);
+      }
+   }
+
    public ClassModel getClassModel() {
       return (classModel);
    }
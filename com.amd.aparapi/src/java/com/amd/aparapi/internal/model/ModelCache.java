@@ -0,0 +1,216 @@
+package com.amd.aparapi.internal.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.internal.exception.AparapiException;
+
+/**
+ * A process wide cache of the <code>ClassModel</code> and <code>Entrypoint</code>s of each kernel class.<br/>
+ *
+ * Parsing a kernel class and analyzing its entrypoint (folding expressions, walking the call graph, collecting referenced
+ * fields) only depends on the class, not on the kernel instance. Applications which create a new kernel instance per
+ * request would otherwise pay this cost for every instance, so we do the work once per <code>(Class, entrypoint)</code> and
+ * share the result.
+ *
+ * Cached <code>Entrypoint</code>s are created without a kernel instance and are shared between threads, so callers must
+ * treat them as read only. Per instance state (kernel arguments, the OpenCL context) stays with the <code>KernelRunner</code>.
+ *
+ * We also remember which entrypoints could not be converted (and why), so that later instances of a kernel class which
+ * failed to convert go straight to their fallback execution mode. The reasons can be listed with
+ * <code>getConversionFailures()</code>.
+ *
+ * The cache can be bypassed with <code>-Dcom.amd.aparapi.disableModelCache=true</code>.
+ *
+ * @see com.amd.aparapi.Config#disableModelCache
+ */
+public final class ModelCache{
+
+   private static Logger logger = Logger.getLogger(Config.getLoggerName());
+
+   /**
+    * Everything we know about a single class. Each entry is built at most once, concurrent callers for the same class wait
+    * for the first one to finish rather than repeating the work.
+    */
+   private static final class Entry{
+      private final Class<?> clazz;
+
+      private ClassModel classModel = null;
+
+      private final Map<String, Entrypoint> entrypoints = new HashMap<String, Entrypoint>();
+
+      private Entry(Class<?> _clazz) {
+         clazz = _clazz;
+      }
+
+      private synchronized ClassModel getClassModel() throws AparapiException {
+         if (classModel == null) {
+            final long start = System.nanoTime();
+            classModel = new ClassModel(clazz);
+            if (logger.isLoggable(Level.FINE)) {
+               logger.fine("Parsed " + clazz.getName() + " in " + ((System.nanoTime() - start) / 1000) + "us");
+            }
+         }
+         return (classModel);
+      }
+
+      private synchronized Entrypoint getEntrypoint(String _entrypointName, String _descriptor) throws AparapiException {
+         final String key = _entrypointName + _descriptor;
+         Entrypoint entrypoint = entrypoints.get(key);
+         if (entrypoint == null) {
+            final String failure = conversionFailures.get(failureKey(clazz, _entrypointName, _descriptor));
+            if (failure != null) {
+               throw new AparapiException("conversion previously failed: " + failure);
+            }
+            final long start = System.nanoTime();
+            try {
+               entrypoint = getClassModel().getEntrypoint(_entrypointName, _descriptor, null);
+            } catch (final AparapiException exception) {
+               setConversionFailure(clazz, _entrypointName, _descriptor, exception);
+               throw exception;
+            } catch (final RuntimeException exception) {
+               setConversionFailure(clazz, _entrypointName, _descriptor, exception);
+               throw exception;
+            }
+            entrypoints.put(key, entrypoint);
+            if (logger.isLoggable(Level.FINE)) {
+               logger.fine("Analyzed " + clazz.getName() + "." + key + " in " + ((System.nanoTime() - start) / 1000) + "us");
+            }
+         }
+         return (entrypoint);
+      }
+   }
+
+   /**
+    * <code>ClassValue</code> lets us attach an entry to each class without keeping the class (or its class loader) alive.
+    */
+   private static final ClassValue<Entry> entries = new ClassValue<Entry>(){
+      @Override protected Entry computeValue(Class<?> _clazz) {
+         return (new Entry(_clazz));
+      }
+   };
+
+   /**
+    * The reason each entrypoint failed to convert, keyed by <code>className.entrypointName+descriptor</code>.<br/>
+    *
+    * Keyed by name rather than class so that failures are still listed after the class has gone.
+    */
+   private static final Map<String, String> conversionFailures = new ConcurrentHashMap<String, String>();
+
+   private ModelCache() {
+   }
+
+   private static String failureKey(Class<?> _clazz, String _entrypointName, String _descriptor) {
+      return (_clazz.getName() + "." + _entrypointName + _descriptor);
+   }
+
+   /**
+    * @param _clazz
+    * @return the (possibly shared) <code>ClassModel</code> for <code>_clazz</code>
+    * @throws AparapiException
+    *           if the class file can't be parsed, failures are not cached
+    */
+   public static ClassModel getClassModel(Class<?> _clazz) throws AparapiException {
+      if (Config.disableModelCache) {
+         return (new ClassModel(_clazz));
+      }
+      return (entries.get(_clazz).getClassModel());
+   }
+
+   /**
+    * @param _clazz
+    * @param _entrypointName
+    * @param _descriptor
+    * @return the (possibly shared) <code>Entrypoint</code> for the given method of <code>_clazz</code>
+    * @throws AparapiException
+    *           if the class can't be converted, the failure is remembered and rethrown to later callers without
+    *           analyzing the class again
+    */
+   public static Entrypoint getEntrypoint(Class<?> _clazz, String _entrypointName, String _descriptor) throws AparapiException {
+      if (Config.disableModelCache) {
+         return (new ClassModel(_clazz).getEntrypoint(_entrypointName, _descriptor, null));
+      }
+      return (entries.get(_clazz).getEntrypoint(_entrypointName, _descriptor));
+   }
+
+   /**
+    * @see #getEntrypoint(Class, String, String)
+    */
+   public static Entrypoint getEntrypoint(Class<?> _clazz, String _entrypointName) throws AparapiException {
+      return (getEntrypoint(_clazz, _entrypointName, "()V"));
+   }
+
+   /**
+    * Record that the given entrypoint can't be converted to OpenCL. Failures which depend on the device (missing
+    * extensions, OpenCL build errors) should not be recorded here, another device may succeed.
+    *
+    * @param _clazz
+    * @param _entrypointName
+    * @param _descriptor
+    * @param _exception
+    *          the reason the conversion failed
+    */
+   public static void setConversionFailure(Class<?> _clazz, String _entrypointName, String _descriptor, Exception _exception) {
+      if (!Config.disableModelCache) {
+         conversionFailures.put(failureKey(_clazz, _entrypointName, _descriptor), _exception.toString());
+      }
+   }
+
+   /**
+    * @see #setConversionFailure(Class, String, String, Exception)
+    */
+   public static void setConversionFailure(Class<?> _clazz, String _entrypointName, Exception _exception) {
+      setConversionFailure(_clazz, _entrypointName, "()V", _exception);
+   }
+
+   /**
+    * @param _clazz
+    * @param _entrypointName
+    * @param _descriptor
+    * @return the reason the given entrypoint previously failed to convert, or null if it has not failed
+    */
+   public static String getConversionFailure(Class<?> _clazz, String _entrypointName, String _descriptor) {
+      if (Config.disableModelCache) {
+         return (null);
+      }
+      return (conversionFailures.get(failureKey(_clazz, _entrypointName, _descriptor)));
+   }
+
+   /**
+    * @see #getConversionFailure(Class, String, String)
+    */
+   public static String getConversionFailure(Class<?> _clazz, String _entrypointName) {
+      return (getConversionFailure(_clazz, _entrypointName, "()V"));
+   }
+
+   /**
+    * @return the reason each entrypoint failed to convert, keyed by <code>className.entrypointName+descriptor</code> and sorted
+    *         by key
+    */
+   public static Map<String, String> getConversionFailures() {
+      return (Collections.unmodifiableMap(new TreeMap<String, String>(conversionFailures)));
+   }
+
+   /**
+    * Forget everything cached for <code>_clazz</code> (including conversion failures), the next request will parse and
+    * analyze the class again.
+    *
+    * @param _clazz
+    */
+   public static void invalidate(Class<?> _clazz) {
+      entries.remove(_clazz);
+      final String prefix = _clazz.getName() + ".";
+      for (final String key : conversionFailures.keySet()) {
+         // Descriptors use '/' so a '.' after the prefix means the key belongs to a class in a nested package
+         if (key.startsWith(prefix) && (key.indexOf('.', prefix.length()) < 0)) {
+            conversionFailures.remove(key);
+         }
+      }
+   }
+}
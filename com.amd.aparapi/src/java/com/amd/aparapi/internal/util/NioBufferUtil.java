@@ -0,0 +1,182 @@
+package com.amd.aparapi.internal.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amd.aparapi.internal.model.ClassModel.ConstantPool.MethodReferenceEntry;
+
+/**
+ * This utility class describes the <code>java.nio</code> buffer types which may be used as kernel fields.<br/>
+ *
+ * A direct buffer field is passed to OpenCL as a <code>__global</code> pointer to its element type, using the buffer's own
+ * (off heap) memory, so only the absolute <code>get(index)</code>, <code>put(index, value)</code> and <code>capacity()</code>
+ * methods are available inside a kernel.
+ */
+public class NioBufferUtil{
+
+   /**
+    * Buffer class names (as they appear in the constant pool) mapped to the descriptor of their element type.
+    */
+   private static final Map<String, String> elementDescriptors = new HashMap<String, String>();
+
+   static {
+      elementDescriptors.put("java/nio/ByteBuffer", "B");
+      elementDescriptors.put("java/nio/ShortBuffer", "S");
+      elementDescriptors.put("java/nio/CharBuffer", "C");
+      elementDescriptors.put("java/nio/IntBuffer", "I");
+      elementDescriptors.put("java/nio/LongBuffer", "J");
+      elementDescriptors.put("java/nio/FloatBuffer", "F");
+      elementDescriptors.put("java/nio/DoubleBuffer", "D");
+   }
+
+   /**
+    * @return true if fields of type <code>_type</code> can be used as kernel arguments
+    */
+   public static boolean isBufferType(Class<?> _type) {
+      return ((_type == ByteBuffer.class) || (_type == ShortBuffer.class) || (_type == CharBuffer.class)
+            || (_type == IntBuffer.class) || (_type == LongBuffer.class) || (_type == FloatBuffer.class) || (_type == DoubleBuffer.class));
+   }
+
+   /**
+    * @return the size in bytes of the elements of the buffer type <code>_type</code>
+    */
+   public static int getElementSize(Class<?> _type) {
+      if (_type == ByteBuffer.class) {
+         return (1);
+      } else if ((_type == ShortBuffer.class) || (_type == CharBuffer.class)) {
+         return (2);
+      } else if ((_type == IntBuffer.class) || (_type == FloatBuffer.class)) {
+         return (4);
+      } else if ((_type == LongBuffer.class) || (_type == DoubleBuffer.class)) {
+         return (8);
+      }
+      throw new IllegalArgumentException(_type.getName() + " is not a supported buffer type");
+   }
+
+   /**
+    * View the bytes from the position to the limit of <code>_bytes</code> as a buffer of type <code>_type</code>, in the
+    * byte order of <code>_bytes</code>.
+    */
+   public static Buffer asBuffer(ByteBuffer _bytes, Class<?> _type) {
+      if (_type == ByteBuffer.class) {
+         return (_bytes.slice());
+      } else if (_type == ShortBuffer.class) {
+         return (_bytes.asShortBuffer());
+      } else if (_type == CharBuffer.class) {
+         return (_bytes.asCharBuffer());
+      } else if (_type == IntBuffer.class) {
+         return (_bytes.asIntBuffer());
+      } else if (_type == LongBuffer.class) {
+         return (_bytes.asLongBuffer());
+      } else if (_type == FloatBuffer.class) {
+         return (_bytes.asFloatBuffer());
+      } else if (_type == DoubleBuffer.class) {
+         return (_bytes.asDoubleBuffer());
+      }
+      throw new IllegalArgumentException(_type.getName() + " is not a supported buffer type");
+   }
+
+   /**
+    * @param _descriptor
+    *          a field descriptor such as <code>"Ljava/nio/FloatBuffer;"</code>
+    * @return the descriptor of the buffer's element type (<code>"F"</code>), or null if <code>_descriptor</code> is not a
+    *         supported buffer type
+    */
+   public static String getElementDescriptor(String _descriptor) {
+      if (_descriptor.startsWith("L") && _descriptor.endsWith(";")) {
+         return (elementDescriptors.get(_descriptor.substring(1, _descriptor.length() - 1)));
+      }
+      return (null);
+   }
+
+   /**
+    * @return true if <code>_methodEntry</code> is called on one of the supported buffer types
+    */
+   public static boolean isBufferMethod(MethodReferenceEntry _methodEntry) {
+      return (elementDescriptors.containsKey(getClassName(_methodEntry)));
+   }
+
+   /**
+    * @return true for the absolute <code>get(int)</code> of a buffer
+    */
+   public static boolean isGet(MethodReferenceEntry _methodEntry) {
+      final String element = elementDescriptors.get(getClassName(_methodEntry));
+      return ((element != null) && getName(_methodEntry).equals("get")
+            && getDescriptor(_methodEntry).equals("(I)" + element));
+   }
+
+   /**
+    * @return true for the absolute <code>put(int, value)</code> of a buffer
+    */
+   public static boolean isPut(MethodReferenceEntry _methodEntry) {
+      final String className = getClassName(_methodEntry);
+      final String element = elementDescriptors.get(className);
+      return ((element != null) && getName(_methodEntry).equals("put")
+            && getDescriptor(_methodEntry).equals("(I" + element + ")L" + className + ";"));
+   }
+
+   /**
+    * @return true for <code>capacity()</code> of a buffer
+    */
+   public static boolean isCapacity(MethodReferenceEntry _methodEntry) {
+      return (isBufferMethod(_methodEntry) && getName(_methodEntry).equals("capacity") && getDescriptor(_methodEntry).equals("()I"));
+   }
+
+   /**
+    * Check whether OpenCL can use the memory of <code>_buffer</code> directly.
+    *
+    * @param _buffer
+    * @param _written
+    *          true if the kernel writes to the buffer
+    * @return null if the buffer can be used, otherwise the reason it can't
+    */
+   public static String checkBuffer(Buffer _buffer, boolean _written) {
+      if (!_buffer.isDirect()) {
+         return ("buffer is not direct");
+      }
+      if (_written && _buffer.isReadOnly()) {
+         return ("buffer is read only");
+      }
+      final ByteOrder order;
+      if (_buffer instanceof ByteBuffer) {
+         order = null;
+      } else if (_buffer instanceof ShortBuffer) {
+         order = ((ShortBuffer) _buffer).order();
+      } else if (_buffer instanceof CharBuffer) {
+         order = ((CharBuffer) _buffer).order();
+      } else if (_buffer instanceof IntBuffer) {
+         order = ((IntBuffer) _buffer).order();
+      } else if (_buffer instanceof LongBuffer) {
+         order = ((LongBuffer) _buffer).order();
+      } else if (_buffer instanceof FloatBuffer) {
+         order = ((FloatBuffer) _buffer).order();
+      } else {
+         order = ((DoubleBuffer) _buffer).order();
+      }
+      if ((order != null) && (order != ByteOrder.nativeOrder())) {
+         return ("buffer is not in native byte order");
+      }
+      return (null);
+   }
+
+   private static String getClassName(MethodReferenceEntry _methodEntry) {
+      return (_methodEntry.getClassEntry().getNameUTF8Entry().getUTF8());
+   }
+
+   private static String getName(MethodReferenceEntry _methodEntry) {
+      return (_methodEntry.getNameAndTypeEntry().getNameUTF8Entry().getUTF8());
+   }
+
+   private static String getDescriptor(MethodReferenceEntry _methodEntry) {
+      return (_methodEntry.getNameAndTypeEntry().getDescriptorUTF8Entry().getUTF8());
+   }
+}
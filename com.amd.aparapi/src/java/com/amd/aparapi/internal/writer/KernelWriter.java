@@ -47,6 +47,7 @@ import com.amd.aparapi.internal.model.ClassModel.AttributePool.*;
 import com.amd.aparapi.internal.model.ClassModel.AttributePool.RuntimeAnnotationsEntry.*;
 import com.amd.aparapi.internal.model.ClassModel.*;
 import com.amd.aparapi.internal.model.ClassModel.ConstantPool.*;
+import com.amd.aparapi.internal.util.*;
 import com.amd.aparapi.opencl.OpenCL.Constant;
 import com.amd.aparapi.opencl.OpenCL.*;
 
@@ -174,7 +175,23 @@ public abstract class KernelWriter extends BlockWriter{
 
       final String barrierAndGetterMappings = javaToCLIdentifierMap.get(methodName + methodSignature);
 
-      if (barrierAndGetterMappings != null) {
+      if (NioBufferUtil.isBufferMethod(_methodEntry)) {
+         // buffer fields are pointers, Entrypoint has checked the call is get(), put() or capacity() on a field
+         final String fieldName = ((AccessField) ((VirtualMethodCall) _methodCall).getInstanceReference())
+               .getConstantPoolFieldEntry().getNameAndTypeEntry().getNameUTF8Entry().getUTF8();
+         write("this->" + fieldName);
+         if (NioBufferUtil.isCapacity(_methodEntry)) {
+            write(BlockWriter.arrayLengthMangleSuffix + "0");
+         } else {
+            write("[");
+            writeInstruction(_methodCall.getArg(0));
+            write("]");
+            if (NioBufferUtil.isPut(_methodEntry)) {
+               write(" = ");
+               writeInstruction(_methodCall.getArg(1));
+            }
+         }
+      } else if (barrierAndGetterMappings != null) {
          // this is one of the OpenCL barrier or size getter methods
          // write the mapping and exit
          if (argc > 0) {
@@ -292,6 +309,12 @@ public abstract class KernelWriter extends BlockWriter{
 
          String signature = field.getDescriptor();
 
+         // a buffer field is passed as a pointer to its elements
+         final String bufferElement = NioBufferUtil.getElementDescriptor(signature);
+         if (bufferElement != null) {
+            signature = "[" + bufferElement;
+         }
+
          boolean isPointer = false;
 
          int numDimensions = 0;
@@ -0,0 +1,4 @@
+java\
+ -Djava.library.path=../../com.amd.aparapi.jni/dist\
+ -classpath ../../com.amd.aparapi/dist/aparapi.jar:batch.jar\
+ com.amd.aparapi.sample.batch.Main $*
@@ -0,0 +1,150 @@
+/*
+Copyright (c) 2010-2011, Advanced Micro Devices, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+following conditions are met:
+
+Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+disclaimer. 
+
+Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+disclaimer in the documentation and/or other materials provided with the distribution. 
+
+Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote products
+derived from this software without specific prior written permission. 
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, 
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE 
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+If you use the software (in whole or in part), you shall adhere to all applicable U.S., European, and other export
+laws, including but not limited to the U.S. Export Administration Regulations ("EAR"), (15 C.F.R. Sections 730 through
+774), and E.U. Council Regulation (EC) No 1334/2000 of 22 June 2000.  Further, pursuant to Section 740.6 of the EAR,
+you hereby certify that, except pursuant to a license granted by the United States Department of Commerce Bureau of 
+Industry and Security or as otherwise permitted pursuant to a License Exception under the U.S. Export Administration 
+Regulations ("EAR"), you will not (1) export, re-export or release to a national of a country in Country Groups D:1,
+E:1 or E:2 any restricted technology, software, or source code you receive hereunder, or (2) export to Country Groups
+D:1, E:1 or E:2 the direct product of such technology or software, if such foreign produced direct product is subject
+to national security controls as identified on the Commerce Control List (currently found in Supplement 1 to Part 774
+of EAR).  For the most current Country Group listings, or for additional information about the EAR or your obligations
+under those regulations, please refer to the U.S. Bureau of Industry and Security's website at http://www.bis.doc.gov/. 
+
+*/
+
+package com.amd.aparapi.sample.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+/**
+ * Compares executing a kernel over many small partitions of an array with one <code>execute()</code> call per partition
+ * against a single <code>executeBatch()</code> call for all of the partitions.
+ *
+ * Each <code>execute()</code> pays the cost of refreshing the kernel's arguments, dispatching the work and waiting for it
+ * (and in OpenCL, of transferring the arrays). <code>executeBatch()</code> pays it once for the batch. The kernel picks the
+ * offset of its partition with <code>getPassId()</code>.
+ *
+ * Usage : java com.amd.aparapi.sample.batch.Main [partitions] [partitionSize] [repeats]
+ *
+ */
+public class Main{
+
+   public static class SaxpyKernel extends Kernel{
+      private final float[] x;
+
+      private final float[] y;
+
+      private final int[] offsets;
+
+      private final float a;
+
+      /** The offset used by <code>execute()</code>, for which <code>getPassId()</code> is always 0. */
+      private int offset;
+
+      public SaxpyKernel(float[] _x, float[] _y, int[] _offsets, float _a) {
+         x = _x;
+         y = _y;
+         offsets = _offsets;
+         a = _a;
+      }
+
+      public void setOffset(int _offset) {
+         offset = _offset;
+      }
+
+      @Override public void run() {
+         final int i = offset + offsets[getPassId()] + getGlobalId();
+         y[i] = (a * x[i]) + y[i];
+      }
+   }
+
+   public static void main(String[] _args) {
+      final int partitions = (_args.length > 0) ? Integer.parseInt(_args[0]) : 256;
+      final int partitionSize = (_args.length > 1) ? Integer.parseInt(_args[1]) : 256;
+      final int repeats = (_args.length > 2) ? Integer.parseInt(_args[2]) : 20;
+
+      final int size = partitions * partitionSize;
+      final float[] x = new float[size];
+      final float[] y = new float[size];
+      for (int i = 0; i < size; i++) {
+         x[i] = i;
+      }
+
+      final int[] offsets = new int[partitions];
+      final List<Range> ranges = new ArrayList<Range>();
+      for (int p = 0; p < partitions; p++) {
+         offsets[p] = p * partitionSize;
+         ranges.add(Range.create(partitionSize));
+      }
+      final int[] noOffsets = new int[1];
+
+      final SaxpyKernel looped = new SaxpyKernel(x, y, noOffsets, 1f);
+      final SaxpyKernel batched = new SaxpyKernel(x, y, offsets, 1f);
+
+      long loopedNanos = 0;
+      long batchedNanos = 0;
+      for (int repeat = -1; repeat < repeats; repeat++) {
+         // The first (warm up) repeat converts the kernels and is not timed
+         long start = System.nanoTime();
+         for (int p = 0; p < partitions; p++) {
+            looped.setOffset(offsets[p]);
+            looped.execute(ranges.get(p));
+         }
+         if (repeat >= 0) {
+            loopedNanos += System.nanoTime() - start;
+         }
+
+         start = System.nanoTime();
+         batched.executeBatch(ranges);
+         if (repeat >= 0) {
+            batchedNanos += System.nanoTime() - start;
+         }
+      }
+
+      // Each repeat adds 2 * x[i] to y[i]
+      for (int i = 0; i < size; i++) {
+         if (y[i] != ((repeats + 1) * 2f * x[i])) {
+            System.out.println("y[" + i + "] = " + y[i] + " is wrong");
+            break;
+         }
+      }
+
+      final int launches = repeats * partitions;
+      System.out.println("Execution mode          = " + looped.getExecutionMode() + "/" + batched.getExecutionMode());
+      System.out.println("Partitions              = " + partitions + " of " + partitionSize);
+      System.out.printf("execute() us/range      = %.2f%n", (loopedNanos / 1000.0) / launches);
+      System.out.printf("executeBatch() us/range = %.2f%n", (batchedNanos / 1000.0) / launches);
+      System.out.printf("Speedup                 = %.1fx%n", (double) loopedNanos / batchedNanos);
+
+      looped.dispose();
+      batched.dispose();
+   }
+}
@@ -0,0 +1,11 @@
+echo Model cache enabled
+java ^
+ -Djava.library.path=../../com.amd.aparapi.jni/dist ^
+ -classpath ../../com.amd.aparapi/dist/aparapi.jar;latency.jar ^
+ com.amd.aparapi.sample.latency.Main %1
+echo Model cache disabled
+java ^
+ -Djava.library.path=../../com.amd.aparapi.jni/dist ^
+ -Dcom.amd.aparapi.disableModelCache=true ^
+ -classpath ../../com.amd.aparapi/dist/aparapi.jar;latency.jar ^
+ com.amd.aparapi.sample.latency.Main %1
@@ -0,0 +1,137 @@
+/*
+Copyright (c) 2010-2011, Advanced Micro Devices, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+following conditions are met:
+
+Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+disclaimer. 
+
+Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+disclaimer in the documentation and/or other materials provided with the distribution. 
+
+Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote products
+derived from this software without specific prior written permission. 
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, 
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE 
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+If you use the software (in whole or in part), you shall adhere to all applicable U.S., European, and other export
+laws, including but not limited to the U.S. Export Administration Regulations ("EAR"), (15 C.F.R. Sections 730 through
+774), and E.U. Council Regulation (EC) No 1334/2000 of 22 June 2000.  Further, pursuant to Section 740.6 of the EAR,
+you hereby certify that, except pursuant to a license granted by the United States Department of Commerce Bureau of 
+Industry and Security or as otherwise permitted pursuant to a License Exception under the U.S. Export Administration 
+Regulations ("EAR"), you will not (1) export, re-export or release to a national of a country in Country Groups D:1,
+E:1 or E:2 any restricted technology, software, or source code you receive hereunder, or (2) export to Country Groups
+D:1, E:1 or E:2 the direct product of such technology or software, if such foreign produced direct product is subject
+to national security controls as identified on the Commerce Control List (currently found in Supplement 1 to Part 774
+of EAR).  For the most current Country Group listings, or for additional information about the EAR or your obligations
+under those regulations, please refer to the U.S. Bureau of Industry and Security's website at http://www.bis.doc.gov/. 
+
+*/
+
+package com.amd.aparapi.sample.latency;
+
+import java.util.Arrays;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+/**
+ * Measures the latency from creating a kernel instance to having its first result, for a sequence of fresh instances of the
+ * same kernel class.
+ *
+ * Applications which create a kernel instance per request see this latency on every request. The first instance of a class
+ * always pays for parsing and analyzing the class, later instances reuse the cached analysis. Run once with the defaults and
+ * once with <code>-Dcom.amd.aparapi.disableModelCache=true</code> (see latency.sh) to compare.
+ *
+ * Usage : java com.amd.aparapi.sample.latency.Main [instances]
+ *
+ */
+public class Main{
+
+   public static class PolynomialKernel extends Kernel{
+      private final float[] in;
+
+      private final float[] out;
+
+      private final float a;
+
+      private final float b;
+
+      private final float c;
+
+      public PolynomialKernel(float[] _in, float[] _out, float _a, float _b, float _c) {
+         in = _in;
+         out = _out;
+         a = _a;
+         b = _b;
+         c = _c;
+      }
+
+      private float polynomial(float x) {
+         return (((a * x) + b) * x) + c;
+      }
+
+      private float clampTo(float x, float limit) {
+         return (max(-limit, min(limit, x)));
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = clampTo(polynomial(in[gid]), 1000f);
+      }
+   }
+
+   public static void main(String[] _args) {
+      final int instances = (_args.length > 0) ? Integer.parseInt(_args[0]) : 32;
+
+      final int size = 1024;
+
+      final Range range = Range.create(size);
+
+      final float[] in = new float[size];
+      for (int i = 0; i < size; i++) {
+         in[i] = (float) i / size;
+      }
+
+      final long[] latencyNanos = new long[instances];
+      String executionMode = null;
+      for (int i = 0; i < instances; i++) {
+         final float[] out = new float[size];
+         final long startNanos = System.nanoTime();
+         final PolynomialKernel kernel = new PolynomialKernel(in, out, i, 2f, 1f);
+         kernel.execute(range);
+         latencyNanos[i] = System.nanoTime() - startNanos;
+
+         if (out[size - 1] != Math.max(-1000f, Math.min(1000f, (((i * in[size - 1]) + 2f) * in[size - 1]) + 1f))) {
+            System.out.println("instance " + i + " produced the wrong result");
+         }
+         executionMode = kernel.getExecutionMode().toString();
+         kernel.dispose();
+      }
+
+      final long[] later = Arrays.copyOfRange(latencyNanos, 1, instances);
+      Arrays.sort(later);
+      long total = 0;
+      for (final long nanos : later) {
+         total += nanos;
+      }
+
+      System.out.println("Execution mode        = " + executionMode);
+      System.out.println("Model cache           = " + (Config.disableModelCache ? "disabled" : "enabled"));
+      System.out.println("Instances             = " + instances);
+      System.out.printf("First instance ms     = %.3f%n", latencyNanos[0] / 1000000.0);
+      if (later.length > 0) {
+         System.out.printf("Later instances ms    = %.3f (mean) %.3f (median)%n", (total / 1000000.0) / later.length,
+               later[later.length / 2] / 1000000.0);
+      }
+   }
+}
@@ -0,0 +1,11 @@
+echo Static split
+java ^
+ -Djava.library.path=../../com.amd.aparapi.jni/dist ^
+ -classpath ../../com.amd.aparapi/dist/aparapi.jar;mandel.jar ^
+ com.amd.aparapi.sample.mandel.Benchmark %1
+echo Work stealing
+java ^
+ -Djava.library.path=../../com.amd.aparapi.jni/dist ^
+ -Dcom.amd.aparapi.enableJTPWorkStealing=true ^
+ -classpath ../../com.amd.aparapi/dist/aparapi.jar;mandel.jar ^
+ com.amd.aparapi.sample.mandel.Benchmark %1
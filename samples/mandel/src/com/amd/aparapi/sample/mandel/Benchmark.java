@@ -0,0 +1,112 @@
+/*
+Copyright (c) 2010-2011, Advanced Micro Devices, Inc.
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, are permitted provided that the
+following conditions are met:
+
+Redistributions of source code must retain the above copyright notice, this list of conditions and the following
+disclaimer. 
+
+Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+disclaimer in the documentation and/or other materials provided with the distribution. 
+
+Neither the name of the copyright holder nor the names of its contributors may be used to endorse or promote products
+derived from this software without specific prior written permission. 
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, 
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE 
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+If you use the software (in whole or in part), you shall adhere to all applicable U.S., European, and other export
+laws, including but not limited to the U.S. Export Administration Regulations ("EAR"), (15 C.F.R. Sections 730 through
+774), and E.U. Council Regulation (EC) No 1334/2000 of 22 June 2000.  Further, pursuant to Section 740.6 of the EAR,
+you hereby certify that, except pursuant to a license granted by the United States Department of Commerce Bureau of 
+Industry and Security or as otherwise permitted pursuant to a License Exception under the U.S. Export Administration 
+Regulations ("EAR"), you will not (1) export, re-export or release to a national of a country in Country Groups D:1,
+E:1 or E:2 any restricted technology, software, or source code you receive hereunder, or (2) export to Country Groups
+D:1, E:1 or E:2 the direct product of such technology or software, if such foreign produced direct product is subject
+to national security controls as identified on the Commerce Control List (currently found in Supplement 1 to Part 774
+of EAR).  For the most current Country Group listings, or for additional information about the EAR or your obligations
+under those regulations, please refer to the U.S. Bureau of Industry and Security's website at http://www.bis.doc.gov/. 
+
+*/
+
+package com.amd.aparapi.sample.mandel;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.kernel.JTPScheduler;
+import com.amd.aparapi.sample.mandel.Main.MandelKernel;
+
+/**
+ * A headless benchmark which renders a zoom into the Mandelbrot set using the <code>MandelKernel</code> in JTP mode.
+ * 
+ * Work items inside the set iterate <code>maxIterations</code> times whilst those far outside bail out after a few iterations,
+ * so the groups of each frame have very uneven cost. Run once with the default static split and once with 
+ * <code>-Dcom.amd.aparapi.enableJTPWorkStealing=true</code> (see mandel-benchmark.sh) to compare how well the load is balanced.
+ * 
+ * Usage : java com.amd.aparapi.sample.mandel.Benchmark [frames]
+ *
+ */
+public class Benchmark{
+
+   public static void main(String[] _args) {
+      final int frames = (_args.length > 0) ? Integer.parseInt(_args[0]) : 64;
+
+      final int width = 768;
+
+      final int height = 768;
+
+      final Range range = Range.create(width * height);
+
+      final int[] rgb = new int[width * height];
+
+      final MandelKernel kernel = new MandelKernel(width, height, rgb);
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+
+      final float defaultScale = 3f;
+
+      // Warm up so that we measure steady state frames
+      for (int i = 0; i < 8; i++) {
+         kernel.setScaleAndOffset(defaultScale, -1f, 0f);
+         kernel.execute(range);
+      }
+
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      final long startSteals = scheduler.getStealCount();
+      final long startBusyNanos = scheduler.getBusyNanos();
+
+      // Zoom towards the boundary of the set, where the cost per work item is most uneven
+      float scale = defaultScale;
+      float x = -1f;
+      final long startNanos = System.nanoTime();
+      for (int frame = 0; frame < frames; frame++) {
+         scale = scale * 0.97f;
+         x = x - (0.25f / frames);
+         kernel.setScaleAndOffset(scale, x, 0f);
+         kernel.execute(range);
+      }
+      final long elapsedNanos = System.nanoTime() - startNanos;
+
+      System.out.println("Execution mode = " + kernel.getExecutionMode());
+      System.out.println("Work stealing  = " + Config.enableJTPWorkStealing);
+      System.out.println("Threads        = " + scheduler.getParallelism());
+      System.out.println("Groups/frame   = " + (range.getNumGroups(0) * range.getNumGroups(1) * range.getNumGroups(2)));
+      System.out.printf("ms/frame       = %.2f%n", (elapsedNanos / 1000000.0) / frames);
+      if (Config.enableJTPWorkStealing) {
+         System.out.println("Steals         = " + (scheduler.getStealCount() - startSteals));
+      } else {
+         // Time spent busy as a fraction of the time all scheduler threads were available, threads left idle show up here
+         final double busy = scheduler.getBusyNanos() - startBusyNanos;
+         System.out.printf("Utilization    = %.2f%n", Math.min(1.0, busy / ((double) elapsedNanos * scheduler.getParallelism())));
+      }
+
+      kernel.dispose();
+   }
+}
@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class AccessBooleanArray extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void AccessBooleanArray(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global char  *ba;\n"
+   +"    int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global char  *ba,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->ba = ba;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      for (int i = 0; i<1024; i++){\n"
+   +"         if ((i % 2)==0){\n"
+   +"            this->ba[i]  = 1;\n"
+   +"         } else {\n"
+   +"            this->ba[i]  = 0;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.AccessBooleanArray.class, expectedException, expectedOpenCL);
+   }
+}
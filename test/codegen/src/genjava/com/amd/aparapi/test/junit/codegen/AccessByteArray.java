@@ -0,0 +1,42 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+/**
+* 
+ * Test whether we can assign a byte array element.
+ * @author gfrost
+ *
+ */
+public class AccessByteArray extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void AccessByteArray(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +" typedef struct This_s{\n"
+   +"   __global char  *bytes;\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global char  *bytes,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->bytes = bytes;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      for (int i = 0; i<1024; i++){\n"
+   +"         this->bytes[i]  = 1;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.AccessByteArray.class, expectedException, expectedOpenCL);
+   }
+}
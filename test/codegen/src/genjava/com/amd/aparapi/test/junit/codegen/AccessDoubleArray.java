@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class AccessDoubleArray extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void AccessDoubleArray(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   __global double *doubles;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global double *doubles,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->doubles = doubles;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      for (int i = 0; i<1024; i++){\n"
+   +"         this->doubles[i]  = 1.0;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.AccessDoubleArray.class, expectedException, expectedOpenCL);
+   }
+}
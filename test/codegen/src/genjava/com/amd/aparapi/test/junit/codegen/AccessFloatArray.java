@@ -0,0 +1,36 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class AccessFloatArray extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void AccessFloatArray(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global float *floats;\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global float *floats,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->floats = floats;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      for (int i = 0; i<1024; i++){\n"
+   +"         this->floats[i]  = 1.0f;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.AccessFloatArray.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class AndOrPrecedence extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void AndOrPrecedence(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char a = 1;\n"
+   +"      char b = 0;\n"
+   +"      char c = 0;\n"
+   +"      char pass = 0;\n"
+   +"      if (a!=0 || b!=0 && c!=0){\n"
+   +"         pass = 1;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.AndOrPrecedence.class, expectedException, expectedOpenCL);
+   }
+}
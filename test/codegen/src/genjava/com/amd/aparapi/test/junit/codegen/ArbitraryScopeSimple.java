@@ -0,0 +1,40 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ArbitraryScopeSimple extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ArbitraryScopeSimple(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int value = 10;\n"
+   +"      {\n"
+   +"         int count = 10;\n"
+   +"         float f = 10.0f;\n"
+   +"         value = (int)((float)count * f);\n"
+   +"      }\n"
+   +"      int result = 0;\n"
+   +"      int count = 0;\n"
+   +"      result = value + count;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ArbitraryScopeSimple.class, expectedException, expectedOpenCL);
+   }
+}
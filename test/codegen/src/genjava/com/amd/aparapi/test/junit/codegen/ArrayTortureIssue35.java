@@ -0,0 +1,36 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ArrayTortureIssue35 extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ArrayTortureIssue35(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *a;\n"
+   +"   __global int *b;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global int *a,\n"
+   +"   __global int *b,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->a = a;\n"
+   +"   this->b = b;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->a[this->b[0]++] = 1;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ArrayTortureIssue35.class, expectedException, expectedOpenCL);
+   }
+}
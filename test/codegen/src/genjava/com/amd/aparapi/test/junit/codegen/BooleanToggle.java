@@ -0,0 +1,50 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class BooleanToggle extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void BooleanToggle(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char pass = 0;\n"
+   +"      pass = (pass==0)?1:0;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char pass = 0;\n"
+   +"      pass = (pass!=0)?0:1;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.BooleanToggle.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,36 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ByteParamsSimple extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ByteParamsSimple(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_ByteParamsSimple__addEmUp2(This *this, char x, char y){\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char bb = 0;\n"
+   +"      char cc = 7;\n"
+   +"      com_amd_aparapi_test_ByteParamsSimple__addEmUp2(this, bb, cc);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ByteParamsSimple.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,31 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CallGetPassId extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CallGetPassId(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int thePassId = get_pass_id(this);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CallGetPassId.class, expectedException, expectedOpenCL);
+   }
+}
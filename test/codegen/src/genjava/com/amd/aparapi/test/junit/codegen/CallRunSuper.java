@@ -0,0 +1,38 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CallRunSuper extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CallRunSuper(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *out;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_CallRunSuperBase__run(This *this){\n"
+   +"   this->out[0]  = 2;\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global int *out,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->out = out;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      com_amd_aparapi_test_CallRunSuperBase__run(this);\n"
+   +"      this->out[1]  = 3;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CallRunSuper.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CallStaticInAnotherClass extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CallStaticInAnotherClass(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *out;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_AnotherClass__foo(){\n"
+   +"   return(42);\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_CallStaticInAnotherClass__doodoo(This *this){\n"
+   +"   return(com_amd_aparapi_test_AnotherClass__foo());\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global int *out, \n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->out = out;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->out[0]  = com_amd_aparapi_test_AnotherClass__foo() + com_amd_aparapi_test_CallStaticInAnotherClass__doodoo(this);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CallStaticInAnotherClass.class, expectedException, expectedOpenCL);
+   }
+}
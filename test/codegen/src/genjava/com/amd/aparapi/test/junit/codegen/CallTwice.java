@@ -0,0 +1,35 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CallTwice extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CallTwice(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *out;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_CallTwice__getOne(This *this){\n"
+   +"   return(1);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global int *out, \n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->out = out;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->out[0]  = com_amd_aparapi_test_CallTwice__getOne(this) + com_amd_aparapi_test_CallTwice__getOne(this);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CallTwice.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,34 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CharAsParameter extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CharAsParameter(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"      typedef struct This_s{\n"
+   +"         int passid;\n"
+   +"      }This;\n"
+   +"      int get_pass_id(This *this){\n"
+   +"         return this->passid;\n"
+   +"      }\n"
+   +"      unsigned short com_amd_aparapi_test_CharAsParameter__doIt(This *this, unsigned short x){\n"
+   +"         return(x);\n"
+   +"      }\n"
+   +"      __kernel void run(\n"
+   +"         int passid\n"
+   +"      ){\n"
+   +"         This thisStruct;\n"
+   +"         This* this=&thisStruct;\n"
+   +"         this->passid = passid;\n"
+   +"         {\n"
+   +"            char b = 1;\n"
+   +"            com_amd_aparapi_test_CharAsParameter__doIt(this, 65);\n"
+   +"            com_amd_aparapi_test_CharAsParameter__doIt(this, (unsigned short )b);\n"
+   +"            return;\n"
+   +"         }\n"
+   +"      }\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CharAsParameter.class, expectedException, expectedOpenCL);
+   }
+}
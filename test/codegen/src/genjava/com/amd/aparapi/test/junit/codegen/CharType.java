@@ -0,0 +1,33 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CharType extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CharType(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"     typedef struct This_s{\n"
+   +"        __global int *out;\n"
+   +"        int passid;\n"
+   +"     }This;\n"
+   +"     int get_pass_id(This *this){\n"
+   +"        return this->passid;\n"
+   +"     }\n"
+   +"     __kernel void run(\n"
+   +"        __global int *out, \n"
+   +"        int passid\n"
+   +"     ){\n"
+   +"        This thisStruct;\n"
+   +"        This* this=&thisStruct;\n"
+   +"        this->out = out;\n"
+   +"        this->passid = passid;\n"
+   +"        {\n"
+   +"           unsigned short c = 65535;\n"
+   +"           this->out[0]  = 65535;\n"
+   +"           return;\n"
+   +"        }\n"
+   +"     }\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CharType.class, expectedException, expectedOpenCL);
+   }
+}
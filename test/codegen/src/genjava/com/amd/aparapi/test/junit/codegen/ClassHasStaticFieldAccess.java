@@ -0,0 +1,40 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ClassHasStaticFieldAccess extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ClassHasStaticFieldAccess(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *ints;\n"
+   +"   int foo;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global int *ints, \n"
+   +"   int foo, \n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->ints = ints;\n"
+   +"   this->foo = foo;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      for (int i = 0; i<1024; i++){\n"
+   +"         if ((i % 2)==0){\n"
+   +"            this->ints[i]  = foo;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ClassHasStaticFieldAccess.class, expectedException, expectedOpenCL);
+   }
+}
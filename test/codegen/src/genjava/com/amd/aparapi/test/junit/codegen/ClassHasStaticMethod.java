@@ -0,0 +1,42 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ClassHasStaticMethod extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ClassHasStaticMethod(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"__global int *ints;\n"
+   +"int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"return this->passid;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ClassHasStaticMethod__getIntAndReturnIt(int a){\n"
+   +"return((1 - a));\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"__global int *ints, \n"
+   +"int passid\n"
+   +"){\n"
+   +"This thisStruct;\n"
+   +"This* this=&thisStruct;\n"
+   +"this->ints = ints;\n"
+   +"this->passid = passid;\n"
+   +"{\n"
+   +"int foo = 1;\n"
+   +"for (int i = 0; i<1024; i++){\n"
+   +"if ((i % 2)==0){\n"
+   +"this->ints[i] = foo;\n"
+   +"} else {\n"
+   +"this->ints[i] = com_amd_aparapi_test_ClassHasStaticMethod__getIntAndReturnIt(foo);\n"
+   +"}\n"
+   +"}\n"
+   +"return;\n"
+   +"}\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ClassHasStaticMethod.class, expectedException, expectedOpenCL);
+   }
+}
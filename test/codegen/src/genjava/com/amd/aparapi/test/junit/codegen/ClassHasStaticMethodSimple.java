@@ -0,0 +1,32 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ClassHasStaticMethodSimple extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ClassHasStaticMethodSimple(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_ClassHasStaticMethodSimple__staticMethod(){\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      com_amd_aparapi_test_ClassHasStaticMethodSimple__staticMethod();\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ClassHasStaticMethodSimple.class, expectedException, expectedOpenCL);
+   }
+}
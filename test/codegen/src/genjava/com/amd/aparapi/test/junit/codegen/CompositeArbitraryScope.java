@@ -0,0 +1,106 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class CompositeArbitraryScope extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void CompositeArbitraryScope(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_CompositeArbitraryScope__t5(This *this){\n"
+   +"   int gid = get_global_id(0);\n"
+   +"   int numRemaining = 1;\n"
+   +"   int thisCount = 0;\n"
+   +"   for (; numRemaining>0 && gid>0; numRemaining++){\n"
+   +"      numRemaining++;\n"
+   +"      thisCount = min(numRemaining, gid);\n"
+   +"      numRemaining = numRemaining - thisCount;\n"
+   +"   }\n"
+   +"   gid = gid - thisCount;\n"
+   +"   return;\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_CompositeArbitraryScope__t4(This *this){\n"
+   +"   int gid = get_global_id(0);\n"
+   +"   int numRemaining = 1;\n"
+   +"   while (numRemaining>0 && gid>0){\n"
+   +"      numRemaining++;\n"
+   +"      {\n"
+   +"         int thisCount = min(numRemaining, gid);\n"
+   +"         numRemaining = numRemaining - thisCount;\n"
+   +"         numRemaining++;\n"
+   +"         gid--;\n"
+   +"      }\n"
+   +"   }\n"
+   +"   return;\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_CompositeArbitraryScope__t3(This *this){\n"
+   +"   int gid = get_global_id(0);\n"
+   +"   int numRemaining = 1;\n"
+   +"   while (numRemaining>0){\n"
+   +"      numRemaining++;\n"
+   +"      {\n"
+   +"         int thisCount = min(numRemaining, gid);\n"
+   +"         numRemaining = numRemaining - thisCount;\n"
+   +"         numRemaining++;\n"
+   +"      }\n"
+   +"   }\n"
+   +"   return;\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_CompositeArbitraryScope__t2(This *this){\n"
+   +"   int gid = get_global_id(0);\n"
+   +"   int numRemaining = 1;\n"
+   +"   for (; numRemaining>0; numRemaining){\n"
+   +"      {\n"
+   +"         int thisCount = min(numRemaining, gid);\n"
+   +"         numRemaining = numRemaining - thisCount;\n"
+   +"      }\n"
+   +"   }\n"
+   +"   return;\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_CompositeArbitraryScope__t1(This *this){\n"
+   +"   int gid = get_global_id(0);\n"
+   +"   int numRemaining = 1;\n"
+   +"   while (numRemaining>0){\n"
+   +"      numRemaining++;\n"
+   +"      {\n"
+   +"         int thisCount = min(numRemaining, gid);\n"
+   +"         numRemaining = numRemaining - thisCount;\n"
+   +"      }\n"
+   +"   }\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int gid = get_global_id(0);\n"
+   +"      int numRemaining = 1;\n"
+   +"      com_amd_aparapi_test_CompositeArbitraryScope__t1(this);\n"
+   +"      com_amd_aparapi_test_CompositeArbitraryScope__t2(this);\n"
+   +"      com_amd_aparapi_test_CompositeArbitraryScope__t3(this);\n"
+   +"      com_amd_aparapi_test_CompositeArbitraryScope__t4(this);\n"
+   +"      com_amd_aparapi_test_CompositeArbitraryScope__t5(this);\n"
+   +"      while (numRemaining>0){\n"
+   +"         numRemaining++;\n"
+   +"         {\n"
+   +"            int thisCount = min(numRemaining, gid);\n"
+   +"            numRemaining = numRemaining - thisCount;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.CompositeArbitraryScope.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class Continue extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void Continue(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char pass = 0;\n"
+   +"      for (int i = 0; i<10; i++){\n"
+   +"         if (i==5){\n"
+   +"         } else {\n"
+   +"            pass = 1;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.Continue.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,9 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ContinueTorture extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ContinueTorture(){
+   String[] expectedOpenCL = null;
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ContinueTorture.class, expectedException, expectedOpenCL);
+   }
+}
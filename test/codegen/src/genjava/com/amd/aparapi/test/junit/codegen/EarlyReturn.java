@@ -0,0 +1,34 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class EarlyReturn extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void EarlyReturn(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char pass = 0;\n"
+   +"      int i=0;\n"
+   +"      if ((i%2)==0){\n"
+   +"         return;\n"
+   +"      }\n"
+   +"      i++;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.EarlyReturn.class, expectedException, expectedOpenCL);
+   }
+}
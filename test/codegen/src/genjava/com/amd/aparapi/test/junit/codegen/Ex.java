@@ -0,0 +1,35 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class Ex extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void Ex(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int total = 0;\n"
+   +"      for (int i = 0; i<100; i++){\n"
+   +"         if ((i % 10)==0 && (i % 4)==0){\n"
+   +"            total++;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.Ex.class, expectedException, expectedOpenCL);
+   }
+}
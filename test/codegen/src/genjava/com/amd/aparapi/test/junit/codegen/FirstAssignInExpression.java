@@ -0,0 +1,35 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class FirstAssignInExpression extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void FirstAssignInExpression(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void func(This *this, int _arg){\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int result;\n"
+   +"      func(this, result = 0);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.FirstAssignInExpression.class, expectedException, expectedOpenCL);
+   }
+}
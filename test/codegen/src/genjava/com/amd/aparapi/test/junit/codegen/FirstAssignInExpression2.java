@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class FirstAssignInExpression2 extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void FirstAssignInExpression2(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int value = 1;\n"
+   +"      int result=0;\n"
+   +"      int assignMe=0;\n"
+   +"      if (true){\n"
+   +"         result = assignMe = value;\n"
+   +"      }else{\n"
+   +"         assignMe =1;\n"
+   +"         result=2;\n"
+   +"      }\n"
+   +"      result++;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.FirstAssignInExpression2.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,36 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class FloatParams extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void FloatParams(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"int com_amd_aparapi_test_FloatParams__addEmUp(This *this, float y, float z){\n"
+   +"   return(((int)y + (int)z));\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int y = 2;\n"
+   +"      float x = 0.0f;\n"
+   +"      com_amd_aparapi_test_FloatParams__addEmUp(this, x=(float)y, x);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.FloatParams.class, expectedException, expectedOpenCL);
+   }
+}
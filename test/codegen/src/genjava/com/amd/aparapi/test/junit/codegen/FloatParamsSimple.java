@@ -0,0 +1,34 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class FloatParamsSimple extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void FloatParamsSimple(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_FloatParamsSimple__floatParams(This *this, float y){\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      com_amd_aparapi_test_FloatParamsSimple__floatParams(this, 0.0f);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.FloatParamsSimple.class, expectedException, expectedOpenCL);
+   }
+}
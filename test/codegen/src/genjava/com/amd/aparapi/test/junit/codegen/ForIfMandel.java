@@ -0,0 +1,61 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ForIfMandel extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ForIfMandel(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int width;\n"
+   +"   float scale;\n"
+   +"   int maxIterations;  \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int width, \n"
+   +"   float scale, \n"
+   +"   int maxIterations,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->width = width;\n"
+   +"   this->scale = scale;\n"
+   +"   this->maxIterations = maxIterations;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int tid = 0;\n"
+   +"      int i = tid % this->width;\n"
+   +"      int j = tid / this->width;\n"
+   +"      float x0 = (((float)i * this->scale) - ((this->scale / 2.0f) * (float)this->width)) / (float)this->width;\n"
+   +"      float y0 = (((float)j * this->scale) - ((this->scale / 2.0f) * (float)this->width)) / (float)this->width;\n"
+   +"      float x = x0;\n"
+   +"      float y = y0;\n"
+   +"      float x2 = x * x;\n"
+   +"      float y2 = y * y;\n"
+   +"      float scaleSquare = this->scale * this->scale;\n"
+   +"      int count = 0;\n"
+   +"      for (int iter = 0; iter<this->maxIterations; iter++){\n"
+   +"         if ((x2 + y2)<=scaleSquare){\n"
+   +"            y = ((2.0f * x) * y) + y0;\n"
+   +"            x = (x2 - y2) + x0;\n"
+   +"            x2 = x * x;\n"
+   +"            y2 = y * y;\n"
+   +"            count++;\n"
+   +"         } else {\n"
+   +"            count--;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      int value = (256 * count) / this->maxIterations;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ForIfMandel.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,38 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class Frem extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void Frem(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global float *out;\n"
+   +"   float m;\n"
+   +"   float n;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global float *out, \n"
+   +"   float m, \n"
+   +"   float n, \n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->out = out;\n"
+   +"   this->m = m;\n"
+   +"   this->n = n;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->out[0]  = this->m % this->n;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.Frem.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,41 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class IEEERemainderDouble extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void IEEERemainderDouble(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   __global double *out;\n"
+   +"   double m;\n"
+   +"   double n;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global double *out, \n"
+   +"   double m, \n"
+   +"   double n, \n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->out = out;\n"
+   +"   this->m = m;\n"
+   +"   this->n = n;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->out[0]  = remainder(this->m, this->n);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.IEEERemainderDouble.class, expectedException, expectedOpenCL);
+   }
+}
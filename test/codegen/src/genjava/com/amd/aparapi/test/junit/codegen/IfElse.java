@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class IfElse extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void IfElse(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int testValue = 10;\n"
+   +"      char pass = 0;\n"
+   +"      if ( (testValue % 4) == 0){\n"
+   +"         pass = 1;\n"
+   +"      } else {\n"
+   +"         pass = 0;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.IfElse.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,50 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class If_IfElse_Else_IfElse_ extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void If_IfElse_Else_IfElse_(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char a = 1;\n"
+   +"      char b = 1;\n"
+   +"      char c = 1;\n"
+   +"      char d = 1;\n"
+   +"      int count = 0;\n"
+   +"      if (a!=0){\n"
+   +"         if (b!=0){\n"
+   +"            if (c!=0){\n"
+   +"               count = 1;\n"
+   +"            } else {\n"
+   +"               count = 2;\n"
+   +"            }\n"
+   +"         } else {\n"
+   +"            if (d!=0){\n"
+   +"               count = 3;\n"
+   +"            } else {\n"
+   +"               count = 4;\n"
+   +"            }\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.If_IfElse_Else_IfElse_.class, expectedException, expectedOpenCL);
+   }
+}
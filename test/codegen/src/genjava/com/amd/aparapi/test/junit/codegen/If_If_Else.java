@@ -0,0 +1,40 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class If_If_Else extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void If_If_Else(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char a = 1;\n"
+   +"      char b = 1;\n"
+   +"      char result = 0;\n"
+   +"      if (a!=0){\n"
+   +"         if (b!=0){\n"
+   +"            result = 1;\n"
+   +"         } \n"
+   +"      } else {\n"
+   +"         result = 0;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.If_If_Else.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,40 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ImplementsInterface extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ImplementsInterface(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int ival;\n"
+   +"   __global int *out;   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"int com_amd_aparapi_test_ImplementsInterface__bar(This *this, int n){\n"
+   +"   return((n + this->ival));\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int ival, \n"
+   +"   __global int *out,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->ival = ival;\n"
+   +"   this->out = out;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->out[0]  = com_amd_aparapi_test_ImplementsInterface__bar(this, 1);\n"
+   +"      char pass = 0;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ImplementsInterface.class, expectedException, expectedOpenCL);
+   }
+}
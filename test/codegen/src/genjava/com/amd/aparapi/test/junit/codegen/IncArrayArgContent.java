@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class IncArrayArgContent extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void IncArrayArgContent(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *arr;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_IncArrayArgContent__incit(This *this,  __global int* arr){\n"
+   +"   arr[0]  = arr[0] + 1;\n"
+   +"   return;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global int *arr,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->arr = arr;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      com_amd_aparapi_test_IncArrayArgContent__incit(this, this->arr);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.IncArrayArgContent.class, expectedException, expectedOpenCL);
+   }
+}
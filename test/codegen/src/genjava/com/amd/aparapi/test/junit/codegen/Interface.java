@@ -0,0 +1,9 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class Interface extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void Interface(){
+   String[] expectedOpenCL = null;
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = com.amd.aparapi.internal.exception.ClassParseException.class;
+       test(com.amd.aparapi.test.Interface.class, expectedException, expectedOpenCL);
+   }
+}
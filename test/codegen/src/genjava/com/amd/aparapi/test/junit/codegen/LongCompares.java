@@ -0,0 +1,34 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class LongCompares extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void LongCompares(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +" typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char pass = 0;\n"
+   +"      long l1 = 1L;\n"
+   +"      long l2 = 1L;\n"
+   +"      if ((l1 - l2)>0){\n"
+   +"         pass = 1;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.LongCompares.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,40 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class MathAbs extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void MathAbs(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      double d = -1.0;\n"
+   +"      float f = -1.0f;\n"
+   +"      int i = -1;\n"
+   +"      long n = -1L;\n"
+   +"      char pass = 1;\n"
+   +"      if (fabs(d)!=1.0 || fabs(f)!=1.0f || abs(i)!=1 || (abs(n) - 1L)!=0){\n"
+   +"         pass = 0;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.MathAbs.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,43 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class MathFallThru extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void MathFallThru(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   __global long *longout;\n"
+   +"   __global int *intout;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global long *longout,\n"
+   +"   __global int *intout,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->longout = longout;\n"
+   +"   this->intout = intout;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      float f1 = 1.0f;\n"
+   +"      double d1 = 1.0;\n"
+   +"      this->longout[0]  = round((ceil(cos(exp(floor(log(pow(d1, d1)))))) + tan(sqrt(sin(rint(acos(asin(atan(atan2(d1, d1))))))))));\n"
+   +"      this->intout[0]  = round((ceil(cos(exp(floor(log(pow(f1, f1)))))) + tan(sqrt(sin(rint(acos(asin(atan(atan2(f1, f1))))))))));\n"
+   +"      char pass = 0;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.MathFallThru.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,45 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class MathMin extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void MathMin(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      double d1 = -1.0;\n"
+   +"      double d2 = 1.0;\n"
+   +"      float f1 = -1.0f;\n"
+   +"      float f2 = 1.0f;\n"
+   +"      int i1 = -1;\n"
+   +"      int i2 = 1;\n"
+   +"      long n1 = -1L;\n"
+   +"      long n2 = 1L;\n"
+   +"      char pass = 1;\n"
+   +"      if (fmin(d1, d2)!=1.0 || fmin(f1, f2)!=1.0f || min(i1, i2)!=1 || (min(n1, n2) - 1L)!=0){\n"
+   +"         pass = 0;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.MathMin.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,40 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class MathRemainder extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void MathRemainder(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"#pragma OPENCL EXTENSION cl_khr_fp64 : enable\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      double d1 = 7.0;\n"
+   +"      double d2 = 2.0;\n"
+   +"      float f1 = 7.0f;\n"
+   +"      float f2 = 2.0f;\n"
+   +"      char pass = 1;\n"
+   +"      if (remainder(d1, d2)!=1.0 || remainder(f1, f2)!=1.0f){\n"
+   +"         pass = 0;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.MathRemainder.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class MultipleAssignExpr extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void MultipleAssignExpr(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"int com_amd_aparapi_test_MultipleAssignExpr__sum(This *this, int lhs, int rhs){\n"
+   +"   return((lhs + rhs));\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int a = 0;\n"
+   +"      int b = 0;\n"
+   +"      int c = 0;\n"
+   +"      a = b = c = com_amd_aparapi_test_MultipleAssignExpr__sum(this, 1, 2);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.MultipleAssignExpr.class, expectedException, expectedOpenCL);
+   }
+}
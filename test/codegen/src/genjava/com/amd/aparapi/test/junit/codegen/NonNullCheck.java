@@ -0,0 +1,35 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class NonNullCheck extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void NonNullCheck(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *ints;\n"
+   +"    int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global int *ints,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->ints = ints;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      if (this->ints != NULL){\n"
+   +"         int value = this->ints[0];\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.NonNullCheck.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,41 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ObjectArrayMemberAccess extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ObjectArrayMemberAccess(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct com_amd_aparapi_test_ObjectArrayMemberAccess$DummyOOA_s{\n"
+   +"   int  mem;\n"
+   +"   float  floatField;\n"
+   +"   \n"
+   +"} com_amd_aparapi_test_ObjectArrayMemberAccess$DummyOOA;\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   __global com_amd_aparapi_test_ObjectArrayMemberAccess$DummyOOA *dummy;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global com_amd_aparapi_test_ObjectArrayMemberAccess$DummyOOA *dummy,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->dummy = dummy;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int myId = get_global_id(0);\n"
+   +"      this->dummy[myId].mem=this->dummy[myId].mem + 2;\n"
+   +"      this->dummy[myId].floatField=this->dummy[myId].floatField + 2.0f;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ObjectArrayMemberAccess.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,53 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ObjectArrayMemberCall extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ObjectArrayMemberCall(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA_s{\n"
+   +"   int  mem;\n"
+   +"   \n"
+   +"} com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA;\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   __global com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA *dummy;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__getMem( __global com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA *this){\n"
+   +"   return(this->mem);\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addEmUp( __global com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA *this, int x, int y){\n"
+   +"   return((x + y));\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addEmUpPlusOne( __global com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA *this, int x, int y){\n"
+   +"   return(((com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addEmUp(this, x, y) + 1) + com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__getMem(this)));\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addToMem( __global com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA *this, int x){\n"
+   +"   return((x + this->mem));\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA *dummy,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->dummy = dummy;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int myId = get_global_id(0);\n"
+   +"      this->dummy[myId].mem=com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addEmUp( &(this->dummy[myId]), this->dummy[myId].mem, 2);\n"
+   +"      int tmp = com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addToMem( &(this->dummy[myId]), 2);\n"
+   +"      int tmp2 = com_amd_aparapi_test_ObjectArrayMemberCall$DummyOOA__addEmUpPlusOne( &(this->dummy[myId]), 2, tmp);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ObjectArrayMemberCall.class, expectedException, expectedOpenCL);
+   }
+}
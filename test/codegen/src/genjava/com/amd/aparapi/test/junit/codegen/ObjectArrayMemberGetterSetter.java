@@ -0,0 +1,111 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ObjectArrayMemberGetterSetter extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ObjectArrayMemberGetterSetter(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct com_amd_aparapi_test_TheOtherOne_s{\n"
+   +"   int  mem;\n"
+   +"   \n"
+   +"} com_amd_aparapi_test_TheOtherOne;\n"
+   +"\n"
+   +"typedef struct com_amd_aparapi_test_DummyOOA_s{\n"
+   +"   long  longField;\n"
+   +"   float  floatField;\n"
+   +"   int  mem;\n"
+   +"   char  boolField;\n"
+   +"   char _pad_17;\n"
+   +"   char _pad_18;\n"
+   +"   char _pad_19;\n"
+   +"   char _pad_20;\n"
+   +"   char _pad_21;\n"
+   +"   char _pad_22;\n"
+   +"   char _pad_23;\n"
+   +"   \n"
+   +"} com_amd_aparapi_test_DummyOOA;\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   int something;\n"
+   +"   __global com_amd_aparapi_test_DummyOOA *dummy;\n"
+   +"   __global com_amd_aparapi_test_TheOtherOne *other;\n"
+   +"   __global int *out;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_DummyOOA__setBoolField( __global com_amd_aparapi_test_DummyOOA *this, char x){\n"
+   +"   this->boolField=x;\n"
+   +"   return;\n"
+   +"}\n"
+   +"char com_amd_aparapi_test_DummyOOA__isBoolField( __global com_amd_aparapi_test_DummyOOA *this){\n"
+   +"   return(this->boolField);\n"
+   +"}\n"
+   +"char com_amd_aparapi_test_DummyOOA__getBoolField( __global com_amd_aparapi_test_DummyOOA *this){\n"
+   +"   return(this->boolField);\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_DummyOOA__setFloatField( __global com_amd_aparapi_test_DummyOOA *this, float x){\n"
+   +"   this->floatField=x;\n"
+   +"   return;\n"
+   +"}\n"
+   +"float com_amd_aparapi_test_DummyOOA__getFloatField( __global com_amd_aparapi_test_DummyOOA *this){\n"
+   +"   return(this->floatField);\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_DummyOOA__setLongField( __global com_amd_aparapi_test_DummyOOA *this, long x){\n"
+   +"   this->longField=x;\n"
+   +"   return;\n"
+   +"}\n"
+   +"long com_amd_aparapi_test_DummyOOA__getLongField( __global com_amd_aparapi_test_DummyOOA *this){\n"
+   +"   return(this->longField);\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_TheOtherOne__setMem( __global com_amd_aparapi_test_TheOtherOne *this, int x){\n"
+   +"   this->mem=x;\n"
+   +"   return;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberGetterSetter__getSomething(This *this){\n"
+   +"   return(this->something);\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_TheOtherOne__getMem( __global com_amd_aparapi_test_TheOtherOne *this){\n"
+   +"   return(this->mem);\n"
+   +"}\n"
+   +"void com_amd_aparapi_test_DummyOOA__setMem( __global com_amd_aparapi_test_DummyOOA *this, int x){\n"
+   +"   this->mem=x;\n"
+   +"   return;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_DummyOOA__getMem( __global com_amd_aparapi_test_DummyOOA *this){\n"
+   +"   return(this->mem);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int something, \n"
+   +"   __global com_amd_aparapi_test_DummyOOA *dummy, \n"
+   +"   __global com_amd_aparapi_test_TheOtherOne *other, \n"
+   +"   __global int *out,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->something = something;\n"
+   +"   this->dummy = dummy;\n"
+   +"   this->other = other;\n"
+   +"   this->out = out;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int myId = get_global_id(0);\n"
+   +"      int tmp = com_amd_aparapi_test_DummyOOA__getMem( &(this->dummy[myId]));\n"
+   +"      com_amd_aparapi_test_DummyOOA__setMem( &(this->dummy[myId]), (com_amd_aparapi_test_DummyOOA__getMem( &(this->dummy[myId])) + 2));\n"
+   +"      com_amd_aparapi_test_DummyOOA__setMem( &(this->dummy[myId]), (com_amd_aparapi_test_TheOtherOne__getMem( &(this->other[myId])) + com_amd_aparapi_test_ObjectArrayMemberGetterSetter__getSomething(this)));\n"
+   +"      com_amd_aparapi_test_TheOtherOne__setMem( &(this->other[myId]), (com_amd_aparapi_test_TheOtherOne__getMem( &(this->other[myId])) + com_amd_aparapi_test_ObjectArrayMemberGetterSetter__getSomething(this)));\n"
+   +"      com_amd_aparapi_test_DummyOOA__setLongField( &(this->dummy[myId]), (com_amd_aparapi_test_DummyOOA__getLongField( &(this->dummy[myId])) + 2L));\n"
+   +"      com_amd_aparapi_test_DummyOOA__setFloatField( &(this->dummy[myId]), (com_amd_aparapi_test_DummyOOA__getFloatField( &(this->dummy[myId])) + 2.0f));\n"
+   +"      com_amd_aparapi_test_DummyOOA__setBoolField( &(this->dummy[myId]), (com_amd_aparapi_test_DummyOOA__getBoolField( &(this->dummy[myId])) | com_amd_aparapi_test_DummyOOA__isBoolField( &(this->dummy[myId]))));\n"
+   +"      this->out[myId]  = com_amd_aparapi_test_ObjectArrayMemberGetterSetter__getSomething(this);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ObjectArrayMemberGetterSetter.class, expectedException, expectedOpenCL);
+   }
+}
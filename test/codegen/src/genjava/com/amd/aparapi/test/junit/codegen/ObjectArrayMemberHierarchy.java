@@ -0,0 +1,54 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ObjectArrayMemberHierarchy extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ObjectArrayMemberHierarchy(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA_s{\n"
+   +"   float  floatField;\n"
+   +"   int  intField;\n"
+   +"   \n"
+   +"} com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA;\n"
+   +"\n"
+   +"typedef struct This_s{\n"
+   +"   int something;\n"
+   +"   __global com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA *dummy;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"void com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA__setFloatField( __global com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA *this, float x){\n"
+   +"   this->floatField=x;\n"
+   +"   return;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberHierarchy__getSomething(This *this){\n"
+   +"   return(this->something);\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyParent__getIntField( __global com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA *this){\n"
+   +"   return(this->intField);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int something, \n"
+   +"   __global com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA *dummy,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->something = something;\n"
+   +"   this->dummy = dummy;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int myId = get_global_id(0);\n"
+   +"      this->dummy[myId].intField=(com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyParent__getIntField( &(this->dummy[myId])) + 2) + com_amd_aparapi_test_ObjectArrayMemberHierarchy__getSomething(this);\n"
+   +"      com_amd_aparapi_test_ObjectArrayMemberHierarchy$DummyOOA__setFloatField( &(this->dummy[myId]), (this->dummy[myId].floatField + 2.0f));\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ObjectArrayMemberHierarchy.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,47 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class PlayPen extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PlayPen(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int testValue = 10;\n"
+   +"      char pass = 0;\n"
+   +"      if ((testValue % 2)==0 || testValue<=0 && testValue>=100 && (testValue % 4)==0){\n"
+   +"         pass = 1;\n"
+   +"      }\n"
+   +"      if ((testValue<3 || testValue>5) && (testValue<2 || testValue>2) || testValue>5){\n"
+   +"         pass = 1;\n"
+   +"      }\n"
+   +"      char a = 0;\n"
+   +"      char b = 0;\n"
+   +"      char c = 0;\n"
+   +"      char d = 0;\n"
+   +"      char e = 0;\n"
+   +"      char f = 0;\n"
+   +"      if ((a!=0 || b!=0 && c!=0 && d!=0) && e!=0 || f!=0){\n"
+   +"         pass = 1;\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PlayPen.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,33 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class PostDecPostInc extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PostDecPostInc(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int i = 0;\n"
+   +"      int result = 0;\n"
+   +"      result = i-- + i++;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PostDecPostInc.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,34 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class PostIncArrayIndexAndElement extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PostIncArrayIndexAndElement(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *array;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global int *array,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->array = array;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int i = 0;\n"
+   +"      this->array[i++]  = this->array[i] + 1;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PostIncArrayIndexAndElement.class, expectedException, expectedOpenCL);
+   }
+}
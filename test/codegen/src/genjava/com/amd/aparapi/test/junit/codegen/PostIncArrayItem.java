@@ -0,0 +1,37 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class PostIncArrayItem extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PostIncArrayItem(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *values;\n"
+   +"   __global int *results;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global int *values, \n"
+   +"   __global int *results,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->values = values;\n"
+   +"   this->results = results;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int a = 10;\n"
+   +"      this->values[a]  = this->results[a]++;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PostIncArrayItem.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class PostIncArrayItemAsParameter extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PostIncArrayItemAsParameter(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *results;\n"
+   +"   int y;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"int com_amd_aparapi_test_PostIncArrayItemAsParameter__actuallyDoIt(This *this, int a){\n"
+   +"   return(1);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global int *results, \n"
+   +"   int y,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->results = results;\n"
+   +"   this->y = y;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      com_amd_aparapi_test_PostIncArrayItemAsParameter__actuallyDoIt(this, this->results[this->y]++);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PostIncArrayItemAsParameter.class, expectedException, expectedOpenCL);
+   }
+}
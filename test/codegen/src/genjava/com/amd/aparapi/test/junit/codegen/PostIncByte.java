@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+/**
+* This is a nonsense test, but it should be emitted correctly to return the
+    * original value of a
+ */
+public class PostIncByte extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PostIncByte(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"char com_amd_aparapi_test_PostIncByte__incByte(This *this, char a){\n"
+   +"   return(a++);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char startValue = 3; \n"
+   +"      char result = com_amd_aparapi_test_PostIncByte__incByte(this, startValue++);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PostIncByte.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,57 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class PreIncByte extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void PreIncByte(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"char com_amd_aparapi_test_PreIncByte__preIncByte(This *this, char a){\n"
+   +"   a = (char )(a + 1);\n"
+   +"   return(a);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char initValue = 0;\n"
+   +"      char result = com_amd_aparapi_test_PreIncByte__preIncByte(this, ++initValue);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"char com_amd_aparapi_test_PreIncByte__preIncByte(This *this, char a){\n"
+   +"   return(a=(char )(a + 1));\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char initValue = 0;\n"
+   +"      char result = com_amd_aparapi_test_PreIncByte__preIncByte(this, initValue=(char )(initValue + 1));\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.PreIncByte.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,33 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class ReturnPreIncInt extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void ReturnPreIncInt(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"int com_amd_aparapi_test_ReturnPreIncInt__returnPreIncInt(This *this, int value){\n"
+   +"   value++;\n"
+   +"   return(value);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      com_amd_aparapi_test_ReturnPreIncInt__returnPreIncInt(this, 3);\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.ReturnPreIncInt.class, expectedException, expectedOpenCL);
+   }
+}
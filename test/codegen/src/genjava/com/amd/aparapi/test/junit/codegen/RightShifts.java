@@ -0,0 +1,41 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class RightShifts extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void RightShifts(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *iout;\n"
+   +"   int i1;\n"
+   +"   int i2;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global int *iout, \n"
+   +"   int i1,\n"
+   +"   int i2,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->iout = iout;\n"
+   +"   this->i1 = i1;\n"
+   +"   this->i2 = i2;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->iout[1]  = this->i1 >> this->i2;\n"
+   +"      this->iout[2]  = ((unsigned int)this->i1) >> this->i2;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   +"\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.RightShifts.class, expectedException, expectedOpenCL);
+   }
+}
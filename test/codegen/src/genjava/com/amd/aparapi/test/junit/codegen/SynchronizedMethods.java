@@ -0,0 +1,9 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class SynchronizedMethods extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void SynchronizedMethods(){
+   String[] expectedOpenCL = null;
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = com.amd.aparapi.internal.exception.ClassParseException.class;
+       test(com.amd.aparapi.test.SynchronizedMethods.class, expectedException, expectedOpenCL);
+   }
+}
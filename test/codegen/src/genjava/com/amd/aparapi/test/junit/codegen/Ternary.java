@@ -0,0 +1,33 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class Ternary extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void Ternary(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"float com_amd_aparapi_test_Ternary__random(This *this){\n"
+   +"   return(0.1f);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int count = (com_amd_aparapi_test_Ternary__random(this)>0.5f)?1:-1;\n"
+   +"      int foo = 3;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.Ternary.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,33 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class TernaryNested extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void TernaryNested(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"  int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char a = 0;\n"
+   +"      char b = 0;\n"
+   +"      char c = 0;\n"
+   +"      int count = (a!=0)?(b!=0)?1:2:(c!=0)?3:4;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.TernaryNested.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,44 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class UnrelatedIfsWithCommonEndByte extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void UnrelatedIfsWithCommonEndByte(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      char a1 = 1;\n"
+   +"      char a2 = 1;\n"
+   +"      char b = 0;\n"
+   +"      char c = 1;\n"
+   +"      char outer = 1;\n"
+   +"      char result = 0;\n"
+   +"      if (outer!=0 && a1!=0 && a2==0){\n"
+   +"         if (b!=0){\n"
+   +"            result = 1;\n"
+   +"         }\n"
+   +"         if (c!=0){\n"
+   +"            result = 1;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.UnrelatedIfsWithCommonEndByte.class, expectedException, expectedOpenCL);
+   }
+}
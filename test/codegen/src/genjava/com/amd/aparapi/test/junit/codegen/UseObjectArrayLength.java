@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class UseObjectArrayLength extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void UseObjectArrayLength(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global int *out;\n"
+   +"   __global com_amd_aparapi_test_UseObjectArrayLength$Dummy *dummy;\n"
+   +"   int dummy__javaArrayLength;   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   __global int *out,\n"
+   +"   __global com_amd_aparapi_test_UseObjectArrayLength$Dummy *dummy, \n"
+   +"   int dummy__javaArrayLength,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->out = out;\n"
+   +"   this->dummy = dummy;\n"
+   +"   this->dummy__javaArrayLength = dummy__javaArrayLength;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      this->out[0]  = this->dummy__javaArrayLength;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.UseObjectArrayLength.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,100 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class UsesArrayLength extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void UsesArrayLength(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global char  *values;\n"
+   +"   int values__javaArrayLength;\n"
+   +"   __global char  *results;\n"
+   +"   int results__javaArrayLength;\n"
+   +"   __global char  *results2;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"char com_amd_aparapi_test_UsesArrayLength__actuallyDoIt(This *this, int index){\n"
+   +"   int x = 0;\n"
+   +"   char y = this->values[(this->values__javaArrayLength - index)];\n"
+   +"   x = index + this->results__javaArrayLength;\n"
+   +"   return(((this->results__javaArrayLength - x)>0)?1:0);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global char  *values, \n"
+   +"   int values__javaArrayLength, \n"
+   +"   __global char  *results, \n"
+   +"   int results__javaArrayLength, \n"
+   +"   __global char  *results2,\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->values = values;\n"
+   +"   this->values__javaArrayLength = values__javaArrayLength;\n"
+   +"   this->results = results;\n"
+   +"   this->results__javaArrayLength = results__javaArrayLength;\n"
+   +"   this->results2 = results2;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int myId = 0;\n"
+   +"      char x = (this->values__javaArrayLength>0)?1:0;\n"
+   +"      this->results[myId]  = x & com_amd_aparapi_test_UsesArrayLength__actuallyDoIt(this, this->values__javaArrayLength);\n"
+   +"      this->results2[myId]  = (this->results[myId]==0)?1:0;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   ""
+   +"typedef struct This_s{\n"
+   +"   __global char  *values;\n"
+   +"   int values__javaArrayLength;\n"
+   +"   __global char  *results;\n"
+   +"   int results__javaArrayLength;\n"
+   +"   __global char  *results2;\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"char com_amd_aparapi_test_UsesArrayLength__actuallyDoIt(This *this, int index){\n"
+   +"   int x = 0;\n"
+   +"   char y = this->values[(this->values__javaArrayLength - index)];\n"
+   +"   x = index + this->results__javaArrayLength;\n"
+   +"   if ((this->results__javaArrayLength - x)>0){\n"
+   +"      return(1);\n"
+   +"   }\n"
+   +"   return(0);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   __global char  *values, \n"
+   +"   int values__javaArrayLength, \n"
+   +"   __global char  *results, \n"
+   +"   int results__javaArrayLength, \n"
+   +"   __global char  *results2, \n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->values = values;\n"
+   +"   this->values__javaArrayLength = values__javaArrayLength;\n"
+   +"   this->results = results;\n"
+   +"   this->results__javaArrayLength = results__javaArrayLength;\n"
+   +"   this->results2 = results2;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int myId = 0;\n"
+   +"      char x = (this->values__javaArrayLength>0)?1:0;\n"
+   +"      this->results[myId]  = x & com_amd_aparapi_test_UsesArrayLength__actuallyDoIt(this, this->values__javaArrayLength);\n"
+   +"      this->results2[myId]  = (this->results[myId]!=0)?0:1;\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.UsesArrayLength.class, expectedException, expectedOpenCL);
+   }
+}
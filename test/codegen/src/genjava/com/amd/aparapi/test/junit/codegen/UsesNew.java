@@ -0,0 +1,9 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class UsesNew extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void UsesNew(){
+   String[] expectedOpenCL = null;
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = com.amd.aparapi.internal.exception.ClassParseException.class;
+       test(com.amd.aparapi.test.UsesNew.class, expectedException, expectedOpenCL);
+   }
+}
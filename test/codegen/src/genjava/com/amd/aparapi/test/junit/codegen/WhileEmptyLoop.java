@@ -0,0 +1,31 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class WhileEmptyLoop extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void WhileEmptyLoop(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   \n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      for (int x = 10; x--!=0;){}\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.WhileEmptyLoop.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,38 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class WhileFloatCompound extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void WhileFloatCompound(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"   }\n"
+   +"float com_amd_aparapi_test_WhileFloatCompound__randomFunc(This *this){\n"
+   +"   return(1.0f);\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      float v1 = 1.0f;\n"
+   +"      float v2 = 0.0f;\n"
+   +"      float s = 1.0f;\n"
+   +"      for (; s<1.0f && s>0.0f; s = (v1 * v1) + (v2 * v2)){\n"
+   +"         v1 = com_amd_aparapi_test_WhileFloatCompound__randomFunc(this);\n"
+   +"         v2 = com_amd_aparapi_test_WhileFloatCompound__randomFunc(this);\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +" }\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.WhileFloatCompound.class, expectedException, expectedOpenCL);
+   }
+}
@@ -0,0 +1,39 @@
+package com.amd.aparapi.test.junit.codegen;
+import org.junit.Test;
+public class WhileIfElse extends com.amd.aparapi.CodeGenJUnitBase{
+   @Test public void WhileIfElse(){
+   String[] expectedOpenCL = new String[]{
+   ""
+   +"typedef struct This_s{\n"
+   +"   int passid;\n"
+   +"}This;\n"
+   +"int get_pass_id(This *this){\n"
+   +"   return this->passid;\n"
+   +"}\n"
+   +"__kernel void run(\n"
+   +"   int passid\n"
+   +"){\n"
+   +"   This thisStruct;\n"
+   +"   This* this=&thisStruct;\n"
+   +"   this->passid = passid;\n"
+   +"   {\n"
+   +"      int a = 0;\n"
+   +"      int b = 0;\n"
+   +"      int c = 0;\n"
+   +"      int d = 0;\n"
+   +"      for (; a==a; ){\n"
+   +"         if (b==b){\n"
+   +"            c = c;\n"
+   +"         } else {\n"
+   +"            d = d;\n"
+   +"         }\n"
+   +"      }\n"
+   +"      return;\n"
+   +"   }\n"
+   +"}\n"
+   ,
+   };
+   Class<? extends com.amd.aparapi.internal.exception.AparapiException> expectedException = null;
+       test(com.amd.aparapi.test.WhileIfElse.class, expectedException, expectedOpenCL);
+   }
+}
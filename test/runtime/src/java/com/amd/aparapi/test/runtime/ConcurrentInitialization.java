@@ -0,0 +1,125 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+
+/**
+ * Many kernels initializing at once, as in issue #68 but from many threads.
+ */
+public class ConcurrentInitialization{
+
+   static final int threads = 32;
+
+   static final int size = 1024;
+
+   static class AddKernel extends Kernel{
+      final int[] out = new int[size];
+
+      int add;
+
+      @Override public void run() {
+         out[getGlobalId()] = getGlobalId() + add;
+      }
+   }
+
+   static class SquareKernel extends Kernel{
+      final float[] out = new float[size];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = gid * gid;
+      }
+   }
+
+   static class ModulusKernel extends Kernel{
+      final int[] out = new int[size];
+
+      int modulus;
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = (int) (((long) gid * gid) % modulus);
+      }
+   }
+
+   /**
+    * Create a kernel, wait for the other threads, then execute it (which initializes it) and check the result.
+    */
+   static void executeOne(int _thread, CyclicBarrier _start) throws Exception {
+      switch (_thread % 3) {
+         case 0: {
+            final AddKernel kernel = new AddKernel();
+            kernel.add = _thread;
+            _start.await();
+            kernel.execute(size);
+            for (int i = 0; i < size; i++) {
+               assertEquals(i + _thread, kernel.out[i]);
+            }
+            kernel.dispose();
+            break;
+         }
+         case 1: {
+            final SquareKernel kernel = new SquareKernel();
+            _start.await();
+            kernel.execute(size);
+            for (int i = 0; i < size; i++) {
+               assertEquals((float) i * i, kernel.out[i], 0f);
+            }
+            kernel.dispose();
+            break;
+         }
+         default: {
+            final ModulusKernel kernel = new ModulusKernel();
+            kernel.modulus = 2113929217;
+            _start.await();
+            kernel.execute(size);
+            for (int i = 0; i < size; i++) {
+               assertEquals((int) (((long) i * i) % 2113929217), kernel.out[i]);
+            }
+            kernel.dispose();
+            break;
+         }
+      }
+   }
+
+   @Test public void test() throws Exception {
+      final ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         for (int round = 0; round < 4; round++) {
+            final CyclicBarrier start = new CyclicBarrier(threads);
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < threads; thread++) {
+               final int id = thread;
+               futures.add(executor.submit(new Callable<Void>(){
+                  @Override public Void call() throws Exception {
+                     executeOne(id, start);
+                     return (null);
+                  }
+               }));
+            }
+            for (final Future<Void> future : futures) {
+               // Rethrows any failed assertion
+               future.get();
+            }
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   public static void main(String[] args) throws Exception {
+      new ConcurrentInitialization().test();
+      System.out.println("ok");
+   }
+}
@@ -0,0 +1,59 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.model.ModelCache;
+
+public class ConversionFailureCache{
+
+   static final int size = 16;
+
+   static class RecursiveKernel extends Kernel{
+      final int[] out = new int[size];
+
+      int factorial(int n) {
+         return ((n <= 1) ? 1 : (n * factorial(n - 1)));
+      }
+
+      @Override public void run() {
+         out[getGlobalId()] = factorial(getGlobalId() % 8);
+      }
+   }
+
+   private void check(RecursiveKernel kernel) {
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.GPU);
+      kernel.execute(Range.create(size));
+      assertEquals("fell back", Kernel.EXECUTION_MODE.JTP, kernel.getExecutionMode());
+      assertEquals("out[5]", 120, kernel.out[5]);
+      kernel.dispose();
+   }
+
+   @Test public void test() {
+      ModelCache.invalidate(RecursiveKernel.class);
+      assertNull("no failure yet", ModelCache.getConversionFailure(RecursiveKernel.class, "run"));
+
+      check(new RecursiveKernel());
+      if (Config.disableModelCache) {
+         return;
+      }
+
+      final String reason = ModelCache.getConversionFailure(RecursiveKernel.class, "run");
+      assertNotNull("failure recorded", reason);
+      assertTrue("failure listed", ModelCache.getConversionFailures().containsKey(RecursiveKernel.class.getName() + ".run()V"));
+
+      // Later instances fall back without converting again
+      check(new RecursiveKernel());
+      assertEquals("same reason", reason, ModelCache.getConversionFailure(RecursiveKernel.class, "run"));
+
+      ModelCache.invalidate(RecursiveKernel.class);
+      assertNull("invalidated", ModelCache.getConversionFailure(RecursiveKernel.class, "run"));
+   }
+}
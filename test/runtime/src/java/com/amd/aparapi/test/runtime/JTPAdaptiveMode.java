@@ -0,0 +1,140 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.kernel.AdaptiveModeSelector;
+
+public class JTPAdaptiveMode{
+
+   static final List<EXECUTION_MODE> modes = Arrays.asList(EXECUTION_MODE.JTP, EXECUTION_MODE.SEQ);
+
+   static final String key = "Example.run/10";
+
+   /**
+    * Time each mode until the selector chooses, giving JTP and SEQ the given times per execution.
+    */
+   static void explore(AdaptiveModeSelector _selector, long _jtpNanos, long _seqNanos) {
+      for (int i = 0; i < 32 && (_selector.getChosen(key) == null); i++) {
+         final EXECUTION_MODE mode = _selector.select(key, modes);
+         _selector.record(key, mode, (mode == EXECUTION_MODE.JTP) ? _jtpNanos : _seqNanos, 1);
+      }
+   }
+
+   @Test public void choosesFastest() {
+      final AdaptiveModeSelector selector = new AdaptiveModeSelector(null, 0);
+      explore(selector, 1000, 100);
+      assertEquals(EXECUTION_MODE.SEQ, selector.getChosen(key));
+      assertEquals(EXECUTION_MODE.SEQ, selector.select(key, modes));
+
+      // Another size is learned separately
+      assertNull(selector.getChosen("Example.run/20"));
+
+      // The chosen mode becomes slow, a re-probe of the other mode switches
+      for (int i = 0; i < 8; i++) {
+         selector.record(key, EXECUTION_MODE.SEQ, 100000, 1);
+      }
+      assertEquals(EXECUTION_MODE.JTP, selector.getChosen(key));
+   }
+
+   @Test public void reprobes() {
+      final AdaptiveModeSelector selector = new AdaptiveModeSelector(null, 4);
+      explore(selector, 100, 1000);
+      assertEquals(EXECUTION_MODE.JTP, selector.getChosen(key));
+      int probes = 0;
+      for (int i = 0; i < 20; i++) {
+         if (selector.select(key, modes) == EXECUTION_MODE.SEQ) {
+            probes++;
+         }
+      }
+      assertEquals(4, probes);
+   }
+
+   @Test public void failedModeIsNotSelected() {
+      final AdaptiveModeSelector selector = new AdaptiveModeSelector(null, 1);
+      selector.fail(key, EXECUTION_MODE.JTP);
+      for (int i = 0; i < 20; i++) {
+         final EXECUTION_MODE mode = selector.select(key, modes);
+         assertEquals(EXECUTION_MODE.SEQ, mode);
+         selector.record(key, mode, 100, 1);
+      }
+   }
+
+   @Test public void warmStart() throws IOException {
+      final Path directory = Files.createTempDirectory("aparapi-adaptive");
+      final Path file = directory.resolve("modes.properties");
+      try {
+         final AdaptiveModeSelector selector = new AdaptiveModeSelector(file, 0);
+         explore(selector, 100, 1000);
+         // The file is written in the background
+         selector.flush();
+         assertTrue(Files.exists(file));
+
+         final AdaptiveModeSelector warm = new AdaptiveModeSelector(file, 0);
+         assertEquals(EXECUTION_MODE.JTP, warm.getChosen(key));
+         // No exploration, the first execution is in the chosen mode
+         assertEquals(EXECUTION_MODE.JTP, warm.select(key, modes));
+      } finally {
+         Files.deleteIfExists(file);
+         Files.delete(directory);
+      }
+   }
+
+   static class SquareKernel extends Kernel{
+      final int[] in;
+
+      final int[] out;
+
+      SquareKernel(int[] _in, int[] _out) {
+         in = _in;
+         out = _out;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = in[gid] * in[gid];
+      }
+   }
+
+   @Test public void kernelExecutesAdaptively() {
+      final int size = 1024;
+      final int[] in = new int[size];
+      for (int i = 0; i < size; i++) {
+         in[i] = i;
+      }
+      final SquareKernel kernel = new SquareKernel(in, new int[size]);
+      kernel.addExecutionModes(EXECUTION_MODE.JTP, EXECUTION_MODE.SEQ);
+      kernel.setAdaptiveExecutionMode(true);
+
+      // Groups of one work item, so SEQ is a candidate
+      final Range range = Range.create(size, 1);
+      for (int i = 0; i < 16; i++) {
+         Arrays.fill(kernel.out, 0);
+         kernel.execute(range);
+         // The selected mode is only used for the execution
+         assertEquals(EXECUTION_MODE.JTP, kernel.getExecutionMode());
+         for (int gid = 0; gid < size; gid++) {
+            assertEquals(gid * gid, kernel.out[gid]);
+         }
+      }
+
+      final EXECUTION_MODE chosen = AdaptiveModeSelector.getSelector().getChosen(
+            AdaptiveModeSelector.getKey(SquareKernel.class, "run", range));
+      assertNotNull(chosen);
+      assertTrue(modes.contains(chosen));
+      kernel.dispose();
+   }
+}
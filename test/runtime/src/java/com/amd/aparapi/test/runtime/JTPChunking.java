@@ -0,0 +1,77 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+public class JTPChunking{
+
+   static final int size = 1024;
+
+   static final int groupSize = 16;
+
+   static class BarrierFreeKernel extends Kernel{
+      final int[] visits = new int[size];
+
+      final int[] groupIds = new int[size];
+
+      final int[] localIds = new int[size];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         visits[gid]++;
+         groupIds[gid] = getGroupId();
+         localIds[gid] = getLocalId();
+      }
+   }
+
+   static class ReverseGroupKernel extends Kernel{
+      final int[] in = new int[size];
+
+      final int[] out = new int[size];
+
+      @Local final int[] buffer = new int[groupSize];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         final int lid = getLocalId();
+         buffer[lid] = in[gid];
+         localBarrier();
+         out[gid] = buffer[getLocalSize() - 1 - lid];
+         localBarrier(); // In JTP the next group reuses buffer, so keep the groups in lockstep
+      }
+   }
+
+   @Test public void barrierFree() {
+      final BarrierFreeKernel kernel = new BarrierFreeKernel();
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.execute(Range.create(size, groupSize), 3);
+
+      assertTrue("ran in JTP", kernel.getExecutionMode() == Kernel.EXECUTION_MODE.JTP);
+      for (int i = 0; i < size; i++) {
+         assertEquals("visits[" + i + "]", 3, kernel.visits[i]);
+         assertEquals("groupIds[" + i + "]", i / groupSize, kernel.groupIds[i]);
+         assertEquals("localIds[" + i + "]", i % groupSize, kernel.localIds[i]);
+      }
+      kernel.dispose();
+   }
+
+   @Test public void barrier() {
+      final ReverseGroupKernel kernel = new ReverseGroupKernel();
+      for (int i = 0; i < size; i++) {
+         kernel.in[i] = i;
+      }
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.execute(Range.create(size, groupSize));
+
+      for (int i = 0; i < size; i++) {
+         final int group = i / groupSize;
+         assertEquals("out[" + i + "]", (group * groupSize) + (groupSize - 1 - (i % groupSize)), kernel.out[i]);
+      }
+      kernel.dispose();
+   }
+}
@@ -0,0 +1,79 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+public class JTPCloneReuse{
+
+   static final int size = 256;
+
+   static final int groupSize = 8;
+
+   static class ScaleKernel extends Kernel{
+      int scale = 1;
+
+      float offset = 0f;
+
+      int[] out = new int[size];
+
+      final Kernel[] clones = new Kernel[size];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = (gid * scale) + (int) offset;
+         clones[gid] = this;
+      }
+   }
+
+   static class ScaleBarrierKernel extends ScaleKernel{
+      @Override public void run() {
+         super.run();
+         localBarrier();
+      }
+   }
+
+   private void check(ScaleKernel kernel) {
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.execute(Range.create(size, groupSize));
+      final Kernel[] firstClones = kernel.clones.clone();
+
+      kernel.scale = 3;
+      kernel.offset = 2f;
+      kernel.out = new int[size];
+      kernel.execute(Range.create(size, groupSize), 2);
+
+      for (int i = 0; i < size; i++) {
+         assertEquals("out[" + i + "]", (i * 3) + 2, kernel.out[i]);
+         if (!Config.enableJTPWorkStealing) {
+            assertSame("clone for " + i, firstClones[i], kernel.clones[i]);
+         }
+      }
+
+      // With work stealing any pooled clone may run any group, but we should still only be using pooled clones
+      final Set<Kernel> clones = Collections.newSetFromMap(new IdentityHashMap<Kernel, Boolean>());
+      clones.addAll(Arrays.asList(firstClones));
+      clones.addAll(Arrays.asList(kernel.clones));
+      assertTrue("clones used " + clones.size(), clones.size() <= Math.max(groupSize, Config.jtpParallelism));
+      kernel.dispose();
+   }
+
+   @Test public void barrierFree() {
+      check(new ScaleKernel());
+   }
+
+   @Test public void barrier() {
+      check(new ScaleBarrierKernel());
+   }
+}
@@ -0,0 +1,133 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.KernelWarmUp;
+import com.amd.aparapi.internal.opencl.OpenCLLoader;
+import com.amd.aparapi.internal.model.ModelCache;
+
+public class JTPCompile{
+
+   static final int size = 1024;
+
+   static class AddKernel extends Kernel{
+      final int[] in = new int[size];
+
+      final int[] out = new int[size];
+
+      int add;
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = in[gid] + add;
+      }
+   }
+
+   static class ScaleKernel extends Kernel{
+      final float[] values = new float[size];
+
+      @Override public void run() {
+         values[getGlobalId()] *= 2f;
+      }
+   }
+
+   static class RecursiveKernel extends Kernel{
+      final int[] out = new int[size];
+
+      int factorial(int n) {
+         return ((n <= 1) ? 1 : (n * factorial(n - 1)));
+      }
+
+      @Override public void run() {
+         out[getGlobalId()] = factorial(getGlobalId() % 8);
+      }
+   }
+
+   static void checkAdd(AddKernel _kernel) {
+      for (int i = 0; i < size; i++) {
+         _kernel.in[i] = i;
+      }
+      _kernel.add = 3;
+      _kernel.execute(size);
+      for (int i = 0; i < size; i++) {
+         assertEquals(i + 3, _kernel.out[i]);
+      }
+   }
+
+   @Test public void compileKeepsJTPMode() throws Exception {
+      final AddKernel kernel = new AddKernel();
+      kernel.setExecutionMode(EXECUTION_MODE.JTP);
+      assertSame(kernel, kernel.compile());
+      assertEquals(EXECUTION_MODE.JTP, kernel.getExecutionMode());
+      assertNotNull(ModelCache.getEntrypoint(AddKernel.class, "run"));
+      checkAdd(kernel);
+      kernel.dispose();
+   }
+
+   @Test public void compileAsync() throws Exception {
+      final AddKernel kernel = new AddKernel();
+      kernel.setExecutionMode(EXECUTION_MODE.JTP);
+      assertSame(kernel, kernel.compileAsync(null).get());
+      checkAdd(kernel);
+      kernel.dispose();
+   }
+
+   @Test public void precompileGeneratesOpenCL() throws Exception {
+      final List<Class<? extends Kernel>> classes = new ArrayList<Class<? extends Kernel>>();
+      classes.add(AddKernel.class);
+      classes.add(ScaleKernel.class);
+      classes.add(RecursiveKernel.class);
+      final Map<Class<? extends Kernel>, String> failures = KernelWarmUp.precompileAsync(classes).get();
+
+      assertEquals(1, failures.size());
+      assertTrue(failures.containsKey(RecursiveKernel.class));
+      assertNotNull(ModelCache.getConversionFailure(RecursiveKernel.class, "run"));
+      assertNotNull(ModelCache.getEntrypoint(AddKernel.class, "run").getOpenCL());
+      assertNotNull(ModelCache.getEntrypoint(ScaleKernel.class, "run").getOpenCL());
+
+      // A kernel which can't be converted still executes in JTP
+      final RecursiveKernel kernel = new RecursiveKernel();
+      kernel.execute(size);
+      assertEquals(5040, kernel.out[7]);
+      kernel.dispose();
+   }
+
+   @Test public void compileMany() {
+      final List<AddKernel> kernels = Arrays.asList(new AddKernel(), new AddKernel(), new AddKernel(), new AddKernel());
+      for (final AddKernel kernel : kernels) {
+         kernel.setExecutionMode(EXECUTION_MODE.JTP);
+      }
+      KernelWarmUp.compile(kernels, null);
+      for (final AddKernel kernel : kernels) {
+         checkAdd(kernel);
+         kernel.dispose();
+      }
+   }
+
+   @Test public void compileFallsBack() {
+      assumeTrue(OpenCLLoader.isOpenCLAvailable());
+      final AddKernel kernel = new AddKernel();
+      kernel.setExecutionMode(EXECUTION_MODE.GPU);
+      kernel.compile();
+      // Without a usable OpenCL device compile() falls back, as the first execution would have
+      if (kernel.getExecutionMode() != EXECUTION_MODE.GPU) {
+         assertFalse(kernel.getExecutionMode().isOpenCL());
+      }
+      checkAdd(kernel);
+      kernel.dispose();
+   }
+}
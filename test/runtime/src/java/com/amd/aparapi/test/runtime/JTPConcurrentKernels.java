@@ -0,0 +1,109 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.kernel.JTPScheduler;
+
+public class JTPConcurrentKernels{
+
+   static final int size = 4096;
+
+   static final int groupSize = 32;
+
+   static final int kernels = 32;
+
+   static class AddKernel extends Kernel{
+      final int[] values = new int[size];
+
+      int delta;
+
+      @Override public void run() {
+         values[getGlobalId()] += delta;
+      }
+   }
+
+   static class SumGroupKernel extends Kernel{
+      final int[] values = new int[size];
+
+      @Local final int[] buffer = new int[groupSize];
+
+      @Override public void run() {
+         final int lid = getLocalId();
+         buffer[lid] = values[getGlobalId()];
+         localBarrier();
+         if (lid == 0) {
+            int sum = 0;
+            for (int i = 0; i < getLocalSize(); i++) {
+               sum += buffer[i];
+            }
+            values[getGlobalId()] = sum;
+         }
+         localBarrier();
+      }
+   }
+
+   @Test public void test() throws Exception {
+      final ExecutorService callers = Executors.newFixedThreadPool(8);
+      final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+      for (int k = 0; k < kernels; k++) {
+         final int kernelId = k;
+         results.add(callers.submit(new Callable<Boolean>(){
+            @Override public Boolean call() {
+               if ((kernelId % 4) == 0) {
+                  final SumGroupKernel kernel = new SumGroupKernel();
+                  for (int i = 0; i < size; i++) {
+                     kernel.values[i] = 1;
+                  }
+                  kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+                  kernel.execute(Range.create(size, groupSize));
+                  kernel.dispose();
+                  for (int i = 0; i < size; i += groupSize) {
+                     if (kernel.values[i] != groupSize) {
+                        return (false);
+                     }
+                  }
+               } else {
+                  final AddKernel kernel = new AddKernel();
+                  kernel.delta = kernelId;
+                  kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+                  kernel.execute(Range.create(size, groupSize), 5);
+                  kernel.dispose();
+                  for (int i = 0; i < size; i++) {
+                     if (kernel.values[i] != (kernelId * 5)) {
+                        return (false);
+                     }
+                  }
+               }
+               return (true);
+            }
+         }));
+      }
+
+      for (int k = 0; k < kernels; k++) {
+         assertTrue("kernel " + k, results.get(k).get());
+      }
+      callers.shutdown();
+
+      final JTPScheduler scheduler = JTPScheduler.getScheduler();
+      assertTrue("parallelism", scheduler.getParallelism() >= 1);
+      assertEquals("queue depth", 0, scheduler.getQueueDepth());
+      if (!Config.disableJTPChunking && !Config.enableJTPWorkStealing) {
+         assertTrue("completed tasks", scheduler.getCompletedTaskCount() > 0);
+      }
+      assertTrue("utilization", (scheduler.getUtilization() >= 0.0) && (scheduler.getUtilization() <= 1.0));
+   }
+}
@@ -0,0 +1,101 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.internal.kernel.DirtyRanges;
+import com.amd.aparapi.internal.opencl.OpenCLLoader;
+
+public class JTPDirtyRanges{
+
+   static final int size = 4096;
+
+   static class AddKernel extends Kernel{
+      final float[] values = new float[size];
+
+      final float[] sums = new float[size];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         sums[gid] = sums[gid] + values[gid];
+      }
+   }
+
+   @Test public void merge() {
+      final DirtyRanges ranges = new DirtyRanges();
+      ranges.add(10, 20);
+      ranges.add(40, 50);
+      ranges.add(0, 5);
+      ranges.add(30, 30);
+      assertEquals(3, ranges.size());
+      assertArrayEquals(new int[] {
+            0,
+            20,
+            40,
+            40,
+            160,
+            40
+      }, ranges.toByteRanges(4));
+
+      // Touching and overlapping ranges are merged
+      ranges.add(5, 10);
+      ranges.add(15, 45);
+      assertEquals(1, ranges.size());
+      assertEquals(50, ranges.getElementCount());
+      assertArrayEquals(new int[] {
+            0,
+            50
+      }, ranges.toByteRanges(1));
+   }
+
+   @Test(expected = ArrayIndexOutOfBoundsException.class) public void outOfBounds() {
+      new AddKernel().put(new float[size], size - 1, size + 1);
+   }
+
+   @Test(expected = IllegalArgumentException.class) public void reversed() {
+      new AddKernel().get(new float[size], 2, 1);
+   }
+
+   @Test public void explicitRanges() {
+      assumeTrue(OpenCLLoader.isOpenCLAvailable());
+      final AddKernel kernel = new AddKernel();
+      kernel.setExplicit(true);
+      for (int i = 0; i < size; i++) {
+         kernel.values[i] = 1f;
+      }
+      kernel.put(kernel.values).put(kernel.sums).execute(size);
+
+      // Only the changed values are written and only some of the sums are read back
+      kernel.values[7] = 2f;
+      kernel.values[size - 1] = 3f;
+      kernel.put(kernel.values, 7, 8).put(kernel.values, size - 1, size).execute(size);
+      kernel.get(kernel.sums, 0, 16).get(kernel.sums, size - 16, size);
+      assertEquals(2f, kernel.sums[0], 0f);
+      assertEquals(3f, kernel.sums[7], 0f);
+      assertEquals(4f, kernel.sums[size - 1], 0f);
+      assertEquals(0f, kernel.sums[size / 2], 0f);
+      kernel.dispose();
+   }
+
+   @Test public void rangeAfterLeavingOpenCL() {
+      assumeTrue(OpenCLLoader.isOpenCLAvailable());
+      final AddKernel kernel = new AddKernel();
+      kernel.setExplicit(true);
+      for (int i = 0; i < size; i++) {
+         kernel.values[i] = 1f;
+      }
+      kernel.put(kernel.values).put(kernel.sums).execute(size);
+      assumeTrue(kernel.getExecutionMode().isOpenCL());
+
+      // The sums are only on the device, a ranged get in JTP mode must still fetch them
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.get(kernel.sums, 0, 16);
+      assertEquals(1f, kernel.sums[0], 0f);
+      assertEquals(1f, kernel.sums[size - 1], 0f);
+      kernel.dispose();
+   }
+}
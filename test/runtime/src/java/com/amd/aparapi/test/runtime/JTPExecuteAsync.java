@@ -0,0 +1,81 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+public class JTPExecuteAsync{
+
+   static final int size = 1024;
+
+   static class IncrementKernel extends Kernel{
+      final int[] values = new int[size];
+
+      @Override public void run() {
+         values[getGlobalId()]++;
+      }
+   }
+
+   @Test public void inOrderPerKernel() throws Exception {
+      final IncrementKernel kernel = new IncrementKernel();
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+
+      final List<Future<Kernel>> futures = new ArrayList<Future<Kernel>>();
+      for (int i = 0; i < 8; i++) {
+         futures.add(kernel.executeAsync(Range.create(size), 2));
+      }
+
+      assertSame("result", kernel, futures.get(futures.size() - 1).get());
+      for (final Future<Kernel> future : futures) {
+         assertTrue("earlier executions completed first", future.isDone());
+      }
+      for (int i = 0; i < size; i++) {
+         assertEquals("values[" + i + "]", 16, kernel.values[i]);
+      }
+      kernel.dispose();
+   }
+
+   @Test public void manyKernelsInFlight() throws Exception {
+      final List<IncrementKernel> kernels = new ArrayList<IncrementKernel>();
+      final List<Future<Kernel>> futures = new ArrayList<Future<Kernel>>();
+      for (int k = 0; k < 16; k++) {
+         final IncrementKernel kernel = new IncrementKernel();
+         kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+         kernels.add(kernel);
+         futures.add(kernel.executeAsync(Range.create(size, 16), k + 1));
+      }
+
+      for (int k = 0; k < kernels.size(); k++) {
+         futures.get(k).get();
+         assertEquals("kernel " + k, k + 1, kernels.get(k).values[size - 1]);
+         kernels.get(k).dispose();
+      }
+   }
+
+   @Test public void failureIsReported() throws Exception {
+      final IncrementKernel kernel = new IncrementKernel();
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      try {
+         kernel.executeAsync(null).get();
+         fail("expected an ExecutionException");
+      } catch (final ExecutionException e) {
+         assertTrue("cause " + e.getCause(), e.getCause() instanceof IllegalStateException);
+      }
+
+      // The kernel is still usable
+      kernel.executeAsync(Range.create(size)).get();
+      assertEquals("values[0]", 1, kernel.values[0]);
+      kernel.dispose();
+   }
+}
@@ -0,0 +1,138 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+public class JTPExecuteBatch{
+
+   static final int size = 1024;
+
+   static class OffsetKernel extends Kernel{
+      final int[] offsets;
+
+      final float[] in;
+
+      final float[] out;
+
+      OffsetKernel(int[] _offsets, float[] _in, float[] _out) {
+         offsets = _offsets;
+         in = _in;
+         out = _out;
+      }
+
+      @Override public void run() {
+         final int i = offsets[getPassId()] + getGlobalId();
+         out[i] = in[i] * 2f;
+      }
+   }
+
+   /**
+    * Row <code>passId+1</code> is computed from row <code>passId</code>, reading an element written by another work item.
+    */
+   static class RowKernel extends Kernel{
+      final int[] grid;
+
+      RowKernel(int[] _grid) {
+         grid = _grid;
+      }
+
+      @Override public void run() {
+         final int row = getPassId();
+         final int gid = getGlobalId();
+         grid[((row + 1) * size) + gid] = grid[(row * size) + ((gid + 1) % size)] + 1;
+      }
+   }
+
+   static class BarrierKernel extends Kernel{
+      final int[] passIds;
+
+      @Local final int[] scratch = new int[16];
+
+      BarrierKernel(int[] _passIds) {
+         passIds = _passIds;
+      }
+
+      @Override public void run() {
+         scratch[getLocalId()] = getPassId();
+         localBarrier();
+         passIds[(getPassId() * 16) + getGlobalId()] = scratch[(getLocalId() + 1) % 16];
+      }
+   }
+
+   @Test public void offsets() {
+      final float[] in = new float[size];
+      final float[] out = new float[size];
+      for (int i = 0; i < size; i++) {
+         in[i] = i;
+      }
+
+      // Partitions of different sizes covering the whole array
+      final int[] offsets = new int[] {
+            0,
+            1,
+            33,
+            100,
+            612
+      };
+      final List<Range> ranges = new ArrayList<Range>();
+      for (int p = 0; p < offsets.length; p++) {
+         final int end = (p + 1 < offsets.length) ? offsets[p + 1] : size;
+         ranges.add(Range.create(end - offsets[p], 1));
+      }
+
+      final OffsetKernel kernel = new OffsetKernel(offsets, in, out);
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.executeBatch(ranges);
+      for (int i = 0; i < size; i++) {
+         assertEquals("out[" + i + "]", i * 2f, out[i], 0f);
+      }
+      kernel.dispose();
+   }
+
+   @Test public void inOrder() {
+      final int rows = 16;
+      final int[] grid = new int[(rows + 1) * size];
+      for (int i = 0; i < size; i++) {
+         grid[i] = i;
+      }
+
+      final List<Range> ranges = new ArrayList<Range>();
+      for (int row = 0; row < rows; row++) {
+         ranges.add(Range.create(size, 16));
+      }
+
+      final RowKernel kernel = new RowKernel(grid);
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.executeBatch(ranges);
+      for (int row = 0; row <= rows; row++) {
+         for (int i = 0; i < size; i++) {
+            assertEquals("grid[" + row + "][" + i + "]", ((i + row) % size) + row, grid[(row * size) + i]);
+         }
+      }
+      kernel.dispose();
+   }
+
+   @Test public void barriers() {
+      final int passes = 4;
+      final int[] passIds = new int[passes * 16];
+      final List<Range> ranges = new ArrayList<Range>();
+      for (int pass = 0; pass < passes; pass++) {
+         ranges.add(Range.create(16, 16));
+      }
+
+      final BarrierKernel kernel = new BarrierKernel(passIds);
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.executeBatch(ranges);
+      for (int i = 0; i < passIds.length; i++) {
+         assertEquals("passIds[" + i + "]", i / 16, passIds[i]);
+      }
+      kernel.dispose();
+   }
+}
@@ -0,0 +1,63 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.kernel.KernelLoop;
+
+public class JTPKernelLoop{
+
+   static final int size = 512;
+
+   static class SquareKernel extends Kernel{
+      final int[] out = new int[size];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = gid * gid;
+      }
+   }
+
+   static class IdKernel extends Kernel{
+      final int[] out = new int[size];
+
+      @Override public void run() {
+         out[getGlobalId()] = (getGroupId() * 1000) + getLocalId();
+      }
+   }
+
+   @Test public void loopPerKernelClass() {
+      final KernelLoop squareLoop = KernelLoop.getKernelLoop(SquareKernel.class);
+      final KernelLoop idLoop = KernelLoop.getKernelLoop(IdKernel.class);
+
+      assertSame("one loop per kernel class", squareLoop, KernelLoop.getKernelLoop(SquareKernel.class));
+      if (!Config.disableJTPLoopSpecialization) {
+         assertNotSame("kernel classes have their own loops", squareLoop, idLoop);
+         assertNotSame("loop classes are private copies", squareLoop.getClass(), idLoop.getClass());
+         assertEquals("copies of the same loop", squareLoop.getClass().getName(), idLoop.getClass().getName());
+      }
+   }
+
+   @Test public void execute() {
+      final SquareKernel square = new SquareKernel();
+      square.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      square.execute(Range.create(size, 32));
+
+      final IdKernel id = new IdKernel();
+      id.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      id.execute(Range.create(size, 32));
+
+      for (int i = 0; i < size; i++) {
+         assertEquals("square[" + i + "]", i * i, square.out[i]);
+         assertEquals("id[" + i + "]", ((i / 32) * 1000) + (i % 32), id.out[i]);
+      }
+      square.dispose();
+      id.dispose();
+   }
+}
@@ -0,0 +1,110 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.KernelPool;
+
+public class JTPKernelPool{
+
+   static class ScaleKernel extends Kernel{
+      int[] in;
+
+      int[] out;
+
+      int scale;
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = in[gid] * scale;
+      }
+   }
+
+   @Test public void concurrentRequests() throws Exception {
+      final ScaleKernel prototype = new ScaleKernel();
+      prototype.setExecutionMode(EXECUTION_MODE.JTP);
+      final KernelPool<ScaleKernel> pool = new KernelPool<ScaleKernel>(prototype, 4);
+
+      final ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+         for (int request = 0; request < 64; request++) {
+            final int scale = request;
+            futures.add(executor.submit(new Callable<Void>(){
+               @Override public Void call() throws Exception {
+                  final int size = 256 + scale;
+                  final ScaleKernel kernel = pool.borrow();
+                  try {
+                     assertNotSame(prototype, kernel);
+                     assertEquals(EXECUTION_MODE.JTP, kernel.getExecutionMode());
+                     kernel.in = new int[size];
+                     kernel.out = new int[size];
+                     kernel.scale = scale;
+                     for (int i = 0; i < size; i++) {
+                        kernel.in[i] = i;
+                     }
+                     kernel.execute(size);
+                     for (int i = 0; i < size; i++) {
+                        assertEquals(i * scale, kernel.out[i]);
+                     }
+                  } finally {
+                     pool.release(kernel);
+                  }
+                  return (null);
+               }
+            }));
+         }
+         for (final Future<Void> future : futures) {
+            future.get();
+         }
+      } finally {
+         executor.shutdown();
+      }
+
+      assertTrue(pool.getSize() <= 4);
+      assertEquals(pool.getSize(), pool.getIdleCount());
+      assertEquals(64, pool.getBorrowCount());
+      assertTrue(pool.getMaxWaitNanos() <= pool.getTotalWaitNanos());
+      pool.dispose();
+   }
+
+   @Test public void reusesAndTimesOut() throws Exception {
+      final KernelPool<ScaleKernel> pool = new KernelPool<ScaleKernel>(new ScaleKernel(), 1);
+      final ScaleKernel first = pool.borrow();
+      assertNull(pool.borrow(10, TimeUnit.MILLISECONDS));
+      assertEquals(1, pool.getTimeoutCount());
+      pool.release(first);
+      assertSame(first, pool.borrow(10, TimeUnit.MILLISECONDS));
+      pool.release(first);
+      assertEquals(1, pool.getSize());
+      assertEquals(2, pool.getBorrowCount());
+
+      try {
+         pool.release(first);
+         fail("a copy was returned twice");
+      } catch (final IllegalArgumentException expected) {
+      }
+      try {
+         pool.release(new ScaleKernel());
+         fail("a kernel from outside the pool was accepted");
+      } catch (final IllegalArgumentException expected) {
+      }
+      pool.dispose();
+   }
+}
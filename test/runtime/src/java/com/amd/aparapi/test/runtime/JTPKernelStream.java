@@ -0,0 +1,96 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.KernelStream;
+
+public class JTPKernelStream{
+
+   static final int size = 10037;
+
+   /**
+    * Adds each element to the next one and to its global index.
+    */
+   static class PairKernel extends Kernel{
+      FloatBuffer in;
+
+      FloatBuffer out;
+
+      long offset;
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         float next = 0f;
+         if ((gid + 1) < in.capacity()) {
+            next = in.get(gid + 1);
+         }
+         out.put(gid, in.get(gid) + next + (offset + gid));
+      }
+   }
+
+   static float expected(int _i) {
+      return (_i + ((_i + 1) < size ? (_i + 1) : 0) + _i);
+   }
+
+   static KernelStream stream() {
+      final PairKernel kernel = new PairKernel();
+      kernel.setExecutionMode(EXECUTION_MODE.JTP);
+      return (new KernelStream(kernel, "in", "out").setOffsetField("offset").setWindowElements(1000).setOverlapElements(1));
+   }
+
+   @Test public void files() throws Exception {
+      final File inFile = File.createTempFile("aparapi", ".in");
+      final File outFile = File.createTempFile("aparapi", ".out");
+      try {
+         final RandomAccessFile in = new RandomAccessFile(inFile, "rw");
+         final ByteBuffer bytes = ByteBuffer.allocate(size * 4).order(ByteOrder.nativeOrder());
+         for (int i = 0; i < size; i++) {
+            bytes.putFloat(i);
+         }
+         bytes.flip();
+         in.getChannel().write(bytes);
+
+         final RandomAccessFile out = new RandomAccessFile(outFile, "rw");
+         final KernelStream stream = stream();
+         assertEquals(size, stream.execute(in.getChannel(), out.getChannel()));
+         in.close();
+
+         final FloatBuffer result = out.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, out.length())
+               .order(ByteOrder.nativeOrder()).asFloatBuffer();
+         assertEquals(size, result.capacity());
+         for (int i = 0; i < size; i++) {
+            assertEquals(expected(i), result.get(i), 0f);
+         }
+         out.close();
+         stream.getKernel().dispose();
+      } finally {
+         inFile.delete();
+         outFile.delete();
+      }
+   }
+
+   @Test public void buffers() {
+      final ByteBuffer in = ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder());
+      for (int i = 0; i < size; i++) {
+         in.putFloat(i * 4, i);
+      }
+      final ByteBuffer out = ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder());
+      final KernelStream stream = stream();
+      assertEquals(size, stream.execute(in, out));
+      for (int i = 0; i < size; i++) {
+         assertEquals(expected(i), out.getFloat(i * 4), 0f);
+      }
+      stream.getKernel().dispose();
+   }
+}
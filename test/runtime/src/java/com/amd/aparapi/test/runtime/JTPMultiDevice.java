@@ -0,0 +1,141 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.MultiDeviceKernel;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.device.Device;
+import com.amd.aparapi.device.JavaDevice;
+
+public class JTPMultiDevice{
+
+   static final int size = 4096;
+
+   static class ScaleKernel extends Kernel{
+      float[] in;
+
+      float[] out;
+
+      float scale;
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = (in[gid] * scale) + getLocalId();
+      }
+   }
+
+   static class LocalKernel extends Kernel{
+      int[] out;
+
+      @Local final int[] scratch = new int[64];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         scratch[getLocalId()] = gid;
+         localBarrier();
+         out[gid] = scratch[(getLocalId() + 1) % getLocalSize()];
+         // In JTP the next group reuses scratch
+         localBarrier();
+      }
+   }
+
+   static class NeighbourKernel extends Kernel{
+      final int[] out = new int[size + 1];
+
+      @Override public void run() {
+         out[getGlobalId() + 1] = 1;
+      }
+   }
+
+   static class GroupIdKernel extends Kernel{
+      final int[] out = new int[size];
+
+      @Override public void run() {
+         out[getGlobalId()] = getGroupId();
+      }
+   }
+
+   static final List<Device> devices = Arrays.<Device> asList(new JavaDevice(), new JavaDevice(), new JavaDevice());
+
+   @Test public void matchesSingleDevice() {
+      final ScaleKernel kernel = new ScaleKernel();
+      kernel.in = new float[size];
+      for (int i = 0; i < size; i++) {
+         kernel.in[i] = i;
+      }
+      final Range range = Range.create(size, 64);
+
+      final float[] expected = new float[size];
+      kernel.out = expected;
+      kernel.scale = 3f;
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.execute(range);
+
+      final MultiDeviceKernel multi = new MultiDeviceKernel(kernel, devices);
+      for (int i = 0; i < 5; i++) {
+         // Field values are picked up on each execution
+         kernel.out = new float[size];
+         multi.execute(range);
+         assertArrayEquals(expected, kernel.out, 0f);
+      }
+
+      final double[] weights = multi.getWeights();
+      assertEquals(devices.size(), weights.length);
+      double total = 0;
+      for (final double weight : weights) {
+         assertTrue(weight > 0);
+         total += weight;
+      }
+      assertEquals(1.0, total, 1e-9);
+
+      multi.dispose();
+      kernel.dispose();
+   }
+
+   @Test public void localArrays() {
+      final LocalKernel kernel = new LocalKernel();
+      kernel.out = new int[size];
+      final MultiDeviceKernel multi = new MultiDeviceKernel(kernel, devices);
+      multi.execute(Range.create(size, 64));
+      for (int gid = 0; gid < size; gid++) {
+         assertEquals(((gid / 64) * 64) + (((gid % 64) + 1) % 64), kernel.out[gid]);
+      }
+      multi.dispose();
+   }
+
+   @Test public void fewerGroupsThanDevices() {
+      final ScaleKernel kernel = new ScaleKernel();
+      kernel.in = new float[128];
+      kernel.out = new float[128];
+      kernel.scale = 1f;
+      Arrays.fill(kernel.in, 2f);
+      final MultiDeviceKernel multi = new MultiDeviceKernel(kernel, devices);
+      multi.execute(Range.create(128, 64));
+      for (int gid = 0; gid < 128; gid++) {
+         assertEquals(2f + (gid % 64), kernel.out[gid], 0f);
+      }
+      multi.dispose();
+   }
+
+   @Test public void refusesUnprovableWrites() {
+      try {
+         new MultiDeviceKernel(new NeighbourKernel(), devices);
+         fail("a kernel writing its neighbour's element was accepted");
+      } catch (final IllegalArgumentException expected) {
+      }
+      try {
+         new MultiDeviceKernel(new GroupIdKernel(), devices);
+         fail("a kernel using getGroupId() was accepted");
+      } catch (final IllegalArgumentException expected) {
+      }
+   }
+}
@@ -0,0 +1,117 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.internal.exception.ClassParseException;
+import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.ModelCache;
+import com.amd.aparapi.internal.opencl.OpenCLLoader;
+import com.amd.aparapi.internal.util.NioBufferUtil;
+import com.amd.aparapi.internal.writer.KernelWriter;
+
+public class JTPNioBuffers{
+
+   static final int size = 1024;
+
+   static class ScaleKernel extends Kernel{
+      FloatBuffer in;
+
+      FloatBuffer out;
+
+      ByteBuffer offsets;
+
+      float scale;
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out.put(gid, (in.get(gid) * scale) + offsets.get(gid) + out.capacity());
+      }
+   }
+
+   static class RelativeKernel extends Kernel{
+      FloatBuffer out;
+
+      @Override public void run() {
+         out.put(getGlobalId());
+      }
+   }
+
+   static FloatBuffer allocateFloats(int _size) {
+      return (ByteBuffer.allocateDirect(_size * 4).order(ByteOrder.nativeOrder()).asFloatBuffer());
+   }
+
+   static void check(ScaleKernel _kernel) {
+      for (int i = 0; i < size; i++) {
+         _kernel.in.put(i, i);
+         _kernel.offsets.put(i, (byte) (i % 100));
+      }
+      _kernel.scale = 2f;
+      _kernel.execute(size);
+      for (int i = 0; i < size; i++) {
+         assertEquals((i * 2f) + (i % 100) + size, _kernel.out.get(i), 0f);
+      }
+   }
+
+   @Test public void directBuffers() {
+      final ScaleKernel kernel = new ScaleKernel();
+      kernel.setExecutionMode(EXECUTION_MODE.JTP);
+      kernel.in = allocateFloats(size);
+      kernel.out = allocateFloats(size);
+      kernel.offsets = ByteBuffer.allocateDirect(size);
+      check(kernel);
+      kernel.dispose();
+   }
+
+   @Test public void heapBuffersFallBack() {
+      assumeTrue(OpenCLLoader.isOpenCLAvailable());
+      // OpenCL can't use a heap buffer in place, so the kernel executes in Java
+      final ScaleKernel kernel = new ScaleKernel();
+      kernel.in = FloatBuffer.allocate(size);
+      kernel.out = ByteBuffer.allocateDirect(size * 4).order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+      kernel.offsets = ByteBuffer.allocate(size);
+      check(kernel);
+      kernel.dispose();
+   }
+
+   @Test public void buffersAreGlobalPointers() throws Exception {
+      final Entrypoint entrypoint = ModelCache.getEntrypoint(ScaleKernel.class, "run");
+      assertTrue(entrypoint.getArrayFieldAccesses().contains("in"));
+      assertTrue(entrypoint.getArrayFieldAssignments().contains("out"));
+      assertTrue(entrypoint.getArrayFieldArrayLengthUsed().contains("out"));
+
+      final String openCL = KernelWriter.writeToString(entrypoint);
+      assertTrue(openCL, openCL.contains("__global float *in"));
+      assertTrue(openCL, openCL.contains("__global char  *offsets"));
+      assertTrue(openCL, openCL.contains("this->out["));
+      assertTrue(openCL, openCL.contains("this->out__javaArrayLength0"));
+   }
+
+   @Test public void relativePutIsRejected() {
+      try {
+         ModelCache.getEntrypoint(RelativeKernel.class, "run");
+         fail("relative put accepted");
+      } catch (final ClassParseException expected) {
+         assertEquals(ClassParseException.TYPE.BUFFERMETHOD, expected.getType());
+      } catch (final Exception e) {
+         fail(e.toString());
+      }
+   }
+
+   @Test public void checkBuffer() {
+      assertEquals(null, NioBufferUtil.checkBuffer(allocateFloats(4), true));
+      assertNotNull(NioBufferUtil.checkBuffer(FloatBuffer.allocate(4), false));
+      assertNotNull(NioBufferUtil.checkBuffer(allocateFloats(4).asReadOnlyBuffer(), true));
+   }
+}
@@ -0,0 +1,100 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.opencl.OpenCLLoader;
+
+public class JTPTieredExecution{
+
+   static final int size = 1024;
+
+   static class IncrementKernel extends Kernel{
+      final int[] values = new int[size];
+
+      @Override public void run() {
+         values[getGlobalId()]++;
+      }
+   }
+
+   @Test public void executesWhilePreparing() {
+      final IncrementKernel kernel = new IncrementKernel();
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.GPU);
+      kernel.setTieredExecution(true);
+
+      final Range range = Range.create(size);
+      kernel.execute(range);
+      assertTrue(kernel.getTieredJavaExecutions() >= 1);
+      assertEquals(Kernel.EXECUTION_MODE.JTP, kernel.getExecutionMode());
+
+      kernel.awaitTiered();
+      for (int i = 1; i < 4; i++) {
+         kernel.execute(range);
+      }
+      for (int gid = 0; gid < size; gid++) {
+         assertEquals(4, kernel.values[gid]);
+      }
+
+      // Executions after the program is ready (or OpenCL is found to be unusable) are not counted
+      final int tieredJavaExecutions = kernel.getTieredJavaExecutions();
+      kernel.execute(range);
+      assertEquals(tieredJavaExecutions, kernel.getTieredJavaExecutions());
+      kernel.dispose();
+   }
+
+   @Test public void nextModeAfterFailedPreparation() {
+      assumeTrue(!OpenCLLoader.isOpenCLAvailable());
+      final IncrementKernel kernel = new IncrementKernel();
+
+      // Without OpenCL the default modes are just JTP, so the kernel's modes are JTP, GPU, CPU
+      kernel.addExecutionModes(EXECUTION_MODE.GPU, EXECUTION_MODE.CPU);
+      kernel.tryNextExecutionMode();
+      assertEquals(EXECUTION_MODE.GPU, kernel.getExecutionMode());
+      kernel.setTieredExecution(true);
+
+      // The GPU program can't be prepared, the kernel moves on to CPU rather than staying in JTP
+      final Range range = Range.create(size);
+      kernel.execute(range);
+      kernel.awaitTiered();
+      assertEquals(EXECUTION_MODE.CPU, kernel.getExecutionMode());
+
+      kernel.execute(range);
+      kernel.awaitTiered();
+      assertEquals(EXECUTION_MODE.JTP, kernel.getExecutionMode());
+      assertEquals(2, kernel.values[size - 1]);
+      kernel.dispose();
+   }
+
+   @Test public void switchedToOpenCLWhilePreparing() {
+      final IncrementKernel kernel = new IncrementKernel();
+      kernel.setExecutionMode(EXECUTION_MODE.GPU);
+      kernel.setTieredExecution(true);
+      final Range range = Range.create(size);
+      kernel.execute(range);
+
+      // Waits for the preparation rather than executing with a half built program
+      kernel.setExecutionMode(EXECUTION_MODE.GPU);
+      kernel.execute(range);
+      assertEquals(1, kernel.getTieredJavaExecutions());
+      for (int gid = 0; gid < size; gid++) {
+         assertEquals(2, kernel.values[gid]);
+      }
+      kernel.dispose();
+   }
+
+   @Test public void notTieredInJTP() {
+      final IncrementKernel kernel = new IncrementKernel();
+      kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      kernel.setTieredExecution(true);
+      kernel.execute(Range.create(size));
+      assertEquals(0, kernel.getTieredJavaExecutions());
+      assertEquals(1, kernel.values[size - 1]);
+      kernel.dispose();
+   }
+}
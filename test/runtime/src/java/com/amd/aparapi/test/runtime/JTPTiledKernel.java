@@ -0,0 +1,186 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.ProfileInfo;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.TiledKernel;
+import com.amd.aparapi.internal.model.Entrypoint.AffineIndex;
+import com.amd.aparapi.internal.model.ModelCache;
+
+public class JTPTiledKernel{
+
+   static final int size = 1000;
+
+   /**
+    * Interleaves the sum of neighbouring inputs with a scaled copy of each input.
+    */
+   static class InterleaveKernel extends Kernel{
+      float[] in = new float[size + 1];
+
+      float[] out = new float[size * 2];
+
+      final float[] weights = new float[] {
+            0.5f,
+            2f
+      };
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[2 * gid] = in[gid] + in[gid + 1];
+         out[(gid * 2) + 1] = in[gid] * weights[1];
+      }
+   }
+
+   static class GlobalIdValueKernel extends Kernel{
+      final int[] out = new int[size];
+
+      @Override public void run() {
+         out[getGlobalId()] = getGlobalId();
+      }
+   }
+
+   static class LengthKernel extends Kernel{
+      final int[] out = new int[size];
+
+      @Override public void run() {
+         out[getGlobalId()] = out.length;
+      }
+   }
+
+   static class ScatterKernel extends Kernel{
+      final int[] in = new int[size];
+
+      final int[] out = new int[size];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[in[gid]] = gid;
+      }
+   }
+
+   static class PairKernel extends Kernel{
+      final float[] in = new float[size + 1];
+
+      final float[] out = new float[size + 1];
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = in[gid] * 2f;
+         out[gid + 1] = in[gid + 1] * 2f;
+      }
+   }
+
+   @Test public void analysis() throws Exception {
+      final Map<String, AffineIndex> tiled = ModelCache.getEntrypoint(InterleaveKernel.class, "run").getTiledArrays();
+      assertNotNull(tiled);
+      assertEquals(2, tiled.size());
+      assertEquals(1, tiled.get("in").getScale());
+      assertEquals(1, tiled.get("in").getMaxOffset());
+      assertEquals(2, tiled.get("out").getScale());
+      assertEquals(1, tiled.get("out").getMaxOffset());
+
+      assertNull(ModelCache.getEntrypoint(GlobalIdValueKernel.class, "run").getTiledArrays());
+      assertNull(ModelCache.getEntrypoint(LengthKernel.class, "run").getTiledArrays());
+      assertNull(ModelCache.getEntrypoint(ScatterKernel.class, "run").getTiledArrays());
+   }
+
+   @Test public void executeInTiles() {
+      final InterleaveKernel kernel = new InterleaveKernel();
+      for (int i = 0; i <= size; i++) {
+         kernel.in[i] = i;
+      }
+      final TiledKernel tiledKernel = new TiledKernel(kernel, null).setMaxTileSize(100);
+      final Range range = Range.create(size, 8);
+      assertEquals(96, tiledKernel.getTileSize(range));
+
+      tiledKernel.execute(range);
+      for (int i = 0; i < size; i++) {
+         assertEquals((2 * i) + 1, kernel.out[2 * i], 0f);
+         assertEquals(i * 2f, kernel.out[(2 * i) + 1], 0f);
+      }
+
+      // A second execution sees the kernel's new values
+      kernel.in = new float[size + 1];
+      kernel.out = new float[size * 2];
+      kernel.in[size - 1] = 1f;
+      tiledKernel.execute(range);
+      assertEquals(1f, kernel.out[(2 * size) - 2], 0f);
+      assertEquals(2f, kernel.out[(2 * size) - 1], 0f);
+      assertEquals(0f, kernel.out[0], 0f);
+      tiledKernel.dispose();
+   }
+
+   @Test public void pipelined() {
+      final InterleaveKernel kernel = new InterleaveKernel();
+      for (int i = 0; i <= size; i++) {
+         kernel.in[i] = i;
+      }
+      final TiledKernel tiledKernel = new TiledKernel(kernel, null).setMaxTileSize(64).setPipelineDepth(3);
+      assertEquals(3, tiledKernel.getPipelineDepth());
+      tiledKernel.execute(Range.create(size, 8));
+      for (int i = 0; i < size; i++) {
+         assertEquals((2 * i) + 1, kernel.out[2 * i], 0f);
+         assertEquals(i * 2f, kernel.out[(2 * i) + 1], 0f);
+      }
+      // Profiling is only available in OpenCL
+      assertEquals(0, tiledKernel.getOverlapNanos());
+      tiledKernel.dispose();
+
+      // Neighbouring tiles write the same elements, so they execute one at a time
+      final PairKernel pair = new PairKernel();
+      for (int i = 0; i <= size; i++) {
+         pair.in[i] = i;
+      }
+      final TiledKernel tiledPair = new TiledKernel(pair, null).setMaxTileSize(64);
+      assertEquals(1, tiledPair.getPipelineDepth());
+      tiledPair.execute(Range.create(size, 8));
+      for (int i = 0; i <= size; i++) {
+         assertEquals(i * 2f, pair.out[i], 0f);
+      }
+      tiledPair.dispose();
+   }
+
+   @Test public void overlap() {
+      final int write = 0;
+      final int execute = 1;
+      final int read = 2;
+      assertEquals(20, TiledKernel.getOverlapNanos(Arrays.asList(new ProfileInfo("a", write, 0, 10, 0, 0), new ProfileInfo("a",
+            execute, 10, 30, 0, 0), new ProfileInfo("b", write, 15, 25, 0, 0), new ProfileInfo("a", read, 30, 40, 0, 0),
+            new ProfileInfo("b", execute, 28, 45, 0, 0))));
+      assertEquals(0, TiledKernel.getOverlapNanos(Arrays.asList(new ProfileInfo("a", write, 0, 10, 0, 0), new ProfileInfo("a",
+            execute, 10, 30, 0, 0))));
+   }
+
+   @Test public void overlapAcrossContexts() {
+      final int write = 0;
+      final int execute = 1;
+      // Each context's times start at its own base, a executes 1100..1300 and b writes 1200..1250 on the device's clock
+      final List<ProfileInfo> a = Arrays.asList(new ProfileInfo("a", execute, 100, 300, 0, 0));
+      final List<ProfileInfo> b = Arrays.asList(new ProfileInfo("b", write, 0, 50, 0, 0));
+      final List<ProfileInfo> merged = new ArrayList<ProfileInfo>(TiledKernel.toDeviceTime(a, 1000));
+      merged.addAll(TiledKernel.toDeviceTime(b, 1200));
+      assertEquals(1100, merged.get(0).getStart());
+      assertEquals(1250, merged.get(1).getEnd());
+      assertEquals(50, TiledKernel.getOverlapNanos(merged));
+
+      // Without the bases the intervals appear not to overlap
+      final List<ProfileInfo> unconverted = new ArrayList<ProfileInfo>(a);
+      unconverted.addAll(b);
+      assertEquals(0, TiledKernel.getOverlapNanos(unconverted));
+   }
+
+   @Test(expected = IllegalArgumentException.class) public void refusesUntileable() {
+      new TiledKernel(new ScatterKernel(), null);
+   }
+}
@@ -0,0 +1,242 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.KernelSequence;
+import com.amd.aparapi.Range;
+
+public class KernelSequenceFusion{
+
+   static class ScaleKernel extends Kernel{
+      final float[] in;
+
+      final float[] out;
+
+      float scale = 2f;
+
+      ScaleKernel(float[] _in, float[] _out) {
+         in = _in;
+         out = _out;
+      }
+
+      @Override public void run() {
+         out[getGlobalId()] = in[getGlobalId()] * scale;
+      }
+   }
+
+   static class OffsetKernel extends Kernel{
+      final float[] in;
+
+      final float[] out;
+
+      OffsetKernel(float[] _in, float[] _out) {
+         in = _in;
+         out = _out;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = in[gid] + 1f;
+      }
+   }
+
+   static class MagnitudeKernel extends Kernel{
+      final float[] in;
+
+      final float[] out;
+
+      MagnitudeKernel(float[] _in, float[] _out) {
+         in = _in;
+         out = _out;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = sqrt(abs(in[gid])) + (in[gid] * in[gid]);
+      }
+   }
+
+   static class NeighbourKernel extends Kernel{
+      final float[] in;
+
+      final float[] out;
+
+      NeighbourKernel(float[] _in, float[] _out) {
+         in = _in;
+         out = _out;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         out[gid] = in[gid] - in[max(0, gid - 1)];
+      }
+   }
+
+   static class AccumulateKernel extends Kernel{
+      final float[] in;
+
+      final float[] sum;
+
+      AccumulateKernel(float[] _in, float[] _sum) {
+         in = _in;
+         sum = _sum;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         sum[gid] += in[gid];
+      }
+   }
+
+   /**
+    * The arrays and sequence of one copy of the pipeline scale -> offset -> magnitude -> neighbour -> accumulate.
+    */
+   static class Pipeline{
+      final float[] in;
+
+      final float[] scaled;
+
+      final float[] offset;
+
+      final float[] magnitude;
+
+      final float[] difference;
+
+      final float[] sum;
+
+      final KernelSequence sequence = new KernelSequence();
+
+      Pipeline(float[] _in, Range _range) {
+         final int size = _in.length;
+         in = _in.clone();
+         scaled = new float[size];
+         offset = new float[size];
+         magnitude = new float[size];
+         difference = new float[size];
+         sum = new float[size];
+
+         final Kernel[] kernels = new Kernel[] {
+               new ScaleKernel(in, scaled),
+               new OffsetKernel(scaled, offset),
+               new MagnitudeKernel(offset, magnitude),
+               new NeighbourKernel(magnitude, difference),
+               new AccumulateKernel(difference, sum),
+               new AccumulateKernel(magnitude, sum)
+         };
+         for (final Kernel kernel : kernels) {
+            kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+            sequence.add(kernel, _range);
+         }
+      }
+
+      void execute() {
+         sequence.execute();
+      }
+   }
+
+   @Test public void elementWise() {
+      final Pipeline pipeline = new Pipeline(new float[64], Range.create(64));
+      final List<KernelSequence.Stage> stages = pipeline.sequence.getStages();
+      assertTrue("scale", stages.get(0).isElementWise());
+      assertTrue("offset", stages.get(1).isElementWise());
+      assertTrue("magnitude", stages.get(2).isElementWise());
+      assertFalse("neighbour", stages.get(3).isElementWise());
+      assertTrue("accumulate", stages.get(4).isElementWise());
+
+      final List<List<KernelSequence.Stage>> groups = pipeline.sequence.getFusionGroups();
+      assertEquals("groups", 3, groups.size());
+      assertEquals("first group", 3, groups.get(0).size());
+      assertEquals("neighbour group", 1, groups.get(1).size());
+      assertEquals("accumulate group", 2, groups.get(2).size());
+      assertSame("neighbour", stages.get(3), groups.get(1).get(0));
+
+      assertEquals("unfused groups", stages.size(), pipeline.sequence.setFusion(false).getFusionGroups().size());
+      pipeline.sequence.dispose();
+   }
+
+   @Test public void fusedMatchesUnfused() {
+      final Random random = new Random(42);
+      for (final int size : new int[] {
+            1,
+            17,
+            256,
+            1000,
+            4096
+      }) {
+         final float[] in = new float[size];
+         for (int i = 0; i < size; i++) {
+            in[i] = (random.nextFloat() * 200f) - 100f;
+         }
+         final Range range = Range.create(size);
+
+         final Pipeline fused = new Pipeline(in, range);
+         final Pipeline unfused = new Pipeline(in, range);
+         unfused.sequence.setFusion(false);
+
+         // Run twice so that the accumulating stages see state left by the previous execution
+         for (int execution = 0; execution < 2; execution++) {
+            fused.execute();
+            unfused.execute();
+            assertArrayEquals("magnitude size=" + size, unfused.magnitude, fused.magnitude, 0f);
+            assertArrayEquals("sum size=" + size, unfused.sum, fused.sum, 0f);
+         }
+
+         fused.sequence.dispose();
+         unfused.sequence.dispose();
+      }
+   }
+
+   @Test public void fusedWhileStageExecutes() throws Exception {
+      final int size = 4096;
+      final float[] in = new float[size];
+      for (int i = 0; i < size; i++) {
+         in[i] = i;
+      }
+      final float[] scaled = new float[size];
+      final float[] offset = new float[size];
+      final ScaleKernel scale = new ScaleKernel(in, scaled);
+      final OffsetKernel offsetKernel = new OffsetKernel(scaled, offset);
+      scale.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      offsetKernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      final Range range = Range.create(size);
+      final KernelSequence sequence = new KernelSequence().add(scale, range).add(offsetKernel, range);
+      assertEquals(1, sequence.getFusionGroups().size());
+
+      // The scale kernel also executes on its own over part of the range, the fused executions must not share its workers
+      final Range part = Range.create(size / 8);
+      final Throwable[] failure = new Throwable[1];
+      final Thread thread = new Thread(){
+         @Override public void run() {
+            try {
+               for (int i = 0; i < 200; i++) {
+                  scale.execute(part);
+               }
+            } catch (final Throwable throwable) {
+               failure[0] = throwable;
+            }
+         }
+      };
+      thread.start();
+      for (int i = 0; i < 200; i++) {
+         Arrays.fill(scaled, 0f);
+         sequence.execute();
+         for (int j = 0; j < size; j++) {
+            assertEquals("execution " + i + " offset[" + j + "]", (j * 2f) + 1f, offset[j], 0f);
+         }
+      }
+      thread.join();
+      assertEquals(null, failure[0]);
+      sequence.dispose();
+   }
+}
@@ -0,0 +1,122 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.KernelSequence;
+import com.amd.aparapi.Range;
+
+public class KernelSequencePipeline{
+
+   static final int size = 256;
+
+   static final int bins = 4;
+
+   static class BlurKernel extends Kernel{
+      final int[] in;
+
+      final int[] blurred;
+
+      BlurKernel(int[] _in, int[] _blurred) {
+         in = _in;
+         blurred = _blurred;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         final int left = in[max(0, gid - 1)];
+         final int right = in[min(size - 1, gid + 1)];
+         blurred[gid] = (left + in[gid] + right) / 3;
+      }
+   }
+
+   static class ThresholdKernel extends Kernel{
+      final int[] blurred;
+
+      final int[] mask;
+
+      int threshold = 0;
+
+      ThresholdKernel(int[] _blurred, int[] _mask) {
+         blurred = _blurred;
+         mask = _mask;
+      }
+
+      @Override public void run() {
+         final int gid = getGlobalId();
+         mask[gid] = (blurred[gid] > threshold) ? 1 : 0;
+      }
+   }
+
+   static class HistogramKernel extends Kernel{
+      final int[] mask;
+
+      final int[] histogram = new int[bins];
+
+      HistogramKernel(int[] _mask) {
+         mask = _mask;
+      }
+
+      @Override public void run() {
+         final int bin = getGlobalId();
+         int count = 0;
+         for (int i = bin; i < size; i += bins) {
+            count += mask[i];
+         }
+         histogram[bin] = count;
+      }
+   }
+
+   @Test public void test() throws Exception {
+      final int[] in = new int[size];
+      final int[] blurred = new int[size];
+      final int[] mask = new int[size];
+      for (int i = 0; i < size; i++) {
+         in[i] = i;
+      }
+
+      final BlurKernel blur = new BlurKernel(in, blurred);
+      final ThresholdKernel threshold = new ThresholdKernel(blurred, mask);
+      final HistogramKernel histogram = new HistogramKernel(mask);
+      for (final Kernel kernel : new Kernel[] {
+            blur,
+            threshold,
+            histogram
+      }) {
+         kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+      }
+
+      final KernelSequence sequence = new KernelSequence().add(blur, Range.create(size)).add(threshold, Range.create(size))
+            .add(histogram, Range.create(bins));
+
+      final List<KernelSequence.Stage> producers = sequence.getProducers(mask);
+      assertEquals("producers of mask", 1, producers.size());
+      assertSame("mask producer", threshold, producers.get(0).getKernel());
+      final List<KernelSequence.Stage> consumers = sequence.getConsumers(blurred);
+      assertEquals("consumers of blurred", 2, consumers.size()); // written arrays are treated as read-write
+      assertSame("blurred consumer", threshold, consumers.get(1).getKernel());
+      assertEquals("consumers of in", 1, sequence.getConsumers(in).size());
+
+      threshold.threshold = (size / 2) - 1;
+      sequence.execute();
+      for (int b = 0; b < bins; b++) {
+         assertEquals("histogram[" + b + "]", size / 2 / bins, histogram.histogram[b]);
+      }
+
+      // Change the input on the host and run again asynchronously
+      for (int i = 0; i < size; i++) {
+         in[i] = size;
+      }
+      assertSame("future", sequence, sequence.executeAsync().get());
+      for (int b = 0; b < bins; b++) {
+         assertEquals("histogram[" + b + "]", size / bins, histogram.histogram[b]);
+      }
+
+      sequence.dispose();
+   }
+}
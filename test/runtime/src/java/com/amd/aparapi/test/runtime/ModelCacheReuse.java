@@ -0,0 +1,75 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Config;
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+import com.amd.aparapi.internal.model.Entrypoint;
+import com.amd.aparapi.internal.model.ModelCache;
+
+public class ModelCacheReuse{
+
+   static final int size = 128;
+
+   static class SquareKernel extends Kernel{
+      final int[] out = new int[size];
+
+      final int offset;
+
+      SquareKernel(int _offset) {
+         offset = _offset;
+      }
+
+      int square(int x) {
+         return (x * x);
+      }
+
+      @Override public void run() {
+         out[getGlobalId()] = square(getGlobalId()) + offset;
+      }
+   }
+
+   static class CubeKernel extends SquareKernel{
+      CubeKernel() {
+         super(0);
+      }
+
+      @Override public void run() {
+         out[getGlobalId()] = square(getGlobalId()) * getGlobalId();
+      }
+   }
+
+   @Test public void sharedPerClass() throws Exception {
+      final Entrypoint first = ModelCache.getEntrypoint(SquareKernel.class, "run");
+      final Entrypoint second = ModelCache.getEntrypoint(SquareKernel.class, "run");
+      final Entrypoint cube = ModelCache.getEntrypoint(CubeKernel.class, "run");
+
+      if (Config.disableModelCache) {
+         assertNotSame("entrypoint", first, second);
+      } else {
+         assertSame("entrypoint", first, second);
+         assertSame("class model", first.getClassModel(), ModelCache.getClassModel(SquareKernel.class));
+      }
+      assertNotSame("subclass entrypoint", first, cube);
+      assertSame("subclass class model", CubeKernel.class, cube.getClassModel().getClassWeAreModelling());
+
+      ModelCache.invalidate(SquareKernel.class);
+      assertNotSame("invalidated entrypoint", first, ModelCache.getEntrypoint(SquareKernel.class, "run"));
+   }
+
+   @Test public void instancesKeepTheirOwnState() {
+      for (int k = 0; k < 4; k++) {
+         final SquareKernel kernel = new SquareKernel(k);
+         kernel.execute(Range.create(size));
+         for (int i = 0; i < size; i++) {
+            assertEquals("instance " + k + " out[" + i + "]", (i * i) + k, kernel.out[i]);
+         }
+         kernel.dispose();
+      }
+   }
+}
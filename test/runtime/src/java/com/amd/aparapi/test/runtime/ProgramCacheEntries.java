@@ -0,0 +1,90 @@
+package com.amd.aparapi.test.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.internal.kernel.ProgramCache;
+import com.amd.aparapi.internal.model.ClassModel;
+
+public class ProgramCacheEntries{
+
+   static class FirstKernel extends Kernel{
+      final int[] out = new int[1];
+
+      @Override public void run() {
+         out[0] = 1;
+      }
+   }
+
+   static class SecondKernel extends Kernel{
+      final int[] out = new int[1];
+
+      @Override public void run() {
+         out[0] = 2;
+      }
+   }
+
+   private static final String device = "vendor|name|OpenCL 1.2|driver 1.0|";
+
+   private String key(ProgramCache cache, Class<?> kernelClass, String deviceIdentity) {
+      return (cache.getKey(kernelClass, "run", Collections.<ClassModel> emptyList(), deviceIdentity));
+   }
+
+   @Test public void test() throws IOException {
+      final Path directory = Files.createTempDirectory("aparapi-program-cache");
+      final ProgramCache cache = new ProgramCache(directory.resolve("nested"));
+
+      final String firstKey = key(cache, FirstKernel.class, device);
+      assertNotNull("key", firstKey);
+      assertEquals("key is stable", firstKey, key(cache, FirstKernel.class, device));
+      assertFalse("class changes key", firstKey.equals(key(cache, SecondKernel.class, device)));
+      assertFalse("driver changes key", firstKey.equals(key(cache, FirstKernel.class, "vendor|name|OpenCL 1.2|driver 1.1|")));
+
+      assertNull("miss", cache.getSource(FirstKernel.class, firstKey));
+      assertNull("miss", cache.getBinary(FirstKernel.class, firstKey));
+
+      final byte[] binary = new byte[] {
+            1,
+            2,
+            3
+      };
+      cache.put(FirstKernel.class, firstKey, "__kernel void run(){}", binary);
+      assertEquals("source", "__kernel void run(){}", cache.getSource(FirstKernel.class, firstKey));
+      assertArrayEquals("binary", binary, cache.getBinary(FirstKernel.class, firstKey));
+
+      cache.put(FirstKernel.class, firstKey, "__kernel void run(){ }", new byte[] {
+         4
+      });
+      assertEquals("replaced source", "__kernel void run(){ }", cache.getSource(FirstKernel.class, firstKey));
+
+      // Only the entry's files remain, no temporary files are left behind
+      int files = 0;
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(cache.getDirectory())) {
+         for (final Path entry : entries) {
+            assertTrue(entry.toString(), entry.getFileName().toString().contains(firstKey));
+            files++;
+         }
+      }
+      assertEquals("files", 2, files);
+
+      cache.remove(FirstKernel.class, firstKey);
+      assertNull("removed", cache.getSource(FirstKernel.class, firstKey));
+      assertNull("removed", cache.getBinary(FirstKernel.class, firstKey));
+
+      Files.delete(cache.getDirectory());
+      Files.delete(directory);
+   }
+}